@@ -2,8 +2,10 @@ package community_health.com.communityHealth;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class CommunityHealthApplication {
 
 	public static void main(String[] args) {
@@ -1,19 +1,33 @@
 package community_health.com.communityHealth.chat.controller;
 
+import community_health.com.communityHealth.chat.dto.ChatMessageDto;
+import community_health.com.communityHealth.chat.dto.ChatPresenceDto;
+import community_health.com.communityHealth.chat.dto.ChatRetentionResultDto;
 import community_health.com.communityHealth.chat.model.GroupMessage;
 import community_health.com.communityHealth.chat.repository.GroupMessageRepository;
+import community_health.com.communityHealth.chat.service.ChatBroadcaster;
+import community_health.com.communityHealth.chat.service.ChatMessageService;
+import community_health.com.communityHealth.chat.service.ChatPresenceRegistry;
+import community_health.com.communityHealth.chat.service.ChatRetentionJob;
+import community_health.com.communityHealth.chat.service.ChatWriteBehindService;
 import community_health.com.communityHealth.group.model.Group;
 import community_health.com.communityHealth.group.repository.GroupRepository;
-import community_health.com.communityHealth.user.model.User;
-import community_health.com.communityHealth.user.repository.UserRepository;
+import community_health.com.communityHealth.utils.CursorPage;
+import jakarta.persistence.EntityNotFoundException;
 
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
-import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 
 import java.util.List;
@@ -21,19 +35,28 @@ import java.util.List;
 @Controller
 public class ChatController {
 
-    private final SimpMessageSendingOperations messagingTemplate;
+    private final ChatBroadcaster chatBroadcaster;
     private final GroupMessageRepository messageRepository;
-    private final UserRepository userRepository;
     private final GroupRepository groupRepository;
+    private final ChatMessageService chatMessageService;
+    private final ChatWriteBehindService chatWriteBehindService;
+    private final ChatPresenceRegistry chatPresenceRegistry;
+    private final ChatRetentionJob chatRetentionJob;
 
-    public ChatController(SimpMessageSendingOperations messagingTemplate,
+    public ChatController(ChatBroadcaster chatBroadcaster,
                           GroupMessageRepository messageRepository,
-                          UserRepository userRepository,
-                          GroupRepository groupRepository) {
-        this.messagingTemplate = messagingTemplate;
+                          GroupRepository groupRepository,
+                          ChatMessageService chatMessageService,
+                          ChatWriteBehindService chatWriteBehindService,
+                          ChatPresenceRegistry chatPresenceRegistry,
+                          ChatRetentionJob chatRetentionJob) {
+        this.chatBroadcaster = chatBroadcaster;
         this.messageRepository = messageRepository;
-        this.userRepository = userRepository;
         this.groupRepository = groupRepository;
+        this.chatMessageService = chatMessageService;
+        this.chatWriteBehindService = chatWriteBehindService;
+        this.chatPresenceRegistry = chatPresenceRegistry;
+        this.chatRetentionJob = chatRetentionJob;
     }
 
     // STOMP SEND para /app/group/{groupId}
@@ -46,29 +69,30 @@ public class ChatController {
         }
         Long senderId = message.getSender().getId();
 
-        // 2. Buscar entidades no banco
-        User sender = userRepository.findById(senderId)
-                .orElseThrow(() -> new RuntimeException("Usuário não encontrado: " + senderId));
+        // 2. Validar (em cache) e aceitar a mensagem; a gravação no banco acontece em segundo plano
+        ChatMessageDto accepted = chatWriteBehindService.ingest(groupId, senderId, message.getContent());
 
-        Group group = groupRepository.findById(groupId)
-                .orElseThrow(() -> new RuntimeException("Grupo não encontrado: " + groupId));
-
-        // 3. Preencher e Salvar
-        message.setSender(sender);
-        message.setGroup(group);
-
-        // Define data se não vier preenchida (opcional, pois @CreationTimestamp resolve no banco,
-        // mas para o retorno imediato do socket é bom ter)
-        if (message.getCreatedAt() == null) {
-            message.setCreatedAt(java.time.LocalDateTime.now());
-        }
+        // 3. Enviar para todos os inscritos no tópico do grupo (formato enxuto), sem esperar o banco
+        chatBroadcaster.broadcast(groupId, accepted);
+        chatPresenceRegistry.stopTyping(groupId, senderId);
+    }
 
-        GroupMessage savedMessage = messageRepository.save(message);
+    // STOMP SEND para /app/group/{groupId}/typing (sem corpo): "está digitando", com limite de frequência
+    @MessageMapping("/group/{groupId}/typing")
+    public void typing(@DestinationVariable Long groupId,
+                       @Header(SimpMessageHeaderAccessor.SESSION_ID_HEADER) String sessionId) {
+        chatPresenceRegistry.typing(groupId, sessionId);
+    }
 
-        // 4. Enviar para todos os inscritos no tópico do grupo
-        messagingTemplate.convertAndSend("/topic/group/" + groupId, savedMessage);
+    // STOMP SUBSCRIBE em /app/group/{groupId}/presence: responde uma vez com quem está online e digitando.
+    // As mudanças seguintes chegam em /topic/group/{groupId}/presence (inscreva-se nele antes, com o cabeçalho userId).
+    @SubscribeMapping("/group/{groupId}/presence")
+    public ChatPresenceDto presenceSnapshot(@DestinationVariable Long groupId,
+                                            @Header(SimpMessageHeaderAccessor.SESSION_ID_HEADER) String sessionId) {
+        return chatPresenceRegistry.snapshot(groupId, sessionId);
     }
 
+    // Histórico completo (legado, só o que ainda está na tabela). As telas usam /chat/messages/page.
     @GetMapping("/api/v1/groups/{groupId}/chat/messages")
     @ResponseBody
     public List<GroupMessage> getChatHistory(@PathVariable Long groupId) {
@@ -77,4 +101,51 @@ public class ChatController {
 
         return messageRepository.findByGroupOrderByCreatedAtAsc(group);
     }
-}
\ No newline at end of file
+
+    /**
+     * Endpoint GET para o histórico paginado por cursor (cada página em ordem cronológica).
+     * URL: GET /api/v1/groups/{groupId}/chat/messages/page?before={CURSOR}&limit={N}
+     * Sem "before" vêm as mensagens mais recentes; para voltar no tempo, envie o "nextCursor" da resposta em "before".
+     * URL: GET /api/v1/groups/{groupId}/chat/messages/page?afterId={ID}&limit={N}
+     * Com "afterId" vêm só as mensagens enviadas depois dessa (retomada após reconexão).
+     */
+    @GetMapping("/api/v1/groups/{groupId}/chat/messages/page")
+    @ResponseBody
+    public ResponseEntity<Object> getChatPage(
+            @PathVariable Long groupId,
+            @RequestParam(required = false) String before,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(required = false) Integer limit) {
+        if (before != null && afterId != null) {
+            return new ResponseEntity<>("Informe apenas um entre before e afterId.", HttpStatus.BAD_REQUEST);
+        }
+        try {
+            CursorPage<ChatMessageDto> page = (afterId != null)
+                    ? chatMessageService.getMessagesAfter(groupId, afterId, limit)
+                    : chatMessageService.getHistory(groupId, before, limit);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (EntityNotFoundException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+        } catch (Exception e) {
+            System.err.println("Erro ao buscar mensagens do chat: " + e.getMessage());
+            return new ResponseEntity<>("Erro interno ao buscar mensagens.", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Roda a retenção do chat agora (a mesma do job diário): mensagens antigas e de desafios encerrados
+     * saem da tabela e vão para o arquivo. URL: POST /api/v1/chat/retention/run
+     */
+    @PostMapping("/api/v1/chat/retention/run")
+    @ResponseBody
+    public ResponseEntity<ChatRetentionResultDto> runRetention() {
+        try {
+            return ResponseEntity.ok(chatRetentionJob.run());
+        } catch (Exception e) {
+            System.err.println("Erro na retenção do chat: " + e.getMessage());
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+}
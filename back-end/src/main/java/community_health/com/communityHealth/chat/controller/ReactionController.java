@@ -0,0 +1,98 @@
+package community_health.com.communityHealth.chat.controller;
+
+import community_health.com.communityHealth.chat.dto.ReactionResultDto;
+import community_health.com.communityHealth.chat.service.ReactionService;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Reações (emoji) aos check-ins.
+ * Cada operação é um único comando no banco; repetir a mesma chamada é seguro.
+ */
+@RestController
+@RequestMapping("/api/reactions")
+public class ReactionController {
+
+    private final ReactionService reactionService;
+
+    @Autowired
+    public ReactionController(ReactionService reactionService) {
+        this.reactionService = reactionService;
+    }
+
+    /**
+     * GET /api/reactions?checkinId={ID}&userId={ID}
+     * Total por emoji e os emojis do usuário (userId é opcional).
+     */
+    @GetMapping
+    public ResponseEntity<Object> getReactions(@RequestParam Long checkinId,
+                                               @RequestParam(required = false) Long userId) {
+        try {
+            return ResponseEntity.ok(reactionService.getReactions(checkinId, userId));
+        } catch (Exception e) {
+            System.err.println("Erro ao buscar reações: " + e.getMessage());
+            return new ResponseEntity<>("Erro interno ao buscar reações.", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * POST /api/reactions?checkinId={ID}&userId={ID}&emoji={EMOJI}
+     * 201 se a reação foi criada, 200 se ela já existia.
+     */
+    @PostMapping
+    public ResponseEntity<Object> addReaction(@RequestParam Long checkinId,
+                                              @RequestParam Long userId,
+                                              @RequestParam String emoji) {
+        try {
+            ReactionResultDto result = reactionService.addReaction(checkinId, userId, emoji);
+            return new ResponseEntity<>(result, result.changed() ? HttpStatus.CREATED : HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (EntityNotFoundException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+        } catch (Exception e) {
+            System.err.println("Erro ao adicionar reação: " + e.getMessage());
+            return new ResponseEntity<>("Erro interno ao adicionar reação.", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * DELETE /api/reactions?checkinId={ID}&userId={ID}&emoji={EMOJI}
+     */
+    @DeleteMapping
+    public ResponseEntity<Object> removeReaction(@RequestParam Long checkinId,
+                                                 @RequestParam Long userId,
+                                                 @RequestParam String emoji) {
+        try {
+            return ResponseEntity.ok(reactionService.removeReaction(checkinId, userId, emoji));
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            System.err.println("Erro ao remover reação: " + e.getMessage());
+            return new ResponseEntity<>("Erro interno ao remover reação.", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * POST /api/reactions/toggle?checkinId={ID}&userId={ID}&emoji={EMOJI}
+     * Remove a reação se existir, cria se não existir. A resposta diz como ficou (reacted).
+     */
+    @PostMapping("/toggle")
+    public ResponseEntity<Object> toggleReaction(@RequestParam Long checkinId,
+                                                 @RequestParam Long userId,
+                                                 @RequestParam String emoji) {
+        try {
+            return ResponseEntity.ok(reactionService.toggleReaction(checkinId, userId, emoji));
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (EntityNotFoundException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+        } catch (Exception e) {
+            System.err.println("Erro ao alternar reação: " + e.getMessage());
+            return new ResponseEntity<>("Erro interno ao alternar reação.", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package community_health.com.communityHealth.chat.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Mensagem nova do chat como sai em /topic/group/{id}: só o necessário para desenhar o balão.
+ *
+ * seq é a sequência do grupo na instância que aceitou a mensagem (node = cluster.node-index): com várias
+ * instâncias chegam várias sequências misturadas, então o cliente confere os saltos por node. Um salto indica
+ * mensagem perdida e o cliente completa pelo histórico (afterId); seq 1 de novo é a instância reiniciada.
+ * sentAt vai em epoch millis, mais curto que a data ISO; a ordem de exibição é (sentAt, id), como no histórico
+ * (os IDs são intercalados entre as instâncias e não seguem a ordem de chegada).
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ChatEventDto(
+        Long id,
+        int node,
+        long seq,
+        Long senderId,
+        String senderName,
+        String senderPhoto,
+        String content,
+        long sentAt
+) {}
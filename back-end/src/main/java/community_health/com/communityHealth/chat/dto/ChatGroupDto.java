@@ -0,0 +1,14 @@
+package community_health.com.communityHealth.chat.dto;
+
+import java.util.Set;
+
+/**
+ * Resumo do grupo usado para validar as mensagens do chat: nome e quem pode escrever nele.
+ *
+ * @param memberIds IDs dos membros (o dono incluído)
+ */
+public record ChatGroupDto(
+        Long id,
+        String name,
+        Set<Long> memberIds
+) {}
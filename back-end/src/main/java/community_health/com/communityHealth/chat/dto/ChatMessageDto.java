@@ -0,0 +1,17 @@
+package community_health.com.communityHealth.chat.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Mensagem do chat do grupo como aparece no histórico.
+ * Só o remetente vem junto (id, nome e foto); nada de GroupMessage -> Group -> owner.
+ * Montado direto na query (constructor expression) em GroupMessageRepository.
+ */
+public record ChatMessageDto(
+        Long id,
+        String content,
+        LocalDateTime createdAt,
+        Long senderId,
+        String senderName,
+        String senderPhoto
+) {}
@@ -0,0 +1,15 @@
+package community_health.com.communityHealth.chat.dto;
+
+import java.util.List;
+
+/**
+ * Mudanças de presença do grupo desde a última mensagem em /topic/group/{id}/presence.
+ * Entrar e sair (ou começar e parar de digitar) dentro do mesmo intervalo se anulam.
+ */
+public record ChatPresenceDiffDto(
+        Long groupId,
+        List<ChatSenderDto> joined,
+        List<Long> left,
+        List<Long> typing,
+        List<Long> stoppedTyping
+) {}
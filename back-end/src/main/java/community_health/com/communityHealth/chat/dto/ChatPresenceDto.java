@@ -0,0 +1,12 @@
+package community_health.com.communityHealth.chat.dto;
+
+import java.util.List;
+
+/**
+ * Quem está no chat do grupo agora (resposta da inscrição em /app/group/{id}/presence).
+ */
+public record ChatPresenceDto(
+        Long groupId,
+        List<ChatSenderDto> online,
+        List<Long> typing
+) {}
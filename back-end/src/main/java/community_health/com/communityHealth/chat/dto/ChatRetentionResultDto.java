@@ -0,0 +1,18 @@
+package community_health.com.communityHealth.chat.dto;
+
+/**
+ * Resultado de uma rodada da retenção do chat.
+ *
+ * @param groups Grupos que tiveram mensagens arquivadas
+ * @param messages Mensagens tiradas de Group_Messages e gravadas no arquivo
+ * @param segments Segmentos criados
+ * @param recovered Segmentos de uma rodada interrompida descartados agora (ou compactações concluídas)
+ * @param elapsedMs Tempo total
+ */
+public record ChatRetentionResultDto(
+        int groups,
+        long messages,
+        int segments,
+        int recovered,
+        long elapsedMs
+) {}
@@ -0,0 +1,10 @@
+package community_health.com.communityHealth.chat.dto;
+
+/**
+ * Remetente de uma mensagem do chat: só o que vai junto com a mensagem (id, nome e foto).
+ */
+public record ChatSenderDto(
+        Long id,
+        String name,
+        String photoUrl
+) {}
@@ -0,0 +1,13 @@
+package community_health.com.communityHealth.chat.dto;
+
+/**
+ * Estado da reação depois de um add/remove/toggle.
+ * @param reacted true se o usuário ficou com a reação, false se ficou sem
+ * @param changed false quando o comando não mudou nada (ex: adicionar uma reação que já existia)
+ */
+public record ReactionResultDto(
+        Long checkinId,
+        String emoji,
+        boolean reacted,
+        boolean changed
+) {}
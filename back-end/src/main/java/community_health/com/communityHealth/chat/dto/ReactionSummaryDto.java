@@ -0,0 +1,15 @@
+package community_health.com.communityHealth.chat.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reações de um check-in.
+ * @param counts Total por emoji (o mais usado primeiro)
+ * @param mine Emojis com que o usuário informado já reagiu
+ */
+public record ReactionSummaryDto(
+        Long checkinId,
+        Map<String, Long> counts,
+        List<String> mine
+) {}
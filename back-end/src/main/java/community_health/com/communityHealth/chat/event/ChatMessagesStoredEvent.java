@@ -0,0 +1,13 @@
+package community_health.com.communityHealth.chat.event;
+
+import community_health.com.communityHealth.chat.service.ChatWriteBehindService.PendingMessage;
+
+import java.util.List;
+
+/**
+ * Publicado pela thread do write-behind depois que um bloco de mensagens do chat foi gravado no banco
+ * (inclusive na regravação do spool). Pode repetir mensagens já avisadas; quem escuta deve ser rápido.
+ */
+public record ChatMessagesStoredEvent(
+        List<PendingMessage> messages
+) {}
@@ -12,7 +12,13 @@ import java.time.LocalDateTime;
 
 
 @Entity
-@Table(name = "Group_Messages")
+@Table(
+        name = "Group_Messages",
+        indexes = {
+                // Índice do histórico paginado por cursor (ver GroupMessageRepository.findHistoryBefore)
+                @Index(name = "idx_group_messages_group_created", columnList = "group_id, created_at, id")
+        }
+)
 @Data
 public class GroupMessage {
 
@@ -2,10 +2,16 @@ package community_health.com.communityHealth.chat.model;
 
 import community_health.com.communityHealth.checkin.model.Checkin;
 import community_health.com.communityHealth.user.model.User;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Data;
 
 
+/**
+ * Reação (emoji) de um usuário a um check-in.
+ * A constraint única (checkin_id, user_id, emoji_type) é o que garante uma reação por emoji:
+ * inserir e remover são um único comando no banco (ver ReactionRepository), sem consulta antes.
+ */
 @Entity
 @Table(
         name = "reactions",
@@ -20,14 +26,16 @@ public class Reaction {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "checkin_id", nullable = false)
     private Checkin checkin;
 
-    @ManyToOne
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
     @Column(name = "emoji_type", nullable = false)
     private String emojiType; // Ex: "❤️", "🔥"
-}
\ No newline at end of file
+}
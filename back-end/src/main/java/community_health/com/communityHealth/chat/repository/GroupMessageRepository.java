@@ -1,10 +1,81 @@
 package community_health.com.communityHealth.chat.repository;
 
+import community_health.com.communityHealth.chat.dto.ChatMessageDto;
+import community_health.com.communityHealth.chat.dto.ChatSenderDto;
 import community_health.com.communityHealth.chat.model.GroupMessage;
 import community_health.com.communityHealth.group.model.Group;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 public interface GroupMessageRepository extends JpaRepository<GroupMessage, Long> {
     List<GroupMessage> findByGroupOrderByCreatedAtAsc(Group group);
-}
\ No newline at end of file
+
+    // Mensagens mais recentes do grupo (mais novas primeiro)
+    @Query("""
+    SELECT new community_health.com.communityHealth.chat.dto.ChatMessageDto(
+        m.id, m.content, m.createdAt, s.id, s.name, s.photoUrl)
+    FROM GroupMessage m
+    JOIN m.sender s
+    WHERE m.group.id = :groupId
+    ORDER BY m.createdAt DESC, m.id DESC
+""")
+    List<ChatMessageDto> findLatest(@Param("groupId") Long groupId, Limit limit);
+
+    // Páginas anteriores: tudo que vem antes do cursor (createdAt, id), mais novas primeiro
+    @Query("""
+    SELECT new community_health.com.communityHealth.chat.dto.ChatMessageDto(
+        m.id, m.content, m.createdAt, s.id, s.name, s.photoUrl)
+    FROM GroupMessage m
+    JOIN m.sender s
+    WHERE m.group.id = :groupId
+      AND (m.createdAt < :createdAt OR (m.createdAt = :createdAt AND m.id < :id))
+    ORDER BY m.createdAt DESC, m.id DESC
+""")
+    List<ChatMessageDto> findHistoryBefore(@Param("groupId") Long groupId,
+                                           @Param("createdAt") LocalDateTime createdAt,
+                                           @Param("id") Long id,
+                                           Limit limit);
+
+    // Retomada após reconexão: tudo que vem depois de (createdAt, id), mais antigas primeiro
+    @Query("""
+    SELECT new community_health.com.communityHealth.chat.dto.ChatMessageDto(
+        m.id, m.content, m.createdAt, s.id, s.name, s.photoUrl)
+    FROM GroupMessage m
+    JOIN m.sender s
+    WHERE m.group.id = :groupId
+      AND (m.createdAt > :createdAt OR (m.createdAt = :createdAt AND m.id > :id))
+    ORDER BY m.createdAt, m.id
+""")
+    List<ChatMessageDto> findHistoryAfter(@Param("groupId") Long groupId,
+                                          @Param("createdAt") LocalDateTime createdAt,
+                                          @Param("id") Long id,
+                                          Limit limit);
+
+    // Data da mensagem usada como ponto de retomada (só se for do grupo)
+    @Query("SELECT m.createdAt FROM GroupMessage m WHERE m.id = :id AND m.group.id = :groupId")
+    Optional<LocalDateTime> findCreatedAtByIdAndGroupId(@Param("id") Long id, @Param("groupId") Long groupId);
+
+    // Remetente das mensagens novas, sem carregar o User inteiro (ver ChatLookupCache)
+    @Query("""
+    SELECT new community_health.com.communityHealth.chat.dto.ChatSenderDto(u.id, u.name, u.photoUrl)
+    FROM User u
+    WHERE u.id = :userId
+""")
+    Optional<ChatSenderDto> findSenderById(@Param("userId") Long userId);
+
+    // Nome e dono do grupo: uma linha com [name, ownerId] (ver ChatLookupCache)
+    @Query("SELECT g.name, g.owner.id FROM Group g WHERE g.id = :groupId")
+    List<Object[]> findGroupSummaryById(@Param("groupId") Long groupId);
+
+    @Query("SELECT m.user.id FROM GroupMember m WHERE m.group.id = :groupId")
+    List<Long> findMemberIdsByGroupId(@Param("groupId") Long groupId);
+
+    @Query("SELECT COALESCE(MAX(m.id), 0) FROM GroupMessage m")
+    long findMaxId();
+}
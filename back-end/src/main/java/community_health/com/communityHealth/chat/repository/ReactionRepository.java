@@ -0,0 +1,51 @@
+package community_health.com.communityHealth.chat.repository;
+
+import community_health.com.communityHealth.chat.model.Reaction;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ReactionRepository extends JpaRepository<Reaction, Long> {
+
+    /**
+     * @return 1 se a reação foi removida, 0 se não existia
+     */
+    @Modifying
+    @Query("DELETE FROM Reaction r WHERE r.checkin.id = :checkinId AND r.user.id = :userId AND r.emojiType = :emoji")
+    int deleteReaction(@Param("checkinId") Long checkinId, @Param("userId") Long userId, @Param("emoji") String emoji);
+
+    // Copia as reações antigas (comentários só com emoji) para esta tabela, ignorando as que já existem
+    @Modifying
+    @Query("""
+    INSERT INTO Reaction (checkin.id, user.id, emojiType)
+    SELECT DISTINCT c.checkin.id, c.user.id, c.reactionEmoji
+    FROM Comment c
+    WHERE c.reactionEmoji IS NOT NULL AND c.content IS NULL
+      AND NOT EXISTS (
+          SELECT 1 FROM Reaction r
+          WHERE r.checkin.id = c.checkin.id AND r.user.id = c.user.id AND r.emojiType = c.reactionEmoji)
+""")
+    int copyLegacyReactionsFromComments();
+
+    @Modifying
+    @Query("DELETE FROM Reaction r WHERE r.checkin.id = :checkinId")
+    int deleteByCheckinId(@Param("checkinId") Long checkinId);
+
+    // Total por emoji de vários check-ins de uma vez: [checkinId, emoji, total]
+    @Query("""
+    SELECT r.checkin.id, r.emojiType, COUNT(r)
+    FROM Reaction r
+    WHERE r.checkin.id IN :checkinIds
+    GROUP BY r.checkin.id, r.emojiType
+    ORDER BY COUNT(r) DESC
+""")
+    List<Object[]> countByCheckinIdsGroupedByEmoji(@Param("checkinIds") Collection<Long> checkinIds);
+
+    // Emojis com que o usuário já reagiu ao check-in
+    @Query("SELECT r.emojiType FROM Reaction r WHERE r.checkin.id = :checkinId AND r.user.id = :userId")
+    List<String> findEmojisByCheckinIdAndUserId(@Param("checkinId") Long checkinId, @Param("userId") Long userId);
+}
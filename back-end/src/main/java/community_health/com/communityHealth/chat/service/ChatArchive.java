@@ -0,0 +1,774 @@
+package community_health.com.communityHealth.chat.service;
+
+import community_health.com.communityHealth.chat.dto.ChatMessageDto;
+import community_health.com.communityHealth.chat.dto.ChatSenderDto;
+import community_health.com.communityHealth.cluster.dto.ClusterEnvelope;
+import community_health.com.communityHealth.cluster.service.ClusterFanout;
+import community_health.com.communityHealth.utils.TtlCache;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Arquivo morto do chat: mensagens antigas tiradas de Group_Messages pela retenção (ChatRetentionJob).
+ *
+ * Cada grupo tem uma pasta com segmentos só de acréscimo (segment-000001.dat/.idx, ...):
+ * - .dat: blocos comprimidos (Deflate) de até chat.archive.block-size-kb de mensagens, em ordem (createdAt, id).
+ * - .idx: uma entrada por bloco com posição, tamanhos, primeira/última chave (createdAt, id) e menor/maior ID.
+ * Os dois arquivos são lidos mapeados em memória (mmap): só os blocos de uma página são descomprimidos,
+ * e os últimos blocos lidos ficam num cache pequeno para a página seguinte.
+ *
+ * Um segmento só vale depois do commit (o .idx.tmp vira .idx), feito antes de as linhas saírem do banco:
+ * em nenhum momento uma mensagem some dos dois lugares. Depois de uma queda a mesma mensagem pode ficar
+ * no banco e no arquivo até a próxima rodada, e as leituras ignoram a cópia repetida (ver recover).
+ *
+ * Cada rodada da retenção cria segmentos novos, e num grupo pequeno eles têm poucas mensagens. Para as
+ * leituras não percorrerem centenas de segmentos, compact junta os segmentos com menos de
+ * chat.archive.small-segment-messages mensagens num só.
+ *
+ * Com várias instâncias a pasta é compartilhada e só uma roda a retenção: cada commit é avisado às outras
+ * pelo ClusterFanout (destinos em CLUSTER_PREFIX), logo depois da publicação e antes de a retenção apagar
+ * as linhas, e as outras relêem a pasta do grupo (ver reload).
+ */
+@Component
+public class ChatArchive {
+
+    /**
+     * Mensagem como fica no arquivo (o nome e a foto do remetente vêm do ChatLookupCache na leitura).
+     */
+    public record ArchivedMessage(Long id, LocalDateTime createdAt, Long senderId, String content) {}
+
+    /**
+     * Segmento gravado mas ainda não publicado: falta chamar commit (ou abort) e só então tirar as mensagens do banco.
+     */
+    public record PreparedSegment(Long groupId, Path dataFile, Path indexFile, int messages) {}
+
+    private static final int INDEX_MAGIC = 0x43484958; // "CHIX"
+    private static final int INDEX_VERSION = 1;
+    private static final int INDEX_HEADER_BYTES = 12;
+    private static final int INDEX_ENTRY_BYTES = 68;
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String REPLACES_SUFFIX = ".replaces";
+    private static final String CLUSTER_PREFIX = "/cluster/chat-archive/";
+
+    private static final Comparator<ArchivedMessage> CHRONOLOGICAL =
+            Comparator.comparing(ArchivedMessage::createdAt).thenComparing(ArchivedMessage::id);
+
+    private record BlockKey(Path dataFile, int block) {}
+
+    private final ChatLookupCache lookupCache;
+    private final ClusterFanout clusterFanout;
+    private final Path archiveDir;
+    private final int blockSizeBytes;
+    private final int smallSegmentMessages;
+    private final TtlCache<BlockKey, List<ArchivedMessage>> blockCache;
+
+    // Segmentos publicados por grupo, do mais antigo para o mais novo (lista trocada inteira a cada commit)
+    private final Map<Long, List<Segment>> segments = new ConcurrentHashMap<>();
+    private volatile long maxId;
+
+    @Autowired
+    public ChatArchive(ChatLookupCache lookupCache, ClusterFanout clusterFanout,
+                       @Value("${chat.archive.dir:data/chat-archive}") String archiveDir,
+                       @Value("${chat.archive.block-size-kb:64}") int blockSizeKb,
+                       @Value("${chat.archive.block-cache-size:256}") int blockCacheSize,
+                       @Value("${chat.archive.small-segment-messages:5000}") int smallSegmentMessages) {
+        this.lookupCache = lookupCache;
+        this.clusterFanout = clusterFanout;
+        this.archiveDir = Path.of(archiveDir);
+        this.blockSizeBytes = Math.max(1, blockSizeKb) * 1024;
+        this.smallSegmentMessages = smallSegmentMessages;
+        this.blockCache = new TtlCache<>(Math.max(1, blockCacheSize), 600_000);
+        load();
+        clusterFanout.subscribe(this::onClusterCommit);
+    }
+
+    /**
+     * Maior ID de mensagem no arquivo (o gerador de IDs do chat não pode reaproveitar IDs arquivados).
+     */
+    public long maxId() {
+        return maxId;
+    }
+
+    public long maxId(Long groupId) {
+        long max = 0;
+        for (Segment segment : segmentsOf(groupId)) {
+            max = Math.max(max, segment.maxId);
+        }
+        return max;
+    }
+
+    /**
+     * Mensagens arquivadas do grupo anteriores ao cursor (todas, se createdAt for null), mais novas primeiro.
+     */
+    public List<ChatMessageDto> findBefore(Long groupId, LocalDateTime createdAt, Long id, int limit) {
+        long cursor = createdAt == null ? Long.MAX_VALUE : toNanos(createdAt);
+        long cursorId = createdAt == null ? Long.MAX_VALUE : id;
+        List<ArchivedMessage> found = new ArrayList<>();
+        for (Segment segment : segmentsOf(groupId)) {
+            if (compare(segment.firstNanos[0], segment.firstId[0], cursor, cursorId) >= 0) {
+                continue;
+            }
+            int taken = 0;
+            for (int block = segment.blocks - 1; block >= 0 && taken < limit; block--) {
+                if (compare(segment.firstNanos[block], segment.firstId[block], cursor, cursorId) >= 0) {
+                    continue;
+                }
+                List<ArchivedMessage> messages = block(segment, block);
+                for (int i = messages.size() - 1; i >= 0 && taken < limit; i--) {
+                    ArchivedMessage message = messages.get(i);
+                    if (compare(toNanos(message.createdAt()), message.id(), cursor, cursorId) < 0) {
+                        found.add(message);
+                        taken++;
+                    }
+                }
+            }
+        }
+        return page(found, CHRONOLOGICAL.reversed(), limit);
+    }
+
+    /**
+     * Mensagens arquivadas do grupo posteriores a (createdAt, id), mais antigas primeiro.
+     */
+    public List<ChatMessageDto> findAfter(Long groupId, LocalDateTime createdAt, Long id, int limit) {
+        long cursor = toNanos(createdAt);
+        List<ArchivedMessage> found = new ArrayList<>();
+        for (Segment segment : segmentsOf(groupId)) {
+            int last = segment.blocks - 1;
+            if (compare(segment.lastNanos[last], segment.lastId[last], cursor, id) <= 0) {
+                continue;
+            }
+            int taken = 0;
+            for (int block = 0; block < segment.blocks && taken < limit; block++) {
+                if (compare(segment.lastNanos[block], segment.lastId[block], cursor, id) <= 0) {
+                    continue;
+                }
+                for (ArchivedMessage message : block(segment, block)) {
+                    if (taken < limit && compare(toNanos(message.createdAt()), message.id(), cursor, id) > 0) {
+                        found.add(message);
+                        taken++;
+                    }
+                }
+            }
+        }
+        return page(found, CHRONOLOGICAL, limit);
+    }
+
+    /**
+     * Data de uma mensagem arquivada do grupo (ponto de retomada do histórico).
+     */
+    public Optional<LocalDateTime> findCreatedAt(Long groupId, Long id) {
+        return find(groupId, id).map(ArchivedMessage::createdAt);
+    }
+
+    /**
+     * Mensagens arquivadas do grupo com esses IDs (as que não estiverem no arquivo ficam de fora).
+     */
+    public List<ChatMessageDto> findByIds(Long groupId, Collection<Long> ids) {
+        List<ChatMessageDto> found = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            find(groupId, id).ifPresent(message -> found.add(toDto(message)));
+        }
+        return found;
+    }
+
+    /**
+     * Percorre todas as mensagens arquivadas do grupo, segmento por segmento (reconstrução da busca).
+     */
+    public void forEach(Long groupId, Consumer<ArchivedMessage> consumer) {
+        for (Segment segment : segmentsOf(groupId)) {
+            for (int block = 0; block < segment.blocks; block++) {
+                decode(segment, block).forEach(consumer);
+            }
+        }
+    }
+
+    /**
+     * Grava as mensagens (já em ordem de createdAt e id) num novo segmento do grupo, ainda não publicado.
+     */
+    public PreparedSegment prepare(Long groupId, List<ArchivedMessage> messages) {
+        if (messages.isEmpty()) {
+            throw new IllegalArgumentException("Segmento sem mensagens.");
+        }
+        try {
+            Path groupDir = archiveDir.resolve("group-" + groupId);
+            Files.createDirectories(groupDir);
+            String name = "segment-%06d".formatted(nextSequence(groupDir));
+            Path dataFile = groupDir.resolve(name + ".dat");
+            Path indexFile = groupDir.resolve(name + ".idx");
+            Path indexTemp = groupDir.resolve(name + ".idx" + TEMP_SUFFIX);
+
+            ByteArrayOutputStream index = new ByteArrayOutputStream();
+            DataOutputStream indexOut = new DataOutputStream(index);
+            int blocks = 0;
+            try (FileChannel channel = FileChannel.open(dataFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                DataOutputStream dataOut = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+                long offset = 0;
+                int start = 0;
+                while (start < messages.size()) {
+                    ByteArrayOutputStream raw = new ByteArrayOutputStream(blockSizeBytes);
+                    DataOutputStream rawOut = new DataOutputStream(raw);
+                    int end = start;
+                    long minId = Long.MAX_VALUE;
+                    long maxBlockId = Long.MIN_VALUE;
+                    while (end < messages.size() && (end == start || raw.size() < blockSizeBytes)) {
+                        ArchivedMessage message = messages.get(end++);
+                        writeMessage(rawOut, message);
+                        minId = Math.min(minId, message.id());
+                        maxBlockId = Math.max(maxBlockId, message.id());
+                    }
+                    byte[] compressed = compress(raw.toByteArray());
+                    dataOut.write(compressed);
+
+                    ArchivedMessage first = messages.get(start);
+                    ArchivedMessage last = messages.get(end - 1);
+                    indexOut.writeLong(offset);
+                    indexOut.writeInt(compressed.length);
+                    indexOut.writeInt(raw.size());
+                    indexOut.writeInt(end - start);
+                    indexOut.writeLong(toNanos(first.createdAt()));
+                    indexOut.writeLong(first.id());
+                    indexOut.writeLong(toNanos(last.createdAt()));
+                    indexOut.writeLong(last.id());
+                    indexOut.writeLong(minId);
+                    indexOut.writeLong(maxBlockId);
+                    offset += compressed.length;
+                    blocks++;
+                    start = end;
+                }
+                dataOut.flush();
+                channel.force(true);
+            }
+
+            try (FileChannel channel = FileChannel.open(indexTemp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                ByteBuffer header = ByteBuffer.allocate(INDEX_HEADER_BYTES).putInt(INDEX_MAGIC).putInt(INDEX_VERSION).putInt(blocks);
+                channel.write(header.flip());
+                channel.write(ByteBuffer.wrap(index.toByteArray()));
+                channel.force(true);
+            }
+            return new PreparedSegment(groupId, dataFile, indexFile, messages.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erro ao gravar segmento do arquivo do chat do grupo " + groupId, e);
+        }
+    }
+
+    /**
+     * Publica o segmento: a partir daqui as leituras do histórico passam a enxergá-lo.
+     * Se falhar, o segmento é descartado e a exceção sobe (as mensagens não podem sair do banco).
+     */
+    public void commit(PreparedSegment prepared) {
+        commit(prepared, List.of());
+    }
+
+    /**
+     * Descarta um segmento preparado (as mensagens continuam no banco).
+     */
+    public void abort(PreparedSegment prepared) {
+        try {
+            Files.deleteIfExists(tempOf(prepared.indexFile()));
+            Files.deleteIfExists(prepared.dataFile());
+        } catch (IOException e) {
+            System.err.println("Erro ao descartar segmento " + prepared.dataFile() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Junta num segmento só os segmentos pequenos do grupo (menos de chat.archive.small-segment-messages
+     * mensagens), se houver mais de um. O segmento novo é publicado no lugar deles de uma vez;
+     * cópias repetidas de uma mesma mensagem ficam de fora.
+     *
+     * Antes do commit fica ao lado do segmento novo um .replaces com os segmentos substituídos:
+     * se a instância cair depois do commit, recover (ou a próxima subida) termina de apagá-los.
+     *
+     * @return Quantidade de segmentos substituídos (0 se não havia o que juntar)
+     */
+    public int compact(Long groupId) {
+        List<Segment> small = segmentsOf(groupId).stream()
+                .filter(segment -> segment.messages < smallSegmentMessages)
+                .toList();
+        if (small.size() < 2) {
+            return 0;
+        }
+
+        Map<Long, ArchivedMessage> byId = new HashMap<>();
+        for (Segment segment : small) {
+            for (int block = 0; block < segment.blocks; block++) {
+                decode(segment, block).forEach(message -> byId.putIfAbsent(message.id(), message));
+            }
+        }
+        List<ArchivedMessage> merged = new ArrayList<>(byId.values());
+        merged.sort(CHRONOLOGICAL);
+
+        PreparedSegment prepared = prepare(groupId, merged);
+        Path marker = replacesOf(prepared.indexFile());
+        try {
+            StringBuilder names = new StringBuilder();
+            for (Segment segment : small) {
+                names.append(baseName(segment.indexFile)).append('\n');
+            }
+            try (FileChannel channel = FileChannel.open(marker, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.wrap(names.toString().getBytes(StandardCharsets.UTF_8)));
+                channel.force(true);
+            }
+        } catch (IOException e) {
+            abort(prepared);
+            deleteQuietly(marker);
+            throw new UncheckedIOException("Erro ao compactar o arquivo do chat do grupo " + groupId, e);
+        }
+        try {
+            commit(prepared, small);
+        } catch (RuntimeException e) {
+            deleteQuietly(marker);
+            throw e;
+        }
+        finishCompaction(marker);
+        return small.size();
+    }
+
+    /**
+     * Resolve o que uma queda deixou pela metade:
+     * - .idx.tmp é de um segmento que nunca foi publicado: as linhas ainda estão no banco (ou, numa compactação,
+     *   os segmentos antigos continuam publicados), então ele é descartado;
+     * - .replaces ao lado de um segmento publicado: a compactação terminou e falta apagar os segmentos substituídos;
+     * - .dat sem índice: a gravação caiu antes do .idx.tmp existir.
+     * Deve rodar antes de preparar novos segmentos (ChatRetentionJob faz isso no começo de cada rodada).
+     *
+     * @return Quantidade de segmentos descartados ou compactações concluídas
+     */
+    public int recover() {
+        int recovered = 0;
+        if (!Files.isDirectory(archiveDir)) {
+            return recovered;
+        }
+        try (DirectoryStream<Path> groupDirs = Files.newDirectoryStream(archiveDir, "group-*")) {
+            for (Path groupDir : groupDirs) {
+                Long groupId = Long.valueOf(groupDir.getFileName().toString().substring("group-".length()));
+                try (DirectoryStream<Path> temps = Files.newDirectoryStream(groupDir, "*.idx" + TEMP_SUFFIX)) {
+                    for (Path indexTemp : temps) {
+                        String indexName = indexTemp.getFileName().toString();
+                        Path indexFile = indexTemp.resolveSibling(indexName.substring(0, indexName.length() - TEMP_SUFFIX.length()));
+                        Path dataFile = indexTemp.resolveSibling(indexName.replace(".idx" + TEMP_SUFFIX, ".dat"));
+                        abort(new PreparedSegment(groupId, dataFile, indexFile, 0));
+                        recovered++;
+                    }
+                }
+                recovered += finishCompactions(groupDir);
+                try (DirectoryStream<Path> dataFiles = Files.newDirectoryStream(groupDir, "segment-*.dat")) {
+                    for (Path dataFile : dataFiles) {
+                        Path indexFile = dataFile.resolveSibling(dataFile.getFileName().toString().replace(".dat", ".idx"));
+                        if (!Files.exists(indexFile) && !Files.exists(tempOf(indexFile))) {
+                            Files.delete(dataFile);
+                        }
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Erro ao recuperar segmentos do arquivo do chat: " + e.getMessage());
+        }
+        return recovered;
+    }
+
+    private void load() {
+        if (!Files.isDirectory(archiveDir)) {
+            return;
+        }
+        try (DirectoryStream<Path> groupDirs = Files.newDirectoryStream(archiveDir, "group-*")) {
+            for (Path groupDir : groupDirs) {
+                Long groupId = Long.valueOf(groupDir.getFileName().toString().substring("group-".length()));
+                // Compactação publicada antes da queda: os segmentos substituídos não podem voltar
+                finishCompactions(groupDir);
+                reload(groupId);
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Erro ao abrir o arquivo do chat: " + e.getMessage());
+        }
+    }
+
+    private void commit(PreparedSegment prepared, List<Segment> replaced) {
+        try {
+            Files.move(tempOf(prepared.indexFile()), prepared.indexFile(), StandardCopyOption.ATOMIC_MOVE);
+            publish(prepared.groupId(), Segment.open(prepared.dataFile(), prepared.indexFile()), replaced);
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(prepared.indexFile());
+            abort(prepared);
+            throw new IllegalStateException("Erro ao publicar segmento " + prepared.indexFile() + ": " + e.getMessage(), e);
+        }
+        clusterFanout.publish(new ClusterEnvelope(CLUSTER_PREFIX + prepared.groupId(), null, new byte[0]));
+    }
+
+    // Segmento publicado por outra instância na pasta compartilhada: "{groupId}"
+    private void onClusterCommit(ClusterEnvelope envelope) {
+        if (envelope.destination().startsWith(CLUSTER_PREFIX)) {
+            reload(Long.valueOf(envelope.destination().substring(CLUSTER_PREFIX.length())));
+        }
+    }
+
+    // Relê os segmentos publicados do grupo (os já abertos são reaproveitados). Os substituídos por uma
+    // compactação já publicada ficam de fora mesmo que ainda não tenham sido apagados
+    private void reload(Long groupId) {
+        Path groupDir = archiveDir.resolve("group-" + groupId);
+        if (!Files.isDirectory(groupDir)) {
+            return;
+        }
+        try {
+            Set<String> replaced = replacedSegments(groupDir);
+            List<Path> indexFiles = new ArrayList<>();
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(groupDir, "segment-*.idx")) {
+                files.forEach(indexFiles::add);
+            }
+            indexFiles.sort(Comparator.comparing(Path::toString));
+
+            Map<Path, Segment> opened = new HashMap<>();
+            segmentsOf(groupId).forEach(segment -> opened.put(segment.indexFile, segment));
+            List<Segment> updated = new ArrayList<>(indexFiles.size());
+            for (Path indexFile : indexFiles) {
+                if (replaced.contains(baseName(indexFile))) {
+                    continue;
+                }
+                Segment segment = opened.get(indexFile);
+                if (segment == null) {
+                    try {
+                        segment = Segment.open(indexFile.resolveSibling(baseName(indexFile) + ".dat"), indexFile);
+                    } catch (IOException | RuntimeException e) {
+                        System.err.println("Segmento do arquivo do chat ilegível, ignorado: " + indexFile + " (" + e.getMessage() + ")");
+                        continue;
+                    }
+                }
+                updated.add(segment);
+            }
+            replaceAll(groupId, updated);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Erro ao reler o arquivo do chat do grupo " + groupId + ": " + e.getMessage());
+        }
+    }
+
+    private synchronized void replaceAll(Long groupId, List<Segment> updated) {
+        segments.put(groupId, List.copyOf(updated));
+        for (Segment segment : updated) {
+            maxId = Math.max(maxId, segment.maxId);
+        }
+    }
+
+    // Troca a lista do grupo inteira: quem está lendo continua com a anterior (os mapeamentos seguem válidos)
+    private synchronized void publish(Long groupId, Segment segment, List<Segment> replaced) {
+        List<Segment> updated = new ArrayList<>(segmentsOf(groupId));
+        updated.removeAll(replaced);
+        updated.add(segment);
+        segments.put(groupId, List.copyOf(updated));
+        maxId = Math.max(maxId, segment.maxId);
+    }
+
+    // Apaga os segmentos listados nos .replaces de compactações já publicadas; .replaces sem segmento é de uma
+    // compactação que não chegou ao commit e sai junto com o .idx.tmp dela
+    private int finishCompactions(Path groupDir) throws IOException {
+        int finished = 0;
+        List<Path> markers = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(groupDir, "segment-*" + REPLACES_SUFFIX)) {
+            files.forEach(markers::add);
+        }
+        for (Path marker : markers) {
+            Path indexFile = marker.resolveSibling(baseName(marker) + ".idx");
+            if (Files.exists(indexFile)) {
+                finishCompaction(marker);
+                finished++;
+            } else if (!Files.exists(tempOf(indexFile))) {
+                Files.delete(marker);
+            }
+        }
+        return finished;
+    }
+
+    // Nomes dos segmentos listados nos .replaces de compactações já publicadas
+    private static Set<String> replacedSegments(Path groupDir) throws IOException {
+        Set<String> replaced = new HashSet<>();
+        try (DirectoryStream<Path> markers = Files.newDirectoryStream(groupDir, "segment-*" + REPLACES_SUFFIX)) {
+            for (Path marker : markers) {
+                if (Files.exists(marker.resolveSibling(baseName(marker) + ".idx"))) {
+                    for (String name : Files.readAllLines(marker, StandardCharsets.UTF_8)) {
+                        if (!name.isBlank()) {
+                            replaced.add(name);
+                        }
+                    }
+                }
+            }
+        }
+        return replaced;
+    }
+
+    // O .idx sai antes do .dat: se cair no meio, o .dat órfão é apagado por recover
+    private void finishCompaction(Path marker) {
+        try {
+            for (String name : Files.readAllLines(marker, StandardCharsets.UTF_8)) {
+                if (!name.isBlank()) {
+                    Files.deleteIfExists(marker.resolveSibling(name + ".idx"));
+                    Files.deleteIfExists(marker.resolveSibling(name + ".dat"));
+                }
+            }
+            Files.delete(marker);
+        } catch (IOException e) {
+            System.err.println("Erro ao apagar segmentos compactados de " + marker + ": " + e.getMessage());
+        }
+    }
+
+    private List<Segment> segmentsOf(Long groupId) {
+        return segments.getOrDefault(groupId, List.of());
+    }
+
+    private Optional<ArchivedMessage> find(Long groupId, Long id) {
+        for (Segment segment : segmentsOf(groupId)) {
+            if (id < segment.minId || id > segment.maxId) {
+                continue;
+            }
+            for (int block = 0; block < segment.blocks; block++) {
+                if (id < segment.minIdOf[block] || id > segment.maxIdOf[block]) {
+                    continue;
+                }
+                for (ArchivedMessage message : block(segment, block)) {
+                    if (message.id().equals(id)) {
+                        return Optional.of(message);
+                    }
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    private List<ArchivedMessage> block(Segment segment, int block) {
+        return blockCache.get(new BlockKey(segment.dataFile, block), key -> decode(segment, block));
+    }
+
+    // Ordena, tira repetidas (mensagem arquivada duas vezes depois de uma regravação do spool) e converte
+    private List<ChatMessageDto> page(List<ArchivedMessage> found, Comparator<ArchivedMessage> order, int limit) {
+        found.sort(order);
+        Set<Long> ids = new HashSet<>();
+        List<ChatMessageDto> page = new ArrayList<>(Math.min(limit, found.size()));
+        for (ArchivedMessage message : found) {
+            if (page.size() == limit) {
+                break;
+            }
+            if (ids.add(message.id())) {
+                page.add(toDto(message));
+            }
+        }
+        return page;
+    }
+
+    private ChatMessageDto toDto(ArchivedMessage message) {
+        ChatSenderDto sender;
+        try {
+            sender = lookupCache.getSender(message.senderId());
+        } catch (EntityNotFoundException e) {
+            sender = new ChatSenderDto(message.senderId(), null, null);
+        }
+        return new ChatMessageDto(message.id(), message.content(), message.createdAt(),
+                sender.id(), sender.name(), sender.photoUrl());
+    }
+
+    private static List<ArchivedMessage> decode(Segment segment, int block) {
+        byte[] raw = new byte[segment.rawLength[block]];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(segment.data.slice((int) segment.offset[block], segment.compressedLength[block]));
+            int read = 0;
+            while (read < raw.length && !inflater.finished()) {
+                read += inflater.inflate(raw, read, raw.length - read);
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Bloco corrompido em " + segment.dataFile + ": " + e.getMessage(), e);
+        } finally {
+            inflater.end();
+        }
+
+        ByteBuffer in = ByteBuffer.wrap(raw);
+        List<ArchivedMessage> messages = new ArrayList<>(segment.count[block]);
+        for (int i = 0; i < segment.count[block]; i++) {
+            long id = in.getLong();
+            LocalDateTime createdAt = fromNanos(in.getLong());
+            long senderId = in.getLong();
+            byte[] content = new byte[in.getInt()];
+            in.get(content);
+            messages.add(new ArchivedMessage(id, createdAt, senderId, new String(content, StandardCharsets.UTF_8)));
+        }
+        return messages;
+    }
+
+    private static void writeMessage(DataOutputStream out, ArchivedMessage message) throws IOException {
+        byte[] content = message.content().getBytes(StandardCharsets.UTF_8);
+        out.writeLong(message.id());
+        out.writeLong(toNanos(message.createdAt()));
+        out.writeLong(message.senderId());
+        out.writeInt(content.length);
+        out.write(content);
+    }
+
+    private static byte[] compress(byte[] raw) {
+        Deflater deflater = new Deflater();
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 3 + 64);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static int nextSequence(Path groupDir) throws IOException {
+        int max = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(groupDir, "segment-*")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                max = Math.max(max, Integer.parseInt(name.substring("segment-".length(), name.indexOf('.'))));
+            }
+        }
+        return max + 1;
+    }
+
+    private static Path tempOf(Path indexFile) {
+        return indexFile.resolveSibling(indexFile.getFileName() + TEMP_SUFFIX);
+    }
+
+    private static Path replacesOf(Path indexFile) {
+        return indexFile.resolveSibling(baseName(indexFile) + REPLACES_SUFFIX);
+    }
+
+    // "segment-000001" de segment-000001.idx, .dat ou .replaces
+    private static String baseName(Path file) {
+        String name = file.getFileName().toString();
+        return name.substring(0, name.indexOf('.'));
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            System.err.println("Erro ao apagar " + file + ": " + e.getMessage());
+        }
+    }
+
+    private static int compare(long nanos, long id, long otherNanos, long otherId) {
+        int byDate = Long.compare(nanos, otherNanos);
+        return byDate != 0 ? byDate : Long.compare(id, otherId);
+    }
+
+    private static long toNanos(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + dateTime.getNano();
+    }
+
+    private static LocalDateTime fromNanos(long nanos) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(nanos, 1_000_000_000L),
+                (int) Math.floorMod(nanos, 1_000_000_000L), ZoneOffset.UTC);
+    }
+
+    // Segmento publicado: dados mapeados em memória e o índice dos blocos em arrays
+    private static final class Segment {
+        private final Path dataFile;
+        private final Path indexFile;
+        private final MappedByteBuffer data;
+        private final int blocks;
+        private final long[] offset;
+        private final int[] compressedLength;
+        private final int[] rawLength;
+        private final int[] count;
+        private final long[] firstNanos;
+        private final long[] firstId;
+        private final long[] lastNanos;
+        private final long[] lastId;
+        private final long[] minIdOf;
+        private final long[] maxIdOf;
+        private final long minId;
+        private final long maxId;
+        private final int messages;
+
+        private Segment(Path dataFile, Path indexFile, MappedByteBuffer data, ByteBuffer index) {
+            if (index.getInt() != INDEX_MAGIC || index.getInt() != INDEX_VERSION) {
+                throw new IllegalStateException("Índice de segmento inválido");
+            }
+            this.dataFile = dataFile;
+            this.indexFile = indexFile;
+            this.data = data;
+            this.blocks = index.getInt();
+            if (blocks < 1) {
+                throw new IllegalStateException("Segmento sem blocos");
+            }
+            offset = new long[blocks];
+            compressedLength = new int[blocks];
+            rawLength = new int[blocks];
+            count = new int[blocks];
+            firstNanos = new long[blocks];
+            firstId = new long[blocks];
+            lastNanos = new long[blocks];
+            lastId = new long[blocks];
+            minIdOf = new long[blocks];
+            maxIdOf = new long[blocks];
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            int total = 0;
+            for (int block = 0; block < blocks; block++) {
+                offset[block] = index.getLong();
+                compressedLength[block] = index.getInt();
+                rawLength[block] = index.getInt();
+                count[block] = index.getInt();
+                firstNanos[block] = index.getLong();
+                firstId[block] = index.getLong();
+                lastNanos[block] = index.getLong();
+                lastId[block] = index.getLong();
+                minIdOf[block] = index.getLong();
+                maxIdOf[block] = index.getLong();
+                min = Math.min(min, minIdOf[block]);
+                max = Math.max(max, maxIdOf[block]);
+                total += count[block];
+            }
+            this.minId = min;
+            this.maxId = max;
+            this.messages = total;
+        }
+
+        static Segment open(Path dataFile, Path indexFile) throws IOException {
+            try (FileChannel dataChannel = FileChannel.open(dataFile, StandardOpenOption.READ);
+                 FileChannel indexChannel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+                // O mapeamento continua valendo depois de fechar o canal
+                MappedByteBuffer data = dataChannel.map(FileChannel.MapMode.READ_ONLY, 0, dataChannel.size());
+                MappedByteBuffer index = indexChannel.map(FileChannel.MapMode.READ_ONLY, 0, indexChannel.size());
+                return new Segment(dataFile, indexFile, data, index);
+            }
+        }
+    }
+}
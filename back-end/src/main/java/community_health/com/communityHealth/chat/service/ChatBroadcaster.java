@@ -0,0 +1,69 @@
+package community_health.com.communityHealth.chat.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import community_health.com.communityHealth.chat.dto.ChatEventDto;
+import community_health.com.communityHealth.chat.dto.ChatMessageDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Publica as mensagens aceitas do chat em /topic/group/{id} no formato ChatEventDto.
+ *
+ * O JSON é gerado uma vez por mensagem e vai como byte[] para o broker: o SimpleBroker repassa o mesmo
+ * array para cada inscrito (só o cabeçalho STOMP, com o id da inscrição, é montado por sessão),
+ * e o ClusterRelayInterceptor grava esse mesmo corpo para as outras instâncias.
+ */
+@Component
+public class ChatBroadcaster {
+
+    private final SimpMessageSendingOperations messagingTemplate;
+    private final ObjectMapper objectMapper;
+    private final int nodeIndex;
+
+    // Sequência por grupo nesta instância (ver ChatEventDto.node); o lock do contador também garante que as mensagens entram no broker na ordem da seq
+    private final Map<Long, long[]> sequences = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ChatBroadcaster(SimpMessageSendingOperations messagingTemplate, ObjectMapper objectMapper,
+                           @Value("${cluster.node-index:0}") int nodeIndex) {
+        this.messagingTemplate = messagingTemplate;
+        this.objectMapper = objectMapper;
+        this.nodeIndex = nodeIndex;
+    }
+
+    public void broadcast(Long groupId, ChatMessageDto message) {
+        long sentAt = message.createdAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        long[] sequence = sequences.computeIfAbsent(groupId, id -> new long[1]);
+        synchronized (sequence) {
+            ChatEventDto event = new ChatEventDto(message.id(), nodeIndex, ++sequence[0], message.senderId(),
+                    message.senderName(), message.senderPhoto(), message.content(), sentAt);
+            send("/topic/group/" + groupId, encode(event));
+        }
+    }
+
+    private byte[] encode(ChatEventDto event) {
+        try {
+            return objectMapper.writeValueAsBytes(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Erro ao serializar mensagem do chat", e);
+        }
+    }
+
+    private void send(String destination, byte[] payload) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setLeaveMutable(true);
+        messagingTemplate.send(destination, MessageBuilder.createMessage(payload, accessor.getMessageHeaders()));
+    }
+}
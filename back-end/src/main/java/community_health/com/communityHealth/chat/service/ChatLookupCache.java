@@ -0,0 +1,136 @@
+package community_health.com.communityHealth.chat.service;
+
+import community_health.com.communityHealth.chat.dto.ChatGroupDto;
+import community_health.com.communityHealth.chat.dto.ChatSenderDto;
+import community_health.com.communityHealth.chat.repository.GroupMessageRepository;
+import community_health.com.communityHealth.cluster.dto.ClusterEnvelope;
+import community_health.com.communityHealth.cluster.service.ClusterFanout;
+import community_health.com.communityHealth.group.event.MembershipChangedEvent;
+import community_health.com.communityHealth.user.event.UserChangedEvent;
+import community_health.com.communityHealth.utils.TtlCache;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Cache das consultas feitas a cada mensagem do chat: remetente (id, nome, foto) e grupo (nome e membros).
+ *
+ * Com o cache quente, validar uma mensagem não faz nenhuma consulta: a participação no grupo
+ * é uma busca no conjunto de membros. Os dois caches têm tamanho máximo e validade (chat.cache.*)
+ * e são descartados depois do commit quando o usuário muda/é removido ou alguém entra no grupo.
+ * O descarte também é avisado às outras instâncias pelo ClusterFanout (destinos em CLUSTER_PREFIX).
+ */
+@Component
+public class ChatLookupCache {
+
+    private static final String CLUSTER_PREFIX = "/cluster/chat-cache/";
+
+    private final GroupMessageRepository messageRepository;
+    private final ClusterFanout clusterFanout;
+    private final TtlCache<Long, ChatSenderDto> senders;
+    private final TtlCache<Long, ChatGroupDto> groups;
+
+    @Autowired
+    public ChatLookupCache(GroupMessageRepository messageRepository, ClusterFanout clusterFanout,
+                           @Value("${chat.cache.max-senders:100000}") int maxSenders,
+                           @Value("${chat.cache.max-groups:10000}") int maxGroups,
+                           @Value("${chat.cache.ttl-minutes:10}") long ttlMinutes) {
+        this.messageRepository = messageRepository;
+        this.clusterFanout = clusterFanout;
+        this.senders = new TtlCache<>(maxSenders, ttlMinutes * 60_000);
+        this.groups = new TtlCache<>(maxGroups, ttlMinutes * 60_000);
+        clusterFanout.subscribe(this::onClusterInvalidation);
+    }
+
+    /**
+     * Valida que o remetente existe e participa do grupo.
+     *
+     * @return O remetente, para ir junto com a mensagem
+     * @throws EntityNotFoundException Se o grupo ou o usuário não existir
+     * @throws AccessDeniedException Se o usuário não for membro do grupo
+     */
+    public ChatSenderDto requireMember(Long groupId, Long userId) {
+        ChatGroupDto group = getGroup(groupId);
+        if (!group.memberIds().contains(userId)) {
+            throw new AccessDeniedException("Usuário " + userId + " não é membro do grupo " + groupId);
+        }
+        return getSender(userId);
+    }
+
+    /**
+     * @throws EntityNotFoundException Se o usuário não existir
+     */
+    public ChatSenderDto getSender(Long userId) {
+        return senders.get(userId, id -> messageRepository.findSenderById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Usuário não encontrado: " + id)));
+    }
+
+    /**
+     * @throws EntityNotFoundException Se o grupo não existir
+     */
+    public ChatGroupDto getGroup(Long groupId) {
+        return groups.get(groupId, this::loadGroup);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        boolean deleted = event.type() == UserChangedEvent.Type.DELETED;
+        invalidateUser(event.userId(), deleted);
+        publishInvalidation((deleted ? "user-deleted/" : "user/") + event.userId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMembershipChanged(MembershipChangedEvent event) {
+        groups.invalidate(event.groupId());
+        publishInvalidation("group/" + event.groupId());
+    }
+
+    private void invalidateUser(Long userId, boolean deleted) {
+        senders.invalidate(userId);
+        if (deleted) {
+            // As participações do usuário foram junto; remoção é rara, então descarta todos os grupos
+            groups.invalidateAll();
+        }
+    }
+
+    private void publishInvalidation(String key) {
+        clusterFanout.publish(new ClusterEnvelope(CLUSTER_PREFIX + key, null, new byte[0]));
+    }
+
+    // Descarte feito em outra instância: "user/{id}", "user-deleted/{id}" ou "group/{id}"
+    private void onClusterInvalidation(ClusterEnvelope envelope) {
+        if (!envelope.destination().startsWith(CLUSTER_PREFIX)) {
+            return;
+        }
+        String[] parts = envelope.destination().substring(CLUSTER_PREFIX.length()).split("/");
+        Long id = Long.valueOf(parts[1]);
+        switch (parts[0]) {
+            case "user" -> invalidateUser(id, false);
+            case "user-deleted" -> invalidateUser(id, true);
+            case "group" -> groups.invalidate(id);
+            default -> System.err.println("Descarte de cache desconhecido: " + envelope.destination());
+        }
+    }
+
+    private ChatGroupDto loadGroup(Long groupId) {
+        List<Object[]> rows = messageRepository.findGroupSummaryById(groupId);
+        if (rows.isEmpty()) {
+            throw new EntityNotFoundException("Grupo não encontrado: " + groupId);
+        }
+        Object[] row = rows.get(0);
+
+        Set<Long> memberIds = new HashSet<>(messageRepository.findMemberIdsByGroupId(groupId));
+        if (row[1] != null) {
+            memberIds.add((Long) row[1]);
+        }
+        return new ChatGroupDto(groupId, (String) row[0], Set.copyOf(memberIds));
+    }
+}
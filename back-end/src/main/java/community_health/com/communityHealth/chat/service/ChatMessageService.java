@@ -0,0 +1,152 @@
+package community_health.com.communityHealth.chat.service;
+
+import community_health.com.communityHealth.chat.dto.ChatMessageDto;
+import community_health.com.communityHealth.chat.repository.GroupMessageRepository;
+import community_health.com.communityHealth.utils.CursorPage;
+import community_health.com.communityHealth.utils.KeysetCursor;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Histórico do chat do grupo paginado por cursor (createdAt, id), sem carregar a conversa inteira.
+ * As páginas sempre chegam em ordem cronológica (mais antigas primeiro), prontas para exibir.
+ * Mensagens aceitas que ainda estão na fila de gravação (ChatWriteBehindService) entram nas páginas também,
+ * e quando a tabela acaba o histórico continua nas mensagens arquivadas pela retenção (ChatArchive).
+ */
+@Service
+public class ChatMessageService {
+
+    // Tamanho padrão e máximo de uma página do histórico
+    private static final int DEFAULT_PAGE_LIMIT = 50;
+    private static final int MAX_PAGE_LIMIT = 200;
+
+    private static final Comparator<ChatMessageDto> CHRONOLOGICAL =
+            Comparator.comparing(ChatMessageDto::createdAt).thenComparing(ChatMessageDto::id);
+
+    private final GroupMessageRepository messageRepository;
+    private final ChatWriteBehindService writeBehindService;
+    private final ChatArchive chatArchive;
+
+    @Autowired
+    public ChatMessageService(GroupMessageRepository messageRepository, ChatWriteBehindService writeBehindService,
+                              ChatArchive chatArchive) {
+        this.messageRepository = messageRepository;
+        this.writeBehindService = writeBehindService;
+        this.chatArchive = chatArchive;
+    }
+
+    /**
+     * Busca as últimas mensagens do grupo, voltando no tempo a cada página.
+     * Busca um item a mais que o limite para saber se existem mensagens mais antigas.
+     *
+     * @param groupId ID do grupo
+     * @param before Cursor "createdAt,id" da mensagem mais antiga já exibida (null para as mais recentes)
+     * @param limit Quantidade de mensagens da página
+     * @return Página com as mensagens e o cursor das mensagens anteriores (null quando chegou ao início)
+     */
+    public CursorPage<ChatMessageDto> getHistory(Long groupId, String before, Integer limit) {
+        int pageSize = pageSizeOf(limit);
+        KeysetCursor cursor = KeysetCursor.parse(before);
+
+        // Pendentes lidas antes do banco: o que sair da fila nesse meio tempo aparece na consulta
+        List<ChatMessageDto> pending = writeBehindService.pendingFor(groupId);
+        List<ChatMessageDto> items = (cursor == null)
+                ? messageRepository.findLatest(groupId, Limit.of(pageSize + 1))
+                : messageRepository.findHistoryBefore(groupId, cursor.createdAt(), cursor.id(), Limit.of(pageSize + 1));
+        items = merge(items, pending, message -> cursor == null || isBefore(message, cursor.createdAt(), cursor.id()),
+                CHRONOLOGICAL.reversed(), pageSize + 1);
+        if (items.size() <= pageSize) {
+            // A tabela acabou antes de completar a página: o restante (mais antigo) está no arquivo
+            List<ChatMessageDto> archived = (cursor == null)
+                    ? chatArchive.findBefore(groupId, null, null, pageSize + 1)
+                    : chatArchive.findBefore(groupId, cursor.createdAt(), cursor.id(), pageSize + 1);
+            items = merge(items, archived, message -> true, CHRONOLOGICAL.reversed(), pageSize + 1);
+        }
+
+        boolean hasOlder = items.size() > pageSize;
+        List<ChatMessageDto> page = new ArrayList<>(hasOlder ? items.subList(0, pageSize) : items);
+        Collections.reverse(page);
+
+        if (!hasOlder) {
+            return new CursorPage<>(page, null);
+        }
+        ChatMessageDto oldest = page.get(0);
+        return new CursorPage<>(page, new KeysetCursor(oldest.createdAt(), oldest.id()).encode());
+    }
+
+    /**
+     * Busca as mensagens enviadas depois de uma mensagem já recebida (retomada após reconexão).
+     * Se faltarem mais mensagens que o limite, o nextCursor traz o ID da última entregue
+     * para ser enviado de novo em afterId.
+     *
+     * @param groupId ID do grupo
+     * @param afterId ID da última mensagem que o cliente recebeu
+     * @param limit Quantidade máxima de mensagens
+     * @return Página com as mensagens perdidas (mais antigas primeiro)
+     * @throws EntityNotFoundException Se a mensagem não existir no grupo
+     */
+    public CursorPage<ChatMessageDto> getMessagesAfter(Long groupId, Long afterId, Integer limit) {
+        int pageSize = pageSizeOf(limit);
+        List<ChatMessageDto> pending = writeBehindService.pendingFor(groupId);
+        LocalDateTime createdAt = messageRepository.findCreatedAtByIdAndGroupId(afterId, groupId)
+                .or(() -> pending.stream().filter(message -> message.id().equals(afterId)).map(ChatMessageDto::createdAt).findFirst())
+                .or(() -> chatArchive.findCreatedAt(groupId, afterId))
+                .orElseThrow(() -> new EntityNotFoundException("Mensagem não encontrada no grupo " + groupId + ": " + afterId));
+
+        List<ChatMessageDto> items = messageRepository.findHistoryAfter(groupId, createdAt, afterId, Limit.of(pageSize + 1));
+        items = merge(items, pending, message -> isAfter(message, createdAt, afterId), CHRONOLOGICAL, pageSize + 1);
+        // Retomada a partir de uma mensagem antiga: o começo do intervalo pode estar no arquivo
+        items = merge(items, chatArchive.findAfter(groupId, createdAt, afterId, pageSize + 1),
+                message -> true, CHRONOLOGICAL, pageSize + 1);
+        if (items.size() <= pageSize) {
+            return new CursorPage<>(items, null);
+        }
+
+        List<ChatMessageDto> page = items.subList(0, pageSize);
+        return new CursorPage<>(page, String.valueOf(page.get(pageSize - 1).id()));
+    }
+
+    // Junta as mensagens do banco com as pendentes do intervalo pedido, sem repetir, na ordem da página
+    private static List<ChatMessageDto> merge(List<ChatMessageDto> stored, List<ChatMessageDto> pending,
+                                              Predicate<ChatMessageDto> inRange, Comparator<ChatMessageDto> order,
+                                              int max) {
+        if (pending.isEmpty()) {
+            return stored;
+        }
+        Set<Long> ids = new HashSet<>();
+        List<ChatMessageDto> merged = new ArrayList<>(stored);
+        stored.forEach(message -> ids.add(message.id()));
+        for (ChatMessageDto message : pending) {
+            if (inRange.test(message) && ids.add(message.id())) {
+                merged.add(message);
+            }
+        }
+        merged.sort(order);
+        return merged.size() > max ? merged.subList(0, max) : merged;
+    }
+
+    private static boolean isBefore(ChatMessageDto message, LocalDateTime createdAt, Long id) {
+        int byDate = message.createdAt().compareTo(createdAt);
+        return byDate < 0 || (byDate == 0 && message.id() < id);
+    }
+
+    private static boolean isAfter(ChatMessageDto message, LocalDateTime createdAt, Long id) {
+        int byDate = message.createdAt().compareTo(createdAt);
+        return byDate > 0 || (byDate == 0 && message.id() > id);
+    }
+
+    private static int pageSizeOf(Integer limit) {
+        return (limit == null || limit <= 0) ? DEFAULT_PAGE_LIMIT : Math.min(limit, MAX_PAGE_LIMIT);
+    }
+}
@@ -0,0 +1,502 @@
+package community_health.com.communityHealth.chat.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import community_health.com.communityHealth.chat.dto.ChatPresenceDiffDto;
+import community_health.com.communityHealth.chat.dto.ChatPresenceDto;
+import community_health.com.communityHealth.chat.dto.ChatSenderDto;
+import community_health.com.communityHealth.cluster.dto.ClusterEnvelope;
+import community_health.com.communityHealth.cluster.service.ClusterFanout;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Presença no chat ("online" e "digitando") só em memória, sem nenhuma escrita no banco.
+ *
+ * - Online: sessões STOMP inscritas em /topic/group/{id}/presence com o cabeçalho userId.
+ *   Um usuário com várias abas conta uma vez; sai quando fecha a última (unsubscribe ou queda da sessão).
+ * - Digitando: pings em /app/group/{id}/typing. Pings a menos de typing-min-interval-ms do anterior
+ *   são ignorados; sem ping novo por typing-ttl-ms o usuário para de digitar. Enviar mensagem também para.
+ * - As mudanças de cada grupo são juntadas e saem a cada push.interval-ms numa única ChatPresenceDiffDto;
+ *   a foto completa vem na inscrição em /app/group/{id}/presence (ver ChatController.presenceSnapshot).
+ *
+ * A participação no grupo é validada pelo ChatLookupCache (sem SQL com o cache quente).
+ * Sessões e grupos vazios saem dos mapas na hora, então a memória acompanha o número de conexões abertas.
+ *
+ * Com várias instâncias, cada uma conhece as próprias sessões e avisa as outras pelo ClusterFanout
+ * (destinos em CLUSTER_PREFIX, com o cluster.node-index de quem envia): a cada push, o estado local dos grupos
+ * que mudaram; a cada cluster-heartbeat-ms, o de todos. Cada instância guarda o que ouviu de cada uma
+ * e a foto e as diferenças são da união: as diferenças comparam a união com o que os inscritos daqui já
+ * receberam. Instância que some (sem aviso por 3 heartbeats) sai da união. Por isso /topic/group/{id}/presence
+ * não passa pelo fan-out dos tópicos (cluster.fanout.excluded-destinations).
+ */
+@Component
+public class ChatPresenceRegistry {
+
+    /**
+     * Aviso entre instâncias: estado local (online e digitando) dos grupos da lista.
+     * Com full, a lista é completa e os grupos que não estão nela ficaram vazios na instância de origem.
+     */
+    record ClusterPresence(boolean full, List<ChatPresenceDto> groups) {}
+
+    private static final Pattern PRESENCE_TOPIC = Pattern.compile("^/topic/group/(\\d+)/presence$");
+    private static final String CLUSTER_PREFIX = "/cluster/presence/";
+    private static final int MISSED_HEARTBEATS = 3;
+
+    private final ChatLookupCache lookupCache;
+    private final SimpMessageSendingOperations messagingTemplate;
+    private final ClusterFanout clusterFanout;
+    private final ObjectMapper objectMapper;
+    private final int nodeIndex;
+    private final long typingTtlMs;
+    private final long typingMinIntervalMs;
+    private final long heartbeatMs;
+
+    // Sessão -> usuário e inscrições de presença (inscrição -> grupo)
+    private final Map<String, SessionPresence> sessions = new ConcurrentHashMap<>();
+    private final Map<Long, GroupPresence> groups = new ConcurrentHashMap<>();
+    private final Set<Long> dirtyGroups = ConcurrentHashMap.newKeySet();
+    // Último aviso de cada outra instância (cluster.node-index -> epoch ms)
+    private final Map<Integer, Long> nodesSeenAt = new ConcurrentHashMap<>();
+    private volatile long lastHeartbeat;
+
+    @Autowired
+    public ChatPresenceRegistry(ChatLookupCache lookupCache, SimpMessageSendingOperations messagingTemplate,
+                                ClusterFanout clusterFanout, ObjectMapper objectMapper,
+                                @Value("${cluster.node-index:0}") int nodeIndex,
+                                @Value("${chat.presence.typing-ttl-ms:5000}") long typingTtlMs,
+                                @Value("${chat.presence.typing-min-interval-ms:1000}") long typingMinIntervalMs,
+                                @Value("${chat.presence.cluster-heartbeat-ms:5000}") long heartbeatMs) {
+        this.lookupCache = lookupCache;
+        this.messagingTemplate = messagingTemplate;
+        this.clusterFanout = clusterFanout;
+        this.objectMapper = objectMapper;
+        this.nodeIndex = nodeIndex;
+        this.typingTtlMs = typingTtlMs;
+        this.typingMinIntervalMs = typingMinIntervalMs;
+        this.heartbeatMs = heartbeatMs;
+        clusterFanout.subscribe(this::onClusterPresence);
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        Long groupId = groupOf(accessor.getDestination());
+        String userHeader = accessor.getFirstNativeHeader("userId");
+        if (groupId == null || userHeader == null) {
+            return;
+        }
+
+        ChatSenderDto user;
+        try {
+            user = lookupCache.requireMember(groupId, Long.valueOf(userHeader));
+        } catch (RuntimeException e) {
+            // Não membro, usuário inexistente ou cabeçalho inválido: a inscrição não conta como presença
+            return;
+        }
+
+        SessionPresence session = sessions.computeIfAbsent(accessor.getSessionId(), id -> new SessionPresence(user.id()));
+        synchronized (session) {
+            if (session.userId != user.id().longValue()) {
+                return; // uma sessão, um usuário
+            }
+            session.subscriptions.put(accessor.getSubscriptionId(), groupId);
+        }
+
+        updateGroup(groupId, group -> {
+            group.online.merge(user.id(), new OnlineUser(user, 1), (current, added) -> current.plusSession());
+            group.localChanged |= group.online.get(user.id()).sessions == 1;
+        });
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        SessionPresence session = sessions.get(accessor.getSessionId());
+        if (session == null) {
+            return;
+        }
+        Long groupId;
+        synchronized (session) {
+            groupId = session.subscriptions.remove(accessor.getSubscriptionId());
+            if (session.subscriptions.isEmpty()) {
+                sessions.remove(accessor.getSessionId());
+            }
+        }
+        if (groupId != null) {
+            leave(groupId, session.userId);
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        SessionPresence session = sessions.remove(event.getSessionId());
+        if (session == null) {
+            return;
+        }
+        List<Long> groupIds;
+        synchronized (session) {
+            groupIds = new ArrayList<>(session.subscriptions.values());
+            session.subscriptions.clear();
+        }
+        for (Long groupId : groupIds) {
+            leave(groupId, session.userId);
+        }
+    }
+
+    /**
+     * Ping de "digitando" da sessão. Ignorado se a sessão não estiver na presença do grupo
+     * ou se veio cedo demais depois do anterior.
+     */
+    public void typing(Long groupId, String sessionId) {
+        SessionPresence session = sessions.get(sessionId);
+        GroupPresence group = groups.get(groupId);
+        if (session == null || group == null) {
+            return;
+        }
+        synchronized (session) {
+            if (!session.subscriptions.containsValue(groupId)) {
+                return;
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        synchronized (group) {
+            Long until = group.typingUntil.get(session.userId);
+            if (until != null && now < until - typingTtlMs + typingMinIntervalMs) {
+                return;
+            }
+            group.typingUntil.put(session.userId, now + typingTtlMs);
+            if (until == null) {
+                group.localChanged = true;
+            }
+        }
+        dirtyGroups.add(groupId);
+    }
+
+    /**
+     * O usuário enviou a mensagem: deixa de aparecer digitando sem esperar o TTL.
+     */
+    public void stopTyping(Long groupId, Long userId) {
+        GroupPresence group = groups.get(groupId);
+        if (group == null) {
+            return;
+        }
+        synchronized (group) {
+            if (group.typingUntil.remove(userId) == null) {
+                return;
+            }
+            group.localChanged = true;
+        }
+        dirtyGroups.add(groupId);
+    }
+
+    /**
+     * Foto atual da presença do grupo (todas as instâncias), só para sessões que já estão nela
+     * (membros validados): o cliente se inscreve em /topic/group/{id}/presence antes de pedir a foto.
+     */
+    public ChatPresenceDto snapshot(Long groupId, String sessionId) {
+        SessionPresence session = sessions.get(sessionId);
+        boolean member = false;
+        if (session != null) {
+            synchronized (session) {
+                member = session.subscriptions.containsValue(groupId);
+            }
+        }
+        GroupPresence group = groups.get(groupId);
+        if (!member || group == null) {
+            return new ChatPresenceDto(groupId, List.of(), List.of());
+        }
+        synchronized (group) {
+            return new ChatPresenceDto(groupId, new ArrayList<>(group.unionOnline().values()),
+                    new ArrayList<>(group.unionTyping()));
+        }
+    }
+
+    /**
+     * Quantas sessões e grupos estão na memória da presença.
+     */
+    public int sessionCount() {
+        return sessions.size();
+    }
+
+    public int groupCount() {
+        return groups.size();
+    }
+
+    // Expira quem parou de digitar e instâncias caladas, avisa as outras instâncias e envia as mudanças
+    // juntadas de cada grupo
+    @Scheduled(fixedDelayString = "${chat.presence.push.interval-ms:250}")
+    public void flush() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<Long, GroupPresence> entry : groups.entrySet()) {
+            GroupPresence group = entry.getValue();
+            synchronized (group) {
+                if (group.typingUntil.values().removeIf(until -> until <= now)) {
+                    group.localChanged = true;
+                    dirtyGroups.add(entry.getKey());
+                }
+            }
+        }
+        expireSilentNodes(now);
+
+        boolean heartbeat = now - lastHeartbeat >= heartbeatMs;
+        List<ChatPresenceDto> changed = new ArrayList<>();
+        for (Long groupId : heartbeat ? Set.copyOf(groups.keySet()) : List.copyOf(dirtyGroups)) {
+            dirtyGroups.remove(groupId);
+            GroupPresence group = groups.get(groupId);
+            if (group == null) {
+                continue;
+            }
+            ChatPresenceDiffDto diff;
+            boolean hasLocalSubscribers;
+            synchronized (group) {
+                if (group.localChanged || (heartbeat && !group.online.isEmpty())) {
+                    changed.add(group.localState(groupId));
+                    group.localChanged = false;
+                }
+                diff = group.drainDiff(groupId);
+                hasLocalSubscribers = !group.online.isEmpty();
+                if (group.isEmpty()) {
+                    groups.remove(groupId, group);
+                }
+            }
+            if (diff != null && hasLocalSubscribers) {
+                try {
+                    messagingTemplate.convertAndSend("/topic/group/" + groupId + "/presence", diff);
+                } catch (RuntimeException e) {
+                    System.err.println("Erro ao enviar presença do grupo " + groupId + ": " + e.getMessage());
+                }
+            }
+        }
+
+        if (heartbeat || !changed.isEmpty()) {
+            if (heartbeat) {
+                lastHeartbeat = now;
+                // O heartbeat leva só os grupos com alguém daqui: os que não vierem ficaram vazios
+                changed.removeIf(state -> state.online().isEmpty() && state.typing().isEmpty());
+            }
+            publish(new ClusterPresence(heartbeat, changed));
+        }
+    }
+
+    private void publish(ClusterPresence presence) {
+        try {
+            clusterFanout.publish(new ClusterEnvelope(CLUSTER_PREFIX + nodeIndex, MimeTypeUtils.APPLICATION_JSON_VALUE,
+                    objectMapper.writeValueAsBytes(presence)));
+        } catch (JsonProcessingException | RuntimeException e) {
+            System.err.println("Erro ao avisar a presença às outras instâncias: " + e.getMessage());
+        }
+    }
+
+    // Estado de outra instância: "{nodeIndex}" e a ClusterPresence no corpo
+    private void onClusterPresence(ClusterEnvelope envelope) {
+        if (!envelope.destination().startsWith(CLUSTER_PREFIX)) {
+            return;
+        }
+        try {
+            int node = Integer.parseInt(envelope.destination().substring(CLUSTER_PREFIX.length()));
+            ClusterPresence presence = objectMapper.readValue(envelope.payload(), ClusterPresence.class);
+            nodesSeenAt.put(node, System.currentTimeMillis());
+
+            Set<Long> received = new HashSet<>();
+            for (ChatPresenceDto state : presence.groups()) {
+                received.add(state.groupId());
+                updateGroup(state.groupId(), group -> group.applyRemote(node, state));
+            }
+            if (presence.full()) {
+                for (Map.Entry<Long, GroupPresence> entry : groups.entrySet()) {
+                    if (!received.contains(entry.getKey())) {
+                        removeRemote(entry.getKey(), entry.getValue(), node);
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Erro ao aplicar presença de outra instância: " + e.getMessage());
+        }
+    }
+
+    private void expireSilentNodes(long now) {
+        for (Map.Entry<Integer, Long> node : nodesSeenAt.entrySet()) {
+            if (now - node.getValue() > MISSED_HEARTBEATS * heartbeatMs && nodesSeenAt.remove(node.getKey(), node.getValue())) {
+                groups.forEach((groupId, group) -> removeRemote(groupId, group, node.getKey()));
+            }
+        }
+    }
+
+    private void removeRemote(Long groupId, GroupPresence group, int node) {
+        synchronized (group) {
+            if (group.remote.remove(node) == null) {
+                return;
+            }
+        }
+        dirtyGroups.add(groupId);
+    }
+
+    // Aplica a mudança no grupo (criado se preciso) e marca para o próximo push
+    private void updateGroup(Long groupId, Consumer<GroupPresence> change) {
+        while (true) {
+            GroupPresence group = groups.computeIfAbsent(groupId, id -> new GroupPresence());
+            synchronized (group) {
+                if (groups.get(groupId) != group) {
+                    continue; // o flush acabou de descartar o grupo vazio
+                }
+                change.accept(group);
+            }
+            break;
+        }
+        dirtyGroups.add(groupId);
+    }
+
+    private void leave(Long groupId, long userId) {
+        GroupPresence group = groups.get(groupId);
+        if (group == null) {
+            return;
+        }
+        synchronized (group) {
+            OnlineUser user = group.online.get(userId);
+            if (user == null) {
+                return;
+            }
+            if (user.sessions > 1) {
+                group.online.put(userId, user.minusSession());
+                return;
+            }
+            group.online.remove(userId);
+            group.typingUntil.remove(userId);
+            group.localChanged = true;
+        }
+        dirtyGroups.add(groupId);
+    }
+
+    private static Long groupOf(String destination) {
+        if (destination == null) {
+            return null;
+        }
+        Matcher matcher = PRESENCE_TOPIC.matcher(destination);
+        return matcher.matches() ? Long.valueOf(matcher.group(1)) : null;
+    }
+
+    private static final class SessionPresence {
+        private final long userId;
+        private final Map<String, Long> subscriptions = new HashMap<>(2);
+
+        private SessionPresence(long userId) {
+            this.userId = userId;
+        }
+    }
+
+    private record OnlineUser(ChatSenderDto user, int sessions) {
+        OnlineUser plusSession() {
+            return new OnlineUser(user, sessions + 1);
+        }
+
+        OnlineUser minusSession() {
+            return new OnlineUser(user, sessions - 1);
+        }
+    }
+
+    // Estado de um grupo; todo acesso sincronizado no próprio objeto
+    private static final class GroupPresence {
+        // Sessões desta instância
+        private final Map<Long, OnlineUser> online = new HashMap<>();
+        private final Map<Long, Long> typingUntil = new HashMap<>();
+        private boolean localChanged;
+
+        // Último estado recebido de cada outra instância
+        private final Map<Integer, ChatPresenceDto> remote = new HashMap<>();
+
+        // O que os inscritos desta instância já receberam (base da próxima diferença)
+        private final Set<Long> sentOnline = new HashSet<>();
+        private final Set<Long> sentTyping = new HashSet<>();
+
+        private void applyRemote(int node, ChatPresenceDto state) {
+            if (state.online().isEmpty() && state.typing().isEmpty()) {
+                remote.remove(node);
+            } else {
+                remote.put(node, state);
+            }
+        }
+
+        private ChatPresenceDto localState(Long groupId) {
+            List<ChatSenderDto> users = new ArrayList<>(online.size());
+            for (OnlineUser user : online.values()) {
+                users.add(user.user);
+            }
+            return new ChatPresenceDto(groupId, users, new ArrayList<>(typingUntil.keySet()));
+        }
+
+        private Map<Long, ChatSenderDto> unionOnline() {
+            Map<Long, ChatSenderDto> users = new LinkedHashMap<>();
+            for (OnlineUser user : online.values()) {
+                users.put(user.user.id(), user.user);
+            }
+            for (ChatPresenceDto state : remote.values()) {
+                for (ChatSenderDto user : state.online()) {
+                    users.putIfAbsent(user.id(), user);
+                }
+            }
+            return users;
+        }
+
+        private Set<Long> unionTyping() {
+            Set<Long> typing = new LinkedHashSet<>(typingUntil.keySet());
+            for (ChatPresenceDto state : remote.values()) {
+                typing.addAll(state.typing());
+            }
+            return typing;
+        }
+
+        private boolean isEmpty() {
+            return online.isEmpty() && typingUntil.isEmpty() && remote.isEmpty()
+                    && sentOnline.isEmpty() && sentTyping.isEmpty() && !localChanged;
+        }
+
+        // Diferença entre a união atual e o que já foi enviado (entrar e sair no mesmo intervalo se anulam)
+        private ChatPresenceDiffDto drainDiff(Long groupId) {
+            Map<Long, ChatSenderDto> nowOnline = unionOnline();
+            Set<Long> nowTyping = unionTyping();
+
+            List<ChatSenderDto> joined = new ArrayList<>();
+            nowOnline.forEach((userId, user) -> {
+                if (!sentOnline.contains(userId)) {
+                    joined.add(user);
+                }
+            });
+            List<Long> left = sentOnline.stream().filter(userId -> !nowOnline.containsKey(userId)).toList();
+            List<Long> typing = nowTyping.stream().filter(userId -> !sentTyping.contains(userId)).toList();
+            List<Long> stoppedTyping = sentTyping.stream().filter(userId -> !nowTyping.contains(userId)).toList();
+            if (joined.isEmpty() && left.isEmpty() && typing.isEmpty() && stoppedTyping.isEmpty()) {
+                return null;
+            }
+            sentOnline.clear();
+            sentOnline.addAll(nowOnline.keySet());
+            sentTyping.clear();
+            sentTyping.addAll(nowTyping);
+            return new ChatPresenceDiffDto(groupId, joined, left, typing, stoppedTyping);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package community_health.com.communityHealth.chat.service;
+
+import community_health.com.communityHealth.chat.dto.ChatRetentionResultDto;
+import community_health.com.communityHealth.chat.service.ChatArchive.ArchivedMessage;
+import community_health.com.communityHealth.chat.service.ChatArchive.PreparedSegment;
+import community_health.com.communityHealth.group.model.Group;
+import community_health.com.communityHealth.group.repository.GroupRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Job de retenção do chat: tira de Group_Messages as mensagens com mais de chat.retention.max-age-days
+ * (e todas as dos grupos cujo desafio acabou, getDaysRemaining() = 0) e grava no ChatArchive.
+ * Roda por padrão todo dia às 3h30 (chat.retention.cron); o histórico continua igual para quem lê.
+ *
+ * Por bloco de chat.retention.batch-size mensagens: grava e publica o segmento e só então apaga as linhas
+ * numa transação, para a mensagem estar sempre no banco ou no arquivo (o histórico e a busca não a perdem).
+ * Se a instância cair no meio, a próxima rodada resolve: segmento sem commit é descartado (ChatArchive.recover)
+ * e linhas que já estão num segmento publicado só são apagadas. No fim de cada grupo os segmentos pequenos
+ * são compactados (ChatArchive.compact).
+ * Com várias instâncias, habilite em uma só e use uma pasta compartilhada em chat.archive.dir.
+ */
+@Component
+public class ChatRetentionJob {
+
+    private static final String SELECT_SQL = """
+            SELECT id, sender_id, content, created_at FROM group_messages
+            WHERE group_id = ? AND created_at < ?
+            ORDER BY created_at, id
+            LIMIT ?
+            """;
+
+    private static final String DELETE_SQL = "DELETE FROM group_messages WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final GroupRepository groupRepository;
+    private final ChatArchive chatArchive;
+    private final boolean enabled;
+    private final int maxAgeDays;
+    private final int batchSize;
+
+    @Autowired
+    public ChatRetentionJob(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                            GroupRepository groupRepository, ChatArchive chatArchive,
+                            @Value("${chat.retention.enabled:true}") boolean enabled,
+                            @Value("${chat.retention.max-age-days:180}") int maxAgeDays,
+                            @Value("${chat.retention.batch-size:10000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.groupRepository = groupRepository;
+        this.chatArchive = chatArchive;
+        this.enabled = enabled;
+        this.maxAgeDays = maxAgeDays;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    @Scheduled(cron = "${chat.retention.cron:0 30 3 * * *}")
+    public void scheduledRun() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            ChatRetentionResultDto result = run();
+            if (result.messages() > 0) {
+                System.err.println("Retenção do chat: " + result.messages() + " mensagem(ns) de "
+                        + result.groups() + " grupo(s) arquivadas em " + result.elapsedMs() + " ms");
+            }
+        } catch (Exception e) {
+            System.err.println("Erro na retenção do chat: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Uma rodada completa (também chamada pelo endpoint de manutenção). Um erro em um grupo não interrompe os outros.
+     */
+    public synchronized ChatRetentionResultDto run() {
+        long start = System.currentTimeMillis();
+        int recovered = chatArchive.recover();
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime ageCutoff = now.minusDays(maxAgeDays);
+        int groups = 0;
+        long messages = 0;
+        int segments = 0;
+        for (Object[] schedule : groupRepository.findAllSchedules()) {
+            Long groupId = (Long) schedule[0];
+            boolean finished = Group.daysRemaining((LocalDateTime) schedule[1], (Integer) schedule[2]) == 0;
+            try {
+                long archived = 0;
+                while (true) {
+                    int moved = archiveBatch(groupId, finished ? now : ageCutoff);
+                    if (moved == 0) {
+                        break;
+                    }
+                    archived += moved;
+                    segments++;
+                    if (moved < batchSize) {
+                        break;
+                    }
+                }
+                if (archived > 0) {
+                    groups++;
+                    messages += archived;
+                    chatArchive.compact(groupId);
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Erro ao arquivar o chat do grupo " + groupId + ": " + e.getMessage());
+            }
+        }
+        return new ChatRetentionResultDto(groups, messages, segments, recovered, System.currentTimeMillis() - start);
+    }
+
+    // Move as mensagens mais antigas do grupo criadas antes do corte; devolve quantas foram
+    private int archiveBatch(Long groupId, LocalDateTime cutoff) {
+        List<ArchivedMessage> batch = jdbcTemplate.query(SELECT_SQL, (rs, rowNum) -> new ArchivedMessage(
+                rs.getLong("id"),
+                rs.getTimestamp("created_at").toLocalDateTime(),
+                rs.getLong("sender_id"),
+                rs.getString("content")), groupId, Timestamp.valueOf(cutoff), batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        // Sobra de uma rodada que caiu entre publicar o segmento e apagar as linhas: essas já estão no arquivo
+        List<ArchivedMessage> toArchive = batch;
+        if (chatArchive.findCreatedAt(groupId, batch.get(0).id()).isPresent()) {
+            toArchive = batch.stream()
+                    .filter(message -> chatArchive.findCreatedAt(groupId, message.id()).isEmpty())
+                    .toList();
+        }
+        if (!toArchive.isEmpty()) {
+            PreparedSegment prepared = chatArchive.prepare(groupId, toArchive);
+            chatArchive.commit(prepared);
+        }
+        // Se falhar aqui, as linhas ficam nos dois lugares até a próxima rodada (as leituras ignoram a repetida)
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(DELETE_SQL, batch, 1000,
+                (ps, message) -> ps.setLong(1, message.id())));
+        return batch.size();
+    }
+}
@@ -0,0 +1,424 @@
+package community_health.com.communityHealth.chat.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import community_health.com.communityHealth.chat.dto.ChatMessageDto;
+import community_health.com.communityHealth.chat.dto.ChatSenderDto;
+import community_health.com.communityHealth.chat.event.ChatMessagesStoredEvent;
+import community_health.com.communityHealth.chat.repository.GroupMessageRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gravação assíncrona (write-behind) das mensagens do chat.
+ *
+ * - ingest valida remetente, grupo e participação pelo ChatLookupCache (sem SQL com o cache quente),
+ *   gera o ID da mensagem em memória e devolve na hora: o controller já pode publicar no tópico sem esperar o banco.
+ * - Uma thread própria junta as mensagens da fila e grava em batch JDBC (um INSERT preparado, vários valores),
+ *   a cada flush-ms ou assim que juntar batch-size mensagens.
+ * - Se o banco falhar, o bloco vai para um arquivo NDJSON (spool) e é regravado quando o banco voltar
+ *   (ou na próxima subida). A regravação ignora IDs que já existem, então repetir não duplica mensagens.
+ * - No desligamento a fila é esvaziada antes de fechar o pool de conexões.
+ *
+ * IDs e datas são gerados juntos, em ordem, para que a ordem por (createdAt, id) do histórico
+ * seja a mesma ordem de chegada. Mensagens que ainda estão na fila aparecem no histórico por pendingFor.
+ * Com várias instâncias, cada uma usa só os IDs com resto cluster.node-index na divisão por cluster.node-count
+ * (como auto_increment_offset/increment do MySQL), então duas instâncias nunca geram o mesmo ID.
+ */
+@Service
+public class ChatWriteBehindService {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO group_messages (id, group_id, sender_id, content, created_at)
+            VALUES (?, ?, ?, ?, ?)
+            """;
+
+    // Regravação do spool: idempotente (a mensagem pode ter chegado ao banco antes da falha ser percebida)
+    private static final String REPLAY_SQL = """
+            INSERT INTO group_messages (id, group_id, sender_id, content, created_at)
+            SELECT ?, ?, ?, ?, ? FROM DUAL
+            WHERE NOT EXISTS (SELECT 1 FROM group_messages WHERE id = ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final GroupMessageRepository messageRepository;
+    private final ChatLookupCache lookupCache;
+    private final ChatArchive chatArchive;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
+    private final long flushMs;
+    private final Path spoolFile;
+    private final int nodeIndex;
+    private final int nodeCount;
+
+    private final BlockingQueue<PendingMessage> queue;
+    // Mensagens aceitas e ainda não gravadas (fila + bloco em gravação), por ID
+    private final ConcurrentSkipListMap<Long, PendingMessage> unpersisted = new ConcurrentSkipListMap<>();
+    private final Object spoolLock = new Object();
+    private final Thread writer;
+
+    private long lastId = -1;
+    private LocalDateTime lastCreatedAt = LocalDateTime.MIN;
+    private volatile boolean running = true;
+    private volatile boolean spoolPending;
+
+    @Autowired
+    public ChatWriteBehindService(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                  ObjectMapper objectMapper, GroupMessageRepository messageRepository,
+                                  ChatLookupCache lookupCache, ChatArchive chatArchive,
+                                  ApplicationEventPublisher eventPublisher,
+                                  @Value("${chat.write-behind.batch-size:500}") int batchSize,
+                                  @Value("${chat.write-behind.flush-ms:20}") long flushMs,
+                                  @Value("${chat.write-behind.queue-capacity:50000}") int queueCapacity,
+                                  @Value("${chat.write-behind.spool-file:chat-spool.ndjson}") String spoolFile,
+                                  @Value("${cluster.node-index:0}") int nodeIndex,
+                                  @Value("${cluster.node-count:1}") int nodeCount) {
+        if (nodeCount < 1 || nodeIndex < 0 || nodeIndex >= nodeCount) {
+            throw new IllegalArgumentException("cluster.node-index deve estar entre 0 e cluster.node-count - 1.");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.messageRepository = messageRepository;
+        this.lookupCache = lookupCache;
+        this.chatArchive = chatArchive;
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+        this.flushMs = flushMs;
+        this.spoolFile = Path.of(spoolFile);
+        this.nodeIndex = nodeIndex;
+        this.nodeCount = nodeCount;
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+        this.spoolPending = Files.exists(this.spoolFile);
+
+        this.writer = new Thread(this::writeLoop, "chat-write-behind");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Aceita uma mensagem do chat. Ela é gravada em segundo plano; o retorno já tem ID e data definitivos.
+     * Com a fila cheia (banco bem mais lento que o chat), quem envia espera por espaço.
+     *
+     * @param groupId ID do grupo
+     * @param senderId ID do remetente
+     * @param content Texto da mensagem
+     * @return A mensagem pronta para ser publicada no tópico do grupo
+     * @throws IllegalArgumentException Se a mensagem estiver vazia
+     * @throws EntityNotFoundException Se o grupo ou o remetente não existir
+     * @throws AccessDeniedException Se o remetente não for membro do grupo
+     */
+    public ChatMessageDto ingest(Long groupId, Long senderId, String content) {
+        if (content == null || content.isBlank()) {
+            throw new IllegalArgumentException("A mensagem não pode estar vazia.");
+        }
+        ChatSenderDto sender = lookupCache.requireMember(groupId, senderId);
+
+        PendingMessage pending;
+        synchronized (this) {
+            if (lastId < 0) {
+                // As mensagens mais novas podem já ter ido para o arquivo (grupo encerrado): os IDs delas não voltam
+                lastId = Math.max(Math.max(messageRepository.findMaxId(), chatArchive.maxId()), maxSpooledId());
+            }
+            LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+            lastCreatedAt = now.isAfter(lastCreatedAt) ? now : lastCreatedAt;
+            lastId = nextId(lastId);
+            pending = new PendingMessage(groupId, new ChatMessageDto(
+                    lastId, content, lastCreatedAt, sender.id(), sender.name(), sender.photoUrl()));
+            unpersisted.put(pending.message().id(), pending);
+        }
+
+        try {
+            queue.put(pending);
+        } catch (InterruptedException e) {
+            unpersisted.remove(pending.message().id());
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Envio interrompido.", e);
+        }
+        return pending.message();
+    }
+
+    // Menor ID acima de current que pertence a esta instância
+    private long nextId(long current) {
+        long candidate = current + 1;
+        return candidate + Math.floorMod(nodeIndex - candidate, (long) nodeCount);
+    }
+
+    /**
+     * Mensagens do grupo aceitas e ainda não gravadas, em ordem de chegada.
+     */
+    public List<ChatMessageDto> pendingFor(Long groupId) {
+        List<ChatMessageDto> messages = new ArrayList<>();
+        for (PendingMessage pending : unpersisted.values()) {
+            if (pending.groupId().equals(groupId)) {
+                messages.add(pending.message());
+            }
+        }
+        return messages;
+    }
+
+    /**
+     * Quantas mensagens ainda não foram gravadas no banco.
+     */
+    public int pendingCount() {
+        return unpersisted.size();
+    }
+
+    /**
+     * Mensagens que ficaram no spool (banco fora do ar na última execução) voltam para o banco na subida.
+     * Uma falha aqui não impede a aplicação de subir: o spool é tentado de novo após a próxima gravação.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void replaySpoolOnStartup() {
+        if (!spoolPending) {
+            return;
+        }
+        try {
+            replaySpool();
+        } catch (RuntimeException e) {
+            System.err.println("Não foi possível regravar o spool do chat: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Para a thread de gravação depois de esvaziar a fila.
+     */
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Se a thread não terminou a tempo, o que sobrou na fila vai para o spool
+        List<PendingMessage> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        if (!rest.isEmpty()) {
+            spool(rest);
+        }
+    }
+
+    private void writeLoop() {
+        List<PendingMessage> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingMessage first = queue.poll(flushMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // Junta o que chegar até completar o bloco ou vencer o intervalo
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushMs);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long wait = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || wait <= 0) {
+                        break;
+                    }
+                    PendingMessage next = queue.poll(wait, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                running = false;
+                queue.drainTo(batch);
+            }
+
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<PendingMessage> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, pending) -> {
+                        ChatMessageDto message = pending.message();
+                        ps.setLong(1, message.id());
+                        ps.setLong(2, pending.groupId());
+                        ps.setLong(3, message.senderId());
+                        ps.setString(4, message.content());
+                        ps.setTimestamp(5, Timestamp.valueOf(message.createdAt()));
+                    }));
+        } catch (DataIntegrityViolationException e) {
+            // Uma linha recusada (ex: remetente apagado depois de entrar no cache) não derruba o bloco
+            writeOneByOne(batch);
+        } catch (RuntimeException e) {
+            // Banco fora do ar (DataAccessException ou falha ao abrir a transação)
+            System.err.println("Erro ao gravar mensagens do chat, enviando " + batch.size()
+                    + " para o spool: " + e.getMessage());
+            spool(batch);
+            return;
+        }
+        forget(batch);
+        stored(batch);
+
+        if (spoolPending) {
+            try {
+                replaySpool();
+            } catch (RuntimeException e) {
+                System.err.println("Não foi possível regravar o spool do chat: " + e.getMessage());
+            }
+        }
+    }
+
+    private void writeOneByOne(List<PendingMessage> batch) {
+        for (PendingMessage pending : batch) {
+            ChatMessageDto message = pending.message();
+            try {
+                jdbcTemplate.update(INSERT_SQL, message.id(), pending.groupId(), message.senderId(),
+                        message.content(), Timestamp.valueOf(message.createdAt()));
+            } catch (DataIntegrityViolationException e) {
+                System.err.println("Mensagem do chat descartada (" + message.id() + "): "
+                        + e.getMostSpecificCause().getMessage());
+            } catch (DataAccessException e) {
+                spool(List.of(pending));
+            }
+        }
+    }
+
+    /**
+     * Acrescenta as mensagens ao spool e força a escrita no disco antes de tirá-las da memória.
+     */
+    private void spool(List<PendingMessage> batch) {
+        synchronized (spoolLock) {
+            try {
+                Files.createDirectories(spoolFile.toAbsolutePath().getParent());
+            } catch (IOException e) {
+                System.err.println("Erro ao criar a pasta do spool do chat: " + e.getMessage());
+            }
+            try (FileChannel channel = FileChannel.open(spoolFile,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                StringBuilder lines = new StringBuilder();
+                for (PendingMessage pending : batch) {
+                    lines.append(objectMapper.writeValueAsString(pending)).append('\n');
+                }
+                channel.write(ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8)));
+                channel.force(false);
+                spoolPending = true;
+                forget(batch);
+            } catch (IOException e) {
+                // Sem banco e sem disco: as mensagens continuam visíveis só até a aplicação parar
+                System.err.println("Erro ao gravar o spool do chat (" + batch.size() + " mensagens): " + e.getMessage());
+            }
+        }
+    }
+
+    private void replaySpool() {
+        synchronized (spoolLock) {
+            List<PendingMessage> spooled = readSpool();
+            for (int from = 0; from < spooled.size(); from += batchSize) {
+                List<PendingMessage> chunk = spooled.subList(from, Math.min(from + batchSize, spooled.size()));
+                transactionTemplate.executeWithoutResult(status ->
+                        jdbcTemplate.batchUpdate(REPLAY_SQL, chunk, chunk.size(), (ps, pending) -> {
+                            ChatMessageDto message = pending.message();
+                            ps.setLong(1, message.id());
+                            ps.setLong(2, pending.groupId());
+                            ps.setLong(3, message.senderId());
+                            ps.setString(4, message.content());
+                            ps.setTimestamp(5, Timestamp.valueOf(message.createdAt()));
+                            ps.setLong(6, message.id());
+                        }));
+                stored(chunk);
+            }
+
+            try {
+                Files.deleteIfExists(spoolFile);
+            } catch (IOException e) {
+                // Fica para a próxima tentativa; regravar não duplica nada
+                System.err.println("Erro ao apagar o spool do chat: " + e.getMessage());
+                return;
+            }
+            spoolPending = false;
+            if (!spooled.isEmpty()) {
+                System.err.println(spooled.size() + " mensagem(ns) do chat regravada(s) a partir do spool");
+            }
+        }
+    }
+
+    private void stored(List<PendingMessage> batch) {
+        try {
+            eventPublisher.publishEvent(new ChatMessagesStoredEvent(List.copyOf(batch)));
+        } catch (RuntimeException e) {
+            System.err.println("Erro ao avisar mensagens do chat gravadas: " + e.getMessage());
+        }
+    }
+
+    private List<PendingMessage> readSpool() {
+        List<PendingMessage> spooled = new ArrayList<>();
+        if (!Files.exists(spoolFile)) {
+            return spooled;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(spoolFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    spooled.add(objectMapper.readValue(line, PendingMessage.class));
+                } catch (IOException e) {
+                    // Linha cortada por uma queda no meio da escrita
+                    System.err.println("Linha inválida no spool do chat ignorada: " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Erro ao ler o spool do chat: " + e.getMessage(), e);
+        }
+        return spooled;
+    }
+
+    private long maxSpooledId() {
+        synchronized (spoolLock) {
+            return readSpool().stream().mapToLong(pending -> pending.message().id()).max().orElse(0);
+        }
+    }
+
+    private void forget(List<PendingMessage> batch) {
+        for (PendingMessage pending : batch) {
+            unpersisted.remove(pending.message().id());
+        }
+    }
+
+    /**
+     * Mensagem aceita e ainda não gravada (também é o formato de cada linha do spool).
+     */
+    public record PendingMessage(Long groupId, ChatMessageDto message) {}
+}
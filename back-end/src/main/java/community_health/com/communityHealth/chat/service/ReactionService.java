@@ -0,0 +1,168 @@
+package community_health.com.communityHealth.chat.service;
+
+import community_health.com.communityHealth.chat.dto.ReactionResultDto;
+import community_health.com.communityHealth.chat.dto.ReactionSummaryDto;
+import community_health.com.communityHealth.chat.repository.ReactionRepository;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.transaction.Transactional;
+import community_health.com.communityHealth.checkin.repository.CommentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reações (emoji) aos check-ins, gravadas na tabela reactions.
+ * Adicionar e remover são um único comando cada; duplicidade é resolvida pela constraint única,
+ * então dois toques simultâneos no mesmo emoji não geram duas reações.
+ * Check-in e usuário não são carregados antes: se não existirem, a chave estrangeira recusa o INSERT.
+ *
+ * O INSERT é simples e a reação repetida é reconhecida pela violação da chave única (DuplicateKeyException).
+ * Nada de ON CONFLICT DO NOTHING: no MySQL o Hibernate gera ON DUPLICATE KEY UPDATE, e sem useAffectedRows
+ * o driver devolve 1 para a linha que já existia, então toda reação repetida pareceria criada.
+ * No MySQL e no H2 o erro de um comando não desfaz a transação, então ela segue normalmente depois dele.
+ */
+@Service
+public class ReactionService {
+
+    private static final int MAX_EMOJI_LENGTH = 32;
+
+    private static final String INSERT_SQL = "INSERT INTO reactions (checkin_id, user_id, emoji_type) VALUES (?, ?, ?)";
+
+    private final ReactionRepository reactionRepository;
+    private final CommentRepository commentRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public ReactionService(ReactionRepository reactionRepository, CommentRepository commentRepository,
+                           TransactionTemplate transactionTemplate, JdbcTemplate jdbcTemplate) {
+        this.reactionRepository = reactionRepository;
+        this.commentRepository = commentRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Adiciona a reação (não faz nada se ela já existir).
+     * @throws EntityNotFoundException Se o check-in ou o usuário não existir
+     */
+    @Transactional
+    public ReactionResultDto addReaction(Long checkinId, Long userId, String emoji) {
+        String normalized = normalize(emoji);
+        boolean created = insert(checkinId, userId, normalized);
+        return new ReactionResultDto(checkinId, normalized, true, created);
+    }
+
+    /**
+     * Remove a reação.
+     * @return Resultado com changed=false se a reação não existia
+     */
+    @Transactional
+    public ReactionResultDto removeReaction(Long checkinId, Long userId, String emoji) {
+        String normalized = normalize(emoji);
+        boolean removed = reactionRepository.deleteReaction(checkinId, userId, normalized) > 0;
+        return new ReactionResultDto(checkinId, normalized, false, removed);
+    }
+
+    /**
+     * Alterna a reação: remove se existir, cria se não existir.
+     * Tenta o DELETE primeiro; só quando nada foi removido faz o INSERT.
+     */
+    @Transactional
+    public ReactionResultDto toggleReaction(Long checkinId, Long userId, String emoji) {
+        String normalized = normalize(emoji);
+        if (reactionRepository.deleteReaction(checkinId, userId, normalized) > 0) {
+            return new ReactionResultDto(checkinId, normalized, false, true);
+        }
+        boolean created = insert(checkinId, userId, normalized);
+        return new ReactionResultDto(checkinId, normalized, true, created);
+    }
+
+    /**
+     * Totais por emoji de um check-in e os emojis do usuário (se informado).
+     */
+    public ReactionSummaryDto getReactions(Long checkinId, Long userId) {
+        Map<String, Long> counts = countByCheckinIds(List.of(checkinId)).getOrDefault(checkinId, Map.of());
+        List<String> mine = userId != null
+                ? reactionRepository.findEmojisByCheckinIdAndUserId(checkinId, userId)
+                : List.of();
+        return new ReactionSummaryDto(checkinId, counts, mine);
+    }
+
+    /**
+     * Totais por emoji de vários check-ins em uma única query (usado pelo feed).
+     * @return checkinId -> (emoji -> total), com o emoji mais usado primeiro
+     */
+    public Map<Long, Map<String, Long>> countByCheckinIds(Collection<Long> checkinIds) {
+        Map<Long, Map<String, Long>> result = new HashMap<>();
+        if (checkinIds.isEmpty()) {
+            return result;
+        }
+
+        for (Object[] row : reactionRepository.countByCheckinIdsGroupedByEmoji(checkinIds)) {
+            result.computeIfAbsent((Long) row[0], id -> new LinkedHashMap<>()).put((String) row[1], (Long) row[2]);
+        }
+        return result;
+    }
+
+    /**
+     * Remove todas as reações do check-in (antes de apagar o próprio check-in).
+     */
+    @Transactional
+    public void deleteReactionsOfCheckin(Long checkinId) {
+        reactionRepository.deleteByCheckinId(checkinId);
+    }
+
+    /**
+     * Reações antigas eram gravadas como comentários sem texto em Checkin_Comments.
+     * Na subida da aplicação elas são copiadas para a tabela reactions e removidas de lá
+     * (sem efeito quando não há mais nenhuma). Uma falha aqui não impede a aplicação de subir.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateLegacyReactions() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                int copied = reactionRepository.copyLegacyReactionsFromComments();
+                int removed = commentRepository.deleteLegacyReactions();
+                if (removed > 0) {
+                    System.err.println("Reações migradas de Checkin_Comments: " + copied + " (linhas antigas removidas: " + removed + ")");
+                }
+            });
+        } catch (RuntimeException e) {
+            System.err.println("Não foi possível migrar as reações antigas: " + e.getMessage());
+        }
+    }
+
+    private boolean insert(Long checkinId, Long userId, String emoji) {
+        try {
+            return jdbcTemplate.update(INSERT_SQL, checkinId, userId, emoji) > 0;
+        } catch (DuplicateKeyException e) {
+            return false; // Já existia (inclusive criada ao mesmo tempo por outro toque)
+        } catch (DataIntegrityViolationException e) {
+            // Fora a chave única, a única violação possível é de chave estrangeira
+            throw new EntityNotFoundException("Check-in ou usuário não encontrado.");
+        }
+    }
+
+    private static String normalize(String emoji) {
+        if (emoji == null || emoji.isBlank()) {
+            throw new IllegalArgumentException("O emoji da reação é obrigatório.");
+        }
+        String trimmed = emoji.trim();
+        if (trimmed.length() > MAX_EMOJI_LENGTH) {
+            throw new IllegalArgumentException("Emoji inválido.");
+        }
+        return trimmed;
+    }
+}
@@ -1,15 +1,23 @@
 package community_health.com.communityHealth.checkin.controller;
 
+import community_health.com.communityHealth.checkin.dto.CheckinFeedItem;
+import community_health.com.communityHealth.checkin.dto.CheckinImportResult;
 import community_health.com.communityHealth.checkin.model.Checkin;
+import community_health.com.communityHealth.checkin.dto.VoteResultDto;
+import community_health.com.communityHealth.checkin.service.CheckinImportService;
 import community_health.com.communityHealth.checkin.service.CheckinService;
+import community_health.com.communityHealth.checkin.service.CheckinVoteService;
+import community_health.com.communityHealth.utils.CursorPage;
 import community_health.com.communityHealth.utils.FileUploadUtil; // 🔑 Importar o utilitário
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile; // 🔑 Importar para upload
 import java.io.IOException;
+import java.io.InputStream;
 
 import java.util.List;
 
@@ -18,10 +26,15 @@ import java.util.List;
 public class CheckinController {
 
     private final CheckinService checkinService;
+    private final CheckinVoteService checkinVoteService;
+    private final CheckinImportService checkinImportService;
 
     @Autowired
-    public CheckinController(CheckinService checkinService) {
+    public CheckinController(CheckinService checkinService, CheckinVoteService checkinVoteService,
+                             CheckinImportService checkinImportService) {
         this.checkinService = checkinService;
+        this.checkinVoteService = checkinVoteService;
+        this.checkinImportService = checkinImportService;
     }
 
     /**
@@ -49,6 +62,32 @@ public class CheckinController {
         }
     }
 
+    /**
+     * Endpoint para importar atividades antigas em lote (array JSON ou NDJSON no corpo).
+     * URL: POST /api/checkins/import?groupId={ID}&userId={ID}
+     * Linhas inválidas não impedem as demais: voltam listadas em "errors".
+     */
+    @PostMapping("/import")
+    public ResponseEntity<Object> importCheckins(
+            @RequestParam Long groupId,
+            @RequestParam Long userId,
+            InputStream body) {
+        try {
+            CheckinImportResult result = checkinImportService.importCheckins(groupId, userId, body);
+            return ResponseEntity.ok(result);
+
+        } catch (EntityNotFoundException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+
+        } catch (IOException e) {
+            return new ResponseEntity<>("Não foi possível ler o arquivo de importação.", HttpStatus.BAD_REQUEST);
+
+        } catch (Exception e) {
+            System.err.println("Erro na importação de check-ins: " + e.getMessage());
+            return new ResponseEntity<>("Erro interno ao importar checkins.", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     /**
      * 🆕 NOVO ENDPOINT: Faz o upload da imagem do Check-in e retorna a URL pública.
      * URL: POST /api/checkins/upload
@@ -84,6 +123,26 @@ public class CheckinController {
         }
     }
 
+    /**
+     * Endpoint GET do feed paginado por cursor (scroll infinito).
+     * URL: GET /api/checkins/feed?groupId={ID}&before={createdAt,id}&limit={N}
+     * A resposta traz "nextCursor", que deve ser enviado em "before" para buscar a próxima página.
+     */
+    @GetMapping("/feed")
+    public ResponseEntity<Object> getCheckinFeed(
+            @RequestParam Long groupId,
+            @RequestParam(required = false) String before,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            CursorPage<CheckinFeedItem> page = checkinService.getCheckinFeed(groupId, before, limit);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     /**
      * Exemplo de Endpoint GET para buscar um checkin por ID
      */
@@ -96,4 +155,45 @@ public class CheckinController {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
     }
+
+    /**
+     * Endpoint POST para votar na aprovação de um check-in.
+     * URL: POST /api/checkins/{id}/votes?userId={ID}&approve={true|false}
+     */
+    @PostMapping("/{id}/votes")
+    public ResponseEntity<Object> voteCheckin(
+            @PathVariable Long id,
+            @RequestParam Long userId,
+            @RequestParam boolean approve) {
+        try {
+            VoteResultDto result = checkinVoteService.vote(id, userId, approve);
+            return ResponseEntity.ok(result);
+        } catch (EntityNotFoundException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (IllegalStateException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT);
+        } catch (DataIntegrityViolationException e) {
+            return new ResponseEntity<>("O usuário já votou neste check-in.", HttpStatus.CONFLICT);
+        } catch (Exception e) {
+            return new ResponseEntity<>("Erro interno ao registrar voto.", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Endpoint DELETE para remover um check-in.
+     * URL: DELETE /api/checkins/{id}
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Object> deleteCheckin(@PathVariable Long id) {
+        try {
+            checkinService.deleteCheckin(id);
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        } catch (EntityNotFoundException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+        } catch (Exception e) {
+            return new ResponseEntity<>("Erro interno ao remover checkin.", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
 }
\ No newline at end of file
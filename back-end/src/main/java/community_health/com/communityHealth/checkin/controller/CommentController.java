@@ -1,12 +1,22 @@
 package community_health.com.communityHealth.checkin.controller;
 
+import community_health.com.communityHealth.chat.dto.ReactionResultDto;
+import community_health.com.communityHealth.chat.service.ReactionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import community_health.com.communityHealth.checkin.dto.CommentItem;
 import community_health.com.communityHealth.checkin.model.Comment;
 import community_health.com.communityHealth.checkin.service.CommentService;
+import community_health.com.communityHealth.utils.CursorPage;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List; // Importar List é essencial para o método GET
 
 @RestController
@@ -14,10 +24,17 @@ import java.util.List; // Importar List é essencial para o método GET
 public class CommentController {
 
     private final CommentService commentService;
+    private final ReactionService reactionService;
+    private final ObjectMapper objectMapper;
+
+    // Linhas NDJSON escritas entre um flush e outro
+    private static final int STREAM_FLUSH_EVERY = 100;
 
     @Autowired
-    public CommentController(CommentService commentService) {
+    public CommentController(CommentService commentService, ReactionService reactionService, ObjectMapper objectMapper) {
         this.commentService = commentService;
+        this.reactionService = reactionService;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -30,8 +47,16 @@ public class CommentController {
             @RequestParam Long checkinId,
             @RequestParam(defaultValue = "1") Long userId) {
         try {
+            // Compatibilidade: corpo só com emoji é uma reação (agora em /api/reactions)
+            if (commentData.getContent() == null && commentData.getReactionEmoji() != null) {
+                ReactionResultDto reaction = reactionService.addReaction(checkinId, userId, commentData.getReactionEmoji());
+                return new ResponseEntity<>(reaction, reaction.changed() ? HttpStatus.CREATED : HttpStatus.OK);
+            }
+
             Comment newComment = commentService.createComment(commentData, checkinId, userId);
             return new ResponseEntity<>(newComment, HttpStatus.CREATED);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
         } catch (EntityNotFoundException e) {
             // Retorna 404 se Checkin ou User não forem encontrados
             return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
@@ -59,9 +84,65 @@ public class CommentController {
         }
     }
 
+    /**
+     * Endpoint GET para a conversa paginada por cursor (mais antigos primeiro).
+     * URL: GET /api/comments/page?checkinId={ID}&after={CURSOR}&limit={N}
+     * Para continuar, envie o "nextCursor" da resposta anterior em "after".
+     */
+    @GetMapping("/page")
+    public ResponseEntity<Object> getCommentPage(
+            @RequestParam Long checkinId,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            CursorPage<CommentItem> page = commentService.getCommentPage(checkinId, after, limit);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            System.err.println("Erro ao buscar comentários: " + e.getMessage());
+            return new ResponseEntity<>("Erro interno ao buscar comentários.", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Endpoint GET que envia a conversa inteira como NDJSON (um CommentItem por linha).
+     * URL: GET /api/comments/stream?checkinId={ID}
+     * Os comentários são escritos conforme saem do banco, então a memória do servidor
+     * não cresce com o tamanho da conversa.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamComments(@RequestParam Long checkinId) {
+        StreamingResponseBody body = out -> {
+            int[] written = {0};
+            try {
+                commentService.forEachComment(checkinId, item -> {
+                    try {
+                        out.write(objectMapper.writeValueAsBytes(item));
+                        out.write('\n');
+                        if (++written[0] % STREAM_FLUSH_EVERY == 0) {
+                            out.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                // Cliente desconectou no meio: a transação de leitura já foi encerrada
+                throw e.getCause();
+            }
+            out.flush();
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
     /**
      * 🆕 NOVO ENDPOINT: Remove uma reação específica de um Check-in.
      * URL: DELETE /api/comments?checkinId={ID}&userId={ID}&emoji={EMOJI}
+     * Mantido por compatibilidade: usa a tabela reactions (ver DELETE /api/reactions).
      */
     @DeleteMapping
     public ResponseEntity<Object> removeReaction(
@@ -69,7 +150,9 @@ public class CommentController {
             @RequestParam(defaultValue = "1") Long userId, // Assume userId=1 por padrão (teste)
             @RequestParam String emoji) {
         try {
-            commentService.removeReaction(checkinId, userId, emoji);
+            if (!reactionService.removeReaction(checkinId, userId, emoji).changed()) {
+                throw new EntityNotFoundException("Reação não encontrada para remoção.");
+            }
             // Retorna 204 No Content para remoção bem-sucedida (sem corpo de resposta)
             return new ResponseEntity<>(HttpStatus.NO_CONTENT);
         } catch (EntityNotFoundException e) {
@@ -0,0 +1,43 @@
+package community_health.com.communityHealth.checkin.dto;
+
+import community_health.com.communityHealth.checkin.model.CheckinStatus;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Item do feed de atividades.
+ * Carrega apenas o que o feed exibe, sem o grafo completo de Checkin -> User/Group -> owner.
+ * Montado direto na query (constructor expression) em CheckinRepository; o total de comentários
+ * e as reações são preenchidos depois com queries agrupadas para a página inteira.
+ */
+public record CheckinFeedItem(
+        Long id,
+        String tituloAtividade,
+        String descricao,
+        String photoUrl,
+        Double distanciaKm,
+        Integer duracaoMin,
+        Integer passos,
+        LocalDateTime createdAt,
+        CheckinStatus status,
+        Long userId,
+        String userName,
+        String userPhoto,
+        long commentCount,
+        Map<String, Long> reactions
+) {
+
+    // Usado pela constructor expression da query do feed
+    public CheckinFeedItem(Long id, String tituloAtividade, String descricao, String photoUrl,
+                           Double distanciaKm, Integer duracaoMin, Integer passos, LocalDateTime createdAt,
+                           CheckinStatus status, Long userId, String userName, String userPhoto) {
+        this(id, tituloAtividade, descricao, photoUrl, distanciaKm, duracaoMin, passos, createdAt,
+                status, userId, userName, userPhoto, 0L, Map.of());
+    }
+
+    public CheckinFeedItem withEngagement(long commentCount, Map<String, Long> reactions) {
+        return new CheckinFeedItem(id, tituloAtividade, descricao, photoUrl, distanciaKm, duracaoMin, passos,
+                createdAt, status, userId, userName, userPhoto, commentCount, reactions);
+    }
+}
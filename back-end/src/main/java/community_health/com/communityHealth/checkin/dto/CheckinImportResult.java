@@ -0,0 +1,22 @@
+package community_health.com.communityHealth.checkin.dto;
+
+import java.util.List;
+
+/**
+ * Resultado da importação em lote.
+ * @param imported Linhas gravadas
+ * @param failed Linhas recusadas
+ * @param errors Motivo de cada linha recusada (limitado às primeiras, ver CheckinImportService)
+ */
+public record CheckinImportResult(
+        int imported,
+        int failed,
+        List<RowError> errors
+) {
+
+    /**
+     * @param row Posição da linha no arquivo (começando em 1)
+     * @param message Motivo da recusa
+     */
+    public record RowError(int row, String message) {}
+}
@@ -0,0 +1,17 @@
+package community_health.com.communityHealth.checkin.dto;
+
+import community_health.com.communityHealth.checkin.model.CheckinMetrics;
+
+import java.time.LocalDateTime;
+
+/**
+ * Uma atividade do arquivo de importação (exportação de relógio/app de corrida).
+ * Mesmos nomes de campo do JSON de Checkin, mais a data original da atividade.
+ */
+public record CheckinImportRow(
+        String tituloAtividade,
+        String descricao,
+        String photoUrl,
+        LocalDateTime createdAt,
+        CheckinMetrics metricas
+) {}
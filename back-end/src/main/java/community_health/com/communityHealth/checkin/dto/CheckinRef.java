@@ -0,0 +1,13 @@
+package community_health.com.communityHealth.checkin.dto;
+
+import community_health.com.communityHealth.checkin.model.CheckinStatus;
+
+/**
+ * Referência leve de um check-in (sem carregar User/Group), usada na votação.
+ */
+public record CheckinRef(
+        Long id,
+        Long groupId,
+        Long authorId,
+        CheckinStatus status
+) {}
@@ -0,0 +1,17 @@
+package community_health.com.communityHealth.checkin.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Comentário de um check-in como aparece na conversa.
+ * Só o autor vem junto (id, nome e foto); nada de Checkin -> Group -> owner.
+ * Montado direto na query (constructor expression) em CommentRepository.
+ */
+public record CommentItem(
+        Long id,
+        String content,
+        LocalDateTime createdAt,
+        Long userId,
+        String userName,
+        String userPhoto
+) {}
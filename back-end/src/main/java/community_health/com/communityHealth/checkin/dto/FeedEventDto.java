@@ -0,0 +1,27 @@
+package community_health.com.communityHealth.checkin.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Evento do feed enviado em /topic/group/{id}/feed.
+ * Só CHECKIN_CREATED leva o item completo; os outros levam apenas o ID do check-in
+ * e o cliente atualiza o que já tem na tela.
+ *
+ * @param checkinId ID do check-in (null em CHECKINS_IMPORTED, que cobre vários de uma vez)
+ * @param item Item novo do feed (só em CHECKIN_CREATED)
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record FeedEventDto(
+        Type type,
+        Long checkinId,
+        CheckinFeedItem item
+) {
+
+    public enum Type {
+        CHECKIN_CREATED,
+        CHECKIN_APPROVED,
+        CHECKIN_DELETED,
+        CHECKINS_IMPORTED, // Histórico importado: o cliente recarrega a primeira página
+        COMMENT_CREATED
+    }
+}
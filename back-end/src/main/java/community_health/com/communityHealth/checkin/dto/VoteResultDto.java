@@ -0,0 +1,14 @@
+package community_health.com.communityHealth.checkin.dto;
+
+import community_health.com.communityHealth.checkin.model.CheckinStatus;
+
+/**
+ * Situação da votação de um check-in depois de um voto.
+ */
+public record VoteResultDto(
+        Long checkinId,
+        CheckinStatus status,
+        int approvals,
+        int rejections,
+        long members
+) {}
@@ -0,0 +1,22 @@
+package community_health.com.communityHealth.checkin.event;
+
+/**
+ * Publicado quando um check-in do grupo muda (criação, aprovação, remoção ou importação em lote).
+ * Quem precisa reagir só depois do commit usa @TransactionalEventListener.
+ *
+ * @param checkinId ID do check-in (null em IMPORTED, que cobre vários de uma vez)
+ */
+public record CheckinEvent(
+        Long checkinId,
+        Long groupId,
+        Long userId,
+        Type type
+) {
+
+    public enum Type {
+        CREATED,
+        APPROVED,
+        DELETED,
+        IMPORTED
+    }
+}
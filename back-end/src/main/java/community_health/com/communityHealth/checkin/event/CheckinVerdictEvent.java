@@ -0,0 +1,13 @@
+package community_health.com.communityHealth.checkin.event;
+
+import community_health.com.communityHealth.checkin.model.CheckinStatus;
+
+/**
+ * Publicado uma única vez por check-in, quando a votação cruza o limite de aprovação ou de rejeição.
+ */
+public record CheckinVerdictEvent(
+        Long checkinId,
+        Long groupId,
+        Long authorId,
+        CheckinStatus status
+) {}
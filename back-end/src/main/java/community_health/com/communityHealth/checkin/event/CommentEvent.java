@@ -0,0 +1,12 @@
+package community_health.com.communityHealth.checkin.event;
+
+/**
+ * Publicado quando um comentário é criado em um check-in.
+ * Quem precisa reagir só depois do commit usa @TransactionalEventListener.
+ */
+public record CommentEvent(
+        Long commentId,
+        Long checkinId,
+        Long groupId,
+        Long userId
+) {}
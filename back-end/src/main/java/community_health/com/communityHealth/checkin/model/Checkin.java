@@ -12,7 +12,13 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "Checkins")
+@Table(
+        name = "Checkins",
+        indexes = {
+                // Índice do feed paginado por cursor (ver CheckinRepository.findFeedByGroupIdBefore)
+                @Index(name = "idx_checkins_group_created", columnList = "group_id, created_at, id")
+        }
+)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -39,6 +45,19 @@ public class Checkin {
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
 
+    // --- Votação do grupo (ver CheckinVoteService) ---
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status")
+    private CheckinStatus status = CheckinStatus.PENDING;
+
+    // Contadores atualizados com incremento atômico no banco a cada voto
+    @Column(name = "approval_count")
+    private Integer approvalCount = 0;
+
+    @Column(name = "rejection_count")
+    private Integer rejectionCount = 0;
+
     // --- Relacionamentos Obrigatórios ---
 
     // 🆕 Relacionamento com o Usuário que fez o Check-in
@@ -0,0 +1,10 @@
+package community_health.com.communityHealth.checkin.model;
+
+/**
+ * Situação do check-in na votação do grupo (60% de aprovação para contar).
+ */
+public enum CheckinStatus {
+    PENDING,
+    APPROVED,
+    REJECTED
+}
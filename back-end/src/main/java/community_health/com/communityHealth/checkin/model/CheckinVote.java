@@ -0,0 +1,41 @@
+package community_health.com.communityHealth.checkin.model;
+
+import community_health.com.communityHealth.user.model.User;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(
+        name = "Checkin_Votes",
+        uniqueConstraints = {
+                // Um voto por membro em cada check-in (garantido pelo banco, não por leitura prévia)
+                @UniqueConstraint(columnNames = {"checkin_id", "user_id"})
+        }
+)
+@Data
+@NoArgsConstructor
+public class CheckinVote {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "checkin_id", nullable = false)
+    private Checkin checkin;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    // true = aprova, false = rejeita
+    @Column(nullable = false)
+    private Boolean approved;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+}
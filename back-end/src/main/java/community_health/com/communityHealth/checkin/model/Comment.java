@@ -9,7 +9,13 @@ import org.hibernate.annotations.CreationTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "Checkin_Comments")
+@Table(
+        name = "Checkin_Comments",
+        indexes = {
+                // Índice da conversa paginada por cursor (ver CommentRepository.findThreadByCheckinIdAfter)
+                @Index(name = "idx_comments_checkin_created", columnList = "checkin_id, created_at, id")
+        }
+)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
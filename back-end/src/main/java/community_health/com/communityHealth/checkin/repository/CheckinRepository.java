@@ -1,13 +1,19 @@
 package community_health.com.communityHealth.checkin.repository;
 
+import community_health.com.communityHealth.checkin.dto.CheckinFeedItem;
+import community_health.com.communityHealth.checkin.dto.CheckinRef;
+import community_health.com.communityHealth.checkin.dto.VoteResultDto;
 import community_health.com.communityHealth.checkin.model.Checkin;
-import community_health.com.communityHealth.group.dto.RankingDto;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 
 @Repository
@@ -18,18 +24,154 @@ public interface CheckinRepository extends JpaRepository<Checkin, Long> {
     // Ex: List<Checkin> findByUsuarioId(Long usuarioId);
     List<Checkin> findByGroupId(Long groupId);
 
+    // Primeira página do feed (mais recentes primeiro), usa o índice (group_id, created_at, id)
     @Query("""
-    SELECT new community_health.com.communityHealth.group.dto.RankingDto(
-        c.user.id,
-        c.user.name,
-        c.user.photoUrl,
-        COUNT(c.id),
-        COUNT(DISTINCT FUNCTION('DAY', c.createdAt))
+    SELECT new community_health.com.communityHealth.checkin.dto.CheckinFeedItem(
+        c.id,
+        c.tituloAtividade,
+        c.descricao,
+        c.photoUrl,
+        c.metricas.distanciaKm,
+        c.metricas.duracaoMin,
+        c.metricas.passos,
+        c.createdAt,
+        c.status,
+        u.id,
+        u.name,
+        u.photoUrl
     )
     FROM Checkin c
+    JOIN c.user u
     WHERE c.group.id = :groupId
-    GROUP BY c.user.id, c.user.name, c.user.photoUrl
-    ORDER BY COUNT(c.id) DESC
+    ORDER BY c.createdAt DESC, c.id DESC
 """)
-    List<RankingDto> findRankingByGroupId(@Param("groupId") Long groupId);
+    List<CheckinFeedItem> findFeedByGroupId(@Param("groupId") Long groupId, Limit limit);
+
+    // Páginas seguintes do feed: tudo que vem antes do cursor (createdAt, id)
+    @Query("""
+    SELECT new community_health.com.communityHealth.checkin.dto.CheckinFeedItem(
+        c.id,
+        c.tituloAtividade,
+        c.descricao,
+        c.photoUrl,
+        c.metricas.distanciaKm,
+        c.metricas.duracaoMin,
+        c.metricas.passos,
+        c.createdAt,
+        c.status,
+        u.id,
+        u.name,
+        u.photoUrl
+    )
+    FROM Checkin c
+    JOIN c.user u
+    WHERE c.group.id = :groupId
+      AND (c.createdAt < :createdAt OR (c.createdAt = :createdAt AND c.id < :id))
+    ORDER BY c.createdAt DESC, c.id DESC
+""")
+    List<CheckinFeedItem> findFeedByGroupIdBefore(@Param("groupId") Long groupId,
+                                                  @Param("createdAt") LocalDateTime createdAt,
+                                                  @Param("id") Long id,
+                                                  Limit limit);
+
+    // Um item do feed (check-in recém-criado enviado pelo STOMP)
+    @Query("""
+    SELECT new community_health.com.communityHealth.checkin.dto.CheckinFeedItem(
+        c.id,
+        c.tituloAtividade,
+        c.descricao,
+        c.photoUrl,
+        c.metricas.distanciaKm,
+        c.metricas.duracaoMin,
+        c.metricas.passos,
+        c.createdAt,
+        c.status,
+        u.id,
+        u.name,
+        u.photoUrl
+    )
+    FROM Checkin c
+    JOIN c.user u
+    WHERE c.id = :id
+""")
+    Optional<CheckinFeedItem> findFeedItemById(@Param("id") Long id);
+
+    // As consultas de estatística abaixo só consideram check-ins que contam para o ranking:
+    // aprovados pelo grupo ou antigos, de antes da votação (status nulo)
+
+    // Quantos check-ins contados o usuário tem no grupo dentro de um intervalo (ex: no mesmo dia)
+    @Query("""
+    SELECT COUNT(c) FROM Checkin c
+    WHERE c.group.id = :groupId AND c.user.id = :userId
+      AND c.createdAt BETWEEN :start AND :end
+      AND (c.status IS NULL OR c.status = community_health.com.communityHealth.checkin.model.CheckinStatus.APPROVED)
+""")
+    long countCountedByGroupIdAndUserIdBetween(@Param("groupId") Long groupId, @Param("userId") Long userId,
+                                               @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    // Dias (distintos) com atividade de cada usuário no grupo: [userId, LocalDate]
+    @Query("""
+    SELECT DISTINCT c.user.id, CAST(c.createdAt AS LocalDate)
+    FROM Checkin c
+    WHERE c.group.id = :groupId
+      AND (c.status IS NULL OR c.status = community_health.com.communityHealth.checkin.model.CheckinStatus.APPROVED)
+""")
+    List<Object[]> findActiveDaysByGroupId(@Param("groupId") Long groupId);
+
+    // Histórico em ordem cronológica para o replay da pontuação: [userId, createdAt, duracaoMin]
+    @Query("""
+    SELECT c.user.id, c.createdAt, c.metricas.duracaoMin
+    FROM Checkin c
+    WHERE c.group.id = :groupId
+      AND (c.status IS NULL OR c.status = community_health.com.communityHealth.checkin.model.CheckinStatus.APPROVED)
+    ORDER BY c.createdAt, c.id
+""")
+    List<Object[]> findScoreHistoryByGroupId(@Param("groupId") Long groupId);
+
+    @Query("""
+    SELECT c.user.id, c.createdAt, c.metricas.duracaoMin
+    FROM Checkin c
+    WHERE c.group.id = :groupId AND c.user.id = :userId
+      AND (c.status IS NULL OR c.status = community_health.com.communityHealth.checkin.model.CheckinStatus.APPROVED)
+    ORDER BY c.createdAt, c.id
+""")
+    List<Object[]> findScoreHistoryByGroupIdAndUserId(@Param("groupId") Long groupId, @Param("userId") Long userId);
+
+    // --- Votação: contadores com incremento atômico (sem ler-contar-gravar) ---
+
+    @Query("SELECT new community_health.com.communityHealth.checkin.dto.CheckinRef(c.id, c.group.id, c.user.id, c.status) FROM Checkin c WHERE c.id = :id")
+    Optional<CheckinRef> findRefById(@Param("id") Long id);
+
+    @Query("SELECT new community_health.com.communityHealth.checkin.dto.VoteResultDto(c.id, c.status, c.approvalCount, c.rejectionCount, CAST(:members AS Long)) FROM Checkin c WHERE c.id = :id")
+    VoteResultDto findVoteResult(@Param("id") Long id, @Param("members") long members);
+
+    @Modifying
+    @Query("UPDATE Checkin c SET c.approvalCount = COALESCE(c.approvalCount, 0) + 1 WHERE c.id = :id")
+    int incrementApprovals(@Param("id") Long id);
+
+    @Modifying
+    @Query("UPDATE Checkin c SET c.rejectionCount = COALESCE(c.rejectionCount, 0) + 1 WHERE c.id = :id")
+    int incrementRejections(@Param("id") Long id);
+
+    /**
+     * Troca o status de PENDING para APPROVED/REJECTED se o total de votos atingiu o limite.
+     * Só uma transação consegue mudar a linha de PENDING, então o veredito dispara uma única vez.
+     */
+    @Modifying
+    @Query("""
+    UPDATE Checkin c SET c.status = community_health.com.communityHealth.checkin.model.CheckinStatus.APPROVED
+    WHERE c.id = :id
+      AND c.status = community_health.com.communityHealth.checkin.model.CheckinStatus.PENDING
+      AND c.approvalCount * 100 >= :percent * :members
+""")
+    int approveIfReached(@Param("id") Long id, @Param("percent") int percent, @Param("members") long members);
+
+    @Modifying
+    @Query("""
+    UPDATE Checkin c SET c.status = community_health.com.communityHealth.checkin.model.CheckinStatus.REJECTED
+    WHERE c.id = :id
+      AND c.status = community_health.com.communityHealth.checkin.model.CheckinStatus.PENDING
+      AND c.rejectionCount * 100 > :percent * :members
+""")
+    int rejectIfReached(@Param("id") Long id, @Param("percent") int percent, @Param("members") long members);
 }
\ No newline at end of file
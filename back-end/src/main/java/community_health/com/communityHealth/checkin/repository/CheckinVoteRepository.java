@@ -0,0 +1,16 @@
+package community_health.com.communityHealth.checkin.repository;
+
+import community_health.com.communityHealth.checkin.model.CheckinVote;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CheckinVoteRepository extends JpaRepository<CheckinVote, Long> {
+
+    @Modifying
+    @Query("DELETE FROM CheckinVote v WHERE v.checkin.id = :checkinId")
+    int deleteByCheckinId(@Param("checkinId") Long checkinId);
+}
@@ -1,11 +1,22 @@
 package community_health.com.communityHealth.checkin.repository;
 
+import community_health.com.communityHealth.checkin.dto.CommentItem;
 import community_health.com.communityHealth.checkin.model.Comment;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface CommentRepository extends JpaRepository<Comment, Long> {
@@ -13,6 +24,69 @@ public interface CommentRepository extends JpaRepository<Comment, Long> {
     // Método para buscar todos os comentários de um Check-in
     List<Comment> findByCheckinIdOrderByCreatedAtAsc(Long checkinId);
 
-    // 🆕 Novo método: Procura por uma reação específica de um usuário em um check-in
-    Optional<Comment> findByCheckinIdAndUserIdAndReactionEmoji(Long checkinId, Long userId, String reactionEmoji);
-}
\ No newline at end of file
+    // Primeira página da conversa (mais antigos primeiro), usa o índice (checkin_id, created_at, id)
+    @Query("""
+    SELECT new community_health.com.communityHealth.checkin.dto.CommentItem(
+        c.id, c.content, c.createdAt, u.id, u.name, u.photoUrl)
+    FROM Comment c
+    JOIN c.user u
+    WHERE c.checkin.id = :checkinId AND c.content IS NOT NULL
+    ORDER BY c.createdAt, c.id
+""")
+    List<CommentItem> findThreadByCheckinId(@Param("checkinId") Long checkinId, Limit limit);
+
+    // Páginas seguintes: tudo que vem depois do cursor (createdAt, id)
+    @Query("""
+    SELECT new community_health.com.communityHealth.checkin.dto.CommentItem(
+        c.id, c.content, c.createdAt, u.id, u.name, u.photoUrl)
+    FROM Comment c
+    JOIN c.user u
+    WHERE c.checkin.id = :checkinId AND c.content IS NOT NULL
+      AND (c.createdAt > :createdAt OR (c.createdAt = :createdAt AND c.id > :id))
+    ORDER BY c.createdAt, c.id
+""")
+    List<CommentItem> findThreadByCheckinIdAfter(@Param("checkinId") Long checkinId,
+                                                 @Param("createdAt") LocalDateTime createdAt,
+                                                 @Param("id") Long id,
+                                                 Limit limit);
+
+    // Conversa inteira como Stream: o driver entrega as linhas aos poucos (fetch size),
+    // sem montar a lista toda em memória. Precisa de transação aberta enquanto é lido.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+    SELECT new community_health.com.communityHealth.checkin.dto.CommentItem(
+        c.id, c.content, c.createdAt, u.id, u.name, u.photoUrl)
+    FROM Comment c
+    JOIN c.user u
+    WHERE c.checkin.id = :checkinId AND c.content IS NOT NULL
+    ORDER BY c.createdAt, c.id
+""")
+    Stream<CommentItem> streamThreadByCheckinId(@Param("checkinId") Long checkinId);
+
+    // Um comentário no formato da conversa (comentário novo enviado pelo STOMP)
+    @Query("""
+    SELECT new community_health.com.communityHealth.checkin.dto.CommentItem(
+        c.id, c.content, c.createdAt, u.id, u.name, u.photoUrl)
+    FROM Comment c
+    JOIN c.user u
+    WHERE c.id = :id
+""")
+    Optional<CommentItem> findItemById(@Param("id") Long id);
+
+    // Reações antigas gravadas como comentário (ver ReactionService.migrateLegacyReactions)
+    @Modifying
+    @Query("DELETE FROM Comment c WHERE c.reactionEmoji IS NOT NULL AND c.content IS NULL")
+    int deleteLegacyReactions();
+
+    // Total de comentários de vários check-ins em uma query: [checkinId, total]
+    @Query("""
+    SELECT c.checkin.id, COUNT(c)
+    FROM Comment c
+    WHERE c.checkin.id IN :checkinIds AND c.content IS NOT NULL
+    GROUP BY c.checkin.id
+""")
+    List<Object[]> countByCheckinIds(@Param("checkinIds") Collection<Long> checkinIds);
+}
@@ -0,0 +1,234 @@
+package community_health.com.communityHealth.checkin.service;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import community_health.com.communityHealth.checkin.dto.CheckinImportResult;
+import community_health.com.communityHealth.checkin.dto.CheckinImportRow;
+import community_health.com.communityHealth.checkin.event.CheckinEvent;
+import community_health.com.communityHealth.checkin.model.CheckinMetrics;
+import community_health.com.communityHealth.checkin.model.CheckinStatus;
+import community_health.com.communityHealth.group.model.Group;
+import community_health.com.communityHealth.group.repository.GroupRepository;
+import community_health.com.communityHealth.group.service.GroupMemberStatsService;
+import community_health.com.communityHealth.group.service.ScoreReplayService;
+import community_health.com.communityHealth.user.model.User;
+import community_health.com.communityHealth.user.service.UserService;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Importação em lote de check-ins antigos (exportações de relógios e apps de corrida).
+ *
+ * - O corpo é lido em streaming (array JSON ou NDJSON), sem carregar o arquivo inteiro.
+ * - Grupo e usuário são carregados uma única vez, não a cada linha.
+ * - As linhas válidas são gravadas em blocos com batch JDBC (um INSERT preparado, vários valores),
+ *   cada bloco na sua transação. No MySQL, rewriteBatchedStatements junta o bloco em um INSERT multi-linha.
+ * - No final, contadores e pontuação do grupo são recalculados uma vez a partir do histórico.
+ * Check-ins importados entram aprovados: são histórico do próprio atleta, não passam pela votação.
+ */
+@Service
+public class CheckinImportService {
+
+    // Linhas por bloco (validação + batch + commit)
+    static final int CHUNK_SIZE = 500;
+
+    // Quantos erros detalhados voltam na resposta (o total de falhas sempre é informado)
+    static final int MAX_REPORTED_ERRORS = 1000;
+
+    private static final int MAX_TITLE_LENGTH = 255;
+
+    private static final String INSERT_SQL = """
+            INSERT INTO checkins
+                (titulo_atividade, descricao, photo_url, distancia_km, duracao_min, passos,
+                 created_at, status, approval_count, rejection_count, user_id, group_id)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, 1, 0, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final GroupRepository groupRepository;
+    private final UserService userService;
+    private final GroupMemberStatsService groupMemberStatsService;
+    private final ScoreReplayService scoreReplayService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    public CheckinImportService(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                ObjectMapper objectMapper, GroupRepository groupRepository, UserService userService,
+                                GroupMemberStatsService groupMemberStatsService, ScoreReplayService scoreReplayService,
+                                ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.groupRepository = groupRepository;
+        this.userService = userService;
+        this.groupMemberStatsService = groupMemberStatsService;
+        this.scoreReplayService = scoreReplayService;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Importa as atividades de um usuário para o grupo.
+     *
+     * @param groupId ID do grupo
+     * @param userId ID do autor das atividades
+     * @param body Array JSON ou NDJSON (um CheckinImportRow por linha)
+     * @return Totais e erros por linha
+     * @throws EntityNotFoundException Se o grupo ou o usuário não existir
+     * @throws IOException Se não for possível ler o corpo
+     */
+    public CheckinImportResult importCheckins(Long groupId, Long userId, InputStream body) throws IOException {
+        Group group = groupRepository.findById(groupId)
+                .orElseThrow(() -> new EntityNotFoundException("Grupo não encontrado com ID: " + groupId));
+        User user = userService.getUserById(userId)
+                .orElseThrow(() -> new EntityNotFoundException("Usuário não encontrado com ID: " + userId));
+
+        transactionTemplate.executeWithoutResult(status -> groupMemberStatsService.ensureMembership(group, user));
+
+        ImportProgress progress = new ImportProgress();
+        List<NumberedRow> chunk = new ArrayList<>(CHUNK_SIZE);
+        LocalDateTime now = LocalDateTime.now();
+        int rowNumber = 0;
+
+        try (MappingIterator<CheckinImportRow> rows = objectMapper.readerFor(CheckinImportRow.class).readValues(body)) {
+            while (true) {
+                CheckinImportRow row;
+                try {
+                    if (!rows.hasNextValue()) {
+                        break;
+                    }
+                    rowNumber++;
+                    row = rows.nextValue();
+                } catch (JsonParseException e) {
+                    // JSON quebrado: não dá para saber onde começa a próxima linha
+                    progress.fail(rowNumber, "JSON inválido: " + e.getOriginalMessage());
+                    break;
+                } catch (JsonMappingException e) {
+                    // Tipo errado em algum campo: o iterador pula para a próxima linha
+                    progress.fail(rowNumber, "Campo inválido: " + e.getOriginalMessage());
+                    continue;
+                }
+
+                String error = validate(row, now);
+                if (error != null) {
+                    progress.fail(rowNumber, error);
+                    continue;
+                }
+
+                chunk.add(new NumberedRow(rowNumber, row));
+                if (chunk.size() == CHUNK_SIZE) {
+                    insertChunk(chunk, groupId, userId, now, progress);
+                    chunk.clear();
+                }
+            }
+        }
+        insertChunk(chunk, groupId, userId, now, progress);
+
+        if (progress.imported > 0) {
+            // Um único recálculo no final em vez de atualizar o ranking linha a linha
+            transactionTemplate.executeWithoutResult(status -> {
+                groupMemberStatsService.rebuildCounters(groupId);
+                scoreReplayService.replayGroup(groupId, true);
+            });
+            eventPublisher.publishEvent(new CheckinEvent(null, groupId, userId, CheckinEvent.Type.IMPORTED));
+        }
+
+        return new CheckinImportResult(progress.imported, progress.failed, progress.errors);
+    }
+
+    private void insertChunk(List<NumberedRow> chunk, Long groupId, Long userId, LocalDateTime now,
+                             ImportProgress progress) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(INSERT_SQL, chunk, chunk.size(), (ps, numbered) -> {
+                        CheckinImportRow row = numbered.row();
+                        CheckinMetrics metricas = row.metricas() != null ? row.metricas() : new CheckinMetrics();
+
+                        ps.setString(1, row.tituloAtividade().trim());
+                        ps.setString(2, row.descricao());
+                        ps.setString(3, row.photoUrl());
+                        ps.setObject(4, metricas.getDistanciaKm(), Types.DOUBLE);
+                        ps.setObject(5, metricas.getDuracaoMin(), Types.INTEGER);
+                        ps.setObject(6, metricas.getPassos(), Types.INTEGER);
+                        ps.setTimestamp(7, Timestamp.valueOf(row.createdAt() != null ? row.createdAt() : now));
+                        ps.setString(8, CheckinStatus.APPROVED.name());
+                        ps.setLong(9, userId);
+                        ps.setLong(10, groupId);
+                    }));
+            progress.imported += chunk.size();
+        } catch (DataAccessException e) {
+            // O bloco inteiro volta atrás: todas as linhas dele são informadas como falha
+            System.err.println("Erro ao gravar bloco da importação: " + e.getMostSpecificCause().getMessage());
+            for (NumberedRow numbered : chunk) {
+                progress.fail(numbered.number(), "Erro ao gravar: " + e.getMostSpecificCause().getMessage());
+            }
+        }
+    }
+
+    private static String validate(CheckinImportRow row, LocalDateTime now) {
+        if (row == null) {
+            return "Linha vazia.";
+        }
+        if (row.tituloAtividade() == null || row.tituloAtividade().trim().isEmpty()) {
+            return "O título da atividade é obrigatório.";
+        }
+        if (row.tituloAtividade().trim().length() > MAX_TITLE_LENGTH) {
+            return "O título da atividade deve ter no máximo " + MAX_TITLE_LENGTH + " caracteres.";
+        }
+        if (row.photoUrl() != null && row.photoUrl().length() > 255) {
+            return "A URL da foto deve ter no máximo 255 caracteres.";
+        }
+        if (row.createdAt() != null && row.createdAt().isAfter(now)) {
+            return "A data da atividade não pode estar no futuro.";
+        }
+
+        CheckinMetrics metricas = row.metricas();
+        if (metricas != null) {
+            if (metricas.getDistanciaKm() != null && metricas.getDistanciaKm() < 0) {
+                return "A distância não pode ser negativa.";
+            }
+            if (metricas.getDuracaoMin() != null && metricas.getDuracaoMin() < 0) {
+                return "A duração não pode ser negativa.";
+            }
+            if (metricas.getPassos() != null && metricas.getPassos() < 0) {
+                return "O número de passos não pode ser negativo.";
+            }
+        }
+        return null;
+    }
+
+    private record NumberedRow(int number, CheckinImportRow row) {}
+
+    private static final class ImportProgress {
+        int imported;
+        int failed;
+        final List<CheckinImportResult.RowError> errors = new ArrayList<>();
+
+        void fail(int row, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new CheckinImportResult.RowError(row, message));
+            }
+        }
+    }
+}
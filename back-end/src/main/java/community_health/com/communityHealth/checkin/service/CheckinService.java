@@ -1,30 +1,63 @@
 package community_health.com.communityHealth.checkin.service;
 
+import community_health.com.communityHealth.chat.service.ReactionService;
+import community_health.com.communityHealth.checkin.dto.CheckinFeedItem;
+import community_health.com.communityHealth.checkin.event.CheckinEvent;
 import community_health.com.communityHealth.checkin.model.Checkin;
+import community_health.com.communityHealth.checkin.model.CheckinStatus;
 import community_health.com.communityHealth.checkin.repository.CheckinRepository;
+import community_health.com.communityHealth.checkin.repository.CheckinVoteRepository;
+import community_health.com.communityHealth.checkin.repository.CommentRepository;
 import community_health.com.communityHealth.group.model.Group;
+import community_health.com.communityHealth.group.repository.GroupMemberRepository;
 import community_health.com.communityHealth.group.repository.GroupRepository;
+import community_health.com.communityHealth.group.service.GroupMemberStatsService;
 import community_health.com.communityHealth.user.model.User;
 import community_health.com.communityHealth.user.service.UserService;
+import community_health.com.communityHealth.utils.CursorPage;
+import community_health.com.communityHealth.utils.KeysetCursor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import jakarta.transaction.Transactional;
 import jakarta.persistence.EntityNotFoundException;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class CheckinService {
 
+    // Tamanho padrão e máximo de uma página do feed
+    private static final int DEFAULT_FEED_LIMIT = 20;
+    private static final int MAX_FEED_LIMIT = 100;
+
     private final CheckinRepository checkinRepository;
     private final GroupRepository groupRepository;
     private final UserService userService; // Injetado
+    private final GroupMemberStatsService groupMemberStatsService;
+    private final CheckinVoteRepository checkinVoteRepository;
+    private final GroupMemberRepository groupMemberRepository;
+    private final CommentRepository commentRepository;
+    private final ReactionService reactionService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public CheckinService(CheckinRepository checkinRepository, GroupRepository groupRepository, UserService userService) {
+    public CheckinService(CheckinRepository checkinRepository, GroupRepository groupRepository, UserService userService,
+                          GroupMemberStatsService groupMemberStatsService, CheckinVoteRepository checkinVoteRepository,
+                          GroupMemberRepository groupMemberRepository, CommentRepository commentRepository,
+                          ReactionService reactionService, ApplicationEventPublisher eventPublisher) {
         this.checkinRepository = checkinRepository;
         this.groupRepository = groupRepository;
         this.userService = userService;
+        this.groupMemberStatsService = groupMemberStatsService;
+        this.checkinVoteRepository = checkinVoteRepository;
+        this.groupMemberRepository = groupMemberRepository;
+        this.commentRepository = commentRepository;
+        this.reactionService = reactionService;
+        this.eventPublisher = eventPublisher;
     }
 
     // Método para salvar um novo Check-in (RECEBENDO userId)
@@ -48,7 +81,47 @@ public class CheckinService {
             throw new IllegalArgumentException("O título da atividade é obrigatório.");
         }
 
-        return checkinRepository.save(checkin);
+        // 5. Votação começa do zero (não confia no que veio no JSON); o autor conta como a primeira aprovação.
+        // Em grupos pequenos (ex: só o dono) isso já basta para aprovar.
+        groupMemberStatsService.ensureMembership(group, user);
+        long members = groupMemberRepository.countByGroupId(groupId);
+        boolean approved = CheckinVoteService.reachesApproval(1, members);
+
+        checkin.setStatus(approved ? CheckinStatus.APPROVED : CheckinStatus.PENDING);
+        checkin.setApprovalCount(1);
+        checkin.setRejectionCount(0);
+
+        Checkin savedCheckin = checkinRepository.save(checkin);
+
+        // 6. Check-in aprovado entra nos contadores do ranking na mesma transação
+        if (approved) {
+            groupMemberStatsService.onCheckinApproved(savedCheckin);
+        }
+
+        eventPublisher.publishEvent(new CheckinEvent(savedCheckin.getId(), groupId, userId, CheckinEvent.Type.CREATED));
+        return savedCheckin;
+    }
+
+    /**
+     * Remove um check-in (com votos e reações) e, se ele já contava, desconta dos contadores do ranking.
+     */
+    @Transactional
+    public void deleteCheckin(Long id) {
+        Checkin checkin = checkinRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Checkin não encontrado com ID: " + id));
+
+        checkinVoteRepository.deleteByCheckinId(id);
+        reactionService.deleteReactionsOfCheckin(id);
+        checkinRepository.delete(checkin);
+        checkinRepository.flush();
+
+        // Check-ins antigos (sem status) são de antes da votação e contam como aprovados
+        if (checkin.getStatus() == null || checkin.getStatus() == CheckinStatus.APPROVED) {
+            groupMemberStatsService.onCheckinDeleted(checkin);
+        }
+
+        eventPublisher.publishEvent(new CheckinEvent(id, checkin.getGroup().getId(), checkin.getUser().getId(),
+                CheckinEvent.Type.DELETED));
     }
 
     // Método para buscar Check-ins por Grupo
@@ -56,6 +129,56 @@ public class CheckinService {
         return checkinRepository.findByGroupId(groupId);
     }
 
+    /**
+     * Busca uma página do feed do grupo, do mais recente para o mais antigo.
+     * Busca um item a mais que o limite para saber se existe próxima página.
+     * Total de comentários e reações da página vêm de uma query agrupada cada (sem uma chamada por check-in).
+     *
+     * @param groupId ID do grupo
+     * @param before Cursor "createdAt,id" do último item já exibido (null para a primeira página)
+     * @param limit Quantidade de itens da página
+     * @return Página com os itens do feed e o cursor da próxima página
+     */
+    public CursorPage<CheckinFeedItem> getCheckinFeed(Long groupId, String before, Integer limit) {
+        int pageSize = (limit == null || limit <= 0) ? DEFAULT_FEED_LIMIT : Math.min(limit, MAX_FEED_LIMIT);
+        KeysetCursor cursor = KeysetCursor.parse(before);
+
+        List<CheckinFeedItem> items = (cursor == null)
+                ? checkinRepository.findFeedByGroupId(groupId, Limit.of(pageSize + 1))
+                : checkinRepository.findFeedByGroupIdBefore(groupId, cursor.createdAt(), cursor.id(), Limit.of(pageSize + 1));
+
+        if (items.size() <= pageSize) {
+            return new CursorPage<>(withEngagement(items), null);
+        }
+
+        List<CheckinFeedItem> page = items.subList(0, pageSize);
+        CheckinFeedItem last = page.get(pageSize - 1);
+        return new CursorPage<>(withEngagement(page), new KeysetCursor(last.createdAt(), last.id()).encode());
+    }
+
+    /**
+     * Preenche total de comentários e reações por emoji de todos os itens da página.
+     */
+    private List<CheckinFeedItem> withEngagement(List<CheckinFeedItem> items) {
+        if (items.isEmpty()) {
+            return items;
+        }
+
+        List<Long> ids = items.stream().map(CheckinFeedItem::id).toList();
+
+        Map<Long, Long> commentCounts = new HashMap<>();
+        for (Object[] row : commentRepository.countByCheckinIds(ids)) {
+            commentCounts.put((Long) row[0], (Long) row[1]);
+        }
+        Map<Long, Map<String, Long>> reactions = reactionService.countByCheckinIds(ids);
+
+        return items.stream()
+                .map(item -> item.withEngagement(
+                        commentCounts.getOrDefault(item.id(), 0L),
+                        reactions.getOrDefault(item.id(), Map.of())))
+                .toList();
+    }
+
     // Método para buscar check-ins por ID
     public Checkin getCheckinById(Long id) {
         return checkinRepository.findById(id)
@@ -0,0 +1,138 @@
+package community_health.com.communityHealth.checkin.service;
+
+import community_health.com.communityHealth.checkin.dto.CheckinRef;
+import community_health.com.communityHealth.checkin.dto.VoteResultDto;
+import community_health.com.communityHealth.checkin.event.CheckinEvent;
+import community_health.com.communityHealth.checkin.event.CheckinVerdictEvent;
+import community_health.com.communityHealth.checkin.model.Checkin;
+import community_health.com.communityHealth.checkin.model.CheckinStatus;
+import community_health.com.communityHealth.checkin.model.CheckinVote;
+import community_health.com.communityHealth.checkin.repository.CheckinRepository;
+import community_health.com.communityHealth.checkin.repository.CheckinVoteRepository;
+import community_health.com.communityHealth.group.repository.GroupMemberRepository;
+import community_health.com.communityHealth.group.service.GroupMemberStatsService;
+import community_health.com.communityHealth.user.repository.UserRepository;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+/**
+ * Votação dos check-ins pelo grupo: o check-in conta para o ranking depois que 60% dos membros aprovam
+ * e é descartado quando mais de 40% rejeitam (a aprovação não tem mais como ser alcançada).
+ *
+ * - Um voto por membro, garantido pela constraint única de Checkin_Votes.
+ * - Os totais são incrementados direto no banco (UPDATE ... + 1), sem ler-contar-gravar,
+ *   antes de gravar o voto (ver vote: ordem das travas).
+ * - A troca de status é um UPDATE condicional (status = PENDING), então aprovação/rejeição
+ *   disparam uma única vez mesmo com muitos votos simultâneos.
+ * O autor não vota: o próprio check-in já conta como a aprovação dele.
+ */
+@Service
+public class CheckinVoteService {
+
+    public static final int APPROVAL_PERCENT = 60;
+
+    private final CheckinRepository checkinRepository;
+    private final CheckinVoteRepository checkinVoteRepository;
+    private final GroupMemberRepository groupMemberRepository;
+    private final UserRepository userRepository;
+    private final CheckinService checkinService;
+    private final GroupMemberStatsService groupMemberStatsService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    public CheckinVoteService(CheckinRepository checkinRepository, CheckinVoteRepository checkinVoteRepository,
+                              GroupMemberRepository groupMemberRepository, UserRepository userRepository,
+                              CheckinService checkinService, GroupMemberStatsService groupMemberStatsService,
+                              ApplicationEventPublisher eventPublisher) {
+        this.checkinRepository = checkinRepository;
+        this.checkinVoteRepository = checkinVoteRepository;
+        this.groupMemberRepository = groupMemberRepository;
+        this.userRepository = userRepository;
+        this.checkinService = checkinService;
+        this.groupMemberStatsService = groupMemberStatsService;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Indica se o total de aprovações atinge o limite sobre o número de membros do grupo.
+     * Mesma regra do UPDATE condicional em CheckinRepository.approveIfReached.
+     */
+    public static boolean reachesApproval(long approvals, long members) {
+        return approvals * 100 >= APPROVAL_PERCENT * members;
+    }
+
+    /**
+     * Registra o voto de um membro.
+     *
+     * @param checkinId ID do check-in
+     * @param userId ID do membro que vota
+     * @param approve true para aprovar, false para rejeitar
+     * @return Situação da votação depois do voto
+     * @throws EntityNotFoundException Se o check-in não existir
+     * @throws IllegalArgumentException Se o usuário não for membro do grupo ou for o autor
+     * @throws IllegalStateException Se a votação já estiver encerrada
+     * @throws org.springframework.dao.DataIntegrityViolationException Se o membro já votou
+     */
+    @Transactional
+    public VoteResultDto vote(Long checkinId, Long userId, boolean approve) {
+        CheckinRef checkin = checkinRepository.findRefById(checkinId)
+                .orElseThrow(() -> new EntityNotFoundException("Checkin não encontrado com ID: " + checkinId));
+
+        if (checkin.authorId().equals(userId)) {
+            throw new IllegalArgumentException("O autor não vota no próprio check-in.");
+        }
+        if (!groupMemberRepository.existsByGroupIdAndUserId(checkin.groupId(), userId)) {
+            throw new IllegalArgumentException("Apenas membros do grupo podem votar.");
+        }
+        if (checkin.status() != null && checkin.status() != CheckinStatus.PENDING) {
+            throw new IllegalStateException("A votação deste check-in já foi encerrada.");
+        }
+
+        // 1. Soma o voto direto no banco. Vem antes do INSERT do voto: o UPDATE já pega a trava exclusiva
+        //    da linha do check-in. Na ordem inversa, a checagem da FK do voto deixa uma trava compartilhada
+        //    que cada voto simultâneo precisaria promover, e os votos de uma rajada entram em deadlock (InnoDB)
+        if (approve) {
+            checkinRepository.incrementApprovals(checkinId);
+        } else {
+            checkinRepository.incrementRejections(checkinId);
+        }
+
+        // 2. Grava o voto: um segundo voto do mesmo membro esbarra na constraint única (e desfaz a soma)
+        CheckinVote vote = new CheckinVote();
+        vote.setCheckin(checkinRepository.getReferenceById(checkinId));
+        vote.setUser(userRepository.getReferenceById(userId));
+        vote.setApproved(approve);
+        checkinVoteRepository.saveAndFlush(vote);
+
+        // 3. Confere o limite sobre o número atual de membros
+        long members = groupMemberRepository.countByGroupId(checkin.groupId());
+        CheckinStatus verdict = null;
+
+        if (approve && checkinRepository.approveIfReached(checkinId, APPROVAL_PERCENT, members) == 1) {
+            verdict = CheckinStatus.APPROVED;
+        } else if (!approve && checkinRepository.rejectIfReached(checkinId, 100 - APPROVAL_PERCENT, members) == 1) {
+            verdict = CheckinStatus.REJECTED;
+        }
+
+        VoteResultDto result = checkinRepository.findVoteResult(checkinId, members);
+
+        if (verdict != null) {
+            if (verdict == CheckinStatus.APPROVED) {
+                // A partir de agora o check-in conta para o ranking
+                Checkin approved = checkinRepository.findById(checkinId)
+                        .orElseThrow(() -> new EntityNotFoundException("Checkin não encontrado com ID: " + checkinId));
+                groupMemberStatsService.onCheckinApproved(approved);
+                eventPublisher.publishEvent(new CheckinEvent(checkinId, checkin.groupId(), checkin.authorId(),
+                        CheckinEvent.Type.APPROVED));
+            } else {
+                // Check-in reprovado é descartado (sai do feed)
+                checkinService.deleteCheckin(checkinId);
+            }
+            eventPublisher.publishEvent(new CheckinVerdictEvent(checkinId, checkin.groupId(), checkin.authorId(), verdict));
+        }
+        return result;
+    }
+}
@@ -1,34 +1,49 @@
 package community_health.com.communityHealth.checkin.service;
 
+import community_health.com.communityHealth.checkin.dto.CommentItem;
+import community_health.com.communityHealth.checkin.event.CommentEvent;
 import community_health.com.communityHealth.checkin.model.Checkin;
 import community_health.com.communityHealth.checkin.model.Comment;
 import community_health.com.communityHealth.checkin.repository.CommentRepository;
 import community_health.com.communityHealth.checkin.repository.CheckinRepository;
 import community_health.com.communityHealth.user.model.User;
 import community_health.com.communityHealth.user.service.UserService;
+import community_health.com.communityHealth.utils.CursorPage;
+import community_health.com.communityHealth.utils.KeysetCursor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import jakarta.transaction.Transactional;
 import jakarta.persistence.EntityNotFoundException;
 import java.util.List;
-import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class CommentService {
 
+    // Tamanho padrão e máximo de uma página da conversa
+    private static final int DEFAULT_PAGE_LIMIT = 30;
+    private static final int MAX_PAGE_LIMIT = 100;
+
     private final CommentRepository commentRepository;
     private final CheckinRepository checkinRepository;
     private final UserService userService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public CommentService(CommentRepository commentRepository, CheckinRepository checkinRepository, UserService userService) {
+    public CommentService(CommentRepository commentRepository, CheckinRepository checkinRepository, UserService userService,
+                          ApplicationEventPublisher eventPublisher) {
         this.commentRepository = commentRepository;
         this.checkinRepository = checkinRepository;
         this.userService = userService;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
-     * Cria um novo comentário ou reação, aplicando a regra de reação única.
+     * Cria um novo comentário de texto.
+     * Reações ficam na tabela reactions (ver ReactionService).
      */
     @Transactional
     public Comment createComment(Comment commentData, Long checkinId, Long userId) {
@@ -40,49 +55,67 @@ public class CommentService {
         User user = userService.getUserById(userId)
                 .orElseThrow(() -> new EntityNotFoundException("Usuário (Comentarista) não encontrado com ID: " + userId));
 
-        // 2. REGRA DE NEGÓCIO: Impedir reações duplicadas
-        if (commentData.getContent() == null && commentData.getReactionEmoji() != null) {
-            String emoji = commentData.getReactionEmoji();
-
-            // 🔑 A verificação é feita. Se a exclusão anterior comitou, esta deve retornar vazio.
-            boolean reactionExists = commentRepository
-                    .findByCheckinIdAndUserIdAndReactionEmoji(checkinId, userId, emoji)
-                    .isPresent();
-
-            if (reactionExists) {
-                // Lança exceção 409 CONFLICT (confirmação da regra)
-                throw new RuntimeException("O usuário já reagiu com o emoji '" + emoji + "' neste Check-in.");
-            }
+        // 2. Validação
+        if (commentData.getContent() == null || commentData.getContent().trim().isEmpty()) {
+            throw new IllegalArgumentException("O comentário não pode ser vazio.");
         }
 
         // 3. Associar os objetos
         commentData.setCheckin(checkin);
         commentData.setUser(user);
+        commentData.setReactionEmoji(null);
 
         // 4. Salvar
-        return commentRepository.save(commentData);
+        Comment savedComment = commentRepository.save(commentData);
+
+        eventPublisher.publishEvent(new CommentEvent(savedComment.getId(), checkinId, checkin.getGroup().getId(), userId));
+        return savedComment;
     }
 
     /**
-     * 🆕 Método para remover uma reação específica de um usuário.
-     * @Transactional garante que o commit da deleção ocorra.
+     * Método para carregar comentários de um Check-in.
      */
-    @Transactional
-    public void removeReaction(Long checkinId, Long userId, String emoji) {
-        Optional<Comment> existingReaction = commentRepository
-                .findByCheckinIdAndUserIdAndReactionEmoji(checkinId, userId, emoji);
-
-        if (existingReaction.isPresent()) {
-            commentRepository.delete(existingReaction.get());
-        } else {
-            throw new EntityNotFoundException("Reação não encontrada para remoção.");
+    public List<Comment> getCommentsByCheckinId(Long checkinId) {
+        return commentRepository.findByCheckinIdOrderByCreatedAtAsc(checkinId);
+    }
+
+    /**
+     * Busca uma página da conversa do check-in, do comentário mais antigo para o mais novo.
+     * Busca um item a mais que o limite para saber se existe próxima página.
+     *
+     * @param checkinId ID do check-in
+     * @param after Cursor "createdAt,id" do último comentário já exibido (null para a primeira página)
+     * @param limit Quantidade de comentários da página
+     * @return Página com os comentários e o cursor da próxima página
+     */
+    public CursorPage<CommentItem> getCommentPage(Long checkinId, String after, Integer limit) {
+        int pageSize = (limit == null || limit <= 0) ? DEFAULT_PAGE_LIMIT : Math.min(limit, MAX_PAGE_LIMIT);
+        KeysetCursor cursor = KeysetCursor.parse(after);
+
+        List<CommentItem> items = (cursor == null)
+                ? commentRepository.findThreadByCheckinId(checkinId, Limit.of(pageSize + 1))
+                : commentRepository.findThreadByCheckinIdAfter(checkinId, cursor.createdAt(), cursor.id(), Limit.of(pageSize + 1));
+
+        if (items.size() <= pageSize) {
+            return new CursorPage<>(items, null);
         }
+
+        List<CommentItem> page = items.subList(0, pageSize);
+        CommentItem last = page.get(pageSize - 1);
+        return new CursorPage<>(page, new KeysetCursor(last.createdAt(), last.id()).encode());
     }
 
     /**
-     * Método para carregar comentários de um Check-in.
+     * Percorre a conversa inteira do check-in em ordem, um comentário por vez.
+     * A transação fica aberta enquanto o Stream é lido; nada é acumulado em memória.
+     *
+     * @param checkinId ID do check-in
+     * @param action Chamado para cada comentário (ex: escrever uma linha NDJSON na resposta)
      */
-    public List<Comment> getCommentsByCheckinId(Long checkinId) {
-        return commentRepository.findByCheckinIdOrderByCreatedAtAsc(checkinId);
+    @Transactional
+    public void forEachComment(Long checkinId, Consumer<CommentItem> action) {
+        try (Stream<CommentItem> comments = commentRepository.streamThreadByCheckinId(checkinId)) {
+            comments.forEach(action);
+        }
     }
-}
\ No newline at end of file
+}
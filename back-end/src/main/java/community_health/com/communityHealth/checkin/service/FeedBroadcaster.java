@@ -0,0 +1,68 @@
+package community_health.com.communityHealth.checkin.service;
+
+import community_health.com.communityHealth.checkin.dto.FeedEventDto;
+import community_health.com.communityHealth.checkin.event.CheckinEvent;
+import community_health.com.communityHealth.checkin.event.CommentEvent;
+import community_health.com.communityHealth.checkin.repository.CheckinRepository;
+import community_health.com.communityHealth.checkin.repository.CommentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Envia as novidades do feed pelo STOMP depois do commit, para a tela atualizar só o que mudou
+ * em vez de baixar o feed de novo:
+ * - /topic/group/{id}/feed: check-in criado (item completo), aprovado, removido, importação e novo comentário
+ * - /topic/checkin/{id}/comments: o comentário novo, no formato da conversa (CommentItem)
+ * Depois do commit: ninguém recebe um check-in que ainda pode ser desfeito.
+ */
+@Component
+public class FeedBroadcaster {
+
+    private final SimpMessageSendingOperations messagingTemplate;
+    private final CheckinRepository checkinRepository;
+    private final CommentRepository commentRepository;
+
+    @Autowired
+    public FeedBroadcaster(SimpMessageSendingOperations messagingTemplate, CheckinRepository checkinRepository,
+                           CommentRepository commentRepository) {
+        this.messagingTemplate = messagingTemplate;
+        this.checkinRepository = checkinRepository;
+        this.commentRepository = commentRepository;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCheckinEvent(CheckinEvent event) {
+        FeedEventDto message = switch (event.type()) {
+            case CREATED -> checkinRepository.findFeedItemById(event.checkinId())
+                    .map(item -> new FeedEventDto(FeedEventDto.Type.CHECKIN_CREATED, item.id(), item))
+                    .orElse(null);
+            case APPROVED -> new FeedEventDto(FeedEventDto.Type.CHECKIN_APPROVED, event.checkinId(), null);
+            case DELETED -> new FeedEventDto(FeedEventDto.Type.CHECKIN_DELETED, event.checkinId(), null);
+            case IMPORTED -> new FeedEventDto(FeedEventDto.Type.CHECKINS_IMPORTED, null, null);
+        };
+        if (message != null) {
+            send("/topic/group/" + event.groupId() + "/feed", message);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCommentEvent(CommentEvent event) {
+        commentRepository.findItemById(event.commentId())
+                .ifPresent(item -> send("/topic/checkin/" + event.checkinId() + "/comments", item));
+        send("/topic/group/" + event.groupId() + "/feed",
+                new FeedEventDto(FeedEventDto.Type.COMMENT_CREATED, event.checkinId(), null));
+    }
+
+    private void send(String destination, Object payload) {
+        try {
+            messagingTemplate.convertAndSend(destination, payload);
+        } catch (MessagingException e) {
+            // O commit já aconteceu: uma falha no envio não pode virar erro para quem fez a escrita
+            System.err.println("Erro ao enviar evento do feed para " + destination + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package community_health.com.communityHealth.cluster.dto;
+
+/**
+ * Mensagem do broker que atravessa as instâncias: destino STOMP, content-type e o corpo já serializado (JSON).
+ */
+public record ClusterEnvelope(
+        String destination,
+        String contentType,
+        byte[] payload
+) {}
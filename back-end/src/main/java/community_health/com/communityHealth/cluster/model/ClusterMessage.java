@@ -0,0 +1,43 @@
+package community_health.com.communityHealth.cluster.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Mensagem STOMP publicada por uma instância para as demais (ver JdbcClusterFanout).
+ * As linhas só vivem alguns segundos: cada instância lê as novas pelo ID e as antigas são apagadas.
+ */
+@Entity
+@Table(
+        name = "Cluster_Messages",
+        indexes = {
+                // Limpeza das mensagens já entregues
+                @Index(name = "idx_cluster_messages_created", columnList = "created_at")
+        }
+)
+@Data
+public class ClusterMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Instância que publicou (ela não relê as próprias mensagens)
+    @Column(name = "origin_node", length = 36, nullable = false)
+    private String originNode;
+
+    @Column(nullable = false)
+    private String destination;
+
+    @Column(name = "content_type", length = 100)
+    private String contentType;
+
+    @Lob
+    @Column(nullable = false)
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
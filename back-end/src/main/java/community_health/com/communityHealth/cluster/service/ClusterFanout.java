@@ -0,0 +1,25 @@
+package community_health.com.communityHealth.cluster.service;
+
+import community_health.com.communityHealth.cluster.dto.ClusterEnvelope;
+
+import java.util.function.Consumer;
+
+/**
+ * Canal entre as instâncias do backend para as mensagens do broker STOMP.
+ *
+ * O SimpleBroker só entrega para quem está conectado na mesma JVM; com mais de uma instância atrás
+ * do balanceador, o que é publicado numa delas precisa chegar aos inscritos das outras.
+ * A implementação é escolhida por cluster.fanout (local ou jdbc).
+ */
+public interface ClusterFanout {
+
+    /**
+     * Envia a mensagem para as outras instâncias. Não espera a entrega.
+     */
+    void publish(ClusterEnvelope envelope);
+
+    /**
+     * Registra quem recebe as mensagens publicadas pelas outras instâncias (nunca as desta).
+     */
+    void subscribe(Consumer<ClusterEnvelope> listener);
+}
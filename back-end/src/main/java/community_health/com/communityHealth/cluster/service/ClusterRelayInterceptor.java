@@ -0,0 +1,99 @@
+package community_health.com.communityHealth.cluster.service;
+
+import community_health.com.communityHealth.cluster.dto.ClusterEnvelope;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.MimeType;
+
+import java.util.List;
+
+/**
+ * Interceptor do brokerChannel: tudo que é publicado nos tópicos de cluster.fanout.destinations
+ * (controller do chat, feed) também segue pelo ClusterFanout para as outras instâncias.
+ *
+ * Ficam de fora os tópicos de cluster.fanout.excluded-destinations: os que cada instância calcula a partir
+ * do próprio estado em memória. Nas diferenças do ranking (base e sequência próprias) o que atravessa é
+ * o evento que as gera (ver RankingClusterRelay), e cada instância envia aos seus inscritos; na presença
+ * do chat atravessa o estado de cada instância e as diferenças saem da união (ver ChatPresenceRegistry).
+ *
+ * O que chega das outras instâncias volta pelo brokerChannel marcado com RELAYED_HEADER,
+ * para o SimpleBroker local entregar aos inscritos sem repassar de novo.
+ */
+@Component
+public class ClusterRelayInterceptor implements ChannelInterceptor {
+
+    static final String RELAYED_HEADER = "clusterRelayed";
+
+    private final ClusterFanout clusterFanout;
+    private final MessageChannel brokerChannel;
+    private final List<String> destinations;
+    private final List<String> excludedDestinations;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    @Autowired
+    public ClusterRelayInterceptor(ClusterFanout clusterFanout,
+                                   @Lazy @Qualifier("brokerChannel") MessageChannel brokerChannel,
+                                   @Value("${cluster.fanout.destinations:/topic/group/**}") List<String> destinations,
+                                   @Value("${cluster.fanout.excluded-destinations:/topic/group/*/ranking,/topic/group/*/presence}") List<String> excludedDestinations) {
+        this.clusterFanout = clusterFanout;
+        this.brokerChannel = brokerChannel;
+        this.destinations = destinations;
+        this.excludedDestinations = excludedDestinations;
+        clusterFanout.subscribe(this::deliver);
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        if (message.getHeaders().containsKey(RELAYED_HEADER)
+                || SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE
+                || !(message.getPayload() instanceof byte[] payload)) {
+            return message;
+        }
+
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        if (destination != null && isRelayed(destination)) {
+            MimeType contentType = SimpMessageHeaderAccessor.wrap(message).getContentType();
+            clusterFanout.publish(new ClusterEnvelope(
+                    destination, contentType == null ? null : contentType.toString(), payload));
+        }
+        return message;
+    }
+
+    private boolean isRelayed(String destination) {
+        for (String pattern : excludedDestinations) {
+            if (pathMatcher.match(pattern, destination)) {
+                return false;
+            }
+        }
+        for (String pattern : destinations) {
+            if (pathMatcher.match(pattern, destination)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Mensagem de outra instância: entrega aos inscritos desta (o canal também leva avisos internos, fora dos tópicos)
+    private void deliver(ClusterEnvelope envelope) {
+        if (!isRelayed(envelope.destination())) {
+            return;
+        }
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(envelope.destination());
+        if (envelope.contentType() != null) {
+            accessor.setContentType(MimeType.valueOf(envelope.contentType()));
+        }
+        accessor.setHeader(RELAYED_HEADER, Boolean.TRUE);
+        brokerChannel.send(MessageBuilder.createMessage(envelope.payload(), accessor.getMessageHeaders()));
+    }
+}
@@ -0,0 +1,257 @@
+package community_health.com.communityHealth.cluster.service;
+
+import community_health.com.communityHealth.cluster.dto.ClusterEnvelope;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Fan-out entre instâncias pelo próprio banco (tabela Cluster_Messages), sem serviço externo.
+ *
+ * - publish só coloca a mensagem na fila; uma thread própria grava o que juntou num batch JDBC.
+ * - A mesma thread lê a cada poll-ms as linhas com ID acima do último lido e entrega as das outras instâncias.
+ * - IDs vêm do auto incremento, mas uma transação pode confirmar depois de outra que pegou um ID maior.
+ *   Um buraco na sequência é relido até gap-timeout-ms antes de ser dado como perdido (rollback).
+ * - Linhas com mais de retention-ms são apagadas: quem reconecta recupera o chat pelo histórico (afterId).
+ *
+ * A entrega é "no máximo uma vez": com a fila cheia ou o banco fora do ar a mensagem não atravessa,
+ * mas os clientes das outras instâncias continuam recebendo o que for publicado depois.
+ */
+@Service
+@ConditionalOnProperty(name = "cluster.fanout", havingValue = "jdbc")
+public class JdbcClusterFanout implements ClusterFanout {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO cluster_messages (origin_node, destination, content_type, payload, created_at)
+            VALUES (?, ?, ?, ?, ?)
+            """;
+
+    private static final String POLL_SQL = """
+            SELECT id, origin_node, destination, content_type, payload FROM cluster_messages
+            WHERE id > ? ORDER BY id LIMIT ?
+            """;
+
+    // Só o intervalo dos buracos: IDs que podem ter sido confirmados depois dos vizinhos
+    private static final String GAP_SQL = """
+            SELECT id, origin_node, destination, content_type, payload FROM cluster_messages
+            WHERE id > ? AND id < ? ORDER BY id LIMIT ?
+            """;
+
+    private static final String CLEANUP_SQL = "DELETE FROM cluster_messages WHERE created_at < ?";
+
+    private static final long ERROR_BACKOFF_MS = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long pollMs;
+    private final int batchSize;
+    private final long gapTimeoutMs;
+    private final long retentionMs;
+
+    // Identifica esta instância nas linhas que ela grava
+    private final String nodeId = UUID.randomUUID().toString();
+    private final BlockingQueue<ClusterEnvelope> outbound;
+    private final List<Consumer<ClusterEnvelope>> listeners = new CopyOnWriteArrayList<>();
+    private final Thread worker;
+
+    // Estado de leitura (só a thread do fan-out mexe): tudo até cursor já foi visto;
+    // seenAbove guarda os IDs lidos depois de um buraco
+    private long cursor = -1;
+    private final TreeSet<Long> seenAbove = new TreeSet<>();
+    private long gapSince;
+    private long lastCleanup;
+
+    private volatile boolean running = true;
+
+    @Autowired
+    public JdbcClusterFanout(JdbcTemplate jdbcTemplate,
+                             @Value("${cluster.fanout.poll-ms:20}") long pollMs,
+                             @Value("${cluster.fanout.batch-size:500}") int batchSize,
+                             @Value("${cluster.fanout.queue-capacity:10000}") int queueCapacity,
+                             @Value("${cluster.fanout.gap-timeout-ms:2000}") long gapTimeoutMs,
+                             @Value("${cluster.fanout.retention-ms:60000}") long retentionMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.pollMs = pollMs;
+        this.batchSize = batchSize;
+        this.gapTimeoutMs = gapTimeoutMs;
+        this.retentionMs = retentionMs;
+        this.outbound = new LinkedBlockingQueue<>(queueCapacity);
+
+        this.worker = new Thread(this::loop, "cluster-fanout");
+        this.worker.setDaemon(true);
+    }
+
+    /**
+     * Começa a gravar e ler depois que a aplicação subiu (com o schema já criado).
+     * O que for publicado antes disso espera na fila.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        worker.start();
+    }
+
+    @Override
+    public void publish(ClusterEnvelope envelope) {
+        // Quem publica é a thread do broker: com a fila cheia descarta em vez de travar o chat local
+        if (!outbound.offer(envelope)) {
+            System.err.println("Fila do fan-out do cluster cheia, mensagem para " + envelope.destination()
+                    + " não será repassada às outras instâncias.");
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<ClusterEnvelope> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Grava o que ainda está na fila e para a thread.
+     */
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void loop() {
+        List<ClusterEnvelope> batch = new ArrayList<>(batchSize);
+        while (running || !outbound.isEmpty()) {
+            try {
+                ClusterEnvelope first = outbound.poll(pollMs, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    outbound.drainTo(batch, batchSize - 1);
+                }
+            } catch (InterruptedException e) {
+                running = false;
+                outbound.drainTo(batch);
+            }
+
+            try {
+                if (!batch.isEmpty()) {
+                    insert(batch);
+                }
+                if (running) {
+                    poll();
+                    cleanupIfDue();
+                }
+            } catch (RuntimeException e) {
+                // Banco fora do ar: o que estava no bloco se perde, a leitura continua de onde parou
+                System.err.println("Erro no fan-out do cluster: " + e.getMessage());
+                pause();
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // Espera um pouco antes de tentar o banco de novo (sem encher o log enquanto ele está fora)
+    private void pause() {
+        try {
+            Thread.sleep(ERROR_BACKOFF_MS);
+        } catch (InterruptedException e) {
+            running = false;
+        }
+    }
+
+    private void insert(List<ClusterEnvelope> batch) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, envelope) -> {
+            ps.setString(1, nodeId);
+            ps.setString(2, envelope.destination());
+            ps.setString(3, envelope.contentType());
+            ps.setString(4, new String(envelope.payload(), StandardCharsets.UTF_8));
+            ps.setTimestamp(5, now);
+        });
+    }
+
+    private void poll() {
+        if (cursor < 0) {
+            // Começa do que já está no banco: mensagens anteriores à subida não interessam
+            Long max = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM cluster_messages", Long.class);
+            cursor = max == null ? 0 : max;
+            return;
+        }
+
+        if (!seenAbove.isEmpty()) {
+            read(GAP_SQL, cursor, seenAbove.last(), batchSize);
+        }
+        read(POLL_SQL, seenAbove.isEmpty() ? cursor : seenAbove.last(), batchSize);
+        advanceCursor();
+    }
+
+    private void read(String sql, Object... args) {
+        jdbcTemplate.query(sql, rs -> {
+            long id = rs.getLong("id");
+            if (id <= cursor || !seenAbove.add(id) || nodeId.equals(rs.getString("origin_node"))) {
+                return;
+            }
+            deliver(new ClusterEnvelope(
+                    rs.getString("destination"),
+                    rs.getString("content_type"),
+                    rs.getString("payload").getBytes(StandardCharsets.UTF_8)));
+        }, args);
+    }
+
+    private void advanceCursor() {
+        long now = System.currentTimeMillis();
+        while (!seenAbove.isEmpty()) {
+            if (seenAbove.first() == cursor + 1) {
+                cursor = seenAbove.pollFirst();
+                gapSince = 0;
+                continue;
+            }
+            if (gapSince == 0) {
+                gapSince = now;
+            }
+            if (now - gapSince < gapTimeoutMs) {
+                return;
+            }
+            // O ID do buraco não apareceu a tempo (transação desfeita): segue em frente
+            cursor++;
+            gapSince = 0;
+        }
+    }
+
+    private void deliver(ClusterEnvelope envelope) {
+        for (Consumer<ClusterEnvelope> listener : listeners) {
+            try {
+                listener.accept(envelope);
+            } catch (RuntimeException e) {
+                System.err.println("Erro ao entregar mensagem do cluster em " + envelope.destination()
+                        + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void cleanupIfDue() {
+        long now = System.currentTimeMillis();
+        if (now - lastCleanup < retentionMs / 2) {
+            return;
+        }
+        lastCleanup = now;
+        jdbcTemplate.update(CLEANUP_SQL, Timestamp.valueOf(LocalDateTime.now().minusNanos(
+                TimeUnit.MILLISECONDS.toNanos(retentionMs))));
+    }
+}
@@ -0,0 +1,25 @@
+package community_health.com.communityHealth.cluster.service;
+
+import community_health.com.communityHealth.cluster.dto.ClusterEnvelope;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.function.Consumer;
+
+/**
+ * Instância única (padrão): não há para quem repassar, o SimpleBroker local já entrega tudo.
+ */
+@Service
+@ConditionalOnProperty(name = "cluster.fanout", havingValue = "local", matchIfMissing = true)
+public class LocalClusterFanout implements ClusterFanout {
+
+    @Override
+    public void publish(ClusterEnvelope envelope) {
+        // Nada a fazer
+    }
+
+    @Override
+    public void subscribe(Consumer<ClusterEnvelope> listener) {
+        // Nenhuma outra instância publica
+    }
+}
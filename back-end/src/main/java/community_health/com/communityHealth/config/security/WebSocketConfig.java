@@ -1,26 +1,131 @@
 package community_health.com.communityHealth.config.security; // Pacote correto
 
+import community_health.com.communityHealth.cluster.service.ClusterRelayInterceptor;
+import community_health.com.communityHealth.monitoring.service.WebSocketSessionMonitor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
+/**
+ * STOMP sobre WebSocket (SockJS como alternativa).
+ *
+ * Os executores dos canais de entrada (frames dos clientes) e de saída (entrega aos inscritos)
+ * são configuráveis em websocket.* e podem usar virtual threads (websocket.executor=virtual):
+ * uma escrita presa num cliente lento não ocupa uma thread de plataforma do pool.
+ * Clientes que não acompanham o envio são derrubados (ver WebSocketSessionMonitor).
+ * Com mais de uma instância, os tópicos dos grupos são repassados entre elas (ver ClusterRelayInterceptor).
+ */
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final WebSocketSessionMonitor sessionMonitor;
+    private final ClusterRelayInterceptor clusterRelayInterceptor;
+    private final TaskScheduler messageBrokerTaskScheduler;
+
+    @Value("${websocket.executor:pool}")
+    private String executorType;
+
+    @Value("${websocket.inbound.core-pool-size:4}")
+    private int inboundCorePoolSize;
+
+    @Value("${websocket.inbound.max-pool-size:16}")
+    private int inboundMaxPoolSize;
+
+    @Value("${websocket.outbound.core-pool-size:8}")
+    private int outboundCorePoolSize;
+
+    @Value("${websocket.outbound.max-pool-size:32}")
+    private int outboundMaxPoolSize;
+
+    @Value("${websocket.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${websocket.send-time-limit-ms:5000}")
+    private int sendTimeLimitMs;
+
+    @Value("${websocket.send-buffer-size-kb:256}")
+    private int sendBufferSizeKb;
+
+    @Value("${websocket.message-size-limit-kb:64}")
+    private int messageSizeLimitKb;
+
+    @Value("${websocket.heartbeat-ms:10000}")
+    private long heartbeatMs;
+
+    @Autowired
+    public WebSocketConfig(WebSocketSessionMonitor sessionMonitor, ClusterRelayInterceptor clusterRelayInterceptor,
+                           @Lazy @Qualifier("messageBrokerTaskScheduler") TaskScheduler messageBrokerTaskScheduler) {
+        this.sessionMonitor = sessionMonitor;
+        this.clusterRelayInterceptor = clusterRelayInterceptor;
+        this.messageBrokerTaskScheduler = messageBrokerTaskScheduler;
+    }
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         // Permite conexão de qualquer origem (para desenvolvimento)
         registry.addEndpoint("/ws")
                 .setAllowedOriginPatterns("*")
                 .withSockJS();
+
+        // Frames de um mesmo cliente são tratados na ordem de chegada (mensagens do chat não trocam de lugar)
+        registry.setPreserveReceiveOrder(true);
     }
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic");
+        // Heartbeat do broker: conexões mortas são detectadas e liberadas
+        config.enableSimpleBroker("/topic")
+                .setHeartbeatValue(new long[]{heartbeatMs, heartbeatMs})
+                .setTaskScheduler(messageBrokerTaskScheduler);
         config.setApplicationDestinationPrefixes("/app");
+        config.configureBrokerChannel().interceptors(clusterRelayInterceptor);
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        if (useVirtualThreads()) {
+            registration.executor(new VirtualThreadTaskExecutor("ws-inbound-"));
+        } else {
+            registration.taskExecutor()
+                    .corePoolSize(inboundCorePoolSize)
+                    .maxPoolSize(inboundMaxPoolSize)
+                    .queueCapacity(queueCapacity);
+        }
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        if (useVirtualThreads()) {
+            registration.executor(new VirtualThreadTaskExecutor("ws-outbound-"));
+        } else {
+            registration.taskExecutor()
+                    .corePoolSize(outboundCorePoolSize)
+                    .maxPoolSize(outboundMaxPoolSize)
+                    .queueCapacity(queueCapacity);
+        }
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration
+                .setSendTimeLimit(sendTimeLimitMs)
+                .setSendBufferSizeLimit(sendBufferSizeKb * 1024)
+                .setMessageSizeLimit(messageSizeLimitKb * 1024)
+                .addDecoratorFactory(sessionMonitor);
+    }
+
+    private boolean useVirtualThreads() {
+        return "virtual".equalsIgnoreCase(executorType);
     }
-}
\ No newline at end of file
+}
@@ -1,20 +1,31 @@
 package community_health.com.communityHealth.group.controller;
 
+import community_health.com.communityHealth.group.dto.ActivityPointDto;
 import community_health.com.communityHealth.group.dto.RankingDto;
+import community_health.com.communityHealth.group.dto.RankingWindowDto;
 import community_health.com.communityHealth.group.dto.GroupStatsDto; // 🔑 Importe o DTO
+import community_health.com.communityHealth.group.dto.ScoreDiffDto;
 import community_health.com.communityHealth.group.model.Group;
 import community_health.com.communityHealth.group.model.GroupMember;
+import community_health.com.communityHealth.group.model.ScoringMode;
+import community_health.com.communityHealth.group.service.ActivityRollupService;
 import community_health.com.communityHealth.group.service.GroupService;
+import community_health.com.communityHealth.group.service.LeaderboardService;
+import community_health.com.communityHealth.group.service.ScoreReplayService;
 import community_health.com.communityHealth.utils.FileUploadUtil;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.time.LocalDate;
 import java.util.List;
 
 record ImageUpdateDto(String imageUrl) {}
@@ -24,10 +35,17 @@ record ImageUpdateDto(String imageUrl) {}
 public class GroupController {
 
     private final GroupService groupService;
+    private final ScoreReplayService scoreReplayService;
+    private final ActivityRollupService activityRollupService;
+    private final LeaderboardService leaderboardService;
 
     @Autowired
-    public GroupController(GroupService groupService) {
+    public GroupController(GroupService groupService, ScoreReplayService scoreReplayService,
+                           ActivityRollupService activityRollupService, LeaderboardService leaderboardService) {
         this.groupService = groupService;
+        this.scoreReplayService = scoreReplayService;
+        this.activityRollupService = activityRollupService;
+        this.leaderboardService = leaderboardService;
     }
 
     /**
@@ -41,10 +59,13 @@ public class GroupController {
             @RequestParam("duration") Integer duration,
             @RequestParam("isPrivate") Boolean isPrivate,
             @RequestParam("ownerId") Long ownerId,
+            @RequestParam(value = "scoringMode", required = false) ScoringMode scoringMode,
+            @RequestParam(value = "maxMisses", required = false) Integer maxMisses,
             @RequestParam(value = "file", required = false) MultipartFile file
     ) {
         try {
-            Group newGroup = groupService.createGroupWithImage(name, description, duration, isPrivate, ownerId, file);
+            Group newGroup = groupService.createGroupWithImage(name, description, duration, isPrivate, ownerId,
+                    scoringMode, maxMisses, file);
             return new ResponseEntity<>(newGroup, HttpStatus.CREATED);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Erro ao criar grupo: " + e.getMessage());
@@ -80,6 +101,109 @@ public class GroupController {
         }
     }
 
+    /**
+     * GET /api/groups/{groupId}/ranking/top?limit={K}
+     * Os K primeiros colocados (padrão 10).
+     */
+    @GetMapping("/{groupId}/ranking/top")
+    public ResponseEntity<List<RankingDto>> getTopRanking(@PathVariable Long groupId,
+                                                          @RequestParam(required = false) Integer limit) {
+        try {
+            return ResponseEntity.ok(leaderboardService.getTop(groupId, limit));
+        } catch (Exception e) {
+            System.err.println("Erro ao buscar ranking: " + e.getMessage());
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * GET /api/groups/{groupId}/ranking/around?userId={ID}&radius={N}
+     * Posição do usuário no ranking e os N vizinhos acima e abaixo (padrão 2).
+     */
+    @GetMapping("/{groupId}/ranking/around")
+    public ResponseEntity<?> getRankingAround(@PathVariable Long groupId, @RequestParam Long userId,
+                                              @RequestParam(required = false) Integer radius) {
+        try {
+            RankingWindowDto window = leaderboardService.getAround(groupId, userId, radius);
+            return ResponseEntity.ok(window);
+        } catch (EntityNotFoundException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+        } catch (Exception e) {
+            System.err.println("Erro ao buscar posição no ranking: " + e.getMessage());
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * GET /api/groups/{groupId}/scores/verify
+     * Refaz a pontuação a partir do histórico e lista os membros cujo acumulado diverge (não altera nada).
+     */
+    @GetMapping("/{groupId}/scores/verify")
+    public ResponseEntity<List<ScoreDiffDto>> verifyScores(@PathVariable Long groupId) {
+        try {
+            return ResponseEntity.ok(scoreReplayService.replayGroup(groupId, false));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            System.err.println("Erro ao verificar pontuação: " + e.getMessage());
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * POST /api/groups/{groupId}/scores/replay
+     * Refaz a pontuação a partir do histórico e grava os valores corrigidos.
+     */
+    @PostMapping("/{groupId}/scores/replay")
+    public ResponseEntity<List<ScoreDiffDto>> replayScores(@PathVariable Long groupId) {
+        try {
+            return ResponseEntity.ok(scoreReplayService.replayGroup(groupId, true));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            System.err.println("Erro ao refazer pontuação: " + e.getMessage());
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * GET /api/groups/{groupId}/activity?bucket=day|week&from=&to=&userId=
+     * Gráfico de check-ins, distância, duração e passos por dia ou semana (do grupo ou de um membro),
+     * lido dos totais diários já agregados.
+     */
+    @GetMapping("/{groupId}/activity")
+    public ResponseEntity<?> getActivityChart(
+            @PathVariable Long groupId,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(defaultValue = "day") String bucket,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            ActivityRollupService.Bucket size = ActivityRollupService.Bucket.parse(bucket);
+            List<ActivityPointDto> chart = activityRollupService.getChart(groupId, userId, size, from, to);
+            return ResponseEntity.ok(chart);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            System.err.println("Erro ao buscar gráfico de atividade: " + e.getMessage());
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * POST /api/groups/activity/backfill
+     * Reconstrói os totais diários de atividade de todos os grupos a partir do histórico.
+     */
+    @PostMapping("/activity/backfill")
+    public ResponseEntity<?> backfillActivity() {
+        try {
+            return ResponseEntity.ok(activityRollupService.backfillAll());
+        } catch (Exception e) {
+            System.err.println("Erro ao reconstruir atividade diária: " + e.getMessage());
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     @PutMapping("/{groupId}/image")
     public ResponseEntity<Group> updateGroupImage(
             @PathVariable Long groupId,
@@ -124,15 +248,37 @@ public class GroupController {
         }
     }
 
+    /**
+     * POST /api/groups/{groupId}/members?userId={ID}
+     * Entra no grupo (membros votam nos check-ins e aparecem no ranking).
+     */
+    @PostMapping("/{groupId}/members")
+    public ResponseEntity<?> joinGroup(@PathVariable Long groupId, @RequestParam Long userId) {
+        try {
+            return new ResponseEntity<>(groupService.joinGroup(groupId, userId), HttpStatus.CREATED);
+        } catch (EntityNotFoundException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+        } catch (Exception e) {
+            System.err.println("Erro ao entrar no grupo: " + e.getMessage());
+            return new ResponseEntity<>("Erro interno ao entrar no grupo.", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     /**
      * 🔑 NOVO ENDPOINT: GET /api/groups/{groupId}/stats
      * Retorna o DTO de estatísticas globais do grupo.
      */
     @GetMapping("/{groupId}/stats")
-    public ResponseEntity<GroupStatsDto> getGroupStats(@PathVariable Long groupId) {
+    public ResponseEntity<GroupStatsDto> getGroupStats(@PathVariable Long groupId, WebRequest request) {
         try {
+            // A marca da versão das estatísticas serve de ETag: se o grupo não mudou, responde 304 sem corpo
+            String etag = "\"" + groupId + "-" + groupService.getGroupStatsTag(groupId) + "\"";
+            if (request.checkNotModified(etag)) {
+                return null;
+            }
+
             GroupStatsDto stats = groupService.calculateGroupStats(groupId);
-            return ResponseEntity.ok(stats);
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache()).eTag(etag).body(stats);
         } catch (EntityNotFoundException e) {
             return ResponseEntity.notFound().build();
         } catch (Exception e) {
@@ -0,0 +1,14 @@
+package community_health.com.communityHealth.group.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Um ponto do gráfico de atividade: totais de um dia ou de uma semana (start = segunda-feira).
+ */
+public record ActivityPointDto(
+        LocalDate start,
+        long checkins,
+        double distanciaKm,
+        long duracaoMin,
+        long passos
+) {}
@@ -0,0 +1,20 @@
+package community_health.com.communityHealth.group.dto;
+
+import java.util.List;
+
+/**
+ * Mudanças no ranking do grupo enviadas em /topic/group/{id}/ranking.
+ * Só vão os membros que mudaram de posição ou de números; o cliente aplica por userId e reordena por rank.
+ *
+ * @param seq Sequência por grupo: um salto indica mensagem perdida (o cliente recarrega o ranking via REST)
+ * @param full true quando moved traz o ranking inteiro (substitui o que o cliente tem)
+ * @param removed Usuários que saíram do ranking
+ */
+public record RankingDeltaDto(
+        Long groupId,
+        long seq,
+        boolean full,
+        int totalMembers,
+        List<RankingPositionDto> moved,
+        List<Long> removed
+) {}
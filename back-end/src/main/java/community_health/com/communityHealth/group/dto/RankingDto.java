@@ -6,6 +6,9 @@ public record RankingDto(
         Long userId,
         String userName,
         String userPhoto,
+        long score,
         long totalCheckins,
-        long activeDays
+        long activeDays,
+        int currentStreak,
+        int longestStreak
 ) {}
\ No newline at end of file
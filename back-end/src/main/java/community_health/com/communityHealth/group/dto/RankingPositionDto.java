@@ -0,0 +1,9 @@
+package community_health.com.communityHealth.group.dto;
+
+/**
+ * Um membro e a posição dele no ranking (1 = primeiro).
+ */
+public record RankingPositionDto(
+        int rank,
+        RankingDto member
+) {}
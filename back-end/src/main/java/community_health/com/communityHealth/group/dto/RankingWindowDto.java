@@ -0,0 +1,17 @@
+package community_health.com.communityHealth.group.dto;
+
+import java.util.List;
+
+/**
+ * Posição de um membro no ranking e os vizinhos dele.
+ *
+ * @param rank Posição do membro (1 = primeiro)
+ * @param firstRank Posição do primeiro item de entries
+ */
+public record RankingWindowDto(
+        Long userId,
+        int rank,
+        int totalMembers,
+        int firstRank,
+        List<RankingDto> entries
+) {}
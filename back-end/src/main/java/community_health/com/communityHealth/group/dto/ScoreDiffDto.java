@@ -0,0 +1,11 @@
+package community_health.com.communityHealth.group.dto;
+
+/**
+ * Resultado do replay da pontuação de um membro: valor acumulado vs. valor recalculado do histórico.
+ */
+public record ScoreDiffDto(
+        Long userId,
+        String userName,
+        long storedScore,
+        long replayedScore
+) {}
@@ -0,0 +1,10 @@
+package community_health.com.communityHealth.group.event;
+
+/**
+ * Publicado quando um usuário entra no grupo (ou sai dele).
+ * Quem guarda a lista de membros do grupo (ex: cache do chat) descarta a sua depois do commit.
+ */
+public record MembershipChangedEvent(
+        Long groupId,
+        Long userId
+) {}
@@ -0,0 +1,12 @@
+package community_health.com.communityHealth.group.event;
+
+/**
+ * Publicado quando a posição de um membro no ranking pode ter mudado
+ * (check-in aprovado/removido, novo membro, recálculo ou replay da pontuação).
+ *
+ * @param userId Membro afetado, ou null quando o grupo inteiro foi recalculado
+ */
+public record RankingChangedEvent(
+        Long groupId,
+        Long userId
+) {}
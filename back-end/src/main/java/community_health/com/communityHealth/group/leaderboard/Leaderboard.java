@@ -0,0 +1,107 @@
+package community_health.com.communityHealth.group.leaderboard;
+
+import community_health.com.communityHealth.group.dto.RankingDto;
+import community_health.com.communityHealth.group.model.ActivityBitmap;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * Ranking de um grupo em memória: os membros ficam numa RankTree ordenada pela mesma regra
+ * da query do ranking (pontos desc, check-ins desc, usuário asc).
+ * Atualizar um membro, ler o top-K e achar a posição de um membro custam O(log n) (+ k).
+ * Não é thread-safe: LeaderboardService controla o acesso com um lock por grupo.
+ */
+public final class Leaderboard {
+
+    /**
+     * Chave de ordenação de um membro. O ID do usuário desempata, então duas chaves nunca são iguais.
+     */
+    public record Key(long points, long checkins, long userId) implements Comparable<Key> {
+        @Override
+        public int compareTo(Key other) {
+            int cmp = Long.compare(other.points, points);
+            if (cmp != 0) {
+                return cmp;
+            }
+            cmp = Long.compare(other.checkins, checkins);
+            if (cmp != 0) {
+                return cmp;
+            }
+            return Long.compare(userId, other.userId);
+        }
+    }
+
+    /**
+     * Dados de exibição de um membro. A ofensiva atual depende do dia, então sai do mapa de bits na leitura.
+     */
+    public record Entry(Key key, String userName, String userPhoto, long activeDays, int longestStreak,
+                        ActivityBitmap bitmap) {}
+
+    private final RankTree<Key> tree = new RankTree<>();
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private ToIntFunction<LocalDate> challengeDayOf = day -> 0;
+
+    /**
+     * Dia do desafio de uma data (Group.challengeDayOf), usado na ofensiva atual.
+     */
+    public void setChallengeDayOf(ToIntFunction<LocalDate> challengeDayOf) {
+        this.challengeDayOf = challengeDayOf;
+    }
+
+    /**
+     * Insere o membro ou move para a nova posição se ele já estava no ranking.
+     */
+    public void put(Entry entry) {
+        Entry old = entries.put(entry.key().userId(), entry);
+        if (old != null) {
+            tree.remove(old.key());
+        }
+        tree.insert(entry.key());
+    }
+
+    public void remove(Long userId) {
+        Entry old = entries.remove(userId);
+        if (old != null) {
+            tree.remove(old.key());
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Posição do membro (0 = primeiro), ou -1 se ele não está no ranking.
+     */
+    public int rankOf(Long userId) {
+        Entry entry = entries.get(userId);
+        return entry != null ? tree.rank(entry.key()) : -1;
+    }
+
+    /**
+     * Membros das posições [from, to), na ordem do ranking.
+     */
+    public List<RankingDto> range(int from, int to) {
+        int today = challengeDayOf.applyAsInt(LocalDate.now());
+        return tree.range(from, to).stream()
+                .map(key -> toDto(entries.get(key.userId()), today))
+                .toList();
+    }
+
+    private static RankingDto toDto(Entry entry, int today) {
+        return new RankingDto(
+                entry.key().userId(),
+                entry.userName(),
+                entry.userPhoto(),
+                entry.key().points(),
+                entry.key().checkins(),
+                entry.activeDays(),
+                entry.bitmap().currentStreak(today),
+                entry.longestStreak()
+        );
+    }
+}
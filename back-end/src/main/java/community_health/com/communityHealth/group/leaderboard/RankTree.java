@@ -0,0 +1,209 @@
+package community_health.com.communityHealth.group.leaderboard;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Árvore de estatística de ordem (treap com tamanho de subárvore em cada nó).
+ * Inserir, remover, descobrir a posição de uma chave e buscar a chave de uma posição custam O(log n)
+ * esperado; uma faixa de k posições custa O(log n + k).
+ * Não é thread-safe: quem usa controla o acesso (ver LeaderboardService).
+ */
+public final class RankTree<K extends Comparable<? super K>> {
+
+    private static final class Node<K> {
+        final K key;
+        final int priority;
+        int size = 1;
+        Node<K> left;
+        Node<K> right;
+
+        Node(K key, int priority) {
+            this.key = key;
+            this.priority = priority;
+        }
+    }
+
+    private final SplittableRandom random = new SplittableRandom();
+    private Node<K> root;
+
+    public int size() {
+        return size(root);
+    }
+
+    /**
+     * @return false se a chave já estava na árvore
+     */
+    public boolean insert(K key) {
+        if (rank(key) >= 0) {
+            return false;
+        }
+        root = insert(root, new Node<>(key, random.nextInt()));
+        return true;
+    }
+
+    /**
+     * @return false se a chave não estava na árvore
+     */
+    public boolean remove(K key) {
+        int before = size();
+        root = remove(root, key);
+        return size() < before;
+    }
+
+    /**
+     * Posição da chave (0 = primeira na ordem), ou -1 se ela não estiver na árvore.
+     */
+    public int rank(K key) {
+        int rank = 0;
+        Node<K> node = root;
+        while (node != null) {
+            int cmp = key.compareTo(node.key);
+            if (cmp < 0) {
+                node = node.left;
+            } else if (cmp > 0) {
+                rank += size(node.left) + 1;
+                node = node.right;
+            } else {
+                return rank + size(node.left);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Chave da posição informada (0 = primeira na ordem).
+     */
+    public K get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Posição " + index + " fora da árvore de tamanho " + size());
+        }
+        Node<K> node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index > leftSize) {
+                index -= leftSize + 1;
+                node = node.right;
+            } else {
+                return node.key;
+            }
+        }
+    }
+
+    /**
+     * Chaves das posições [from, to), na ordem.
+     */
+    public List<K> range(int from, int to) {
+        int start = Math.max(0, from);
+        int end = Math.min(size(), to);
+        List<K> out = new ArrayList<>(Math.max(0, end - start));
+        if (start < end) {
+            collect(root, 0, start, end, out);
+        }
+        return out;
+    }
+
+    public void clear() {
+        root = null;
+    }
+
+    // Percorre em ordem, descendo só nas subárvores que têm posições dentro da faixa
+    private void collect(Node<K> node, int offset, int from, int to, List<K> out) {
+        if (node == null) {
+            return;
+        }
+        int position = offset + size(node.left);
+        if (from < position) {
+            collect(node.left, offset, from, to, out);
+        }
+        if (position >= from && position < to) {
+            out.add(node.key);
+        }
+        if (position + 1 < to) {
+            collect(node.right, position + 1, from, to, out);
+        }
+    }
+
+    // Insere como numa árvore de busca e sobe o nó com rotações enquanto a prioridade dele for maior
+    private Node<K> insert(Node<K> node, Node<K> created) {
+        if (node == null) {
+            return created;
+        }
+        if (created.key.compareTo(node.key) < 0) {
+            node.left = insert(node.left, created);
+            if (node.left.priority > node.priority) {
+                return rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, created);
+            if (node.right.priority > node.priority) {
+                return rotateLeft(node);
+            }
+        }
+        update(node);
+        return node;
+    }
+
+    private Node<K> rotateRight(Node<K> node) {
+        Node<K> left = node.left;
+        node.left = left.right;
+        left.right = node;
+        update(node);
+        update(left);
+        return left;
+    }
+
+    private Node<K> rotateLeft(Node<K> node) {
+        Node<K> right = node.right;
+        node.right = right.left;
+        right.left = node;
+        update(node);
+        update(right);
+        return right;
+    }
+
+    private Node<K> remove(Node<K> node, K key) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = key.compareTo(node.key);
+        if (cmp < 0) {
+            node.left = remove(node.left, key);
+        } else if (cmp > 0) {
+            node.right = remove(node.right, key);
+        } else {
+            return merge(node.left, node.right);
+        }
+        update(node);
+        return node;
+    }
+
+    // Junta duas subárvores em que todas as chaves de "left" vêm antes das de "right"
+    private Node<K> merge(Node<K> left, Node<K> right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        update(right);
+        return right;
+    }
+
+    private static <K> void update(Node<K> node) {
+        node.size = size(node.left) + size(node.right) + 1;
+    }
+
+    private static <K> int size(Node<K> node) {
+        return node != null ? node.size : 0;
+    }
+}
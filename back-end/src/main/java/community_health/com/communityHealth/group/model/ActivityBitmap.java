@@ -0,0 +1,176 @@
+package community_health.com.communityHealth.group.model;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Mapa de bits de atividade de um membro: 1 bit por dia desde o início do desafio (dia 0 = startDate).
+ * Dias ativos, ofensiva atual e maior ofensiva saem de popcount e varredura de bits,
+ * sem precisar agregar os check-ins no banco.
+ * Persistido em GroupMember.activityBitmap como palavras de 64 bits (little-endian).
+ */
+public final class ActivityBitmap {
+
+    private long[] words;
+
+    private ActivityBitmap(long[] words) {
+        this.words = words;
+    }
+
+    public static ActivityBitmap empty() {
+        return new ActivityBitmap(new long[0]);
+    }
+
+    public static ActivityBitmap fromBytes(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return empty();
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        long[] words = new long[bytes.length / Long.BYTES];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = buffer.getLong();
+        }
+        return new ActivityBitmap(words);
+    }
+
+    public byte[] toBytes() {
+        // Palavras zeradas no final não precisam ser gravadas
+        int length = words.length;
+        while (length > 0 && words[length - 1] == 0L) {
+            length--;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(length * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < length; i++) {
+            buffer.putLong(words[i]);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Marca o dia como ativo.
+     * @return true se o dia ainda não estava marcado
+     */
+    public boolean set(int day) {
+        checkDay(day);
+        int index = day >>> 6;
+        if (index >= words.length) {
+            words = Arrays.copyOf(words, index + 1);
+        }
+
+        long mask = 1L << (day & 63);
+        boolean changed = (words[index] & mask) == 0;
+        words[index] |= mask;
+        return changed;
+    }
+
+    /**
+     * Desmarca o dia.
+     * @return true se o dia estava marcado
+     */
+    public boolean clear(int day) {
+        checkDay(day);
+        int index = day >>> 6;
+        if (index >= words.length) {
+            return false;
+        }
+
+        long mask = 1L << (day & 63);
+        boolean changed = (words[index] & mask) != 0;
+        words[index] &= ~mask;
+        return changed;
+    }
+
+    public boolean get(int day) {
+        int index = day >>> 6;
+        return day >= 0 && index < words.length && (words[index] & (1L << (day & 63))) != 0;
+    }
+
+    /**
+     * Total de dias ativos (popcount).
+     */
+    public int activeDays() {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Ofensiva atual: dias ativos consecutivos terminando em "today".
+     * Se hoje ainda não teve atividade, a ofensiva que terminou ontem continua valendo.
+     */
+    public int currentStreak(int today) {
+        if (today < 0) {
+            return 0;
+        }
+        int end = get(today) ? today : today - 1;
+        return streakEndingAt(end);
+    }
+
+    /**
+     * Quantidade de dias ativos consecutivos terminando exatamente no dia informado.
+     */
+    public int streakEndingAt(int day) {
+        int streak = 0;
+        int position = day;
+
+        while (position >= 0) {
+            int index = position >>> 6;
+            int bit = position & 63;
+            long word = index < words.length ? words[index] : 0L;
+
+            // Alinha o bit atual no topo da palavra e conta os 1s seguidos a partir dele
+            int ones = Long.numberOfLeadingZeros(~(word << (63 - bit)));
+            streak += ones;
+
+            if (ones < bit + 1) {
+                break;
+            }
+            position -= ones;
+        }
+        return streak;
+    }
+
+    /**
+     * Maior sequência de dias ativos consecutivos.
+     */
+    public int longestStreak() {
+        int longest = 0;
+        int run = 0;
+
+        for (long word : words) {
+            if (word == -1L) {
+                run += 64;
+                continue;
+            }
+
+            int position = 0;
+            while (position < 64) {
+                long shifted = word >>> position;
+                if ((shifted & 1L) != 0) {
+                    int ones = Long.numberOfTrailingZeros(~shifted);
+                    run += ones;
+                    position += ones;
+                } else {
+                    longest = Math.max(longest, run);
+                    run = 0;
+                    if (shifted == 0L) {
+                        break;
+                    }
+                    position += Long.numberOfTrailingZeros(shifted);
+                }
+            }
+        }
+        return Math.max(longest, run);
+    }
+
+    private static void checkDay(int day) {
+        if (day < 0) {
+            throw new IllegalArgumentException("Dia inválido no mapa de atividade: " + day);
+        }
+    }
+}
@@ -6,6 +6,7 @@ import community_health.com.communityHealth.user.model.User;
 import jakarta.persistence.*;
 import lombok.Data;
 import org.hibernate.annotations.CreationTimestamp;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 
@@ -51,6 +52,15 @@ public class Group {
     @Column(name = "is_private")
     private Boolean isPrivate;
 
+    // Regra do ranking escolhida na criação do desafio
+    @Enumerated(EnumType.STRING)
+    @Column(name = "scoring_mode")
+    private ScoringMode scoringMode = ScoringMode.CHECKINS;
+
+    // Limite de faltas no modo consistência (passou disso, perde a pontuação total)
+    @Column(name = "max_misses")
+    private Integer maxMisses;
+
     @CreationTimestamp
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
@@ -58,6 +68,13 @@ public class Group {
     // --- Lógica Calculada (Não vai para o Banco) ---
     @Transient
     public long getDaysRemaining() {
+        return daysRemaining(startDate, durationDays);
+    }
+
+    /**
+     * Mesmo cálculo de getDaysRemaining, para quem só carregou as colunas (ex.: retenção do chat).
+     */
+    public static long daysRemaining(LocalDateTime startDate, Integer durationDays) {
         if (startDate == null) return durationDays;
 
         LocalDateTime endDate = startDate.plusDays(durationDays);
@@ -65,4 +82,16 @@ public class Group {
 
         return days > 0 ? days : 0;
     }
+
+    /**
+     * Índice do dia dentro do desafio (dia 0 = startDate). Negativo se for anterior ao início.
+     * Usado pelo mapa de atividade e pelas regras de pontuação.
+     */
+    public int challengeDayOf(LocalDate day) {
+        LocalDateTime start = startDate != null ? startDate : createdAt;
+        if (start == null) {
+            return 0;
+        }
+        return (int) ChronoUnit.DAYS.between(start.toLocalDate(), day);
+    }
 }
\ No newline at end of file
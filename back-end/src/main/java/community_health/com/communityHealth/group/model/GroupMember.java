@@ -1,5 +1,6 @@
 package community_health.com.communityHealth.group.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import community_health.com.communityHealth.user.model.Role;
 import community_health.com.communityHealth.user.model.User;
 import jakarta.persistence.*;
@@ -9,7 +10,16 @@ import java.time.LocalDateTime;
 
 
 @Entity
-@Table(name = "Group_Members")
+@Table(
+        name = "Group_Members",
+        uniqueConstraints = {
+                @UniqueConstraint(columnNames = {"group_id", "user_id"})
+        },
+        indexes = {
+                // Ranking lido direto daqui, já na ordem de exibição
+                @Index(name = "idx_group_members_ranking", columnList = "group_id, score")
+        }
+)
 @Data
 public class GroupMember {
 
@@ -34,9 +44,32 @@ public class GroupMember {
     private LocalDateTime joinedAt;
 
     // Cache para performance do Ranking
+    // Mantidos por GroupMemberStatsService a cada check-in criado/removido
     @Column(name = "cached_checkin_count")
     private Integer cachedCheckinCount = 0;
 
     @Column(name = "cached_active_days")
     private Integer cachedActiveDays = 0;
+
+    @Column(name = "longest_streak")
+    private Integer longestStreak = 0;
+
+    // Acumuladores da regra de pontuação do grupo (ver ScoringStrategy)
+    @Embedded
+    private MemberScore score = MemberScore.empty();
+
+    // 1 bit por dia desde o início do desafio (ver ActivityBitmap)
+    @JsonIgnore
+    @Column(name = "activity_bitmap", length = 8192)
+    private byte[] activityBitmap;
+
+    // Até onde o membro leu o chat e o feed (ver UnreadService); só mudam por UPDATE direto no banco,
+    // então um save() da entidade nunca volta a leitura para trás
+    @JsonIgnore
+    @Column(name = "last_read_chat_seq", updatable = false)
+    private Long lastReadChatSeq = 0L;
+
+    @JsonIgnore
+    @Column(name = "last_read_feed_seq", updatable = false)
+    private Long lastReadFeedSeq = 0L;
 }
\ No newline at end of file
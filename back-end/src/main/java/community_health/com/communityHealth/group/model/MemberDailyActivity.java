@@ -0,0 +1,58 @@
+package community_health.com.communityHealth.group.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import community_health.com.communityHealth.user.model.User;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * Totais diários de atividade de um membro no grupo (rollup de Checkins por dia).
+ * Os gráficos diários/semanais leem daqui algumas centenas de linhas já agregadas,
+ * em vez de varrer os check-ins do período. Só check-ins que contam para o ranking entram.
+ * Mantido por ActivityRollupService, com a linha do membro travada (ver GroupMemberStatsService).
+ */
+@Entity
+@Table(
+        name = "Member_Daily_Activity",
+        uniqueConstraints = {
+                @UniqueConstraint(columnNames = {"group_id", "user_id", "activity_date"})
+        },
+        indexes = {
+                // Gráfico do grupo inteiro: soma de todos os membros por dia
+                @Index(name = "idx_daily_activity_group_date", columnList = "group_id, activity_date")
+        }
+)
+@Data
+public class MemberDailyActivity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "group_id", nullable = false)
+    private Group group;
+
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(name = "activity_date", nullable = false)
+    private LocalDate activityDate;
+
+    @Column(name = "checkin_count", nullable = false)
+    private Integer checkinCount = 0;
+
+    @Column(name = "distancia_km", nullable = false)
+    private Double distanciaKm = 0.0;
+
+    @Column(name = "duracao_min", nullable = false)
+    private Long duracaoMin = 0L;
+
+    @Column(name = "passos", nullable = false)
+    private Long passos = 0L;
+}
@@ -0,0 +1,51 @@
+package community_health.com.communityHealth.group.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Acumuladores de pontuação de um membro, atualizados em O(1) a cada check-in
+ * pela ScoringStrategy do grupo. Nunca é preciso varrer os Checkins para ler o ranking.
+ */
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MemberScore {
+
+    // Pontuação atual no modo do grupo
+    @Column(name = "score")
+    private Long points = 0L;
+
+    // Soma de CheckinMetrics.duracaoMin
+    @Column(name = "total_minutes")
+    private Long totalMinutes = 0L;
+
+    // Último dia (índice desde o início do desafio) já contabilizado no modo consistência, com check-in ou como falta;
+    // começa no dia anterior à entrada no grupo (-1 = desde o início)
+    @Column(name = "score_last_day")
+    private Integer lastDay = -1;
+
+    // Dias seguidos pontuados no modo consistência
+    @Column(name = "score_streak")
+    private Integer streak = 0;
+
+    // Faltas acumuladas desde o último reset no modo consistência
+    @Column(name = "missed_days")
+    private Integer missedDays = 0;
+
+    public static MemberScore empty() {
+        return new MemberScore(0L, 0L, -1, 0, 0);
+    }
+
+    /**
+     * Acumuladores de quem começa a contar no dia firstDay do desafio (a entrada no grupo):
+     * os dias anteriores não viram falta.
+     */
+    public static MemberScore startingAt(int firstDay) {
+        return new MemberScore(0L, 0L, Math.max(-1, firstDay - 1), 0, 0);
+    }
+}
@@ -0,0 +1,13 @@
+package community_health.com.communityHealth.group.model;
+
+/**
+ * Regra de pontuação do desafio, escolhida na criação do grupo (ver docs/ideia.md).
+ */
+public enum ScoringMode {
+    // Total de check-ins até o final do desafio
+    CHECKINS,
+    // Tempo total praticado (CheckinMetrics.duracaoMin)
+    TOTAL_TIME,
+    // Ofensiva: pontos por dia ativo, bônus a cada 7 dias seguidos e perda por faltas
+    CONSISTENCY
+}
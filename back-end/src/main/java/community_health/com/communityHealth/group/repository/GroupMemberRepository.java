@@ -1,12 +1,84 @@
 package community_health.com.communityHealth.group.repository;
 
 import community_health.com.communityHealth.group.model.GroupMember;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface GroupMemberRepository extends JpaRepository<GroupMember, Long> {
     List<GroupMember> findByGroupId(Long groupId);
+
+    Optional<GroupMember> findByGroupIdAndUserId(Long groupId, Long userId);
+
+    boolean existsByGroupIdAndUserId(Long groupId, Long userId);
+
+    long countByGroupId(Long groupId);
+
+    // Trava a linha do membro: as atualizações do mapa de atividade são serializadas por membro
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT m FROM GroupMember m WHERE m.group.id = :groupId AND m.user.id = :userId")
+    Optional<GroupMember> findByGroupIdAndUserIdForUpdate(@Param("groupId") Long groupId, @Param("userId") Long userId);
+
+    // Só os IDs dos usuários, em ordem: quem percorre os membros travando um por um pega as travas sempre na mesma ordem
+    @Query("SELECT m.user.id FROM GroupMember m WHERE m.group.id = :groupId ORDER BY m.user.id")
+    List<Long> findUserIdsByGroupId(@Param("groupId") Long groupId);
+
+    // Incremento atômico no banco: check-ins simultâneos não perdem atualização
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+    UPDATE GroupMember m
+    SET m.cachedCheckinCount = COALESCE(m.cachedCheckinCount, 0) + :delta
+    WHERE m.group.id = :groupId AND m.user.id = :userId
+""")
+    int addToCheckinCount(@Param("groupId") Long groupId,
+                          @Param("userId") Long userId,
+                          @Param("delta") int delta);
+
+    // Recalcula o total de check-ins de todos os membros do grupo a partir do histórico (corrige desvios)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+    UPDATE GroupMember m
+    SET m.cachedCheckinCount = (
+            SELECT CAST(COUNT(c.id) AS Integer) FROM Checkin c
+            WHERE c.group.id = m.group.id AND c.user.id = m.user.id
+              AND (c.status IS NULL OR c.status = community_health.com.communityHealth.checkin.model.CheckinStatus.APPROVED))
+    WHERE m.group.id = :groupId
+""")
+    int rebuildCheckinCountsByGroupId(@Param("groupId") Long groupId);
+
+    // Estatísticas do grupo em uma única query sobre os contadores dos membros:
+    // uma linha com [total de check-ins, total de dias ativos, quantidade de membros]
+    @Query("""
+    SELECT COALESCE(SUM(m.cachedCheckinCount), 0), COALESCE(SUM(m.cachedActiveDays), 0), COUNT(m)
+    FROM GroupMember m
+    WHERE m.group.id = :groupId
+""")
+    List<Object[]> aggregateStatsByGroupId(@Param("groupId") Long groupId);
+
+    // Membros já na ordem do ranking, com usuário e grupo carregados na mesma query
+    @Query("""
+    SELECT m FROM GroupMember m
+    JOIN FETCH m.user u
+    JOIN FETCH m.group
+    WHERE m.group.id = :groupId
+    ORDER BY m.score.points DESC, m.cachedCheckinCount DESC, u.id
+""")
+    List<GroupMember> findRankingMembersByGroupId(@Param("groupId") Long groupId);
+
+    // Um membro com usuário e grupo carregados (atualização do ranking em memória)
+    @Query("""
+    SELECT m FROM GroupMember m
+    JOIN FETCH m.user
+    JOIN FETCH m.group
+    WHERE m.group.id = :groupId AND m.user.id = :userId
+""")
+    Optional<GroupMember> findRankingMemberByGroupIdAndUserId(@Param("groupId") Long groupId, @Param("userId") Long userId);
 }
\ No newline at end of file
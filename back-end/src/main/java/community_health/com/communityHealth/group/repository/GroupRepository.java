@@ -19,4 +19,12 @@ public interface GroupRepository extends JpaRepository<Group, Long> {
             "LEFT JOIN g.members m " +
             "WHERE g.owner.id = :userId OR m.user.id = :userId")
     List<Group> findMyGroups(@Param("userId") Long userId);
+
+    // Apenas os IDs, para os jobs de manutenção percorrerem os grupos sem carregar as entidades
+    @Query("SELECT g.id FROM Group g")
+    List<Long> findAllIds();
+
+    // Uma linha por grupo com [id, startDate, durationDays], para calcular os dias restantes sem carregar o grupo
+    @Query("SELECT g.id, g.startDate, g.durationDays FROM Group g")
+    List<Object[]> findAllSchedules();
 }
\ No newline at end of file
@@ -0,0 +1,81 @@
+package community_health.com.communityHealth.group.repository;
+
+import community_health.com.communityHealth.group.dto.ActivityPointDto;
+import community_health.com.communityHealth.group.model.MemberDailyActivity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface MemberDailyActivityRepository extends JpaRepository<MemberDailyActivity, Long> {
+
+    // Soma (ou desconta, com valores negativos) um check-in no dia; 0 se a linha do dia ainda não existe
+    @Modifying(flushAutomatically = true)
+    @Query("""
+    UPDATE MemberDailyActivity a
+    SET a.checkinCount = a.checkinCount + :count,
+        a.distanciaKm = a.distanciaKm + :distanciaKm,
+        a.duracaoMin = a.duracaoMin + :duracaoMin,
+        a.passos = a.passos + :passos
+    WHERE a.group.id = :groupId AND a.user.id = :userId AND a.activityDate = :day
+""")
+    int addToDay(@Param("groupId") Long groupId, @Param("userId") Long userId, @Param("day") LocalDate day,
+                 @Param("count") int count, @Param("distanciaKm") double distanciaKm,
+                 @Param("duracaoMin") long duracaoMin, @Param("passos") long passos);
+
+    // Dia que ficou sem nenhum check-in não precisa de linha
+    @Modifying
+    @Query("""
+    DELETE FROM MemberDailyActivity a
+    WHERE a.group.id = :groupId AND a.user.id = :userId AND a.activityDate = :day AND a.checkinCount <= 0
+""")
+    int deleteEmptyDay(@Param("groupId") Long groupId, @Param("userId") Long userId, @Param("day") LocalDate day);
+
+    @Modifying
+    @Query("DELETE FROM MemberDailyActivity a WHERE a.group.id = :groupId")
+    int deleteByGroupId(@Param("groupId") Long groupId);
+
+    // Refaz os totais diários do grupo a partir do histórico em um único INSERT ... SELECT agrupado
+    @Modifying
+    @Query("""
+    INSERT INTO MemberDailyActivity (group.id, user.id, activityDate, checkinCount, distanciaKm, duracaoMin, passos)
+    SELECT c.group.id, c.user.id, CAST(c.createdAt AS LocalDate),
+           CAST(COUNT(c) AS Integer),
+           CAST(COALESCE(SUM(c.metricas.distanciaKm), 0) AS Double),
+           CAST(COALESCE(SUM(c.metricas.duracaoMin), 0) AS Long),
+           CAST(COALESCE(SUM(c.metricas.passos), 0) AS Long)
+    FROM Checkin c
+    WHERE c.group.id = :groupId
+      AND (c.status IS NULL OR c.status = community_health.com.communityHealth.checkin.model.CheckinStatus.APPROVED)
+    GROUP BY c.group.id, c.user.id, CAST(c.createdAt AS LocalDate)
+""")
+    int insertFromCheckinsByGroupId(@Param("groupId") Long groupId);
+
+    // Totais diários do grupo (todos os membros somados), só os dias com atividade
+    @Query("""
+    SELECT new community_health.com.communityHealth.group.dto.ActivityPointDto(
+        a.activityDate, SUM(a.checkinCount), SUM(a.distanciaKm), SUM(a.duracaoMin), SUM(a.passos))
+    FROM MemberDailyActivity a
+    WHERE a.group.id = :groupId AND a.activityDate BETWEEN :from AND :to
+    GROUP BY a.activityDate
+    ORDER BY a.activityDate
+""")
+    List<ActivityPointDto> findGroupDays(@Param("groupId") Long groupId,
+                                         @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // Totais diários de um membro, só os dias com atividade
+    @Query("""
+    SELECT new community_health.com.communityHealth.group.dto.ActivityPointDto(
+        a.activityDate, CAST(a.checkinCount AS Long), a.distanciaKm, a.duracaoMin, a.passos)
+    FROM MemberDailyActivity a
+    WHERE a.group.id = :groupId AND a.user.id = :userId AND a.activityDate BETWEEN :from AND :to
+    ORDER BY a.activityDate
+""")
+    List<ActivityPointDto> findMemberDays(@Param("groupId") Long groupId, @Param("userId") Long userId,
+                                          @Param("from") LocalDate from, @Param("to") LocalDate to);
+}
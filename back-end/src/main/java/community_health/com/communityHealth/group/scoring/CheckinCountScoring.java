@@ -0,0 +1,30 @@
+package community_health.com.communityHealth.group.scoring;
+
+import community_health.com.communityHealth.group.model.Group;
+import community_health.com.communityHealth.group.model.MemberScore;
+import community_health.com.communityHealth.group.model.ScoringMode;
+import org.springframework.stereotype.Component;
+
+/**
+ * Pontuação por check-in: 1 ponto por check-in registrado.
+ */
+@Component
+public class CheckinCountScoring implements ScoringStrategy {
+
+    @Override
+    public ScoringMode mode() {
+        return ScoringMode.CHECKINS;
+    }
+
+    @Override
+    public boolean onCheckin(MemberScore score, Group group, ScoredCheckin checkin) {
+        score.setPoints(score.getPoints() + 1);
+        return true;
+    }
+
+    @Override
+    public boolean onCheckinRemoved(MemberScore score, Group group, ScoredCheckin checkin) {
+        score.setPoints(Math.max(0, score.getPoints() - 1));
+        return true;
+    }
+}
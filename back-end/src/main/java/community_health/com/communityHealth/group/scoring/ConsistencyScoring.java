@@ -0,0 +1,91 @@
+package community_health.com.communityHealth.group.scoring;
+
+import community_health.com.communityHealth.group.model.Group;
+import community_health.com.communityHealth.group.model.MemberScore;
+import community_health.com.communityHealth.group.model.ScoringMode;
+import org.springframework.stereotype.Component;
+
+/**
+ * Pontuação por consistência (ofensiva, no estilo do Duolingo):
+ * - cada dia ativo vale POINTS_PER_DAY;
+ * - a cada 7 dias seguidos o membro ganha STREAK_BONUS;
+ * - cada dia sem treino desde a entrada no grupo zera a ofensiva e desconta POINTS_PER_DAY;
+ * - passando do limite de faltas do grupo (Group.maxMisses) a pontuação total é perdida.
+ * As faltas são contabilizadas no próximo dia ativo do membro ou, para quem parou de treinar,
+ * quando os dias passados são fechados (onDaysClosed, todo dia no RankingRebuildJob).
+ * MemberScore.lastDay é o último dia já contabilizado, com treino ou como falta.
+ */
+@Component
+public class ConsistencyScoring implements ScoringStrategy {
+
+    public static final int POINTS_PER_DAY = 10;
+    public static final int STREAK_BONUS = 50;
+    public static final int BONUS_STREAK_DAYS = 7;
+    public static final int DEFAULT_MAX_MISSES = 3;
+
+    @Override
+    public ScoringMode mode() {
+        return ScoringMode.CONSISTENCY;
+    }
+
+    @Override
+    public boolean onCheckin(MemberScore score, Group group, ScoredCheckin checkin) {
+        // Só o primeiro check-in do dia pontua; atividade antes do início não conta
+        if (!checkin.dayChanged() || checkin.day() < 0) {
+            return true;
+        }
+
+        int lastDay = score.getLastDay();
+        if (checkin.day() <= lastDay) {
+            // Dia retroativo ou já fechado como falta: muda faltas e ofensivas já contadas
+            return false;
+        }
+
+        int missed = checkin.day() - lastDay - 1;
+        if (missed > 0) {
+            applyMisses(score, group, missed);
+        }
+
+        score.setStreak(score.getStreak() + 1);
+        score.setPoints(score.getPoints() + POINTS_PER_DAY);
+        if (score.getStreak() % BONUS_STREAK_DAYS == 0) {
+            score.setPoints(score.getPoints() + STREAK_BONUS);
+        }
+        score.setLastDay(checkin.day());
+        return true;
+    }
+
+    @Override
+    public boolean onCheckinRemoved(MemberScore score, Group group, ScoredCheckin checkin) {
+        // Remover um dia do meio muda faltas e ofensivas seguintes: só o replay resolve
+        return !checkin.dayChanged();
+    }
+
+    @Override
+    public boolean onDaysClosed(MemberScore score, Group group, int untilDay) {
+        // Depois do fim do desafio nenhum dia vira falta
+        int end = group.getDurationDays() != null ? Math.min(untilDay, group.getDurationDays()) : untilDay;
+        int missed = end - score.getLastDay() - 1;
+        if (missed <= 0) {
+            return false;
+        }
+        applyMisses(score, group, missed);
+        score.setLastDay(end - 1);
+        return true;
+    }
+
+    private static void applyMisses(MemberScore score, Group group, int missed) {
+        score.setStreak(0);
+        score.setMissedDays(score.getMissedDays() + missed);
+        score.setPoints(Math.max(0, score.getPoints() - (long) missed * POINTS_PER_DAY));
+
+        if (score.getMissedDays() > maxMisses(group)) {
+            score.setPoints(0L);
+            score.setMissedDays(0);
+        }
+    }
+
+    private static int maxMisses(Group group) {
+        return group.getMaxMisses() != null ? group.getMaxMisses() : DEFAULT_MAX_MISSES;
+    }
+}
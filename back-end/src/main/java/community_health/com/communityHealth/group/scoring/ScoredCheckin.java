@@ -0,0 +1,14 @@
+package community_health.com.communityHealth.group.scoring;
+
+/**
+ * O que as regras de pontuação precisam saber de um check-in.
+ *
+ * @param day Índice do dia desde o início do desafio (negativo se anterior ao início)
+ * @param durationMin Duração informada em CheckinMetrics (0 se ausente)
+ * @param dayChanged true se o check-in ativou o dia (criação) ou deixou o dia sem atividade (remoção)
+ */
+public record ScoredCheckin(
+        int day,
+        int durationMin,
+        boolean dayChanged
+) {}
@@ -0,0 +1,36 @@
+package community_health.com.communityHealth.group.scoring;
+
+import community_health.com.communityHealth.group.model.Group;
+import community_health.com.communityHealth.group.model.ScoringMode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Escolhe a ScoringStrategy de acordo com o modo de pontuação do grupo.
+ */
+@Component
+public class ScoringEngine {
+
+    private final Map<ScoringMode, ScoringStrategy> strategies = new EnumMap<>(ScoringMode.class);
+
+    @Autowired
+    public ScoringEngine(List<ScoringStrategy> strategies) {
+        for (ScoringStrategy strategy : strategies) {
+            this.strategies.put(strategy.mode(), strategy);
+        }
+    }
+
+    public ScoringStrategy strategyFor(Group group) {
+        ScoringMode mode = group.getScoringMode() != null ? group.getScoringMode() : ScoringMode.CHECKINS;
+
+        ScoringStrategy strategy = strategies.get(mode);
+        if (strategy == null) {
+            throw new IllegalStateException("Nenhuma regra de pontuação para o modo " + mode);
+        }
+        return strategy;
+    }
+}
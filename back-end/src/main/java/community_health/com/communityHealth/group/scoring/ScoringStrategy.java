@@ -0,0 +1,45 @@
+package community_health.com.communityHealth.group.scoring;
+
+import community_health.com.communityHealth.group.model.Group;
+import community_health.com.communityHealth.group.model.MemberScore;
+import community_health.com.communityHealth.group.model.ScoringMode;
+
+/**
+ * Regra de pontuação de um modo de desafio.
+ * As implementações só mexem nos acumuladores do membro (O(1) por check-in).
+ */
+public interface ScoringStrategy {
+
+    ScoringMode mode();
+
+    /**
+     * Aplica um novo check-in aos acumuladores do membro.
+     *
+     * @param score Acumuladores do membro
+     * @param group Grupo (regras do desafio)
+     * @param checkin Dados do check-in relevantes para a pontuação
+     * @return false se o check-in não pode ser aplicado de forma incremental (ex: fora de ordem);
+     *         nesse caso a pontuação do membro deve ser recalculada pelo ScoreReplayService
+     */
+    boolean onCheckin(MemberScore score, Group group, ScoredCheckin checkin);
+
+    /**
+     * Desconta um check-in removido.
+     *
+     * @return false se a regra não consegue desfazer o check-in de forma incremental;
+     *         nesse caso a pontuação do membro deve ser recalculada pelo ScoreReplayService
+     */
+    boolean onCheckinRemoved(MemberScore score, Group group, ScoredCheckin checkin);
+
+    /**
+     * Fecha os dias do desafio anteriores a untilDay: para as regras que contam faltas, o dia que passou
+     * sem check-in vira falta sem esperar o próximo check-in do membro.
+     * Chamado todo dia pelo RankingRebuildJob e no fim de todo recálculo pelo ScoreReplayService.
+     *
+     * @param untilDay Primeiro dia ainda em aberto (hoje)
+     * @return true se os acumuladores mudaram
+     */
+    default boolean onDaysClosed(MemberScore score, Group group, int untilDay) {
+        return false;
+    }
+}
@@ -0,0 +1,32 @@
+package community_health.com.communityHealth.group.scoring;
+
+import community_health.com.communityHealth.group.model.Group;
+import community_health.com.communityHealth.group.model.MemberScore;
+import community_health.com.communityHealth.group.model.ScoringMode;
+import org.springframework.stereotype.Component;
+
+/**
+ * Pontuação por tempo total praticado: 1 ponto por minuto informado no check-in.
+ */
+@Component
+public class TotalTimeScoring implements ScoringStrategy {
+
+    @Override
+    public ScoringMode mode() {
+        return ScoringMode.TOTAL_TIME;
+    }
+
+    @Override
+    public boolean onCheckin(MemberScore score, Group group, ScoredCheckin checkin) {
+        score.setTotalMinutes(score.getTotalMinutes() + checkin.durationMin());
+        score.setPoints(score.getTotalMinutes());
+        return true;
+    }
+
+    @Override
+    public boolean onCheckinRemoved(MemberScore score, Group group, ScoredCheckin checkin) {
+        score.setTotalMinutes(Math.max(0, score.getTotalMinutes() - checkin.durationMin()));
+        score.setPoints(score.getTotalMinutes());
+        return true;
+    }
+}
@@ -0,0 +1,210 @@
+package community_health.com.communityHealth.group.service;
+
+import community_health.com.communityHealth.checkin.model.Checkin;
+import community_health.com.communityHealth.checkin.model.CheckinMetrics;
+import community_health.com.communityHealth.checkin.repository.CheckinRepository;
+import community_health.com.communityHealth.group.dto.ActivityPointDto;
+import community_health.com.communityHealth.group.model.MemberDailyActivity;
+import community_health.com.communityHealth.group.repository.GroupRepository;
+import community_health.com.communityHealth.group.repository.MemberDailyActivityRepository;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Totais diários de atividade por membro (MemberDailyActivity), base dos gráficos diários e semanais.
+ *
+ * - Atualização incremental: cada check-in aprovado/removido soma/desconta no dia, com a linha
+ *   do membro travada (chamado por GroupMemberStatsService), então o "UPDATE ou INSERT" não corre.
+ * - Reconstrução: um DELETE + INSERT ... SELECT agrupado por grupo (importação e job noturno).
+ * - Backfill: reconstrói todos os grupos em paralelo, um grupo por tarefa e por transação.
+ */
+@Service
+public class ActivityRollupService {
+
+    public enum Bucket {
+        DAY, WEEK;
+
+        public static Bucket parse(String value) {
+            for (Bucket bucket : values()) {
+                if (bucket.name().equalsIgnoreCase(value)) {
+                    return bucket;
+                }
+            }
+            throw new IllegalArgumentException("Agrupamento inválido: use day ou week.");
+        }
+    }
+
+    // Maior intervalo aceito em um gráfico (um ano e pouco de dias, ou ~53 semanas)
+    static final int MAX_RANGE_DAYS = 371;
+
+    private final MemberDailyActivityRepository dailyActivityRepository;
+    private final GroupRepository groupRepository;
+    private final CheckinRepository checkinRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int backfillThreads;
+
+    @Autowired
+    public ActivityRollupService(MemberDailyActivityRepository dailyActivityRepository, GroupRepository groupRepository,
+                                 CheckinRepository checkinRepository, TransactionTemplate transactionTemplate,
+                                 @Value("${activity.backfill.threads:4}") int backfillThreads) {
+        this.dailyActivityRepository = dailyActivityRepository;
+        this.groupRepository = groupRepository;
+        this.checkinRepository = checkinRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.backfillThreads = Math.max(1, backfillThreads);
+    }
+
+    /**
+     * Soma (sign = 1) ou desconta (sign = -1) o check-in no dia dele.
+     * Deve ser chamado com a linha do membro travada (GroupMemberStatsService.lockMember).
+     */
+    @Transactional
+    public void applyCheckin(Checkin checkin, int sign) {
+        Long groupId = checkin.getGroup().getId();
+        Long userId = checkin.getUser().getId();
+        LocalDate day = checkin.getCreatedAt().toLocalDate();
+        CheckinMetrics metricas = checkin.getMetricas() != null ? checkin.getMetricas() : new CheckinMetrics();
+
+        double distancia = metricas.getDistanciaKm() != null ? metricas.getDistanciaKm() : 0.0;
+        long duracao = metricas.getDuracaoMin() != null ? metricas.getDuracaoMin() : 0L;
+        long passos = metricas.getPassos() != null ? metricas.getPassos() : 0L;
+
+        int updated = dailyActivityRepository.addToDay(groupId, userId, day,
+                sign, sign * distancia, sign * duracao, sign * passos);
+
+        if (updated == 0 && sign > 0) {
+            MemberDailyActivity activity = new MemberDailyActivity();
+            activity.setGroup(checkin.getGroup());
+            activity.setUser(checkin.getUser());
+            activity.setActivityDate(day);
+            activity.setCheckinCount(1);
+            activity.setDistanciaKm(distancia);
+            activity.setDuracaoMin(duracao);
+            activity.setPassos(passos);
+            dailyActivityRepository.save(activity);
+        } else if (sign < 0) {
+            dailyActivityRepository.deleteEmptyDay(groupId, userId, day);
+        }
+    }
+
+    /**
+     * Refaz os totais diários do grupo a partir do histórico de check-ins.
+     * @return Quantidade de linhas (membro, dia) gravadas
+     */
+    @Transactional
+    public int rebuildGroup(Long groupId) {
+        dailyActivityRepository.deleteByGroupId(groupId);
+        return dailyActivityRepository.insertFromCheckinsByGroupId(groupId);
+    }
+
+    /**
+     * Reconstrói os totais diários de todos os grupos, vários grupos ao mesmo tempo
+     * (activity.backfill.threads). Cada grupo roda na sua transação: um erro em um grupo não desfaz os outros.
+     *
+     * @return Quantidade de grupos reconstruídos com sucesso
+     */
+    public int backfillAll() {
+        List<Long> groupIds = groupRepository.findAllIds();
+        AtomicInteger rebuilt = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(backfillThreads, Math.max(1, groupIds.size())));
+        try {
+            List<Future<?>> tasks = new ArrayList<>(groupIds.size());
+            for (Long groupId : groupIds) {
+                tasks.add(executor.submit(() -> {
+                    try {
+                        transactionTemplate.executeWithoutResult(status -> rebuildGroup(groupId));
+                        rebuilt.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        System.err.println("Erro ao reconstruir atividade diária do grupo " + groupId + ": " + e.getMessage());
+                    }
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            System.err.println("Erro no backfill de atividade diária: " + e.getMessage());
+        } finally {
+            executor.shutdown();
+        }
+        return rebuilt.get();
+    }
+
+    /**
+     * Na primeira subida depois desta tabela existir, ela está vazia: monta a partir do histórico.
+     * Uma falha aqui não impede a aplicação de subir.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        try {
+            if (dailyActivityRepository.count() == 0 && checkinRepository.count() > 0) {
+                int groups = backfillAll();
+                System.err.println("Atividade diária montada a partir do histórico em " + groups + " grupo(s)");
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Não foi possível montar a atividade diária: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Série do gráfico de atividade, com um ponto para cada dia/semana do intervalo (zerado se não houve atividade).
+     *
+     * @param groupId ID do grupo
+     * @param userId ID do membro, ou null para o grupo inteiro
+     * @param bucket DAY ou WEEK (semanas começam na segunda-feira)
+     * @param from Primeiro dia (null: 30 dias ou 12 semanas antes de "to")
+     * @param to Último dia (null: hoje)
+     * @throws IllegalArgumentException Se o intervalo for inválido ou grande demais
+     */
+    public List<ActivityPointDto> getChart(Long groupId, Long userId, Bucket bucket, LocalDate from, LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : (bucket == Bucket.WEEK ? end.minusWeeks(11) : end.minusDays(29));
+        if (bucket == Bucket.WEEK) {
+            start = start.with(DayOfWeek.MONDAY);
+        }
+
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("A data inicial deve ser anterior à data final.");
+        }
+        if (ChronoUnit.DAYS.between(start, end) >= MAX_RANGE_DAYS) {
+            throw new IllegalArgumentException("O intervalo do gráfico deve ter no máximo " + MAX_RANGE_DAYS + " dias.");
+        }
+
+        List<ActivityPointDto> days = (userId == null)
+                ? dailyActivityRepository.findGroupDays(groupId, start, end)
+                : dailyActivityRepository.findMemberDays(groupId, userId, start, end);
+
+        // Um ponto por dia/semana do intervalo, na ordem
+        Map<LocalDate, ActivityPointDto> points = new TreeMap<>();
+        for (LocalDate day = start; !day.isAfter(end); day = day.plusDays(bucket == Bucket.WEEK ? 7 : 1)) {
+            points.put(day, new ActivityPointDto(day, 0, 0.0, 0, 0));
+        }
+        for (ActivityPointDto day : days) {
+            LocalDate key = bucket == Bucket.WEEK ? day.start().with(DayOfWeek.MONDAY) : day.start();
+            points.merge(key, day, (a, b) -> new ActivityPointDto(key,
+                    a.checkins() + b.checkins(), a.distanciaKm() + b.distanciaKm(),
+                    a.duracaoMin() + b.duracaoMin(), a.passos() + b.passos()));
+        }
+        return new ArrayList<>(points.values());
+    }
+}
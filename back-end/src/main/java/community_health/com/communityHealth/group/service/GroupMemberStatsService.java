@@ -0,0 +1,300 @@
+package community_health.com.communityHealth.group.service;
+
+import community_health.com.communityHealth.checkin.model.Checkin;
+import community_health.com.communityHealth.checkin.repository.CheckinRepository;
+import community_health.com.communityHealth.group.dto.RankingDto;
+import community_health.com.communityHealth.group.event.MembershipChangedEvent;
+import community_health.com.communityHealth.group.event.RankingChangedEvent;
+import community_health.com.communityHealth.group.model.ActivityBitmap;
+import community_health.com.communityHealth.group.model.Group;
+import community_health.com.communityHealth.group.model.GroupMember;
+import community_health.com.communityHealth.group.model.MemberScore;
+import community_health.com.communityHealth.group.repository.GroupMemberRepository;
+import community_health.com.communityHealth.group.repository.GroupRepository;
+import community_health.com.communityHealth.group.scoring.ScoredCheckin;
+import community_health.com.communityHealth.group.scoring.ScoringEngine;
+import community_health.com.communityHealth.group.scoring.ScoringStrategy;
+import community_health.com.communityHealth.user.model.Role;
+import community_health.com.communityHealth.user.model.User;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Mantém as estatísticas de ranking de GroupMember: total de check-ins (cachedCheckinCount),
+ * o mapa de bits de dias ativos (de onde saem cachedActiveDays e as ofensivas),
+ * os acumuladores da regra de pontuação do grupo e os totais diários dos gráficos (ActivityRollupService).
+ * Só check-ins aprovados pelo grupo contam (ver CheckinVoteService).
+ * Os métodos onCheckin* devem rodar na mesma transação que aprova/remove o check-in.
+ */
+@Service
+public class GroupMemberStatsService {
+
+    private static final String INSERT_MEMBER_SQL = """
+            INSERT INTO group_members (group_id, user_id, role, joined_at, cached_checkin_count, cached_active_days,
+                                       longest_streak, score, total_minutes, score_last_day, score_streak, missed_days,
+                                       last_read_chat_seq, last_read_feed_seq)
+            VALUES (?, ?, ?, ?, 0, 0, 0, ?, ?, ?, ?, ?, 0, 0)
+            """;
+
+    private final GroupMemberRepository groupMemberRepository;
+    private final GroupRepository groupRepository;
+    private final CheckinRepository checkinRepository;
+    private final ScoringEngine scoringEngine;
+    private final ScoreReplayService scoreReplayService;
+    private final GroupStatsCache groupStatsCache;
+    private final ActivityRollupService activityRollupService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public GroupMemberStatsService(GroupMemberRepository groupMemberRepository, GroupRepository groupRepository,
+                                   CheckinRepository checkinRepository,
+                                   ScoringEngine scoringEngine, ScoreReplayService scoreReplayService,
+                                   GroupStatsCache groupStatsCache, ActivityRollupService activityRollupService,
+                                   ApplicationEventPublisher eventPublisher, JdbcTemplate jdbcTemplate) {
+        this.groupMemberRepository = groupMemberRepository;
+        this.groupRepository = groupRepository;
+        this.checkinRepository = checkinRepository;
+        this.scoringEngine = scoringEngine;
+        this.scoreReplayService = scoreReplayService;
+        this.groupStatsCache = groupStatsCache;
+        this.activityRollupService = activityRollupService;
+        this.eventPublisher = eventPublisher;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Atualiza as estatísticas do autor depois que o check-in foi aprovado.
+     * Se o autor ainda não é membro do grupo, a participação é criada.
+     *
+     * @param checkin Check-in aprovado (com group, user e createdAt preenchidos)
+     */
+    @Transactional
+    public void onCheckinApproved(Checkin checkin) {
+        Group group = checkin.getGroup();
+        User user = checkin.getUser();
+
+        ensureMembership(group, user);
+        groupMemberRepository.addToCheckinCount(group.getId(), user.getId(), 1);
+
+        GroupMember member = lockMember(group.getId(), user.getId());
+        activityRollupService.applyCheckin(checkin, 1);
+        int day = group.challengeDayOf(checkin.getCreatedAt().toLocalDate());
+
+        // Atividade anterior ao início do desafio não conta como dia ativo
+        boolean newDay = false;
+        if (day >= 0) {
+            ActivityBitmap bitmap = ActivityBitmap.fromBytes(member.getActivityBitmap());
+            newDay = bitmap.set(day);
+            if (newDay) {
+                storeBitmap(member, bitmap);
+            }
+        }
+
+        MemberScore score = scoreOf(member);
+        if (!scoringEngine.strategyFor(group).onCheckin(score, group, new ScoredCheckin(day, durationOf(checkin), newDay))) {
+            scoreReplayService.replayMember(member);
+        }
+        eventPublisher.publishEvent(new RankingChangedEvent(group.getId(), user.getId()));
+    }
+
+    /**
+     * Atualiza as estatísticas do autor depois que um check-in aprovado foi removido.
+     *
+     * @param checkin Check-in já removido do banco
+     */
+    @Transactional
+    public void onCheckinDeleted(Checkin checkin) {
+        Group group = checkin.getGroup();
+        Long userId = checkin.getUser().getId();
+
+        groupMemberRepository.addToCheckinCount(group.getId(), userId, -1);
+
+        GroupMember member = lockMember(group.getId(), userId);
+        activityRollupService.applyCheckin(checkin, -1);
+        LocalDate checkinDay = checkin.getCreatedAt().toLocalDate();
+        int day = group.challengeDayOf(checkinDay);
+
+        // Só desmarca o dia se não sobrou nenhum outro check-in nele
+        boolean dayCleared = false;
+        if (day >= 0 && countCheckinsOnDay(group.getId(), userId, checkinDay) == 0) {
+            ActivityBitmap bitmap = ActivityBitmap.fromBytes(member.getActivityBitmap());
+            dayCleared = bitmap.clear(day);
+            if (dayCleared) {
+                storeBitmap(member, bitmap);
+            }
+        }
+
+        MemberScore score = scoreOf(member);
+        if (!scoringEngine.strategyFor(group).onCheckinRemoved(score, group, new ScoredCheckin(day, durationOf(checkin), dayCleared))) {
+            scoreReplayService.replayMember(member);
+        }
+        eventPublisher.publishEvent(new RankingChangedEvent(group.getId(), userId));
+    }
+
+    /**
+     * Recalcula as estatísticas de todos os membros do grupo a partir do histórico de check-ins.
+     *
+     * @param groupId ID do grupo
+     * @return Quantidade de membros atualizados
+     */
+    @Transactional
+    public int rebuildCounters(Long groupId) {
+        groupMemberRepository.rebuildCheckinCountsByGroupId(groupId);
+        activityRollupService.rebuildGroup(groupId);
+        groupStatsCache.invalidate(groupId);
+        eventPublisher.publishEvent(new RankingChangedEvent(groupId, null));
+
+        List<GroupMember> members = groupMemberRepository.findRankingMembersByGroupId(groupId);
+        if (members.isEmpty()) {
+            return 0;
+        }
+        Group group = members.get(0).getGroup();
+
+        Map<Long, ActivityBitmap> bitmaps = new HashMap<>();
+        for (Object[] row : checkinRepository.findActiveDaysByGroupId(groupId)) {
+            int day = group.challengeDayOf((LocalDate) row[1]);
+            if (day >= 0) {
+                bitmaps.computeIfAbsent((Long) row[0], id -> ActivityBitmap.empty()).set(day);
+            }
+        }
+
+        for (GroupMember member : members) {
+            storeBitmap(member, bitmaps.getOrDefault(member.getUser().getId(), ActivityBitmap.empty()));
+        }
+        return members.size();
+    }
+
+    /**
+     * Fecha os dias já passados do desafio na pontuação de todos os membros (ScoringStrategy.onDaysClosed):
+     * quem parou de treinar tem as faltas contadas sem precisar de um novo check-in.
+     *
+     * @param groupId ID do grupo
+     * @return Quantidade de membros cuja pontuação mudou
+     */
+    @Transactional
+    public int closeMissedDays(Long groupId) {
+        Group group = groupRepository.findById(groupId)
+                .orElseThrow(() -> new EntityNotFoundException("Grupo não encontrado com ID: " + groupId));
+        ScoringStrategy strategy = scoringEngine.strategyFor(group);
+        int today = group.challengeDayOf(LocalDate.now());
+
+        // Um membro por vez, com a linha travada: um check-in simultâneo não perde a atualização
+        int changed = 0;
+        for (Long userId : groupMemberRepository.findUserIdsByGroupId(groupId)) {
+            if (strategy.onDaysClosed(scoreOf(lockMember(groupId, userId)), group, today)) {
+                changed++;
+            }
+        }
+        if (changed > 0) {
+            eventPublisher.publishEvent(new RankingChangedEvent(groupId, null));
+        }
+        return changed;
+    }
+
+    /**
+     * Monta o ranking do grupo a partir das estatísticas mantidas nos membros.
+     * Nenhuma agregação sobre Checkins: o custo depende só do número de membros.
+     * As leituras da API usam o ranking em memória (LeaderboardService); este é o caminho direto pelo banco.
+     */
+    public List<RankingDto> getRanking(Long groupId) {
+        LocalDate today = LocalDate.now();
+
+        return groupMemberRepository.findRankingMembersByGroupId(groupId).stream()
+                .map(member -> {
+                    ActivityBitmap bitmap = ActivityBitmap.fromBytes(member.getActivityBitmap());
+                    return new RankingDto(
+                            member.getUser().getId(),
+                            member.getUser().getName(),
+                            member.getUser().getPhotoUrl(),
+                            scoreOf(member).getPoints(),
+                            valueOrZero(member.getCachedCheckinCount()),
+                            valueOrZero(member.getCachedActiveDays()),
+                            bitmap.currentStreak(member.getGroup().challengeDayOf(today)),
+                            valueOrZero(member.getLongestStreak())
+                    );
+                })
+                .toList();
+    }
+
+    /**
+     * Garante que o usuário é membro do grupo, criando a participação se ainda não existir.
+     * O dono do grupo entra como ADMIN.
+     *
+     * Duas entradas simultâneas (clique duplo, check-in e entrada ao mesmo tempo) tentam inserir a mesma linha:
+     * a chave única (group_id, user_id) decide, e quem perde devolve a participação criada pela outra.
+     * O INSERT vai direto pelo JDBC: a violação da chave num flush do JPA marcaria a transação para rollback.
+     */
+    @Transactional
+    public GroupMember ensureMembership(Group group, User user) {
+        Optional<GroupMember> existing = groupMemberRepository.findByGroupIdAndUserId(group.getId(), user.getId());
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+
+        Role role = group.getOwner() != null && group.getOwner().getId().equals(user.getId()) ? Role.ADMIN : Role.MEMBER;
+        // Os dias do desafio antes da entrada não contam como falta
+        MemberScore score = MemberScore.startingAt(group.challengeDayOf(LocalDate.now()));
+        try {
+            jdbcTemplate.update(INSERT_MEMBER_SQL, group.getId(), user.getId(), role.name(), LocalDateTime.now(),
+                    score.getPoints(), score.getTotalMinutes(), score.getLastDay(), score.getStreak(), score.getMissedDays());
+        } catch (DuplicateKeyException e) {
+            // A leitura com trava enxerga a linha que a outra transação acabou de confirmar
+            return lockMember(group.getId(), user.getId());
+        }
+
+        GroupMember saved = lockMember(group.getId(), user.getId());
+        groupStatsCache.invalidate(group.getId());
+        eventPublisher.publishEvent(new MembershipChangedEvent(group.getId(), user.getId()));
+        eventPublisher.publishEvent(new RankingChangedEvent(group.getId(), user.getId()));
+        return saved;
+    }
+
+    private GroupMember lockMember(Long groupId, Long userId) {
+        return groupMemberRepository.findByGroupIdAndUserIdForUpdate(groupId, userId)
+                .orElseThrow(() -> new EntityNotFoundException("Membro não encontrado no grupo " + groupId + ": " + userId));
+    }
+
+    private void storeBitmap(GroupMember member, ActivityBitmap bitmap) {
+        member.setActivityBitmap(bitmap.toBytes());
+        member.setCachedActiveDays(bitmap.activeDays());
+        member.setLongestStreak(bitmap.longestStreak());
+    }
+
+    private MemberScore scoreOf(GroupMember member) {
+        // Linhas antigas (sem as colunas de pontuação) chegam com o embeddable nulo
+        if (member.getScore() == null) {
+            member.setScore(MemberScore.empty());
+        }
+        return member.getScore();
+    }
+
+    private static int durationOf(Checkin checkin) {
+        if (checkin.getMetricas() == null || checkin.getMetricas().getDuracaoMin() == null) {
+            return 0;
+        }
+        return checkin.getMetricas().getDuracaoMin();
+    }
+
+    private long countCheckinsOnDay(Long groupId, Long userId, LocalDate day) {
+        LocalDateTime start = day.atStartOfDay();
+        LocalDateTime end = start.plusDays(1).minusNanos(1);
+        return checkinRepository.countCountedByGroupIdAndUserIdBetween(groupId, userId, start, end);
+    }
+
+    private static int valueOrZero(Integer value) {
+        return value != null ? value : 0;
+    }
+}
@@ -1,10 +1,10 @@
 package community_health.com.communityHealth.group.service;
 
-import community_health.com.communityHealth.checkin.repository.CheckinRepository;
 import community_health.com.communityHealth.group.dto.GroupStatsDto;
 import community_health.com.communityHealth.group.dto.RankingDto;
 import community_health.com.communityHealth.group.model.Group;
 import community_health.com.communityHealth.group.model.GroupMember;
+import community_health.com.communityHealth.group.model.ScoringMode;
 import community_health.com.communityHealth.group.repository.GroupMemberRepository; // 🔑 Usado para buscar membros
 import community_health.com.communityHealth.group.repository.GroupRepository;
 import community_health.com.communityHealth.user.model.User;
@@ -25,22 +25,29 @@ public class GroupService {
 
     private final GroupRepository groupRepository;
     private final UserService userService;
-    private final CheckinRepository checkinRepository;
     private final GroupMemberRepository groupMemberRepository; // 🔑 Repositório de Membros injetado
+    private final GroupMemberStatsService groupMemberStatsService;
+    private final GroupStatsCache groupStatsCache;
+    private final LeaderboardService leaderboardService;
 
     @Autowired
-    public GroupService(GroupRepository groupRepository, UserService userService, CheckinRepository checkinRepository, GroupMemberRepository groupMemberRepository) {
+    public GroupService(GroupRepository groupRepository, UserService userService, GroupMemberRepository groupMemberRepository,
+                        GroupMemberStatsService groupMemberStatsService, GroupStatsCache groupStatsCache,
+                        LeaderboardService leaderboardService) {
         this.groupRepository = groupRepository;
         this.userService = userService;
-        this.checkinRepository = checkinRepository;
         this.groupMemberRepository = groupMemberRepository;
+        this.groupMemberStatsService = groupMemberStatsService;
+        this.groupStatsCache = groupStatsCache;
+        this.leaderboardService = leaderboardService;
     }
 
     /**
      * Cria um novo grupo recebendo parâmetros individuais e arquivo de imagem.
      */
     @Transactional
-    public Group createGroupWithImage(String name, String description, Integer durationDays, Boolean isPrivate, Long ownerId, MultipartFile file) throws IOException {
+    public Group createGroupWithImage(String name, String description, Integer durationDays, Boolean isPrivate, Long ownerId,
+                                      ScoringMode scoringMode, Integer maxMisses, MultipartFile file) throws IOException {
         // 1. Validar e carregar o Owner
         User owner = userService.getUserById(ownerId)
                 .orElseThrow(() -> new EntityNotFoundException("Owner (User) not found with id: " + ownerId));
@@ -52,6 +59,8 @@ public class GroupService {
         group.setDurationDays(durationDays);
         group.setIsPrivate(isPrivate);
         group.setOwner(owner);
+        group.setScoringMode(scoringMode != null ? scoringMode : ScoringMode.CHECKINS);
+        group.setMaxMisses(maxMisses);
 
         // Define data de início agora
         group.setStartDate(LocalDateTime.now());
@@ -63,7 +72,25 @@ public class GroupService {
         }
 
         // 4. Persistir no banco
-        return groupRepository.save(group);
+        Group savedGroup = groupRepository.save(group);
+
+        // 5. O dono já entra como membro (conta no quórum da votação dos check-ins)
+        groupMemberStatsService.ensureMembership(savedGroup, owner);
+
+        return savedGroup;
+    }
+
+    /**
+     * Adiciona um usuário como membro do grupo (não faz nada se ele já for membro).
+     */
+    @Transactional
+    public GroupMember joinGroup(Long groupId, Long userId) {
+        Group group = groupRepository.findById(groupId)
+                .orElseThrow(() -> new EntityNotFoundException("Grupo não encontrado com ID: " + groupId));
+        User user = userService.getUserById(userId)
+                .orElseThrow(() -> new EntityNotFoundException("Usuário não encontrado com ID: " + userId));
+
+        return groupMemberStatsService.ensureMembership(group, user);
     }
 
     /**
@@ -114,45 +141,35 @@ public class GroupService {
      * @return Lista de RankingDto (Estatísticas por membro).
      */
     public List<RankingDto> getGroupRanking(Long groupId) {
-        // A query em CheckinRepository já filtra por grupo e calcula as métricas.
-        return checkinRepository.findRankingByGroupId(groupId);
+        // Lido do ranking em memória do grupo (carregado de Group_Members na primeira leitura)
+        return leaderboardService.getRanking(groupId);
     }
 
     /**
      * Calcula estatísticas globais do grupo para o endpoint /stats.
+     * Uma única query sobre os contadores dos membros, guardada em cache até o grupo mudar.
      */
     public GroupStatsDto calculateGroupStats(Long groupId) {
-        // 1. Obter o Ranking Completo (já contém os dados agregados por usuário)
-        List<RankingDto> ranking = this.getGroupRanking(groupId);
+        return groupStatsCache.get(groupId, () -> {
+            Object[] row = groupMemberRepository.aggregateStatsByGroupId(groupId).get(0);
+            long totalCheckins = ((Number) row[0]).longValue();
+            long totalActiveDays = ((Number) row[1]).longValue();
+            long members = ((Number) row[2]).longValue();
 
-        // Se o grupo não tiver membros/ranking, retorna 0 ou lança exceção.
-        if (ranking.isEmpty()) {
+            // Média de check-ins por membro
             GroupStatsDto stats = new GroupStatsDto();
-            stats.setTotalCheckins(0);
-            stats.setTotalActiveDays(0);
-            stats.setAvgCheckinsPerDay(0.0);
+            stats.setTotalCheckins((int) totalCheckins);
+            stats.setTotalActiveDays((int) totalActiveDays);
+            stats.setAvgCheckinsPerDay(members > 0 ? (double) totalCheckins / members : 0.0);
             return stats;
-        }
-
-        // 2. Calcular o Total de Checkins do Grupo
-        long totalCheckins = ranking.stream()
-                .mapToLong(RankingDto::totalCheckins)
-                .sum();
-
-        // 3. Obter o total de dias ativos de todos os membros somados
-        int totalActiveDays = ranking.stream()
-                .mapToInt(r -> (int) r.activeDays())
-                .sum();
-
-        // 4. Calcular a Média de Checkins (Total de checkins / número de membros)
-        Double avgCheckinsPerMember = (double) totalCheckins / ranking.size();
-
-        // 5. Mapear para o DTO
-        GroupStatsDto stats = new GroupStatsDto();
-        stats.setTotalCheckins((int) totalCheckins);
-        stats.setTotalActiveDays(totalActiveDays);
-        stats.setAvgCheckinsPerDay(avgCheckinsPerMember);
+        });
+    }
 
-        return stats;
+    /**
+     * Marca da versão atual das estatísticas do grupo (muda a cada check-in, comentário ou novo membro,
+     * e nunca se repete entre instâncias ou reinícios).
+     */
+    public String getGroupStatsTag(Long groupId) {
+        return groupStatsCache.currentTag(groupId);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,129 @@
+package community_health.com.communityHealth.group.service;
+
+import community_health.com.communityHealth.checkin.event.CheckinEvent;
+import community_health.com.communityHealth.checkin.event.CommentEvent;
+import community_health.com.communityHealth.cluster.dto.ClusterEnvelope;
+import community_health.com.communityHealth.cluster.service.ClusterFanout;
+import community_health.com.communityHealth.group.dto.GroupStatsDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Cache das estatísticas do grupo, guardadas junto com a versão do grupo em que foram calculadas.
+ *
+ * Toda escrita que muda os números (check-in, comentário, novo membro, recálculo) incrementa a versão
+ * depois do commit. Uma leitura só vai ao banco quando a versão guardada não bate com a atual;
+ * caso contrário o custo é uma consulta a um mapa.
+ * A mudança de versão também é avisada às outras instâncias pelo ClusterFanout (destinos em CLUSTER_PREFIX),
+ * que descartam o cache delas.
+ *
+ * A versão é um contador de cada instância, que recomeça do zero ao subir. Por isso a marca usada no ETag
+ * (currentTag) leva junto a época da instância, sorteada na subida: um ETag de outra instância, ou de antes
+ * de um reinício, nunca coincide com o atual e a resposta vem completa.
+ */
+@Component
+public class GroupStatsCache {
+
+    private static final String CLUSTER_PREFIX = "/cluster/group-stats/";
+
+    private record Entry(long version, GroupStatsDto stats) {}
+
+    private final ClusterFanout clusterFanout;
+    private final String epoch = UUID.randomUUID().toString();
+    private final Map<Long, AtomicLong> versions = new ConcurrentHashMap<>();
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    @Autowired
+    public GroupStatsCache(ClusterFanout clusterFanout) {
+        this.clusterFanout = clusterFanout;
+        clusterFanout.subscribe(this::onClusterInvalidation);
+    }
+
+    /**
+     * Devolve as estatísticas em cache ou calcula com o loader se o grupo mudou desde o último cálculo.
+     */
+    public GroupStatsDto get(Long groupId, Supplier<GroupStatsDto> loader) {
+        long version = currentVersion(groupId);
+
+        Entry entry = entries.get(groupId);
+        if (entry != null && entry.version() == version) {
+            return entry.stats();
+        }
+
+        // Se a versão mudar durante o cálculo, o valor fica guardado com a versão antiga
+        // e a próxima leitura recalcula: nunca serve um número desatualizado como atual.
+        GroupStatsDto stats = loader.get();
+        entries.merge(groupId, new Entry(version, stats),
+                (old, fresh) -> old.version() >= fresh.version() ? old : fresh);
+        return stats;
+    }
+
+    /**
+     * Versão atual das estatísticas do grupo nesta instância.
+     */
+    public long currentVersion(Long groupId) {
+        return versions.computeIfAbsent(groupId, id -> new AtomicLong()).get();
+    }
+
+    /**
+     * Marca da versão atual válida entre instâncias e reinícios: "{época da instância}-{versão}" (ETag da resposta).
+     */
+    public String currentTag(Long groupId) {
+        return epoch + "-" + currentVersion(groupId);
+    }
+
+    /**
+     * Marca as estatísticas do grupo como desatualizadas.
+     * Dentro de uma transação, só vale depois do commit (antes disso outra leitura veria os dados antigos
+     * e guardaria com a versão nova).
+     */
+    public void invalidate(Long groupId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bump(groupId);
+                }
+            });
+        } else {
+            bump(groupId);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCheckinEvent(CheckinEvent event) {
+        bump(event.groupId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCommentEvent(CommentEvent event) {
+        bump(event.groupId());
+    }
+
+    private void bump(Long groupId) {
+        bumpLocal(groupId);
+        clusterFanout.publish(new ClusterEnvelope(CLUSTER_PREFIX + groupId, null, new byte[0]));
+    }
+
+    private void bumpLocal(Long groupId) {
+        versions.computeIfAbsent(groupId, id -> new AtomicLong()).incrementAndGet();
+        entries.remove(groupId);
+    }
+
+    // Escrita confirmada em outra instância: "{groupId}"
+    private void onClusterInvalidation(ClusterEnvelope envelope) {
+        if (envelope.destination().startsWith(CLUSTER_PREFIX)) {
+            bumpLocal(Long.valueOf(envelope.destination().substring(CLUSTER_PREFIX.length())));
+        }
+    }
+}
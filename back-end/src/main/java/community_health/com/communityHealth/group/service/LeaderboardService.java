@@ -0,0 +1,209 @@
+package community_health.com.communityHealth.group.service;
+
+import community_health.com.communityHealth.group.dto.RankingDto;
+import community_health.com.communityHealth.group.dto.RankingWindowDto;
+import community_health.com.communityHealth.group.event.RankingChangedEvent;
+import community_health.com.communityHealth.group.leaderboard.Leaderboard;
+import community_health.com.communityHealth.group.model.ActivityBitmap;
+import community_health.com.communityHealth.group.model.GroupMember;
+import community_health.com.communityHealth.group.repository.GroupMemberRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Ranking em memória dos grupos em uso (ver Leaderboard).
+ *
+ * - Carregado do banco na primeira leitura do grupo (uma query já na ordem do ranking).
+ * - Depois do commit de cada escrita que mexe no ranking (RankingChangedEvent) só o membro afetado
+ *   é relido e reposicionado; um recálculo do grupo inteiro descarta o ranking, que volta a ser carregado.
+ * - Grupos sem leitura há ranking.leaderboard.idle-minutes saem da memória.
+ *
+ * Cada grupo tem um lock de leitura/escrita. A releitura do membro acontece com o lock de escrita,
+ * então duas atualizações do mesmo grupo nunca aplicam um estado mais antigo por cima de um mais novo.
+ */
+@Service
+public class LeaderboardService {
+
+    // Vizinhos padrão e máximos de cada lado em "minha posição"
+    private static final int DEFAULT_RADIUS = 2;
+    private static final int MAX_RADIUS = 50;
+
+    private static final int DEFAULT_TOP = 10;
+    private static final int MAX_TOP = 500;
+
+    private static final class Board {
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        Leaderboard leaderboard; // null até a primeira carga
+        volatile long lastAccess = System.nanoTime();
+    }
+
+    private final Map<Long, Board> boards = new ConcurrentHashMap<>();
+    private final GroupMemberRepository groupMemberRepository;
+    private final TransactionTemplate readTemplate;
+    private final long idleNanos;
+
+    @Autowired
+    public LeaderboardService(GroupMemberRepository groupMemberRepository, PlatformTransactionManager transactionManager,
+                              @Value("${ranking.leaderboard.idle-minutes:30}") long idleMinutes) {
+        this.groupMemberRepository = groupMemberRepository;
+
+        // Leituras numa transação nova: o evento chega no afterCommit da transação que escreveu,
+        // e o contexto de persistência dela ainda pode ter o membro numa versão antiga
+        this.readTemplate = new TransactionTemplate(transactionManager);
+        this.readTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readTemplate.setReadOnly(true);
+
+        this.idleNanos = TimeUnit.MINUTES.toNanos(idleMinutes);
+    }
+
+    /**
+     * Ranking completo do grupo, na ordem.
+     */
+    public List<RankingDto> getRanking(Long groupId) {
+        return read(groupId, leaderboard -> leaderboard.range(0, leaderboard.size()));
+    }
+
+    /**
+     * Os primeiros colocados do grupo.
+     */
+    public List<RankingDto> getTop(Long groupId, Integer limit) {
+        int k = (limit == null || limit <= 0) ? DEFAULT_TOP : Math.min(limit, MAX_TOP);
+        return read(groupId, leaderboard -> leaderboard.range(0, k));
+    }
+
+    /**
+     * Posição do membro e os vizinhos dele (radius acima e abaixo).
+     * @throws EntityNotFoundException Se o usuário não for membro do grupo
+     */
+    public RankingWindowDto getAround(Long groupId, Long userId, Integer radius) {
+        int r = (radius == null || radius < 0) ? DEFAULT_RADIUS : Math.min(radius, MAX_RADIUS);
+        return read(groupId, leaderboard -> {
+            int rank = leaderboard.rankOf(userId);
+            if (rank < 0) {
+                throw new EntityNotFoundException("Usuário " + userId + " não é membro do grupo " + groupId);
+            }
+            int from = Math.max(0, rank - r);
+            return new RankingWindowDto(userId, rank + 1, leaderboard.size(), from + 1,
+                    leaderboard.range(from, rank + r + 1));
+        });
+    }
+
+    // Antes dos outros ouvintes do evento (RankingBroadcaster lê o ranking já atualizado)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onRankingChanged(RankingChangedEvent event) {
+        Board board = boards.get(event.groupId());
+        if (board == null) {
+            return; // Grupo fora da memória: a próxima leitura carrega do banco
+        }
+
+        if (event.userId() == null) {
+            boards.remove(event.groupId(), board);
+            return;
+        }
+
+        board.lock.writeLock().lock();
+        try {
+            if (board.leaderboard == null) {
+                return;
+            }
+            Optional<GroupMember> member = readTemplate.execute(status ->
+                    groupMemberRepository.findRankingMemberByGroupIdAndUserId(event.groupId(), event.userId()));
+            if (member != null && member.isPresent()) {
+                board.leaderboard.put(toEntry(member.get()));
+                board.leaderboard.setChallengeDayOf(member.get().getGroup()::challengeDayOf);
+            } else {
+                board.leaderboard.remove(event.userId());
+            }
+        } catch (RuntimeException e) {
+            // Sem como atualizar: descarta e deixa a próxima leitura carregar de novo
+            System.err.println("Erro ao atualizar ranking em memória do grupo " + event.groupId() + ": " + e.getMessage());
+            boards.remove(event.groupId(), board);
+        } finally {
+            board.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Tira da memória os grupos sem leitura recente.
+     */
+    @Scheduled(fixedDelayString = "${ranking.leaderboard.evict-interval-ms:60000}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        boards.entrySet().removeIf(entry -> now - entry.getValue().lastAccess > idleNanos);
+    }
+
+    private <T> T read(Long groupId, Function<Leaderboard, T> query) {
+        Board board = boards.computeIfAbsent(groupId, id -> new Board());
+        board.lastAccess = System.nanoTime();
+
+        board.lock.readLock().lock();
+        try {
+            if (board.leaderboard != null) {
+                return query.apply(board.leaderboard);
+            }
+        } finally {
+            board.lock.readLock().unlock();
+        }
+
+        board.lock.writeLock().lock();
+        try {
+            if (board.leaderboard == null) {
+                board.leaderboard = load(groupId);
+            }
+            return query.apply(board.leaderboard);
+        } finally {
+            board.lock.writeLock().unlock();
+        }
+    }
+
+    private Leaderboard load(Long groupId) {
+        List<GroupMember> members = readTemplate.execute(status ->
+                groupMemberRepository.findRankingMembersByGroupId(groupId));
+
+        Leaderboard leaderboard = new Leaderboard();
+        if (members != null && !members.isEmpty()) {
+            leaderboard.setChallengeDayOf(members.get(0).getGroup()::challengeDayOf);
+            for (GroupMember member : members) {
+                leaderboard.put(toEntry(member));
+            }
+        }
+        return leaderboard;
+    }
+
+    private static Leaderboard.Entry toEntry(GroupMember member) {
+        long points = member.getScore() != null && member.getScore().getPoints() != null
+                ? member.getScore().getPoints()
+                : 0L;
+        return new Leaderboard.Entry(
+                new Leaderboard.Key(points, valueOrZero(member.getCachedCheckinCount()), member.getUser().getId()),
+                member.getUser().getName(),
+                member.getUser().getPhotoUrl(),
+                valueOrZero(member.getCachedActiveDays()),
+                valueOrZero(member.getLongestStreak()),
+                ActivityBitmap.fromBytes(member.getActivityBitmap())
+        );
+    }
+
+    private static int valueOrZero(Integer value) {
+        return value != null ? value : 0;
+    }
+}
@@ -0,0 +1,179 @@
+package community_health.com.communityHealth.group.service;
+
+import community_health.com.communityHealth.group.dto.RankingDeltaDto;
+import community_health.com.communityHealth.group.dto.RankingDto;
+import community_health.com.communityHealth.group.dto.RankingPositionDto;
+import community_health.com.communityHealth.group.event.RankingChangedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Envia as mudanças do ranking em /topic/group/{id}/ranking, no lugar de a tela ficar consultando o REST.
+ *
+ * - Cada RankingChangedEvent (depois do commit) só marca o grupo como alterado.
+ * - A cada ranking.push.interval-ms (250 ms) os grupos marcados são comparados com o último ranking
+ *   enviado e sai uma única mensagem por grupo, só com as posições que mudaram.
+ *   Uma rajada de check-ins vira uma mensagem pequena, não uma por check-in.
+ * - Grupos sem ninguém inscrito no tópico não são calculados nem enviados.
+ */
+@Component
+public class RankingBroadcaster {
+
+    private static final Pattern RANKING_TOPIC = Pattern.compile("^/topic/group/(\\d+)/ranking$");
+
+    private final LeaderboardService leaderboardService;
+    private final SimpMessageSendingOperations messagingTemplate;
+
+    private final Set<Long> dirtyGroups = ConcurrentHashMap.newKeySet();
+
+    // Último ranking enviado por grupo (userId -> posição), base da próxima comparação
+    private final Map<Long, Map<Long, RankingPositionDto>> lastSent = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicLong> sequences = new ConcurrentHashMap<>();
+
+    // Inscrições no tópico do ranking: sessão -> (inscrição -> grupo), e total de inscritos por grupo
+    private final Map<String, Map<String, Long>> subscriptions = new ConcurrentHashMap<>();
+    private final Map<Long, Integer> subscriberCounts = new ConcurrentHashMap<>();
+
+    @Autowired
+    public RankingBroadcaster(LeaderboardService leaderboardService, SimpMessageSendingOperations messagingTemplate) {
+        this.leaderboardService = leaderboardService;
+        this.messagingTemplate = messagingTemplate;
+    }
+
+    // Depois do LeaderboardService (que reposiciona o membro no ranking em memória)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onRankingChanged(RankingChangedEvent event) {
+        if (subscriberCounts.containsKey(event.groupId())) {
+            dirtyGroups.add(event.groupId());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${ranking.push.interval-ms:250}")
+    public void flush() {
+        for (Long groupId : List.copyOf(dirtyGroups)) {
+            dirtyGroups.remove(groupId);
+            try {
+                publishDelta(groupId);
+            } catch (RuntimeException e) {
+                System.err.println("Erro ao enviar ranking do grupo " + groupId + ": " + e.getMessage());
+            }
+        }
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        Long groupId = groupOf(accessor.getDestination());
+        if (groupId == null || accessor.getSessionId() == null || accessor.getSubscriptionId() == null) {
+            return;
+        }
+
+        subscriptions.computeIfAbsent(accessor.getSessionId(), id -> new ConcurrentHashMap<>())
+                .put(accessor.getSubscriptionId(), groupId);
+        subscriberCounts.merge(groupId, 1, Integer::sum);
+
+        // Primeiro inscrito: guarda o ranking atual como base (o cliente carrega o mesmo pelo REST)
+        lastSent.computeIfAbsent(groupId, id -> index(leaderboardService.getRanking(id)));
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        Map<String, Long> session = subscriptions.get(accessor.getSessionId());
+        if (session != null && accessor.getSubscriptionId() != null) {
+            Long groupId = session.remove(accessor.getSubscriptionId());
+            if (groupId != null) {
+                release(groupId);
+            }
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Map<String, Long> session = subscriptions.remove(event.getSessionId());
+        if (session != null) {
+            session.values().forEach(this::release);
+        }
+    }
+
+    private void publishDelta(Long groupId) {
+        if (!subscriberCounts.containsKey(groupId)) {
+            return;
+        }
+
+        Map<Long, RankingPositionDto> current = index(leaderboardService.getRanking(groupId));
+        Map<Long, RankingPositionDto> previous = lastSent.put(groupId, current);
+        boolean full = previous == null;
+
+        List<RankingPositionDto> moved = new ArrayList<>();
+        for (RankingPositionDto position : current.values()) {
+            if (full || !position.equals(previous.get(position.member().userId()))) {
+                moved.add(position);
+            }
+        }
+        List<Long> removed = new ArrayList<>();
+        if (!full) {
+            for (Long userId : previous.keySet()) {
+                if (!current.containsKey(userId)) {
+                    removed.add(userId);
+                }
+            }
+        }
+
+        if (!full && moved.isEmpty() && removed.isEmpty()) {
+            return;
+        }
+        moved.sort((a, b) -> Integer.compare(a.rank(), b.rank()));
+
+        long seq = sequences.computeIfAbsent(groupId, id -> new AtomicLong()).incrementAndGet();
+        messagingTemplate.convertAndSend("/topic/group/" + groupId + "/ranking",
+                new RankingDeltaDto(groupId, seq, full, current.size(), moved, removed));
+    }
+
+    private void release(Long groupId) {
+        Integer left = subscriberCounts.computeIfPresent(groupId, (id, count) -> count > 1 ? count - 1 : null);
+        if (left == null) {
+            // Ninguém mais olhando: a base será refeita no próximo inscrito
+            lastSent.remove(groupId);
+        }
+    }
+
+    private static Map<Long, RankingPositionDto> index(List<RankingDto> ranking) {
+        Map<Long, RankingPositionDto> positions = new HashMap<>(ranking.size() * 2);
+        for (int i = 0; i < ranking.size(); i++) {
+            RankingDto member = ranking.get(i);
+            positions.put(member.userId(), new RankingPositionDto(i + 1, member));
+        }
+        return positions;
+    }
+
+    private static Long groupOf(String destination) {
+        if (destination == null) {
+            return null;
+        }
+        Matcher matcher = RANKING_TOPIC.matcher(destination);
+        return matcher.matches() ? Long.valueOf(matcher.group(1)) : null;
+    }
+}
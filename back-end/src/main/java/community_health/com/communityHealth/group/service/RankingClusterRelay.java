@@ -0,0 +1,67 @@
+package community_health.com.communityHealth.group.service;
+
+import community_health.com.communityHealth.cluster.dto.ClusterEnvelope;
+import community_health.com.communityHealth.cluster.service.ClusterFanout;
+import community_health.com.communityHealth.group.event.RankingChangedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Leva os RankingChangedEvent às outras instâncias pelo ClusterFanout.
+ *
+ * Cada instância tem o próprio ranking em memória (LeaderboardService) e a própria base das diferenças
+ * enviadas em /topic/group/{id}/ranking (RankingBroadcaster). Por isso o tópico do ranking não é
+ * repassado entre instâncias (cluster.fanout.excluded-destinations): o que atravessa é o evento,
+ * e cada instância atualiza o seu ranking e manda as suas diferenças, com a sua sequência.
+ */
+@Component
+public class RankingClusterRelay {
+
+    private static final String CLUSTER_PREFIX = "/cluster/ranking/";
+    private static final String WHOLE_GROUP = "*";
+
+    private final ClusterFanout clusterFanout;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Marca a thread que está republicando um evento de outra instância (não volta para o fan-out)
+    private final ThreadLocal<Boolean> relaying = ThreadLocal.withInitial(() -> false);
+
+    @Autowired
+    public RankingClusterRelay(ClusterFanout clusterFanout, ApplicationEventPublisher eventPublisher) {
+        this.clusterFanout = clusterFanout;
+        this.eventPublisher = eventPublisher;
+        clusterFanout.subscribe(this::onClusterEvent);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onRankingChanged(RankingChangedEvent event) {
+        if (relaying.get()) {
+            return;
+        }
+        String member = event.userId() == null ? WHOLE_GROUP : event.userId().toString();
+        clusterFanout.publish(new ClusterEnvelope(CLUSTER_PREFIX + event.groupId() + "/" + member, null, new byte[0]));
+    }
+
+    // Mudança confirmada em outra instância: "{groupId}/{userId}" ou "{groupId}/*" (grupo inteiro)
+    private void onClusterEvent(ClusterEnvelope envelope) {
+        if (!envelope.destination().startsWith(CLUSTER_PREFIX)) {
+            return;
+        }
+        String[] parts = envelope.destination().substring(CLUSTER_PREFIX.length()).split("/");
+        Long groupId = Long.valueOf(parts[0]);
+        Long userId = WHOLE_GROUP.equals(parts[1]) ? null : Long.valueOf(parts[1]);
+
+        relaying.set(true);
+        try {
+            // Fora de transação: os ouvintes (fallbackExecution) rodam aqui mesmo
+            eventPublisher.publishEvent(new RankingChangedEvent(groupId, userId));
+        } catch (RuntimeException e) {
+            System.err.println("Erro ao aplicar mudança de ranking de outra instância: " + e.getMessage());
+        } finally {
+            relaying.remove();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package community_health.com.communityHealth.group.service;
+
+import community_health.com.communityHealth.group.dto.ScoreDiffDto;
+import community_health.com.communityHealth.group.repository.GroupRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Job que fecha o dia anterior na pontuação (faltas de quem não treinou) e corrige desvios nos contadores
+ * e na pontuação de ranking dos membros. Roda por padrão todo dia às 4h (configurável em ranking.rebuild.cron).
+ */
+@Component
+public class RankingRebuildJob {
+
+    private final GroupRepository groupRepository;
+    private final GroupMemberStatsService groupMemberStatsService;
+    private final ScoreReplayService scoreReplayService;
+
+    @Autowired
+    public RankingRebuildJob(GroupRepository groupRepository, GroupMemberStatsService groupMemberStatsService,
+                             ScoreReplayService scoreReplayService) {
+        this.groupRepository = groupRepository;
+        this.groupMemberStatsService = groupMemberStatsService;
+        this.scoreReplayService = scoreReplayService;
+    }
+
+    @Scheduled(cron = "${ranking.rebuild.cron:0 0 4 * * *}")
+    public void rebuildAllGroups() {
+        // Uma transação por grupo: um erro em um grupo não desfaz os outros
+        for (Long groupId : groupRepository.findAllIds()) {
+            try {
+                groupMemberStatsService.rebuildCounters(groupId);
+                groupMemberStatsService.closeMissedDays(groupId);
+
+                List<ScoreDiffDto> diffs = scoreReplayService.replayGroup(groupId, true);
+                if (!diffs.isEmpty()) {
+                    System.err.println("Pontuação corrigida em " + diffs.size() + " membro(s) do grupo " + groupId);
+                }
+            } catch (Exception e) {
+                System.err.println("Erro ao recalcular ranking do grupo " + groupId + ": " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package community_health.com.communityHealth.group.service;
+
+import community_health.com.communityHealth.checkin.repository.CheckinRepository;
+import community_health.com.communityHealth.group.dto.ScoreDiffDto;
+import community_health.com.communityHealth.group.event.RankingChangedEvent;
+import community_health.com.communityHealth.group.model.Group;
+import community_health.com.communityHealth.group.model.GroupMember;
+import community_health.com.communityHealth.group.model.MemberScore;
+import community_health.com.communityHealth.group.repository.GroupMemberRepository;
+import community_health.com.communityHealth.group.repository.GroupRepository;
+import community_health.com.communityHealth.group.scoring.ScoredCheckin;
+import community_health.com.communityHealth.group.scoring.ScoringEngine;
+import community_health.com.communityHealth.group.scoring.ScoringStrategy;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Recalcula a pontuação dos membros a partir do histórico de check-ins, aplicando a mesma
+ * ScoringStrategy usada nas atualizações incrementais. Serve para conferir se os acumuladores
+ * estão corretos e para corrigi-los quando uma remoção não pode ser desfeita de forma incremental.
+ */
+@Service
+public class ScoreReplayService {
+
+    private final GroupRepository groupRepository;
+    private final GroupMemberRepository groupMemberRepository;
+    private final CheckinRepository checkinRepository;
+    private final ScoringEngine scoringEngine;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    public ScoreReplayService(GroupRepository groupRepository, GroupMemberRepository groupMemberRepository,
+                              CheckinRepository checkinRepository, ScoringEngine scoringEngine,
+                              ApplicationEventPublisher eventPublisher) {
+        this.groupRepository = groupRepository;
+        this.groupMemberRepository = groupMemberRepository;
+        this.checkinRepository = checkinRepository;
+        this.scoringEngine = scoringEngine;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Refaz a pontuação de todos os membros do grupo.
+     *
+     * @param groupId ID do grupo
+     * @param apply true para gravar os valores recalculados, false para apenas comparar
+     * @return Membros cuja pontuação acumulada diverge do histórico
+     */
+    @Transactional
+    public List<ScoreDiffDto> replayGroup(Long groupId, boolean apply) {
+        Group group = groupRepository.findById(groupId)
+                .orElseThrow(() -> new EntityNotFoundException("Grupo não encontrado com ID: " + groupId));
+
+        List<GroupMember> members = groupMemberRepository.findByGroupId(groupId);
+        Map<Long, MemberScore> replayed = replay(group, members, checkinRepository.findScoreHistoryByGroupId(groupId));
+
+        List<ScoreDiffDto> diffs = new ArrayList<>();
+        for (GroupMember member : members) {
+            MemberScore expected = replayed.getOrDefault(member.getUser().getId(), MemberScore.empty());
+            MemberScore stored = member.getScore() != null ? member.getScore() : MemberScore.empty();
+
+            if (!Objects.equals(stored, expected)) {
+                diffs.add(new ScoreDiffDto(member.getUser().getId(), member.getUser().getName(),
+                        stored.getPoints(), expected.getPoints()));
+                if (apply) {
+                    member.setScore(expected);
+                }
+            }
+        }
+        if (apply && !diffs.isEmpty()) {
+            eventPublisher.publishEvent(new RankingChangedEvent(groupId, null));
+        }
+        return diffs;
+    }
+
+    /**
+     * Refaz a pontuação de um único membro (usado quando a regra não desfaz uma remoção).
+     * Deve ser chamado com a linha do membro travada.
+     */
+    @Transactional
+    public void replayMember(GroupMember member) {
+        Group group = member.getGroup();
+        Long userId = member.getUser().getId();
+
+        Map<Long, MemberScore> replayed = replay(group, List.of(member),
+                checkinRepository.findScoreHistoryByGroupIdAndUserId(group.getId(), userId));
+        member.setScore(replayed.getOrDefault(userId, MemberScore.empty()));
+    }
+
+    private Map<Long, MemberScore> replay(Group group, List<GroupMember> members, List<Object[]> history) {
+        ScoringStrategy strategy = scoringEngine.strategyFor(group);
+        Map<Long, MemberScore> scores = new HashMap<>();
+        Map<Long, Set<Integer>> activeDays = new HashMap<>();
+
+        // Cada membro começa a contar na entrada no grupo, ou antes se já tem check-in anterior a ela
+        Map<Long, Integer> firstDays = new HashMap<>();
+        for (GroupMember member : members) {
+            firstDays.put(member.getUser().getId(), member.getJoinedAt() != null
+                    ? group.challengeDayOf(member.getJoinedAt().toLocalDate())
+                    : 0);
+        }
+        for (Object[] row : history) {
+            int day = group.challengeDayOf(((LocalDateTime) row[1]).toLocalDate());
+            if (day >= 0) {
+                firstDays.computeIfPresent((Long) row[0], (id, first) -> Math.min(first, day));
+            }
+        }
+        firstDays.forEach((userId, firstDay) -> scores.put(userId, MemberScore.startingAt(firstDay)));
+
+        // Linhas: [userId, createdAt, duracaoMin], em ordem cronológica
+        for (Object[] row : history) {
+            Long userId = (Long) row[0];
+            int day = group.challengeDayOf(((LocalDateTime) row[1]).toLocalDate());
+            int duration = row[2] != null ? (Integer) row[2] : 0;
+            boolean newDay = day >= 0 && activeDays.computeIfAbsent(userId, id -> new HashSet<>()).add(day);
+
+            strategy.onCheckin(scores.computeIfAbsent(userId, id -> MemberScore.empty()), group,
+                    new ScoredCheckin(day, duration, newDay));
+        }
+
+        // Fecha os dias até ontem, como o RankingRebuildJob faz nos acumuladores
+        int today = group.challengeDayOf(LocalDate.now());
+        for (MemberScore score : scores.values()) {
+            strategy.onDaysClosed(score, group, today);
+        }
+        return scores;
+    }
+}
@@ -0,0 +1,55 @@
+package community_health.com.communityHealth.monitoring.controller;
+
+import community_health.com.communityHealth.chat.service.ChatPresenceRegistry;
+import community_health.com.communityHealth.monitoring.dto.WebSocketStatsDto;
+import community_health.com.communityHealth.monitoring.service.WebSocketSessionMonitor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.socket.config.WebSocketMessageBrokerStats;
+import org.springframework.web.socket.messaging.SubProtocolWebSocketHandler;
+
+@RestController
+@RequestMapping("/api/monitoring")
+public class MonitoringController {
+
+    private final WebSocketSessionMonitor sessionMonitor;
+    private final WebSocketMessageBrokerStats brokerStats;
+    private final ChatPresenceRegistry presenceRegistry;
+
+    @Autowired
+    public MonitoringController(WebSocketSessionMonitor sessionMonitor, WebSocketMessageBrokerStats brokerStats,
+                                ChatPresenceRegistry presenceRegistry) {
+        this.sessionMonitor = sessionMonitor;
+        this.brokerStats = brokerStats;
+        this.presenceRegistry = presenceRegistry;
+    }
+
+    /**
+     * GET /api/monitoring/websocket
+     * Sessões abertas, clientes lentos derrubados, estado dos executores do STOMP e tamanho da presença do chat.
+     */
+    @GetMapping("/websocket")
+    public ResponseEntity<WebSocketStatsDto> getWebSocketStats() {
+        // Nulo só sem o handler do STOMP registrado
+        SubProtocolWebSocketHandler.Stats sessions = brokerStats.getWebSocketSessionStats();
+        return ResponseEntity.ok(new WebSocketStatsDto(
+                sessionMonitor.getOpenSessions(),
+                sessionMonitor.getTotalSessions(),
+                sessionMonitor.getSlowSessionsClosed(),
+                sessionMonitor.getTransportErrors(),
+                sessions == null ? 0 : sessions.getWebSocketSessions(),
+                sessions == null ? 0 : sessions.getHttpStreamingSessions(),
+                sessions == null ? 0 : sessions.getHttpPollingSessions(),
+                sessions == null ? 0 : sessions.getLimitExceededSessions(),
+                sessions == null ? 0 : sessions.getNoMessagesReceivedSessions(),
+                sessions == null ? 0 : sessions.getTransportErrorSessions(),
+                brokerStats.getClientInboundExecutorStatsInfo(),
+                brokerStats.getClientOutboundExecutorStatsInfo(),
+                presenceRegistry.sessionCount(),
+                presenceRegistry.groupCount()
+        ));
+    }
+}
@@ -0,0 +1,34 @@
+package community_health.com.communityHealth.monitoring.dto;
+
+/**
+ * Números das conexões WebSocket/STOMP.
+ *
+ * @param slowSessionsClosed Sessões derrubadas por estourar o limite de tempo ou de buffer de envio
+ * @param transportErrors Erros de transporte (inclui escrita que venceu o tempo numa sessão parada)
+ * @param webSocketSessions Sessões abertas por WebSocket (números do Spring, SubProtocolWebSocketHandler)
+ * @param httpStreamingSessions Sessões abertas por HTTP streaming do SockJS
+ * @param httpPollingSessions Sessões abertas por HTTP polling do SockJS
+ * @param limitExceededSessions Sessões fechadas pelo Spring por estourar o limite de envio
+ * @param noMessagesReceivedSessions Sessões fechadas por não enviarem nada depois de conectar
+ * @param transportErrorSessions Sessões fechadas por erro de transporte
+ * @param inboundExecutor Estado do executor do canal de entrada
+ * @param outboundExecutor Estado do executor do canal de saída
+ * @param presenceSessions Sessões com presença no chat (memória do ChatPresenceRegistry)
+ * @param presenceGroups Grupos com alguém online no chat
+ */
+public record WebSocketStatsDto(
+        int openSessions,
+        long totalSessions,
+        long slowSessionsClosed,
+        long transportErrors,
+        int webSocketSessions,
+        int httpStreamingSessions,
+        int httpPollingSessions,
+        int limitExceededSessions,
+        int noMessagesReceivedSessions,
+        int transportErrorSessions,
+        String inboundExecutor,
+        String outboundExecutor,
+        int presenceSessions,
+        int presenceGroups
+) {}
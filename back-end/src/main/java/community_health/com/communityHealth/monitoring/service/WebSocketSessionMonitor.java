@@ -0,0 +1,105 @@
+package community_health.com.communityHealth.monitoring.service;
+
+import jakarta.websocket.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Acompanha as sessões WebSocket e conta as que foram derrubadas por não acompanharem o envio.
+ *
+ * Um cliente lento (celular em rede ruim, aba congelada) é desligado pelo Spring quando o envio para ele
+ * passa de websocket.send-time-limit-ms ou acumula mais de websocket.send-buffer-size-kb
+ * (fecha com SESSION_NOT_RELIABLE). Além disso, a escrita bloqueante do Tomcat para a sessão
+ * ganha o mesmo limite de tempo: a thread de saída que estava presa nela é liberada em vez de
+ * esperar o padrão de 20 s, e a sessão cai com erro de transporte.
+ *
+ * Os clientes conectam por SockJS: no transporte WebSocket a sessão que chega aqui é a do SockJS, que embrulha
+ * a do Tomcat, e o limite vai para a sessão nativa por baixo dela. Nos transportes HTTP do SockJS
+ * (xhr-streaming, polling) não há sessão nativa e valem só os limites do Spring.
+ */
+@Component
+public class WebSocketSessionMonitor implements WebSocketHandlerDecoratorFactory {
+
+    private static final String TOMCAT_BLOCKING_SEND_TIMEOUT = "org.apache.tomcat.websocket.BLOCKING_SEND_TIMEOUT";
+
+    private final long sendTimeLimitMs;
+
+    private final AtomicInteger openSessions = new AtomicInteger();
+    private final LongAdder totalSessions = new LongAdder();
+    private final LongAdder slowSessionsClosed = new LongAdder();
+    private final LongAdder transportErrors = new LongAdder();
+
+    public WebSocketSessionMonitor(@Value("${websocket.send-time-limit-ms:5000}") long sendTimeLimitMs) {
+        this.sendTimeLimitMs = sendTimeLimitMs;
+    }
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                openSessions.incrementAndGet();
+                totalSessions.increment();
+                applyBlockingSendTimeout(session);
+                super.afterConnectionEstablished(session);
+            }
+
+            @Override
+            public void handleTransportError(WebSocketSession session, Throwable exception) throws Exception {
+                transportErrors.increment();
+                super.handleTransportError(session, exception);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                openSessions.decrementAndGet();
+                if (CloseStatus.SESSION_NOT_RELIABLE.equalsCode(closeStatus)) {
+                    slowSessionsClosed.increment();
+                }
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    // Sessão WebSocket direta ou SockJS sobre WebSocket: as duas expõem a sessão do Tomcat
+    private void applyBlockingSendTimeout(WebSocketSession session) {
+        if (session instanceof NativeWebSocketSession nativeSession) {
+            Session tomcatSession = nativeSession.getNativeSession(Session.class);
+            if (tomcatSession != null) {
+                tomcatSession.getUserProperties().put(TOMCAT_BLOCKING_SEND_TIMEOUT, sendTimeLimitMs);
+            }
+        }
+    }
+
+    public int getOpenSessions() {
+        return openSessions.get();
+    }
+
+    public long getTotalSessions() {
+        return totalSessions.sum();
+    }
+
+    /**
+     * Sessões fechadas por estourar o limite de tempo ou de buffer de envio.
+     */
+    public long getSlowSessionsClosed() {
+        return slowSessionsClosed.sum();
+    }
+
+    /**
+     * Erros de transporte (inclui a escrita que venceu o limite de tempo numa sessão parada).
+     */
+    public long getTransportErrors() {
+        return transportErrors.sum();
+    }
+}
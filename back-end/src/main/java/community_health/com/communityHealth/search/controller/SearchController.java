@@ -0,0 +1,83 @@
+package community_health.com.communityHealth.search.controller;
+
+import community_health.com.communityHealth.search.dto.SearchHitDto;
+import community_health.com.communityHealth.search.service.SearchIndexService;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api")
+public class SearchController {
+
+    private final SearchIndexService searchIndexService;
+
+    @Autowired
+    public SearchController(SearchIndexService searchIndexService) {
+        this.searchIndexService = searchIndexService;
+    }
+
+    /**
+     * GET /api/groups/{groupId}/search?q={TEXTO}&type={all|chat|checkin}&limit={N}
+     * Mensagens do chat e check-ins do grupo com todas as palavras, dos mais novos para os mais antigos.
+     * Acentos e maiúsculas não importam, e a última palavra vale como prefixo ("corr" acha "corrida").
+     */
+    @GetMapping("/groups/{groupId}/search")
+    public ResponseEntity<?> search(
+            @PathVariable Long groupId,
+            @RequestParam("q") String query,
+            @RequestParam(defaultValue = "all") String type,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            SearchIndexService.Scope scope = SearchIndexService.Scope.parse(type);
+            List<SearchHitDto> hits = searchIndexService.search(groupId, query, scope, limit);
+            return ResponseEntity.ok(hits);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (EntityNotFoundException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+        } catch (Exception e) {
+            System.err.println("Erro na busca do grupo: " + e.getMessage());
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * POST /api/groups/{groupId}/search/rebuild
+     * Refaz o índice de busca do grupo a partir do banco. Retorna a quantidade de documentos indexados.
+     */
+    @PostMapping("/groups/{groupId}/search/rebuild")
+    public ResponseEntity<?> rebuildGroup(@PathVariable Long groupId) {
+        try {
+            return ResponseEntity.ok(searchIndexService.rebuild(groupId));
+        } catch (EntityNotFoundException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+        } catch (Exception e) {
+            System.err.println("Erro ao reconstruir índice de busca: " + e.getMessage());
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * POST /api/search/rebuild
+     * Refaz o índice de busca de todos os grupos.
+     */
+    @PostMapping("/search/rebuild")
+    public ResponseEntity<?> rebuildAll() {
+        try {
+            return ResponseEntity.ok(searchIndexService.rebuildAll());
+        } catch (Exception e) {
+            System.err.println("Erro ao reconstruir índice de busca: " + e.getMessage());
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package community_health.com.communityHealth.search.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Resultado da busca no grupo: uma mensagem do chat ou um check-in.
+ *
+ * @param type CHAT ou CHECKIN
+ * @param id ID da mensagem ou do check-in
+ * @param text Conteúdo da mensagem, ou título e descrição do check-in
+ * @param createdAt Data de envio/criação (os resultados vêm dos mais novos para os mais antigos)
+ */
+public record SearchHitDto(
+        String type,
+        Long id,
+        String text,
+        LocalDateTime createdAt,
+        Long userId,
+        String userName
+) {}
@@ -0,0 +1,14 @@
+package community_health.com.communityHealth.search.dto;
+
+/**
+ * Resultado da reconstrução do índice de busca.
+ *
+ * @param groups Grupos reconstruídos
+ * @param documents Mensagens e check-ins indexados
+ * @param elapsedMs Tempo total
+ */
+public record SearchRebuildResult(
+        int groups,
+        long documents,
+        long elapsedMs
+) {}
@@ -0,0 +1,296 @@
+package community_health.com.communityHealth.search.service;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Índice invertido de um grupo: termo -> lista ordenada das chaves dos documentos que têm o termo.
+ *
+ * A chave junta tipo e ID ((id << 1) | tipo), então cada lista fica em ordem de ID e a busca
+ * anda do fim para o começo (mais recentes primeiro) parando no limite. Removidos ficam numa lista
+ * à parte e saem das listas quando o índice é gravado em disco.
+ *
+ * Acesso sincronizado no próprio objeto (uma partição por grupo, então grupos diferentes não disputam).
+ */
+final class GroupTextIndex {
+
+    static final int CHAT = 0;
+    static final int CHECKIN = 1;
+
+    private static final int FILE_VERSION = 2;
+    // Prefixos curtos demais casariam com quase todos os termos
+    private static final int MIN_PREFIX_LENGTH = 2;
+
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    private final Set<Long> deleted = new HashSet<>();
+    private long maxChatId;
+    private long maxCheckinId;
+    // Até quando (epoch ms) tudo que foi gravado no banco já estava no índice; 0 = nunca sincronizado
+    private long syncedAt;
+    private boolean dirty;
+    // Última busca (System.nanoTime), para tirar da memória as partições paradas
+    volatile long lastAccess = System.nanoTime();
+
+    static long key(int type, long id) {
+        return (id << 1) | type;
+    }
+
+    static int typeOf(long key) {
+        return (int) (key & 1);
+    }
+
+    static long idOf(long key) {
+        return key >>> 1;
+    }
+
+    synchronized void add(int type, long id, String text) {
+        long key = key(type, id);
+        for (String term : new LinkedHashSet<>(TextAnalyzer.terms(text))) {
+            terms.computeIfAbsent(term, t -> new Postings()).add(key);
+        }
+        if (type == CHAT) {
+            maxChatId = Math.max(maxChatId, id);
+        } else {
+            maxCheckinId = Math.max(maxCheckinId, id);
+        }
+        dirty = true;
+    }
+
+    synchronized void delete(int type, long id) {
+        deleted.add(key(type, id));
+        dirty = true;
+    }
+
+    synchronized long maxId(int type) {
+        return type == CHAT ? maxChatId : maxCheckinId;
+    }
+
+    synchronized long syncedAt() {
+        return syncedAt;
+    }
+
+    synchronized void markSynced(long millis) {
+        syncedAt = Math.max(syncedAt, millis);
+    }
+
+    synchronized int termCount() {
+        return terms.size();
+    }
+
+    synchronized boolean isDirty() {
+        return dirty;
+    }
+
+    /**
+     * IDs (do mais novo para o mais antigo) dos documentos do tipo que têm todos os termos.
+     * O último termo vale como prefixo ("corr" acha "corrida").
+     *
+     * Anda de trás para frente pela menor lista (ou pelas listas do prefixo, intercaladas) e confere
+     * as outras por busca binária, parando no limite: o custo depende do limite, não do tamanho do grupo.
+     */
+    synchronized List<Long> search(List<String> queryTerms, int type, int limit) {
+        List<Postings> required = new ArrayList<>(queryTerms.size());
+        List<Postings> prefixed = null;
+        for (int i = 0; i < queryTerms.size(); i++) {
+            String term = queryTerms.get(i);
+            if (i == queryTerms.size() - 1 && term.length() >= MIN_PREFIX_LENGTH) {
+                prefixed = new ArrayList<>(terms.subMap(term, term + Character.MAX_VALUE).values());
+                if (prefixed.isEmpty()) {
+                    return List.of();
+                }
+                continue;
+            }
+            Postings postings = terms.get(term);
+            if (postings == null) {
+                return List.of();
+            }
+            required.add(postings);
+        }
+        required.sort(Comparator.comparingInt(postings -> postings.size));
+
+        long prefixedSize = 0;
+        if (prefixed != null) {
+            for (Postings postings : prefixed) {
+                prefixedSize += postings.size;
+            }
+        }
+        List<Long> ids = new ArrayList<>(Math.min(limit, 64));
+        if (prefixed != null && (required.isEmpty() || prefixedSize < required.get(0).size)) {
+            // Intercala as listas do prefixo da maior chave para a menor (um documento pode estar em várias)
+            List<Postings> lists = prefixed;
+            int[] positions = new int[lists.size()];
+            PriorityQueue<Integer> heads = new PriorityQueue<>(lists.size(),
+                    (a, b) -> Long.compare(lists.get(b).keys[positions[b]], lists.get(a).keys[positions[a]]));
+            for (int i = 0; i < lists.size(); i++) {
+                positions[i] = lists.get(i).size - 1;
+                heads.add(i);
+            }
+            long previous = -1;
+            while (!heads.isEmpty() && ids.size() < limit) {
+                int list = heads.poll();
+                long key = lists.get(list).keys[positions[list]--];
+                if (positions[list] >= 0) {
+                    heads.add(list);
+                }
+                if (key != previous) {
+                    previous = key;
+                    accept(key, type, required, 0, null, ids);
+                }
+            }
+        } else {
+            Postings smallest = required.get(0);
+            for (int i = smallest.size - 1; i >= 0 && ids.size() < limit; i--) {
+                accept(smallest.keys[i], type, required, 1, prefixed, ids);
+            }
+        }
+        return ids;
+    }
+
+    private void accept(long key, int type, List<Postings> required, int from, List<Postings> prefixed, List<Long> ids) {
+        if (typeOf(key) != type || deleted.contains(key)) {
+            return;
+        }
+        for (int i = from; i < required.size(); i++) {
+            if (!required.get(i).contains(key)) {
+                return;
+            }
+        }
+        if (prefixed != null && prefixed.stream().noneMatch(postings -> postings.contains(key))) {
+            return;
+        }
+        ids.add(idOf(key));
+    }
+
+    /**
+     * Grava o índice (compactando os removidos). Formato: versão, maiores IDs, sincronização, e para cada termo
+     * a quantidade e as chaves em diferenças (varint), que ocupam 1 a 2 bytes em listas densas.
+     */
+    synchronized void writeTo(DataOutputStream out) throws IOException {
+        if (!deleted.isEmpty()) {
+            terms.values().removeIf(postings -> postings.removeAll(deleted));
+            deleted.clear();
+        }
+        out.writeInt(FILE_VERSION);
+        out.writeLong(maxChatId);
+        out.writeLong(maxCheckinId);
+        out.writeLong(syncedAt);
+        out.writeInt(terms.size());
+        for (Map.Entry<String, Postings> entry : terms.entrySet()) {
+            Postings postings = entry.getValue();
+            out.writeUTF(entry.getKey());
+            writeVarLong(out, postings.size);
+            long previous = 0;
+            for (int i = 0; i < postings.size; i++) {
+                writeVarLong(out, postings.keys[i] - previous);
+                previous = postings.keys[i];
+            }
+        }
+        dirty = false;
+    }
+
+    static GroupTextIndex readFrom(DataInputStream in) throws IOException {
+        int version = in.readInt();
+        if (version != FILE_VERSION) {
+            throw new IOException("Versão do arquivo de índice não suportada: " + version);
+        }
+        GroupTextIndex index = new GroupTextIndex();
+        index.maxChatId = in.readLong();
+        index.maxCheckinId = in.readLong();
+        index.syncedAt = in.readLong();
+        int termCount = in.readInt();
+        for (int t = 0; t < termCount; t++) {
+            String term = in.readUTF();
+            int size = (int) readVarLong(in);
+            Postings postings = new Postings(size);
+            long previous = 0;
+            for (int i = 0; i < size; i++) {
+                previous += readVarLong(in);
+                postings.keys[i] = previous;
+            }
+            postings.size = size;
+            index.terms.put(term, postings);
+        }
+        return index;
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+
+    // Lista ordenada e sem repetição de chaves; quase sempre cresce pelo fim (IDs novos)
+    private static final class Postings {
+        private long[] keys;
+        private int size;
+
+        private Postings() {
+            this(4);
+        }
+
+        private Postings(int capacity) {
+            this.keys = new long[Math.max(capacity, 1)];
+        }
+
+        private void add(long key) {
+            if (size > 0 && key <= keys[size - 1]) {
+                int at = Arrays.binarySearch(keys, 0, size, key);
+                if (at >= 0) {
+                    return;
+                }
+                insertAt(-at - 1, key);
+                return;
+            }
+            insertAt(size, key);
+        }
+
+        private boolean contains(long key) {
+            return Arrays.binarySearch(keys, 0, size, key) >= 0;
+        }
+
+        private void insertAt(int at, long key) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, keys.length * 2);
+            }
+            System.arraycopy(keys, at, keys, at + 1, size - at);
+            keys[at] = key;
+            size++;
+        }
+
+        // Tira as chaves removidas; devolve true se a lista ficou vazia
+        private boolean removeAll(Set<Long> removed) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (!removed.contains(keys[i])) {
+                    keys[kept++] = keys[i];
+                }
+            }
+            size = kept;
+            return size == 0;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package community_health.com.communityHealth.search.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import community_health.com.communityHealth.chat.event.ChatMessagesStoredEvent;
+import community_health.com.communityHealth.chat.service.ChatWriteBehindService.PendingMessage;
+import community_health.com.communityHealth.cluster.dto.ClusterEnvelope;
+import community_health.com.communityHealth.cluster.service.ClusterFanout;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Leva os blocos do chat gravados por esta instância ao índice de busca das outras, pelo ClusterFanout.
+ *
+ * Cada instância tem o próprio índice em memória (SearchIndexService), e o ChatMessagesStoredEvent só é
+ * publicado onde o bloco foi gravado. O que atravessa vai direto para o índice: o evento não é republicado
+ * nas outras instâncias, porque os não lidos (UnreadService) já foram contados no banco por quem gravou.
+ */
+@Component
+public class SearchClusterRelay {
+
+    private static final String DESTINATION = "/cluster/search/chat";
+    private static final TypeReference<List<PendingMessage>> MESSAGES = new TypeReference<>() {};
+
+    private final ClusterFanout clusterFanout;
+    private final SearchIndexService searchIndexService;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public SearchClusterRelay(ClusterFanout clusterFanout, SearchIndexService searchIndexService, ObjectMapper objectMapper) {
+        this.clusterFanout = clusterFanout;
+        this.searchIndexService = searchIndexService;
+        this.objectMapper = objectMapper;
+        clusterFanout.subscribe(this::onClusterEvent);
+    }
+
+    // Na thread do write-behind: serializa o bloco e segue (o fan-out não espera a entrega)
+    @EventListener
+    public void onChatMessagesStored(ChatMessagesStoredEvent event) {
+        try {
+            clusterFanout.publish(new ClusterEnvelope(DESTINATION, MimeTypeUtils.APPLICATION_JSON_VALUE,
+                    objectMapper.writeValueAsBytes(event.messages())));
+        } catch (JsonProcessingException | RuntimeException e) {
+            // As outras instâncias ainda pegam o bloco na próxima carga do grupo (SearchIndexService.catchUp)
+            System.err.println("Erro ao repassar mensagens do chat para a busca das outras instâncias: " + e.getMessage());
+        }
+    }
+
+    private void onClusterEvent(ClusterEnvelope envelope) {
+        if (!DESTINATION.equals(envelope.destination())) {
+            return;
+        }
+        try {
+            searchIndexService.indexChatMessages(objectMapper.readValue(envelope.payload(), MESSAGES));
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Erro ao indexar mensagens do chat de outra instância: " + e.getMessage());
+        }
+    }
+}
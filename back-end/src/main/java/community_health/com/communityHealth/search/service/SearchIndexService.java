@@ -0,0 +1,447 @@
+package community_health.com.communityHealth.search.service;
+
+import community_health.com.communityHealth.chat.dto.ChatMessageDto;
+import community_health.com.communityHealth.chat.event.ChatMessagesStoredEvent;
+import community_health.com.communityHealth.chat.service.ChatArchive;
+import community_health.com.communityHealth.chat.service.ChatWriteBehindService.PendingMessage;
+import community_health.com.communityHealth.checkin.event.CheckinEvent;
+import community_health.com.communityHealth.group.repository.GroupRepository;
+import community_health.com.communityHealth.search.dto.SearchHitDto;
+import community_health.com.communityHealth.search.dto.SearchRebuildResult;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Busca de texto no chat (GroupMessage.content) e nos check-ins (título e descrição) de um grupo.
+ *
+ * Em vez de LIKE '%termo%' (que lê a tabela toda), cada grupo tem um índice invertido em memória
+ * (GroupTextIndex) salvo em search.index.dir:
+ * - Carregado na primeira busca do grupo; o que foi gravado depois do arquivo é lido do banco (ver catchUp).
+ * - Atualizado a cada escrita: blocos gravados pelo write-behind do chat (desta instância e, pelo
+ *   SearchClusterRelay, das outras) e eventos de check-in.
+ * - Gravado em disco periodicamente (search.index.flush-ms) e ao desligar a aplicação.
+ * - Grupos sem busca há search.index.idle-minutes são gravados e saem da memória; a próxima busca
+ *   carrega de novo do arquivo mais o catchUp.
+ * O banco só é consultado para buscar, por chave primária, os poucos resultados de cada página
+ * (mensagens que a retenção já tirou da tabela vêm do ChatArchive).
+ *
+ * IDs maiores que o último indexado não bastam para saber o que falta: com várias instâncias cada uma gera
+ * os seus IDs (cluster.node-index), e a regravação do spool grava depois mensagens com IDs menores.
+ * Por isso a carga também relê o que foi criado desde pouco antes da última sincronização do índice
+ * (search.index.catch-up-margin-minutes); mensagem repetida não muda o índice.
+ */
+@Service
+public class SearchIndexService {
+
+    public enum Scope {
+        ALL, CHAT, CHECKIN;
+
+        public static Scope parse(String value) {
+            for (Scope scope : values()) {
+                if (scope.name().equalsIgnoreCase(value)) {
+                    return scope;
+                }
+            }
+            throw new IllegalArgumentException("Tipo de busca inválido: use all, chat ou checkin.");
+        }
+    }
+
+    static final int DEFAULT_LIMIT = 20;
+    static final int MAX_LIMIT = 100;
+    static final int MAX_QUERY_LENGTH = 200;
+
+    private static final String CHAT_SINCE_SQL = """
+            SELECT id, content FROM group_messages
+            WHERE group_id = ? AND (id > ? OR created_at >= ?)
+            ORDER BY id
+            """;
+
+    private static final String CHECKIN_SINCE_SQL = """
+            SELECT id, titulo_atividade, descricao FROM checkins
+            WHERE group_id = ? AND (id > ? OR created_at >= ?)
+            ORDER BY id
+            """;
+
+    private static final String MAX_IDS_SQL = """
+            SELECT (SELECT COALESCE(MAX(id), 0) FROM group_messages WHERE group_id = ?),
+                   (SELECT COALESCE(MAX(id), 0) FROM checkins WHERE group_id = ?)
+            """;
+
+    private static final String CHECKIN_BY_ID_SQL = """
+            SELECT id, titulo_atividade, descricao FROM checkins WHERE id = ?
+            """;
+
+    private static final String CHAT_HITS_SQL = """
+            SELECT m.id, m.content, m.created_at, m.sender_id, u.name
+            FROM group_messages m JOIN users u ON u.id = m.sender_id
+            WHERE m.group_id = ? AND m.id IN (%s)
+            """;
+
+    private static final String CHECKIN_HITS_SQL = """
+            SELECT c.id, c.titulo_atividade, c.descricao, c.created_at, c.user_id, u.name
+            FROM checkins c JOIN users u ON u.id = c.user_id
+            WHERE c.group_id = ? AND c.id IN (%s)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final GroupRepository groupRepository;
+    private final ChatArchive chatArchive;
+    private final Path indexDir;
+    private final long catchUpMarginMs;
+    private final long idleNanos;
+
+    // Partições carregadas, por grupo. A carga roda dentro do computeIfAbsent: quem atualiza a
+    // mesma partição com computeIfPresent espera a carga terminar, então nenhuma escrita se perde.
+    private final Map<Long, GroupTextIndex> partitions = new ConcurrentHashMap<>();
+
+    @Autowired
+    public SearchIndexService(JdbcTemplate jdbcTemplate, GroupRepository groupRepository, ChatArchive chatArchive,
+                              @Value("${search.index.dir:data/search-index}") String indexDir,
+                              @Value("${search.index.catch-up-margin-minutes:10}") long catchUpMarginMinutes,
+                              @Value("${search.index.idle-minutes:30}") long idleMinutes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.groupRepository = groupRepository;
+        this.chatArchive = chatArchive;
+        this.indexDir = Path.of(indexDir);
+        this.catchUpMarginMs = TimeUnit.MINUTES.toMillis(catchUpMarginMinutes);
+        this.idleNanos = TimeUnit.MINUTES.toNanos(idleMinutes);
+    }
+
+    /**
+     * Mensagens e check-ins do grupo com todas as palavras da busca (sem diferenciar acento ou
+     * maiúsculas; a última palavra vale como prefixo), dos mais novos para os mais antigos.
+     */
+    public List<SearchHitDto> search(Long groupId, String query, Scope scope, Integer limit) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Informe o texto da busca.");
+        }
+        if (query.length() > MAX_QUERY_LENGTH) {
+            throw new IllegalArgumentException("Busca muito longa (máximo de " + MAX_QUERY_LENGTH + " caracteres).");
+        }
+        int size = (limit == null) ? DEFAULT_LIMIT : limit;
+        if (size < 1 || size > MAX_LIMIT) {
+            throw new IllegalArgumentException("O limite deve estar entre 1 e " + MAX_LIMIT + ".");
+        }
+        List<String> terms = TextAnalyzer.queryTerms(query);
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        if (!partitions.containsKey(groupId) && !groupRepository.existsById(groupId)) {
+            throw new EntityNotFoundException("Grupo não encontrado: " + groupId);
+        }
+
+        GroupTextIndex index = partition(groupId);
+        List<SearchHitDto> hits = new ArrayList<>();
+        if (scope != Scope.CHECKIN) {
+            hits.addAll(fetchHits(index, groupId, GroupTextIndex.CHAT,
+                    index.search(terms, GroupTextIndex.CHAT, size)));
+        }
+        if (scope != Scope.CHAT) {
+            hits.addAll(fetchHits(index, groupId, GroupTextIndex.CHECKIN,
+                    index.search(terms, GroupTextIndex.CHECKIN, size)));
+        }
+        hits.sort(Comparator.comparing(SearchHitDto::createdAt, Comparator.nullsLast(Comparator.reverseOrder())));
+        return hits.size() > size ? List.copyOf(hits.subList(0, size)) : hits;
+    }
+
+    /**
+     * Refaz o índice do grupo lendo todo o histórico do banco.
+     * @return Quantidade de documentos (mensagens + check-ins) indexados
+     */
+    public long rebuild(Long groupId) {
+        if (!groupRepository.existsById(groupId)) {
+            throw new EntityNotFoundException("Grupo não encontrado: " + groupId);
+        }
+        GroupTextIndex fresh = new GroupTextIndex();
+        long documents = indexArchive(fresh, groupId) + catchUp(fresh, groupId);
+        partitions.put(groupId, fresh);
+        // O que foi gravado entre a leitura e a troca foi para a partição antiga: lê de novo por ID
+        documents += catchUp(fresh, groupId);
+        save(groupId, fresh);
+        return documents;
+    }
+
+    /**
+     * Reconstrói o índice de todos os grupos, um por vez (a leitura do histórico é do banco, não da CPU).
+     * Um erro em um grupo não interrompe os outros.
+     */
+    public SearchRebuildResult rebuildAll() {
+        long start = System.currentTimeMillis();
+        int groups = 0;
+        long documents = 0;
+        for (Long groupId : groupRepository.findAllIds()) {
+            try {
+                documents += rebuild(groupId);
+                groups++;
+            } catch (RuntimeException e) {
+                System.err.println("Erro ao reconstruir índice de busca do grupo " + groupId + ": " + e.getMessage());
+            }
+        }
+        return new SearchRebuildResult(groups, documents, System.currentTimeMillis() - start);
+    }
+
+    // Roda na thread do write-behind logo depois do bloco ir para o banco: só mexe na memória
+    @EventListener
+    public void onChatMessagesStored(ChatMessagesStoredEvent event) {
+        indexChatMessages(event.messages());
+    }
+
+    /**
+     * Indexa mensagens do chat já gravadas no banco (grupos ainda não buscados ficam para a carga).
+     */
+    void indexChatMessages(List<PendingMessage> messages) {
+        for (PendingMessage pending : messages) {
+            partitions.computeIfPresent(pending.groupId(), (groupId, index) -> {
+                index.add(GroupTextIndex.CHAT, pending.message().id(), pending.message().content());
+                return index;
+            });
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCheckinEvent(CheckinEvent event) {
+        if (!partitions.containsKey(event.groupId())) {
+            return; // grupo ainda não buscado: a carga lê o que faltar do banco
+        }
+        try {
+            switch (event.type()) {
+                case CREATED -> indexCheckin(event.groupId(), event.checkinId());
+                case DELETED -> partitions.computeIfPresent(event.groupId(), (groupId, index) -> {
+                    index.delete(GroupTextIndex.CHECKIN, event.checkinId());
+                    return index;
+                });
+                case IMPORTED -> partitions.computeIfPresent(event.groupId(), (groupId, index) -> {
+                    catchUp(index, groupId);
+                    return index;
+                });
+                default -> {
+                    // Aprovação não muda o texto
+                }
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Erro ao atualizar índice de busca do grupo " + event.groupId() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Grava em disco as partições que mudaram desde a última gravação.
+     */
+    @Scheduled(fixedDelayString = "${search.index.flush-ms:30000}")
+    public void flush() {
+        partitions.forEach((groupId, index) -> {
+            if (index.isDirty()) {
+                save(groupId, index);
+            }
+        });
+    }
+
+    /**
+     * Grava e tira da memória as partições sem busca recente. A troca acontece dentro do computeIfPresent:
+     * quem indexa o grupo espera, e o que chegar depois fica para o catchUp da próxima carga.
+     */
+    @Scheduled(fixedDelayString = "${search.index.evict-interval-ms:60000}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        for (Long groupId : partitions.keySet()) {
+            partitions.computeIfPresent(groupId, (id, index) -> {
+                if (now - index.lastAccess <= idleNanos) {
+                    return index;
+                }
+                if (index.isDirty()) {
+                    save(id, index);
+                }
+                return null;
+            });
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private GroupTextIndex partition(Long groupId) {
+        GroupTextIndex index = partitions.computeIfAbsent(groupId, this::load);
+        index.lastAccess = System.nanoTime();
+        return index;
+    }
+
+    private GroupTextIndex load(Long groupId) {
+        GroupTextIndex index = null;
+        Path file = fileOf(groupId);
+        if (Files.exists(file)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                index = GroupTextIndex.readFrom(in);
+            } catch (IOException e) {
+                System.err.println("Índice de busca do grupo " + groupId + " ilegível, reconstruindo: " + e.getMessage());
+            }
+            if (index != null && isAheadOfDatabase(index, groupId)) {
+                System.err.println("Índice de busca do grupo " + groupId + " não confere com o banco, reconstruindo.");
+                index = null;
+            }
+        }
+        if (index == null) {
+            index = new GroupTextIndex();
+            indexArchive(index, groupId);
+        }
+        catchUp(index, groupId);
+        return index;
+    }
+
+    // Mensagens que a retenção já tirou da tabela (só entram numa partição nova; depois chegam pelos eventos)
+    private long indexArchive(GroupTextIndex index, Long groupId) {
+        AtomicLong documents = new AtomicLong();
+        chatArchive.forEach(groupId, message -> {
+            index.add(GroupTextIndex.CHAT, message.id(), message.content());
+            documents.incrementAndGet();
+        });
+        return documents.get();
+    }
+
+    // Arquivo com IDs que o banco não tem (banco recriado ou restaurado de backup): os novos IDs nunca entrariam
+    private boolean isAheadOfDatabase(GroupTextIndex index, Long groupId) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(MAX_IDS_SQL, (rs, rowNum) ->
+                index.maxId(GroupTextIndex.CHAT) > Math.max(rs.getLong(1), chatArchive.maxId(groupId))
+                        || index.maxId(GroupTextIndex.CHECKIN) > rs.getLong(2), groupId, groupId));
+    }
+
+    // Indexa o que está no banco depois dos maiores IDs já indexados e o que foi criado desde pouco antes
+    // da última sincronização (IDs menores gravados depois: outra instância ou regravação do spool)
+    private long catchUp(GroupTextIndex index, Long groupId) {
+        long started = System.currentTimeMillis();
+        Timestamp since = new Timestamp(index.syncedAt() - catchUpMarginMs);
+        AtomicLong documents = new AtomicLong();
+        jdbcTemplate.query(CHAT_SINCE_SQL, rs -> {
+            index.add(GroupTextIndex.CHAT, rs.getLong("id"), rs.getString("content"));
+            documents.incrementAndGet();
+        }, groupId, index.maxId(GroupTextIndex.CHAT), since);
+        jdbcTemplate.query(CHECKIN_SINCE_SQL, rs -> {
+            index.add(GroupTextIndex.CHECKIN, rs.getLong("id"),
+                    checkinText(rs.getString("titulo_atividade"), rs.getString("descricao")));
+            documents.incrementAndGet();
+        }, groupId, index.maxId(GroupTextIndex.CHECKIN), since);
+        index.markSynced(started);
+        return documents.get();
+    }
+
+    private void indexCheckin(Long groupId, Long checkinId) {
+        List<String> texts = jdbcTemplate.query(CHECKIN_BY_ID_SQL,
+                (rs, rowNum) -> checkinText(rs.getString("titulo_atividade"), rs.getString("descricao")),
+                checkinId);
+        if (texts.isEmpty()) {
+            return;
+        }
+        partitions.computeIfPresent(groupId, (id, index) -> {
+            index.add(GroupTextIndex.CHECKIN, checkinId, texts.get(0));
+            return index;
+        });
+    }
+
+    private List<SearchHitDto> fetchHits(GroupTextIndex index, Long groupId, int type, List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+        List<Object> args = new ArrayList<>(ids.size() + 1);
+        args.add(groupId);
+        args.addAll(ids);
+
+        List<SearchHitDto> rows = (type == GroupTextIndex.CHAT)
+                ? jdbcTemplate.query(CHAT_HITS_SQL.formatted(placeholders), (rs, rowNum) -> new SearchHitDto(
+                        "CHAT",
+                        rs.getLong("id"),
+                        rs.getString("content"),
+                        toLocalDateTime(rs.getTimestamp("created_at")),
+                        rs.getLong("sender_id"),
+                        rs.getString("name")), args.toArray())
+                : jdbcTemplate.query(CHECKIN_HITS_SQL.formatted(placeholders), (rs, rowNum) -> new SearchHitDto(
+                        "CHECKIN",
+                        rs.getLong("id"),
+                        checkinText(rs.getString("titulo_atividade"), rs.getString("descricao")),
+                        toLocalDateTime(rs.getTimestamp("created_at")),
+                        rs.getLong("user_id"),
+                        rs.getString("name")), args.toArray());
+
+        if (rows.size() < ids.size()) {
+            Map<Long, SearchHitDto> found = new HashMap<>();
+            rows.forEach(row -> found.put(row.id(), row));
+            List<Long> missing = ids.stream().filter(id -> !found.containsKey(id)).toList();
+            rows = new ArrayList<>(rows);
+            if (type == GroupTextIndex.CHAT) {
+                // Mensagens antigas que a retenção levou para o arquivo
+                for (ChatMessageDto message : chatArchive.findByIds(groupId, missing)) {
+                    found.put(message.id(), null);
+                    rows.add(new SearchHitDto("CHAT", message.id(), message.content(), message.createdAt(),
+                            message.senderId(), message.senderName()));
+                }
+            }
+            // Check-in indexado que não está mais no banco (ex.: removido antes da carga): tira do índice.
+            // Mensagem do chat não é apagada uma a uma; se não achou, ela está a caminho de um lugar para o outro
+            // (ou num segmento que esta instância ainda não abriu) e só fica de fora desta página
+            if (type == GroupTextIndex.CHECKIN) {
+                for (Long id : missing) {
+                    if (!found.containsKey(id)) {
+                        index.delete(type, id);
+                    }
+                }
+            }
+        }
+        return rows;
+    }
+
+    private void save(Long groupId, GroupTextIndex index) {
+        Path file = fileOf(groupId);
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        // Partição carregada recebe cada gravação pelos eventos: o que vier depois daqui é o que a carga relê
+        index.markSynced(System.currentTimeMillis());
+        try {
+            Files.createDirectories(indexDir);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                index.writeTo(out);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Erro ao gravar índice de busca do grupo " + groupId + ": " + e.getMessage());
+        }
+    }
+
+    private Path fileOf(Long groupId) {
+        return indexDir.resolve("group-" + groupId + ".idx");
+    }
+
+    private static String checkinText(String titulo, String descricao) {
+        return descricao == null || descricao.isBlank() ? titulo : titulo + "\n" + descricao;
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+}
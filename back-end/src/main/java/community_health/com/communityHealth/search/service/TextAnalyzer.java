@@ -0,0 +1,71 @@
+package community_health.com.communityHealth.search.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Quebra texto em termos para o índice de busca: minúsculas, sem acento ("água" e "agua" são o mesmo termo),
+ * só letras e dígitos, descartando termos de uma letra e palavras muito comuns do português.
+ */
+public final class TextAnalyzer {
+
+    private static final Set<String> STOPWORDS = Set.of(
+            "de", "da", "do", "das", "dos", "em", "na", "no", "nas", "nos", "um", "uma", "os", "as",
+            "e", "o", "a", "que", "com", "por", "para", "pra", "se", "ao", "aos", "mas", "ou");
+
+    private TextAnalyzer() {
+    }
+
+    /**
+     * Termos de um texto indexado.
+     */
+    public static List<String> terms(String text) {
+        List<String> terms = new ArrayList<>();
+        for (String token : tokens(text)) {
+            if (token.length() > 1 && !STOPWORDS.contains(token)) {
+                terms.add(token);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Termos de uma busca. O último é mantido mesmo sendo comum, porque vira prefixo
+     * enquanto o usuário digita ("da" ainda pode ser "dança"); com uma letra só ainda não filtra nada.
+     */
+    public static List<String> queryTerms(String query) {
+        List<String> tokens = tokens(query);
+        List<String> terms = new ArrayList<>(tokens.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            if (token.length() > 1 && (i == tokens.size() - 1 || !STOPWORDS.contains(token))) {
+                terms.add(token);
+            }
+        }
+        return terms;
+    }
+
+    private static List<String> tokens(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        String normalized = Normalizer.normalize(text.toLowerCase(), Normalizer.Form.NFD);
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i <= normalized.length(); i++) {
+            char c = i < normalized.length() ? normalized.charAt(i) : ' ';
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue; // acento separado da letra pelo NFD
+            }
+            if (Character.isLetterOrDigit(c)) {
+                current.append(c);
+            } else if (!current.isEmpty()) {
+                tokens.add(current.toString());
+                current.setLength(0);
+            }
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,64 @@
+package community_health.com.communityHealth.unread.controller;
+
+import community_health.com.communityHealth.unread.service.UnreadService;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/groups")
+public class UnreadController {
+
+    private final UnreadService unreadService;
+
+    @Autowired
+    public UnreadController(UnreadService unreadService) {
+        this.unreadService = unreadService;
+    }
+
+    /**
+     * GET /api/groups/unread?userId={ID}
+     * Mensagens do chat e check-ins não lidos em todos os grupos do usuário, numa única consulta.
+     * Depois disso, os contadores novos chegam por /topic/group/{id}/unread.
+     */
+    @GetMapping("/unread")
+    public ResponseEntity<?> getUnreadCounts(@RequestParam Long userId) {
+        try {
+            return ResponseEntity.ok(unreadService.getUnreadCounts(userId));
+        } catch (Exception e) {
+            System.err.println("Erro ao buscar não lidos: " + e.getMessage());
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * POST /api/groups/{groupId}/read?userId={ID}&type={all|chat|feed}&chatSeq={N}&feedSeq={N}
+     * Marca como lido até os contadores informados (sem eles, até agora). Retorna os não lidos do grupo.
+     */
+    @PostMapping("/{groupId}/read")
+    public ResponseEntity<?> markRead(
+            @PathVariable Long groupId,
+            @RequestParam Long userId,
+            @RequestParam(defaultValue = "all") String type,
+            @RequestParam(required = false) Long chatSeq,
+            @RequestParam(required = false) Long feedSeq) {
+        try {
+            UnreadService.Scope scope = UnreadService.Scope.parse(type);
+            return ResponseEntity.ok(unreadService.markRead(groupId, userId, scope, chatSeq, feedSeq));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (EntityNotFoundException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+        } catch (Exception e) {
+            System.err.println("Erro ao marcar como lido: " + e.getMessage());
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+}
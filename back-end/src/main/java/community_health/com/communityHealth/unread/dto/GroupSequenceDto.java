@@ -0,0 +1,12 @@
+package community_health.com.communityHealth.unread.dto;
+
+/**
+ * Enviado em /topic/group/{id}/unread quando chegam mensagens ou check-ins novos.
+ * Leva os contadores (não a diferença): o cliente calcula o não lido com a última leitura que já tem,
+ * e um aviso perdido ou repetido não deixa a conta errada.
+ */
+public record GroupSequenceDto(
+        Long groupId,
+        long chatSeq,
+        long feedSeq
+) {}
@@ -0,0 +1,17 @@
+package community_health.com.communityHealth.unread.dto;
+
+/**
+ * Não lidos do usuário em um grupo.
+ *
+ * @param chatSeq Contador atual do chat do grupo (os avisos de /topic/group/{id}/unread trazem o novo valor)
+ * @param feedSeq Contador atual de check-ins do grupo
+ * @param unreadChat Mensagens do chat ainda não lidas
+ * @param unreadFeed Check-ins ainda não vistos
+ */
+public record UnreadCountDto(
+        Long groupId,
+        long chatSeq,
+        long feedSeq,
+        long unreadChat,
+        long unreadFeed
+) {}
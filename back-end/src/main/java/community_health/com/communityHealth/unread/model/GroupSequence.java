@@ -0,0 +1,26 @@
+package community_health.com.communityHealth.unread.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+/**
+ * Contadores de novidades do grupo: quantas mensagens do chat e quantos check-ins já chegaram.
+ * Só crescem (remoções não descontam); o não lido de um membro é contador - última leitura
+ * (Group_Members.last_read_*_seq). A linha nasce na primeira novidade do grupo.
+ * Escrita só por UPDATE atômico em UnreadService.
+ */
+@Entity
+@Table(name = "Group_Sequences")
+@Data
+public class GroupSequence {
+
+    @Id
+    @Column(name = "group_id")
+    private Long groupId;
+
+    @Column(name = "chat_seq", nullable = false)
+    private Long chatSeq = 0L;
+
+    @Column(name = "feed_seq", nullable = false)
+    private Long feedSeq = 0L;
+}
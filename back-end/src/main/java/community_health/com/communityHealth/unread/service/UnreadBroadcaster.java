@@ -0,0 +1,85 @@
+package community_health.com.communityHealth.unread.service;
+
+import community_health.com.communityHealth.chat.event.ChatMessagesStoredEvent;
+import community_health.com.communityHealth.chat.service.ChatWriteBehindService.PendingMessage;
+import community_health.com.communityHealth.checkin.event.CheckinEvent;
+import community_health.com.communityHealth.unread.dto.GroupSequenceDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Avisa em /topic/group/{id}/unread que o grupo recebeu mensagens ou check-ins, para a barra lateral
+ * atualizar os não lidos sem baixar nada.
+ *
+ * Como no RankingBroadcaster, cada novidade só marca o grupo; a cada unread.push.interval-ms (500 ms)
+ * sai uma mensagem por grupo marcado com os contadores lidos do banco (GroupSequenceDto).
+ * Uma conversa animada vira duas mensagens por segundo, não uma por mensagem do chat.
+ */
+@Component
+public class UnreadBroadcaster {
+
+    private final UnreadService unreadService;
+    private final SimpMessageSendingOperations messagingTemplate;
+
+    private final Set<Long> dirtyGroups = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public UnreadBroadcaster(UnreadService unreadService, SimpMessageSendingOperations messagingTemplate) {
+        this.unreadService = unreadService;
+        this.messagingTemplate = messagingTemplate;
+    }
+
+    // Depois do UnreadService, que soma as mensagens ao contador do grupo
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @EventListener
+    public void onChatMessagesStored(ChatMessagesStoredEvent event) {
+        for (PendingMessage pending : event.messages()) {
+            dirtyGroups.add(pending.groupId());
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCheckinEvent(CheckinEvent event) {
+        if (event.type() == CheckinEvent.Type.CREATED) {
+            dirtyGroups.add(event.groupId());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${unread.push.interval-ms:500}")
+    public void flush() {
+        if (dirtyGroups.isEmpty()) {
+            return;
+        }
+        List<Long> groupIds = List.copyOf(dirtyGroups);
+        dirtyGroups.removeAll(groupIds);
+
+        List<GroupSequenceDto> sequences;
+        try {
+            sequences = unreadService.getSequences(groupIds);
+        } catch (RuntimeException e) {
+            // Tenta de novo no próximo ciclo
+            dirtyGroups.addAll(groupIds);
+            System.err.println("Erro ao ler contadores de não lidos: " + e.getMessage());
+            return;
+        }
+        for (GroupSequenceDto sequence : sequences) {
+            try {
+                messagingTemplate.convertAndSend("/topic/group/" + sequence.groupId() + "/unread", sequence);
+            } catch (MessagingException e) {
+                System.err.println("Erro ao enviar não lidos do grupo " + sequence.groupId() + ": " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package community_health.com.communityHealth.unread.service;
+
+import community_health.com.communityHealth.chat.event.ChatMessagesStoredEvent;
+import community_health.com.communityHealth.chat.service.ChatWriteBehindService.PendingMessage;
+import community_health.com.communityHealth.checkin.event.CheckinEvent;
+import community_health.com.communityHealth.group.event.MembershipChangedEvent;
+import community_health.com.communityHealth.unread.dto.GroupSequenceDto;
+import community_health.com.communityHealth.unread.dto.UnreadCountDto;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Não lidos do chat e do feed por membro, sem contar mensagens:
+ * - Group_Sequences guarda quantas mensagens e check-ins o grupo já recebeu (só cresce);
+ * - Group_Members guarda até que contador cada membro leu;
+ * - não lido = contador - última leitura, para todos os grupos do usuário numa única query.
+ *
+ * O que o próprio membro envia já entra como lido para ele. Check-ins importados (histórico) não contam,
+ * e remoções não descontam. A regravação do spool do chat pode contar de novo algumas mensagens;
+ * a diferença some na próxima leitura.
+ *
+ * Ordem das travas, em todos os caminhos: primeiro as linhas de Group_Members (por ID de grupo e de usuário),
+ * depois a de Group_Sequences. O check-in já chega com a linha do autor travada (GroupMemberStatsService);
+ * na ordem inversa, o chat de um membro e o check-in dele entrariam em deadlock.
+ */
+@Service
+public class UnreadService {
+
+    public enum Scope {
+        ALL, CHAT, FEED;
+
+        public static Scope parse(String value) {
+            for (Scope scope : values()) {
+                if (scope.name().equalsIgnoreCase(value)) {
+                    return scope;
+                }
+            }
+            throw new IllegalArgumentException("Tipo de leitura inválido: use all, chat ou feed.");
+        }
+    }
+
+    // Contador do grupo e a coluna da última leitura do membro que corresponde a ele
+    private enum Counter {
+        CHAT("chat_seq", "last_read_chat_seq"),
+        FEED("feed_seq", "last_read_feed_seq");
+
+        private final String seqColumn;
+        private final String readColumn;
+
+        Counter(String seqColumn, String readColumn) {
+            this.seqColumn = seqColumn;
+            this.readColumn = readColumn;
+        }
+    }
+
+    private static final String UNREAD_SQL = """
+            SELECT m.group_id, COALESCE(s.chat_seq, 0) AS chat_seq, COALESCE(s.feed_seq, 0) AS feed_seq,
+                   COALESCE(m.last_read_chat_seq, 0) AS read_chat, COALESCE(m.last_read_feed_seq, 0) AS read_feed
+            FROM group_members m
+            LEFT JOIN group_sequences s ON s.group_id = m.group_id
+            WHERE m.user_id = ?
+            """;
+
+    private static final String INSERT_SEQUENCE_SQL =
+            "INSERT INTO group_sequences (group_id, chat_seq, feed_seq) VALUES (?, ?, ?)";
+
+    // Novo membro começa com tudo lido: o histórico anterior à entrada não vira não lido
+    private static final String JOIN_SQL = """
+            UPDATE group_members
+            SET last_read_chat_seq = COALESCE((SELECT chat_seq FROM group_sequences WHERE group_id = ?), 0),
+                last_read_feed_seq = COALESCE((SELECT feed_seq FROM group_sequences WHERE group_id = ?), 0)
+            WHERE group_id = ? AND user_id = ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public UnreadService(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * Não lidos de todos os grupos em que o usuário é membro.
+     */
+    public List<UnreadCountDto> getUnreadCounts(Long userId) {
+        return jdbcTemplate.query(UNREAD_SQL, (rs, rowNum) -> toDto(rs), userId);
+    }
+
+    /**
+     * Marca o chat e/ou o feed do grupo como lidos pelo membro.
+     * chatSeq/feedSeq (opcionais): até onde o cliente viu; sem eles, tudo que o grupo recebeu até agora.
+     * A leitura nunca anda para trás nem passa do contador do grupo.
+     */
+    public UnreadCountDto markRead(Long groupId, Long userId, Scope scope, Long chatSeq, Long feedSeq) {
+        return transactionTemplate.execute(status -> {
+            int updated = 0;
+            if (scope != Scope.FEED) {
+                updated = markRead(Counter.CHAT, groupId, userId, chatSeq);
+            }
+            if (scope != Scope.CHAT) {
+                updated = markRead(Counter.FEED, groupId, userId, feedSeq);
+            }
+            if (updated == 0) {
+                throw new EntityNotFoundException("Membro não encontrado no grupo " + groupId + ": " + userId);
+            }
+            return jdbcTemplate.query(UNREAD_SQL + " AND m.group_id = ?", (rs, rowNum) -> toDto(rs), userId, groupId)
+                    .get(0);
+        });
+    }
+
+    /**
+     * Contadores atuais dos grupos (os que ainda não receberam nada ficam de fora).
+     */
+    public List<GroupSequenceDto> getSequences(Collection<Long> groupIds) {
+        if (groupIds.isEmpty()) {
+            return List.of();
+        }
+        String placeholders = String.join(", ", Collections.nCopies(groupIds.size(), "?"));
+        return jdbcTemplate.query(
+                "SELECT group_id, chat_seq, feed_seq FROM group_sequences WHERE group_id IN (" + placeholders + ")",
+                (rs, rowNum) -> new GroupSequenceDto(rs.getLong("group_id"), rs.getLong("chat_seq"), rs.getLong("feed_seq")),
+                groupIds.toArray());
+    }
+
+    // Na thread do write-behind, logo depois do bloco ir para o banco; antes do UnreadBroadcaster ler os contadores
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener
+    public void onChatMessagesStored(ChatMessagesStoredEvent event) {
+        // Ordenados por ID: as travas são sempre pegas na mesma ordem
+        Map<Long, Integer> perGroup = new TreeMap<>();
+        Map<Long, Map<Long, Integer>> perSender = new TreeMap<>();
+        for (PendingMessage pending : event.messages()) {
+            perGroup.merge(pending.groupId(), 1, Integer::sum);
+            if (pending.message().senderId() != null) {
+                perSender.computeIfAbsent(pending.groupId(), id -> new TreeMap<>())
+                        .merge(pending.message().senderId(), 1, Integer::sum);
+            }
+        }
+
+        try {
+            // Primeiro as linhas dos membros, depois a do grupo (ver a ordem das travas na classe)
+            transactionTemplate.executeWithoutResult(status -> {
+                perSender.forEach((groupId, counts) -> advanceReaders(Counter.CHAT, groupId, counts));
+                perGroup.forEach((groupId, count) -> increment(Counter.CHAT, groupId, count));
+            });
+        } catch (RuntimeException e) {
+            // As mensagens já estão gravadas; só o contador de não lidos fica para trás
+            System.err.println("Erro ao atualizar não lidos do chat: " + e.getMessage());
+        }
+    }
+
+    // Antes do commit, na mesma transação do check-in: contador e check-in entram (ou não) juntos
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onCheckinEvent(CheckinEvent event) {
+        if (event.type() != CheckinEvent.Type.CREATED) {
+            return;
+        }
+        // A linha do autor já está travada pelo check-in; a do grupo vem depois, como no chat
+        advanceReaders(Counter.FEED, event.groupId(), Map.of(event.userId(), 1));
+        increment(Counter.FEED, event.groupId(), 1);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onMembershipChanged(MembershipChangedEvent event) {
+        // Na saída do grupo a linha já não existe e nada muda
+        jdbcTemplate.update(JOIN_SQL, event.groupId(), event.groupId(), event.groupId(), event.userId());
+    }
+
+    private void increment(Counter counter, Long groupId, int delta) {
+        String update = "UPDATE group_sequences SET " + counter.seqColumn + " = " + counter.seqColumn
+                + " + ? WHERE group_id = ?";
+        if (jdbcTemplate.update(update, delta, groupId) > 0) {
+            return;
+        }
+        try {
+            jdbcTemplate.update(INSERT_SEQUENCE_SQL, groupId,
+                    counter == Counter.CHAT ? delta : 0,
+                    counter == Counter.FEED ? delta : 0);
+        } catch (DuplicateKeyException e) {
+            // Outra escrita criou a linha do grupo ao mesmo tempo
+            jdbcTemplate.update(update, delta, groupId);
+        }
+    }
+
+    // Quem enviou já leu o que enviou: a leitura anda junto com o contador
+    private void advanceReaders(Counter counter, Long groupId, Map<Long, Integer> counts) {
+        if (counts.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = new ArrayList<>(counts.size());
+        counts.forEach((userId, count) -> args.add(new Object[]{count, groupId, userId}));
+        jdbcTemplate.batchUpdate("UPDATE group_members SET " + counter.readColumn + " = COALESCE("
+                + counter.readColumn + ", 0) + ? WHERE group_id = ? AND user_id = ?", args);
+    }
+
+    private int markRead(Counter counter, Long groupId, Long userId, Long seenSeq) {
+        return jdbcTemplate.update("UPDATE group_members SET " + counter.readColumn + " = GREATEST(COALESCE("
+                        + counter.readColumn + ", 0), LEAST(?, COALESCE((SELECT " + counter.seqColumn
+                        + " FROM group_sequences WHERE group_id = ?), 0))) WHERE group_id = ? AND user_id = ?",
+                seenSeq != null ? seenSeq : Long.MAX_VALUE, groupId, groupId, userId);
+    }
+
+    private static UnreadCountDto toDto(ResultSet rs) throws SQLException {
+        long chatSeq = rs.getLong("chat_seq");
+        long feedSeq = rs.getLong("feed_seq");
+        return new UnreadCountDto(rs.getLong("group_id"), chatSeq, feedSeq,
+                Math.max(0, chatSeq - rs.getLong("read_chat")),
+                Math.max(0, feedSeq - rs.getLong("read_feed")));
+    }
+}
@@ -0,0 +1,16 @@
+package community_health.com.communityHealth.user.event;
+
+/**
+ * Publicado quando os dados de um usuário mudam ou ele é removido.
+ * Quem guarda cópias do usuário (ex: cache do chat) descarta a sua depois do commit.
+ */
+public record UserChangedEvent(
+        Long userId,
+        Type type
+) {
+
+    public enum Type {
+        UPDATED,
+        DELETED
+    }
+}
@@ -2,11 +2,13 @@ package community_health.com.communityHealth.user.service;
 
 import community_health.com.communityHealth.user.dto.UserRegisterDTO;
 import community_health.com.communityHealth.user.dto.UserUpdateDTO;
+import community_health.com.communityHealth.user.event.UserChangedEvent;
 import community_health.com.communityHealth.user.model.User;
 import community_health.com.communityHealth.user.repository.UserRepository;
 import community_health.com.communityHealth.utils.FileUploadUtil; // 🆕 Novo Import
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -21,11 +23,14 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder,
+                       ApplicationEventPublisher eventPublisher) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -98,7 +103,9 @@ public class UserService {
             existingUser.setPhotoUrl(userDetails.photoUrl());
         }
 
-        return userRepository.save(existingUser);
+        User saved = userRepository.save(existingUser);
+        eventPublisher.publishEvent(new UserChangedEvent(id, UserChangedEvent.Type.UPDATED));
+        return saved;
     }
 
     /**
@@ -119,6 +126,7 @@ public class UserService {
             deleteOldPhoto(user.getPhotoUrl());
 
             userRepository.deleteById(id);
+            eventPublisher.publishEvent(new UserChangedEvent(id, UserChangedEvent.Type.DELETED));
             return true;
         }
         return false;
@@ -152,6 +160,7 @@ public class UserService {
             // 3. Atualiza o usuário no sistema com a nova URL
             user.setPhotoUrl(fileDownloadUri);
             userRepository.save(user);
+            eventPublisher.publishEvent(new UserChangedEvent(userId, UserChangedEvent.Type.UPDATED));
 
             return fileDownloadUri;
 
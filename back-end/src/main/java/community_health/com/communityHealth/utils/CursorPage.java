@@ -0,0 +1,13 @@
+package community_health.com.communityHealth.utils;
+
+import java.util.List;
+
+/**
+ * Página de resultados paginados por cursor.
+ * @param items Itens da página
+ * @param nextCursor Cursor da próxima página (null quando não há mais itens)
+ */
+public record CursorPage<T>(
+        List<T> items,
+        String nextCursor
+) {}
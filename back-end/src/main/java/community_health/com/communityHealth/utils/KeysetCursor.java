@@ -0,0 +1,43 @@
+package community_health.com.communityHealth.utils;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Cursor de paginação por chave (keyset) no formato "createdAt,id".
+ * Evita OFFSET: a próxima página começa exatamente depois do último item entregue.
+ */
+public record KeysetCursor(LocalDateTime createdAt, Long id) {
+
+    /**
+     * Converte o cursor recebido na URL.
+     * @param raw Texto no formato "2025-01-31T10:15:30.123,42"
+     * @return O cursor ou null se nenhum foi informado
+     * @throws IllegalArgumentException Se o formato for inválido
+     */
+    public static KeysetCursor parse(String raw) {
+        if (raw == null || raw.isBlank()) {
+            return null;
+        }
+
+        int separator = raw.lastIndexOf(',');
+        if (separator <= 0 || separator == raw.length() - 1) {
+            throw new IllegalArgumentException("Cursor inválido: " + raw);
+        }
+
+        try {
+            LocalDateTime createdAt = LocalDateTime.parse(raw.substring(0, separator).trim());
+            Long id = Long.valueOf(raw.substring(separator + 1).trim());
+            return new KeysetCursor(createdAt, id);
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Cursor inválido: " + raw);
+        }
+    }
+
+    /**
+     * Gera o texto do cursor para devolver ao cliente.
+     */
+    public String encode() {
+        return createdAt + "," + id;
+    }
+}
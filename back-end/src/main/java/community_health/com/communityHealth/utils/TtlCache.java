@@ -0,0 +1,74 @@
+package community_health.com.communityHealth.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Cache em memória com tamanho máximo (sai o menos usado) e validade por entrada.
+ *
+ * Leituras e escritas são O(1) sob um lock curto; o loader roda fora do lock.
+ * Se alguma invalidação acontecer enquanto um valor é carregado, o valor é devolvido mas não guardado:
+ * um carregamento que começou antes do commit nunca fica no cache depois dele.
+ */
+public class TtlCache<K, V> {
+
+    private record Entry<V>(V value, long expiresAt) {}
+
+    private final long ttlNanos;
+    private final LinkedHashMap<K, Entry<V>> entries;
+    private long generation;
+
+    /**
+     * @param maxSize Quantidade máxima de entradas
+     * @param ttlMillis Validade de cada entrada, contada a partir do carregamento
+     */
+    public TtlCache(int maxSize, long ttlMillis) {
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Devolve o valor em cache ou carrega com o loader (que pode lançar exceção; nada é guardado nesse caso).
+     */
+    public V get(K key, Function<K, V> loader) {
+        long loadedGeneration;
+        synchronized (this) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && entry.expiresAt() - System.nanoTime() > 0) {
+                return entry.value();
+            }
+            if (entry != null) {
+                entries.remove(key);
+            }
+            loadedGeneration = generation;
+        }
+
+        V value = loader.apply(key);
+        synchronized (this) {
+            if (generation == loadedGeneration) {
+                entries.put(key, new Entry<>(value, System.nanoTime() + ttlNanos));
+            }
+        }
+        return value;
+    }
+
+    public synchronized void invalidate(K key) {
+        generation++;
+        entries.remove(key);
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
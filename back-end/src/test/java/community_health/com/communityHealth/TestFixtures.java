@@ -0,0 +1,36 @@
+package community_health.com.communityHealth;
+
+import community_health.com.communityHealth.group.model.Group;
+import community_health.com.communityHealth.group.repository.GroupRepository;
+import community_health.com.communityHealth.user.model.User;
+import community_health.com.communityHealth.user.repository.UserRepository;
+
+/**
+ * Dados comuns dos testes com o perfil "test" (application-test.properties).
+ */
+public final class TestFixtures {
+
+	// Usuário inserido pelo data.sql do perfil dev
+	public static final long OWNER_ID = 1L;
+
+	private TestFixtures() {
+	}
+
+	/**
+	 * Grupo de 30 dias ainda não salvo, para o teste ajustar o que precisar antes de salvar.
+	 */
+	public static Group group(String name, User owner) {
+		Group group = new Group();
+		group.setName(name);
+		group.setDurationDays(30);
+		group.setOwner(owner);
+		return group;
+	}
+
+	/**
+	 * Grupo de 30 dias salvo, com o usuário OWNER_ID como dono.
+	 */
+	public static Group createGroup(GroupRepository groupRepository, UserRepository userRepository, String name) {
+		return groupRepository.save(group(name, userRepository.findById(OWNER_ID).orElseThrow()));
+	}
+}
@@ -0,0 +1,133 @@
+package community_health.com.communityHealth.chat.service;
+
+import community_health.com.communityHealth.TestFixtures;
+import community_health.com.communityHealth.chat.dto.ChatMessageDto;
+import community_health.com.communityHealth.chat.dto.ChatRetentionResultDto;
+import community_health.com.communityHealth.group.repository.GroupRepository;
+import community_health.com.communityHealth.user.repository.UserRepository;
+import community_health.com.communityHealth.utils.CursorPage;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Retenção do chat num grupo com 100 mil mensagens antigas: o histórico paginado tem que ser o mesmo
+ * antes (tabela) e depois (arquivo), página por página. Imprime o tempo das páginas nos dois casos
+ * e o tamanho do arquivo comparado ao texto original.
+ *
+ * Só roda quando pedido: mvn test -Dbenchmark=true -Dtest=ChatRetentionBenchmarkTests
+ */
+@SpringBootTest(properties = {
+		"chat.write-behind.spool-file=target/chat-retention-spool.ndjson",
+		"chat.archive.dir=" + ChatRetentionBenchmarkTests.ARCHIVE_DIR
+})
+@ActiveProfiles({"dev", "test"})
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ChatRetentionBenchmarkTests {
+
+	static final String ARCHIVE_DIR = "target/chat-archive-bench";
+	private static final int MESSAGES = 100_000;
+	private static final int PAGE = 50;
+	private static final String[] WORDS = {
+			"bora", "correr", "amanhã", "cedo", "parque", "treino", "hoje", "foi", "pesado", "água",
+			"alongamento", "km", "meta", "semana", "descanso", "bicicleta", "trilha", "pace", "dor", "joelho"};
+
+	@Autowired
+	private ChatMessageService chatMessageService;
+
+	@Autowired
+	private ChatRetentionJob chatRetentionJob;
+
+	@Autowired
+	private GroupRepository groupRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@BeforeAll
+	static void clearArchive() throws IOException {
+		// O contexto abre o arquivo ao subir: segmentos de uma execução anterior não podem estar lá
+		FileSystemUtils.deleteRecursively(Path.of(ARCHIVE_DIR));
+	}
+
+	@Test
+	void archivedHistoryPagesLikeTheTable() throws IOException {
+		Long groupId = TestFixtures.createGroup(groupRepository, userRepository, "Retenção " + UUID.randomUUID()).getId();
+
+		// Uma mensagem a cada 2 minutos, começando dois anos atrás (tudo passa de chat.retention.max-age-days)
+		Random random = new Random(7);
+		LocalDateTime start = LocalDateTime.now().minusDays(730);
+		List<Object[]> rows = new ArrayList<>(MESSAGES);
+		long rawBytes = 0;
+		for (int i = 1; i <= MESSAGES; i++) {
+			StringBuilder content = new StringBuilder();
+			for (int w = 3 + random.nextInt(12); w > 0; w--) {
+				content.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+			}
+			rawBytes += content.length();
+			rows.add(new Object[]{(long) i, groupId, 1L + (i % 2), content.toString().trim(),
+					Timestamp.valueOf(start.plusSeconds(i * 120L))});
+		}
+		jdbcTemplate.batchUpdate("INSERT INTO group_messages (id, group_id, sender_id, content, created_at) VALUES (?, ?, ?, ?, ?)", rows);
+
+		List<List<ChatMessageDto>> fromTable = readAll(groupId, "tabela");
+
+		long begin = System.nanoTime();
+		ChatRetentionResultDto result = chatRetentionJob.run();
+		System.out.printf("Retenção: %d mensagens em %d segmentos, %d ms%n",
+				result.messages(), result.segments(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin));
+		assertEquals(MESSAGES, result.messages());
+		assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM group_messages WHERE group_id = ?", Integer.class, groupId));
+
+		long archiveBytes;
+		try (Stream<Path> files = Files.walk(Path.of(ARCHIVE_DIR))) {
+			archiveBytes = files.filter(Files::isRegularFile).mapToLong(path -> path.toFile().length()).sum();
+		}
+		System.out.printf("Arquivo: %d KB para %d KB de texto%n", archiveBytes / 1024, rawBytes / 1024);
+
+		List<List<ChatMessageDto>> fromArchive = readAll(groupId, "arquivo");
+		assertEquals(fromTable, fromArchive);
+
+		// Retomada a partir de uma mensagem antiga lê do arquivo também
+		CursorPage<ChatMessageDto> resumed = chatMessageService.getMessagesAfter(groupId, 1000L, PAGE);
+		assertEquals(1001L, resumed.items().get(0).id());
+		assertEquals(PAGE, resumed.items().size());
+	}
+
+	// Todas as páginas do histórico, da mais nova para a mais antiga, com o tempo médio por página
+	private List<List<ChatMessageDto>> readAll(Long groupId, String source) {
+		List<List<ChatMessageDto>> pages = new ArrayList<>();
+		String cursor = null;
+		long begin = System.nanoTime();
+		do {
+			CursorPage<ChatMessageDto> page = chatMessageService.getHistory(groupId, cursor, PAGE);
+			pages.add(page.items());
+			cursor = page.nextCursor();
+		} while (cursor != null);
+		long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - begin) / pages.size();
+		System.out.printf("Histórico (%s): %d páginas, %d µs por página%n", source, pages.size(), micros);
+		return pages;
+	}
+}
@@ -0,0 +1,133 @@
+package community_health.com.communityHealth.chat.service;
+
+import community_health.com.communityHealth.TestFixtures;
+import community_health.com.communityHealth.chat.dto.ChatMessageDto;
+import community_health.com.communityHealth.chat.service.ChatArchive.ArchivedMessage;
+import community_health.com.communityHealth.group.repository.GroupRepository;
+import community_health.com.communityHealth.user.repository.UserRepository;
+import community_health.com.communityHealth.utils.CursorPage;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Retenção do chat com poucos dados: o histórico paginado tem que ser o mesmo antes (tabela) e depois (arquivo),
+ * os segmentos pequenos de cada rodada são juntados num só, e linhas que uma rodada interrompida deixou
+ * no banco e no arquivo ao mesmo tempo não aparecem repetidas.
+ * O volume grande fica em ChatRetentionBenchmarkTests.
+ */
+@SpringBootTest(properties = {
+		"chat.write-behind.spool-file=target/chat-retention-tests-spool.ndjson",
+		"chat.retention.batch-size=100",
+		"chat.archive.block-size-kb=1",
+		"chat.archive.small-segment-messages=1000",
+		"chat.archive.dir=" + ChatRetentionTests.ARCHIVE_DIR
+})
+@ActiveProfiles({"dev", "test"})
+class ChatRetentionTests {
+
+	static final String ARCHIVE_DIR = "target/chat-archive-tests";
+	private static final int PAGE = 20;
+
+	@Autowired
+	private ChatMessageService chatMessageService;
+
+	@Autowired
+	private ChatRetentionJob chatRetentionJob;
+
+	@Autowired
+	private ChatArchive chatArchive;
+
+	@Autowired
+	private GroupRepository groupRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@BeforeAll
+	static void clearArchive() throws IOException {
+		FileSystemUtils.deleteRecursively(Path.of(ARCHIVE_DIR));
+	}
+
+	@Test
+	void archivedHistoryPagesLikeTheTable() throws IOException {
+		Long groupId = TestFixtures.createGroup(groupRepository, userRepository, "Retenção").getId();
+		LocalDateTime start = LocalDateTime.now().minusDays(730);
+
+		// Três blocos da retenção (três segmentos pequenos), juntados num só no fim da rodada
+		insertMessages(groupId, start, 1, 300);
+		List<List<ChatMessageDto>> fromTable = readAll(groupId);
+		assertEquals(300, chatRetentionJob.run().messages());
+		assertEquals(0, countRows(groupId));
+		assertEquals(fromTable, readAll(groupId));
+		assertEquals(List.of("segment-000004.idx"), segmentFiles(groupId));
+
+		// Rodada que caiu depois de publicar o segmento e antes de apagar as linhas
+		insertMessages(groupId, start, 301, 350);
+		fromTable = readAll(groupId);
+		chatArchive.commit(chatArchive.prepare(groupId, jdbcTemplate.query(
+				"SELECT id, sender_id, content, created_at FROM group_messages WHERE group_id = ? ORDER BY created_at, id",
+				(rs, rowNum) -> new ArchivedMessage(rs.getLong("id"), rs.getTimestamp("created_at").toLocalDateTime(),
+						rs.getLong("sender_id"), rs.getString("content")), groupId)));
+		assertEquals(fromTable, readAll(groupId));
+
+		// A rodada seguinte só apaga as linhas, sem arquivar de novo, e junta os dois segmentos
+		assertEquals(50, chatRetentionJob.run().messages());
+		assertEquals(0, countRows(groupId));
+		assertEquals(fromTable, readAll(groupId));
+		assertEquals(List.of("segment-000006.idx"), segmentFiles(groupId));
+	}
+
+	// Uma mensagem a cada 2 minutos a partir de start, IDs de first a last
+	private void insertMessages(Long groupId, LocalDateTime start, int first, int last) {
+		List<Object[]> rows = new ArrayList<>();
+		for (int i = first; i <= last; i++) {
+			rows.add(new Object[]{(long) i, groupId, 1L + (i % 2), "mensagem " + i, Timestamp.valueOf(start.plusSeconds(i * 120L))});
+		}
+		jdbcTemplate.batchUpdate("INSERT INTO group_messages (id, group_id, sender_id, content, created_at) VALUES (?, ?, ?, ?, ?)", rows);
+	}
+
+	private int countRows(Long groupId) {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM group_messages WHERE group_id = ?", Integer.class, groupId);
+	}
+
+	// Índices publicados do grupo (sem .tmp nem .replaces sobrando)
+	private List<String> segmentFiles(Long groupId) throws IOException {
+		try (Stream<Path> files = Files.list(Path.of(ARCHIVE_DIR, "group-" + groupId))) {
+			return files.map(path -> path.getFileName().toString())
+					.filter(name -> !name.endsWith(".dat"))
+					.sorted()
+					.toList();
+		}
+	}
+
+	// Todas as páginas do histórico, da mais nova para a mais antiga
+	private List<List<ChatMessageDto>> readAll(Long groupId) {
+		List<List<ChatMessageDto>> pages = new ArrayList<>();
+		String cursor = null;
+		do {
+			CursorPage<ChatMessageDto> page = chatMessageService.getHistory(groupId, cursor, PAGE);
+			pages.add(page.items());
+			cursor = page.nextCursor();
+		} while (cursor != null);
+		return pages;
+	}
+}
@@ -0,0 +1,136 @@
+package community_health.com.communityHealth.chat.service;
+
+import community_health.com.communityHealth.TestFixtures;
+import community_health.com.communityHealth.chat.dto.ChatMessageDto;
+import community_health.com.communityHealth.chat.model.GroupMessage;
+import community_health.com.communityHealth.chat.repository.GroupMessageRepository;
+import community_health.com.communityHealth.group.model.Group;
+import community_health.com.communityHealth.group.repository.GroupRepository;
+import community_health.com.communityHealth.group.service.GroupMemberStatsService;
+import community_health.com.communityHealth.user.model.User;
+import community_health.com.communityHealth.user.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Mensagens por segundo no envio do chat: caminho antigo (duas buscas + save síncrono antes de publicar)
+ * contra o write-behind (validação de remetente e participação em cache, publica na hora e grava em blocos).
+ * As threads fazem o papel do pool de entrada do STOMP (clientInboundChannel).
+ *
+ * Só roda quando pedido: mvn test -Dbenchmark=true -Dtest=ChatWriteBehindBenchmarkTests
+ */
+@SpringBootTest
+@ActiveProfiles({"dev", "test"})
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ChatWriteBehindBenchmarkTests {
+
+	private static final int MESSAGES = 20_000;
+	private static final int THREADS = 8;
+
+	@Autowired
+	private ChatWriteBehindService writeBehindService;
+
+	@Autowired
+	private GroupMessageRepository messageRepository;
+
+	@Autowired
+	private GroupRepository groupRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private GroupMemberStatsService groupMemberStatsService;
+
+	@Autowired
+	private SimpMessageSendingOperations messagingTemplate;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private Long groupId;
+
+	@BeforeEach
+	void setUp() {
+		Group group = TestFixtures.createGroup(groupRepository, userRepository, "Benchmark " + UUID.randomUUID());
+		groupId = group.getId();
+
+		// Só membros escrevem no chat
+		groupMemberStatsService.ensureMembership(group, userRepository.findById(1L).orElseThrow());
+		groupMemberStatsService.ensureMembership(group, userRepository.findById(2L).orElseThrow());
+	}
+
+	@Test
+	void compareWithSynchronousSave() throws Exception {
+		System.out.println("=== Chat: " + MESSAGES + " mensagens, " + THREADS + " threads de entrada ===");
+
+		double before = run("Antes: findById x2 + save + publicar", (senderId, i) -> {
+			User sender = userRepository.findById(senderId).orElseThrow();
+			Group group = groupRepository.findById(groupId).orElseThrow();
+			GroupMessage message = new GroupMessage();
+			message.setContent("mensagem " + i);
+			message.setSender(sender);
+			message.setGroup(group);
+			message.setCreatedAt(LocalDateTime.now());
+			messagingTemplate.convertAndSend("/topic/group/" + groupId, messageRepository.save(message));
+		});
+
+		long start = System.nanoTime();
+		double after = run("Depois: ingest (cache) + publicar", (senderId, i) -> {
+			ChatMessageDto accepted = writeBehindService.ingest(groupId, senderId, "mensagem " + i);
+			messagingTemplate.convertAndSend("/topic/group/" + groupId, accepted);
+		});
+		while (writeBehindService.pendingCount() > 0) {
+			Thread.sleep(1);
+		}
+		double persisted = MESSAGES / ((System.nanoTime() - start) / 1e9);
+		System.out.printf("%-50s %,12.0f msg/s%n", "Depois: até a última gravação no banco", persisted);
+		System.out.printf("%-50s %12.1fx%n", "Ganho na publicação", after / before);
+
+		Long stored = jdbcTemplate.queryForObject(
+				"SELECT COUNT(*) FROM group_messages WHERE group_id = ?", Long.class, groupId);
+		assertEquals(2L * MESSAGES, stored);
+	}
+
+	private double run(String name, BiConsumer<Long, Integer> send) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			long start = System.nanoTime();
+			List<Future<?>> tasks = new ArrayList<>(THREADS);
+			for (int t = 0; t < THREADS; t++) {
+				long senderId = t % 2 + 1;
+				int offset = t;
+				tasks.add(executor.submit(() -> {
+					for (int i = offset; i < MESSAGES; i += THREADS) {
+						send.accept(senderId, i);
+					}
+				}));
+			}
+			for (Future<?> task : tasks) {
+				task.get();
+			}
+			double perSecond = MESSAGES / ((System.nanoTime() - start) / 1e9);
+			System.out.printf("%-50s %,12.0f msg/s%n", name, perSecond);
+			return perSecond;
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
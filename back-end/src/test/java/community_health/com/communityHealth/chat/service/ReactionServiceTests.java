@@ -0,0 +1,116 @@
+package community_health.com.communityHealth.chat.service;
+
+import community_health.com.communityHealth.TestFixtures;
+import community_health.com.communityHealth.chat.dto.ReactionResultDto;
+import community_health.com.communityHealth.checkin.model.Checkin;
+import community_health.com.communityHealth.checkin.service.CheckinService;
+import community_health.com.communityHealth.group.model.Group;
+import community_health.com.communityHealth.group.repository.GroupRepository;
+import community_health.com.communityHealth.user.repository.UserRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Reação repetida não pode aparecer como criada. No MySQL o antigo ON CONFLICT DO NOTHING virava
+ * ON DUPLICATE KEY UPDATE e o driver contava a linha existente como inserida; aqui o H2 roda no modo MySQL (perfil test)
+ * e o "criada" tem que vir da chave única, inclusive com vários toques simultâneos.
+ */
+@SpringBootTest
+@ActiveProfiles({"dev", "test"})
+class ReactionServiceTests {
+
+	private static final int THREADS = 16;
+
+	@Autowired
+	private ReactionService reactionService;
+
+	@Autowired
+	private CheckinService checkinService;
+
+	@Autowired
+	private GroupRepository groupRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void repeatedReactionIsNotReportedAsCreated() {
+		Long checkinId = createCheckin();
+
+		ReactionResultDto first = reactionService.addReaction(checkinId, 2L, "🔥");
+		ReactionResultDto second = reactionService.addReaction(checkinId, 2L, "🔥");
+		assertTrue(first.changed());
+		assertFalse(second.changed());
+		assertTrue(second.reacted());
+
+		// Toggle: remove a existente, depois cria de novo
+		ReactionResultDto removed = reactionService.toggleReaction(checkinId, 2L, "🔥");
+		ReactionResultDto created = reactionService.toggleReaction(checkinId, 2L, "🔥");
+		assertFalse(removed.reacted());
+		assertTrue(removed.changed());
+		assertTrue(created.reacted());
+		assertTrue(created.changed());
+		assertEquals(1, countReactions(checkinId));
+
+		assertThrows(EntityNotFoundException.class, () -> reactionService.addReaction(-1L, 2L, "🔥"));
+	}
+
+	@Test
+	void concurrentTapsCreateExactlyOnce() throws Exception {
+		Long checkinId = createCheckin();
+
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<ReactionResultDto>> results = new ArrayList<>();
+		for (int i = 0; i < THREADS; i++) {
+			results.add(executor.submit(() -> {
+				start.await();
+				return reactionService.addReaction(checkinId, 2L, "❤️");
+			}));
+		}
+		start.countDown();
+
+		int created = 0;
+		for (Future<ReactionResultDto> result : results) {
+			if (result.get(30, TimeUnit.SECONDS).changed()) {
+				created++;
+			}
+		}
+		executor.shutdown();
+
+		assertEquals(1, created);
+		assertEquals(1, countReactions(checkinId));
+	}
+
+	private Long createCheckin() {
+		Group group = TestFixtures.createGroup(groupRepository, userRepository, "Reações");
+
+		Checkin checkin = new Checkin();
+		checkin.setTituloAtividade("Corrida");
+		return checkinService.createCheckin(checkin, group.getId(), 1L).getId();
+	}
+
+	private int countReactions(Long checkinId) {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM reactions WHERE checkin_id = ?", Integer.class, checkinId);
+	}
+}
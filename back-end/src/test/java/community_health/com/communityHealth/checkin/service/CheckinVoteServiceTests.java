@@ -0,0 +1,209 @@
+package community_health.com.communityHealth.checkin.service;
+
+import community_health.com.communityHealth.TestFixtures;
+import community_health.com.communityHealth.checkin.event.CheckinVerdictEvent;
+import community_health.com.communityHealth.checkin.model.Checkin;
+import community_health.com.communityHealth.checkin.model.CheckinStatus;
+import community_health.com.communityHealth.checkin.repository.CheckinRepository;
+import community_health.com.communityHealth.checkin.repository.CheckinVoteRepository;
+import community_health.com.communityHealth.group.model.Group;
+import community_health.com.communityHealth.group.repository.GroupRepository;
+import community_health.com.communityHealth.group.service.GroupMemberStatsService;
+import community_health.com.communityHealth.user.model.User;
+import community_health.com.communityHealth.user.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Centenas de votos simultâneos no mesmo check-in: os totais precisam bater exatamente
+ * e o veredito precisa disparar uma única vez.
+ */
+@SpringBootTest
+@ActiveProfiles({"dev", "test"})
+class CheckinVoteServiceTests {
+
+	private static final int THREADS = 32;
+
+	@Autowired
+	private CheckinVoteService checkinVoteService;
+
+	@Autowired
+	private CheckinService checkinService;
+
+	@Autowired
+	private CheckinRepository checkinRepository;
+
+	@Autowired
+	private CheckinVoteRepository checkinVoteRepository;
+
+	@Autowired
+	private GroupRepository groupRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private GroupMemberStatsService groupMemberStatsService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private VerdictCounter verdictCounter;
+
+	@TestConfiguration
+	static class VerdictCounterConfig {
+		@Bean
+		VerdictCounter verdictCounter() {
+			return new VerdictCounter();
+		}
+	}
+
+	static class VerdictCounter {
+		final AtomicInteger count = new AtomicInteger();
+
+		@EventListener
+		void onVerdict(CheckinVerdictEvent event) {
+			count.incrementAndGet();
+		}
+	}
+
+	@BeforeEach
+	void setUp() {
+		// data.sql grava os usuários 1 e 2 com ID explícito, o IDENTITY do H2 não avança sozinho
+		Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM Users", Long.class);
+		jdbcTemplate.execute("ALTER TABLE Users ALTER COLUMN id RESTART WITH " + (maxId + 1));
+		verdictCounter.count.set(0);
+	}
+
+	@Test
+	void concurrentVotesKeepExactTotals() throws Exception {
+		Group group = createGroup(400);
+		Checkin checkin = createCheckin(group, members.get(0));
+
+		// 150 aprovações e 100 rejeições ao mesmo tempo: nenhum dos limites é atingido
+		List<Boolean> votes = new ArrayList<>();
+		for (int i = 1; i <= 250; i++) {
+			votes.add(i <= 150);
+		}
+		int accepted = runVotes(checkin.getId(), members.subList(1, 251), votes);
+
+		Checkin stored = checkinRepository.findById(checkin.getId()).orElseThrow();
+		assertEquals(250, accepted);
+		assertEquals(151, stored.getApprovalCount()); // inclui a aprovação implícita do autor
+		assertEquals(100, stored.getRejectionCount());
+		assertEquals(250, checkinVoteRepository.count() - votesBefore);
+		assertEquals(CheckinStatus.PENDING, stored.getStatus());
+		assertEquals(0, verdictCounter.count.get());
+	}
+
+	@Test
+	void approvalFiresExactlyOnce() throws Exception {
+		Group group = createGroup(300);
+		Checkin checkin = createCheckin(group, members.get(0));
+
+		List<User> voters = members.subList(1, members.size());
+		List<Boolean> votes = new ArrayList<>();
+		for (int i = 0; i < voters.size(); i++) {
+			votes.add(true);
+		}
+		int accepted = runVotes(checkin.getId(), voters, votes);
+
+		Checkin stored = checkinRepository.findById(checkin.getId()).orElseThrow();
+		assertEquals(CheckinStatus.APPROVED, stored.getStatus());
+		assertEquals(1, verdictCounter.count.get());
+		assertEquals(accepted + 1, stored.getApprovalCount());
+		assertTrue(CheckinVoteService.reachesApproval(stored.getApprovalCount(), members.size()));
+	}
+
+	// --- Auxiliares ---
+
+	private List<User> members;
+	private long votesBefore;
+
+	/**
+	 * Cria um grupo com a quantidade de membros informada (o primeiro é o dono).
+	 */
+	private Group createGroup(int count) {
+		List<User> users = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			User user = new User();
+			user.setName("Membro " + i);
+			user.setEmail(UUID.randomUUID() + "@test.com");
+			user.setPasswordHash("x");
+			user.setLevel(1);
+			users.add(user);
+		}
+		users = userRepository.saveAll(users);
+
+		Group group = groupRepository.save(TestFixtures.group("Votação " + UUID.randomUUID(), users.get(0)));
+
+		for (User user : users) {
+			groupMemberStatsService.ensureMembership(group, user);
+		}
+		members = users;
+		votesBefore = checkinVoteRepository.count();
+		return group;
+	}
+
+	private Checkin createCheckin(Group group, User author) {
+		Checkin checkin = new Checkin();
+		checkin.setTituloAtividade("Corrida");
+		return checkinService.createCheckin(checkin, group.getId(), author.getId());
+	}
+
+	/**
+	 * Dispara todos os votos juntos e devolve quantos foram aceitos
+	 * (votos que chegam depois do veredito são recusados com IllegalStateException).
+	 */
+	private int runVotes(Long checkinId, List<User> voters, List<Boolean> votes) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<Boolean>> results = new ArrayList<>();
+
+		for (int i = 0; i < voters.size(); i++) {
+			Long userId = voters.get(i).getId();
+			boolean approve = votes.get(i);
+			results.add(executor.submit(() -> {
+				start.await();
+				try {
+					checkinVoteService.vote(checkinId, userId, approve);
+					return true;
+				} catch (IllegalStateException e) {
+					return false;
+				}
+			}));
+		}
+
+		start.countDown();
+		int accepted = 0;
+		for (Future<Boolean> result : results) {
+			if (result.get()) {
+				accepted++;
+			}
+		}
+		executor.shutdown();
+		executor.awaitTermination(1, TimeUnit.MINUTES);
+		return accepted;
+	}
+}
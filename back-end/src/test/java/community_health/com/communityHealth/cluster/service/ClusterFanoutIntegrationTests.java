@@ -0,0 +1,281 @@
+package community_health.com.communityHealth.cluster.service;
+
+import community_health.com.communityHealth.CommunityHealthApplication;
+import community_health.com.communityHealth.chat.service.ChatArchive;
+import community_health.com.communityHealth.chat.service.ChatArchive.ArchivedMessage;
+import community_health.com.communityHealth.group.model.Group;
+import community_health.com.communityHealth.group.service.GroupService;
+import community_health.com.communityHealth.group.service.LeaderboardService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Duas instâncias da aplicação na mesma JVM, com o mesmo banco H2 e cluster.fanout=jdbc.
+ * Um cliente STOMP conectado em cada uma: o que é publicado em /topic/group/** numa instância
+ * tem que chegar ao cliente da outra (uma vez só) em menos de 100 ms.
+ * O ranking não atravessa como mensagem: atravessa o evento, e cada instância atualiza o seu.
+ * Segmentos do arquivo do chat publicados por uma instância na pasta compartilhada valem na outra.
+ * A presença no chat é a união das instâncias: quem entra ou sai numa aparece para os inscritos da outra.
+ */
+class ClusterFanoutIntegrationTests {
+
+	private static final String TOPIC = "/topic/group/1";
+	private static final String RANKING_TOPIC = TOPIC + "/ranking";
+	private static final int MESSAGES = 50;
+	private static final String ARCHIVE_DIR = "target/cluster-chat-archive";
+
+	private static ConfigurableApplicationContext nodeA;
+	private static ConfigurableApplicationContext nodeB;
+
+	@BeforeAll
+	static void startNodes() throws IOException {
+		FileSystemUtils.deleteRecursively(Path.of(ARCHIVE_DIR));
+		// A instância A cria o schema; a B usa o mesmo banco como uma segunda instância em produção
+		nodeA = startNode(0, "spring.jpa.hibernate.ddl-auto=create-drop");
+		nodeB = startNode(1, "spring.jpa.hibernate.ddl-auto=none", "spring.sql.init.mode=never");
+	}
+
+	@AfterAll
+	static void stopNodes() {
+		if (nodeB != null) {
+			nodeB.close();
+		}
+		if (nodeA != null) {
+			nodeA.close();
+		}
+	}
+
+	private static ConfigurableApplicationContext startNode(int nodeIndex, String... extraProperties) {
+		// Argumentos de linha de comando: valem por cima do application.properties (perfil prod)
+		List<String> properties = new ArrayList<>(List.of(
+				"spring.profiles.active=dev",
+				"server.port=0",
+				"spring.datasource.url=jdbc:h2:mem:cluster;DB_CLOSE_DELAY=-1",
+				"spring.jpa.show-sql=false",
+				"cluster.fanout=jdbc",
+				"cluster.fanout.poll-ms=10",
+				"cluster.node-index=" + nodeIndex,
+				"cluster.node-count=2",
+				"chat.write-behind.spool-file=target/cluster-spool-" + nodeIndex + ".ndjson",
+				"chat.archive.dir=" + ARCHIVE_DIR));
+		properties.addAll(List.of(extraProperties));
+		return new SpringApplicationBuilder(CommunityHealthApplication.class)
+				.run(properties.stream().map(property -> "--" + property).toArray(String[]::new));
+	}
+
+	@Test
+	void groupTopicsCrossBetweenNodes() throws Exception {
+		StompClient clientA = StompClient.connect(portOf(nodeA));
+		StompClient clientB = StompClient.connect(portOf(nodeB));
+		SimpMessageSendingOperations templateA = nodeA.getBean("brokerMessagingTemplate", SimpMessageSendingOperations.class);
+		SimpMessageSendingOperations templateB = nodeB.getBean("brokerMessagingTemplate", SimpMessageSendingOperations.class);
+
+		// Só começa quando as inscrições já valem nas duas pontas
+		long subscribeDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+		while (clientB.count("ready") == 0 || clientA.count("ready") == 0) {
+			assertTrue(System.nanoTime() < subscribeDeadline, "Mensagem não atravessou para a instância B a tempo");
+			templateA.convertAndSend(TOPIC, "ready");
+			Thread.sleep(100);
+		}
+
+		for (int i = 0; i < MESSAGES; i++) {
+			templateA.convertAndSend(TOPIC, "a|" + System.nanoTime());
+			Thread.sleep(20);
+		}
+		templateB.convertAndSend(TOPIC, "b|" + System.nanoTime());
+
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while ((clientB.count("a") < MESSAGES || clientA.count("b") < 1) && System.nanoTime() < deadline) {
+			Thread.sleep(20);
+		}
+		// Tempo para uma eventual cópia repetida (eco da própria instância) aparecer
+		Thread.sleep(300);
+
+		assertEquals(MESSAGES, clientB.count("a"));
+		assertEquals(MESSAGES, clientA.count("a"));
+		assertEquals(1, clientA.count("b"));
+		assertEquals(1, clientB.count("b"));
+
+		List<Long> sorted = new ArrayList<>(clientB.latencies);
+		Collections.sort(sorted);
+		long p50 = TimeUnit.NANOSECONDS.toMillis(sorted.get(sorted.size() / 2));
+		long max = TimeUnit.NANOSECONDS.toMillis(sorted.get(sorted.size() - 1));
+		System.out.printf("Latência A -> B (ms): p50 = %d, máx = %d%n", p50, max);
+		assertTrue(p50 < 100, "Latência mediana entre instâncias: " + p50 + " ms");
+	}
+
+	@Test
+	void rankingChangesReachOtherNodeAsEvents() throws Exception {
+		StompClient clientA = StompClient.connect(portOf(nodeA));
+		StompClient clientB = StompClient.connect(portOf(nodeB));
+		SimpMessageSendingOperations templateA = nodeA.getBean("brokerMessagingTemplate", SimpMessageSendingOperations.class);
+
+		// As diferenças do ranking são calculadas por instância: a mensagem fica na instância que a gerou
+		long subscribeDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+		while (clientA.count("ranking-a") == 0 || clientB.count("ready") == 0) {
+			assertTrue(System.nanoTime() < subscribeDeadline, "Inscrições não confirmadas a tempo");
+			templateA.convertAndSend(RANKING_TOPIC, "ranking-a");
+			templateA.convertAndSend(TOPIC, "ready");
+			Thread.sleep(100);
+		}
+		Thread.sleep(300);
+		assertEquals(0, clientB.count("ranking-a"));
+
+		// Um novo membro entra pela instância A; o ranking em memória da B precisa ver
+		Group group = nodeA.getBean(GroupService.class)
+				.createGroupWithImage("Cluster", null, 30, false, 1L, null, null, null);
+		LeaderboardService leaderboardB = nodeB.getBean(LeaderboardService.class);
+		// A B pode já ter o grupo em memória (vazio, de antes da criação): o dono chega pelo evento, como o novo membro
+		awaitRankingSize(leaderboardB, group.getId(), 1);
+
+		nodeA.getBean(GroupService.class).joinGroup(group.getId(), 2L);
+		awaitRankingSize(leaderboardB, group.getId(), 2);
+	}
+
+	@Test
+	void archivedSegmentsReachOtherNode() throws Exception {
+		ChatArchive archiveA = nodeA.getBean(ChatArchive.class);
+		ChatArchive archiveB = nodeB.getBean(ChatArchive.class);
+		Long groupId = 900_001L;
+		LocalDateTime createdAt = LocalDateTime.now().minusDays(400);
+
+		// A retenção roda na A; a B abriu a pasta antes e só fica sabendo pelo aviso
+		archiveA.commit(archiveA.prepare(groupId, List.of(new ArchivedMessage(900_001L, createdAt, 1L, "primeira"))));
+		awaitArchived(archiveB, groupId, 1);
+		assertTrue(archiveB.findCreatedAt(groupId, 900_001L).isPresent());
+
+		// Compactação: a B troca os dois segmentos pelo novo, sem repetir nem perder mensagens
+		archiveA.commit(archiveA.prepare(groupId, List.of(new ArchivedMessage(900_002L, createdAt.plusMinutes(1), 1L, "segunda"))));
+		awaitArchived(archiveB, groupId, 2);
+		assertEquals(2, archiveA.compact(groupId));
+		Thread.sleep(300);
+		assertEquals(2, archiveB.findBefore(groupId, null, null, 10).size());
+		assertEquals(900_002L, archiveB.maxId(groupId));
+	}
+
+	@Test
+	void chatPresenceIsTheUnionOfNodes() throws Exception {
+		GroupService groupService = nodeA.getBean(GroupService.class);
+		Group group = groupService.createGroupWithImage("Presença", null, 30, false, 1L, null, null, null);
+		groupService.joinGroup(group.getId(), 2L);
+		String presenceTopic = "/topic/group/" + group.getId() + "/presence";
+
+		StompClient clientB = StompClient.connect(portOf(nodeB));
+		clientB.subscribe("sub-presence", presenceTopic, 2L);
+		awaitBody(clientB, "\"joined\":[{\"id\":2,");
+
+		// O usuário 1 entra pela instância A: o inscrito da B fica sabendo pela união
+		StompClient clientA = StompClient.connect(portOf(nodeA));
+		clientA.subscribe("sub-presence", presenceTopic, 1L);
+		awaitBody(clientB, "\"joined\":[{\"id\":1,");
+
+		// E quando a sessão dele cai na A, sai também na B
+		clientA.close();
+		awaitBody(clientB, "\"left\":[1]");
+	}
+
+	private static void awaitBody(StompClient client, String fragment) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (client.bodies.stream().noneMatch(body -> body.contains(fragment))) {
+			assertTrue(System.nanoTime() < deadline, "Presença não recebida: " + fragment);
+			Thread.sleep(20);
+		}
+	}
+
+	private static void awaitArchived(ChatArchive archive, Long groupId, int size) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (archive.findBefore(groupId, null, null, 10).size() < size) {
+			assertTrue(System.nanoTime() < deadline, "Segmento publicado na instância A não apareceu na B");
+			Thread.sleep(20);
+		}
+	}
+
+	private static void awaitRankingSize(LeaderboardService leaderboard, Long groupId, int size) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (leaderboard.getRanking(groupId).size() < size) {
+			assertTrue(System.nanoTime() < deadline, "Ranking da instância B não recebeu o novo membro");
+			Thread.sleep(20);
+		}
+	}
+
+	private static int portOf(ConfigurableApplicationContext context) {
+		return context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+	}
+
+	/**
+	 * Cliente STOMP mínimo sobre o WebSocket do JDK, inscrito em TOPIC e RANKING_TOPIC. Guarda os corpos recebidos
+	 * e, para os que trazem "origem|nanoTime", a latência desde a publicação.
+	 */
+	private static final class StompClient implements WebSocket.Listener {
+
+		private final StringBuilder frame = new StringBuilder();
+		private final ConcurrentLinkedQueue<String> bodies = new ConcurrentLinkedQueue<>();
+		private final ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+		private WebSocket socket;
+
+		static StompClient connect(int port) {
+			StompClient client = new StompClient();
+			WebSocket socket = HttpClient.newHttpClient().newWebSocketBuilder()
+					.buildAsync(URI.create("ws://localhost:" + port + "/ws/websocket"), client)
+					.join();
+			client.socket = socket;
+			socket.sendText("CONNECT\naccept-version:1.2\nheart-beat:0,0\n\n\0", true).join();
+			socket.sendText("SUBSCRIBE\nid:sub-0\ndestination:" + TOPIC + "\n\n\0", true).join();
+			socket.sendText("SUBSCRIBE\nid:sub-1\ndestination:" + RANKING_TOPIC + "\n\n\0", true).join();
+			return client;
+		}
+
+		void subscribe(String id, String destination, Long userId) {
+			socket.sendText("SUBSCRIBE\nid:" + id + "\ndestination:" + destination + "\nuserId:" + userId + "\n\n\0", true).join();
+		}
+
+		void close() {
+			socket.sendClose(WebSocket.NORMAL_CLOSURE, "").join();
+		}
+
+		long count(String origin) {
+			return bodies.stream().filter(body -> body.equals(origin) || body.startsWith(origin + "|")).count();
+		}
+
+		@Override
+		public CompletionStage<?> onText(WebSocket socket, CharSequence data, boolean last) {
+			frame.append(data);
+			if (last) {
+				String text = frame.toString();
+				frame.setLength(0);
+				if (text.startsWith("MESSAGE")) {
+					String body = text.substring(text.indexOf("\n\n") + 2, text.indexOf('\0'));
+					bodies.add(body);
+					int separator = body.indexOf('|');
+					if (separator > 0) {
+						latencies.add(System.nanoTime() - Long.parseLong(body.substring(separator + 1)));
+					}
+				}
+			}
+			socket.request(1);
+			return null;
+		}
+	}
+}
@@ -0,0 +1,242 @@
+package community_health.com.communityHealth.config.security;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import community_health.com.communityHealth.monitoring.service.WebSocketSessionMonitor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Carga no broker STOMP com clientes sintéticos: a maioria lê tudo na hora, alguns param de ler
+ * (como um celular que perdeu a rede sem fechar a conexão). Mede a latência de entrega para os clientes
+ * normais e confere que os parados são derrubados em vez de atrasar todo mundo.
+ * Os clientes falam SockJS sobre WebSocket, como o front-end (/ws/{servidor}/{sessão}/websocket).
+ *
+ * Só roda quando pedido: mvn test -Dbenchmark=true -Dtest=WebSocketSlowConsumerLoadTests
+ * Para comparar, rode também com -Dwebsocket.executor=virtual, ou com limites altos
+ * (-Dwebsocket.send-time-limit-ms=60000 -Dwebsocket.send-buffer-size-kb=65536) para ver o comportamento sem eles.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"dev", "test"})
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class WebSocketSlowConsumerLoadTests {
+
+	private static final int FAST_CLIENTS = 10;
+	private static final int STALLED_CLIENTS = 4;
+	private static final int WARMUP_MESSAGES = 400;
+	private static final int MESSAGES = 1200;
+	private static final int MESSAGES_PER_SECOND = 40;
+	private static final int PAYLOAD_BYTES = 16 * 1024;
+	private static final String TOPIC = "/topic/load";
+	// Bem abaixo do websocket.send-time-limit-ms: um cliente parado não pode segurar a entrega dos outros
+	private static final long MAX_P99_MS = 1000;
+	private static final ObjectMapper JSON = new ObjectMapper();
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private SimpMessageSendingOperations messagingTemplate;
+
+	@Autowired
+	private WebSocketSessionMonitor sessionMonitor;
+
+	@Test
+	void stalledConsumersDoNotDelayTheOthers() throws Exception {
+		ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+		CountDownLatch fastSubscribed = new CountDownLatch(FAST_CLIENTS);
+		List<StompClient> fast = new ArrayList<>();
+		for (int i = 0; i < FAST_CLIENTS; i++) {
+			fast.add(StompClient.connect(port, false, fastSubscribed, latencies));
+		}
+		awaitSubscribed(fastSubscribed);
+
+		// Aquecimento só com os clientes normais, fora da medição: numa máquina pequena a compilação JIT
+		// do servidor e dos próprios clientes apareceria como latência de entrega. Mensagens menores, para nenhum
+		// cliente ainda frio estourar o buffer de envio
+		String warmupPadding = "x".repeat(PAYLOAD_BYTES / 16);
+		publish(WARMUP_MESSAGES, () -> "warmup|" + warmupPadding);
+		long warmupDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+		while (fast.stream().anyMatch(client -> client.warmedUp.get() < WARMUP_MESSAGES)) {
+			assertTrue(System.nanoTime() < warmupDeadline, "Aquecimento não terminou a tempo");
+			Thread.sleep(50);
+		}
+
+		CountDownLatch stalledSubscribed = new CountDownLatch(STALLED_CLIENTS);
+		for (int i = 0; i < STALLED_CLIENTS; i++) {
+			StompClient.connect(port, true, stalledSubscribed, latencies);
+		}
+		awaitSubscribed(stalledSubscribed);
+
+		String padding = "x".repeat(PAYLOAD_BYTES);
+		publish(MESSAGES / 2, () -> System.nanoTime() + "|" + padding);
+		// Na metade (15 s) nenhuma thread de saída pode continuar presa na escrita para um cliente parado
+		long releasedAtHalf = sessionMonitor.getTransportErrors();
+		publish(MESSAGES - MESSAGES / 2, () -> System.nanoTime() + "|" + padding);
+
+		// Espera os clientes normais receberem tudo
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+		while (fast.stream().anyMatch(client -> client.received.get() < MESSAGES) && System.nanoTime() < deadline) {
+			Thread.sleep(50);
+		}
+
+		List<Long> sorted = new ArrayList<>(latencies);
+		Collections.sort(sorted);
+		long p50 = percentile(sorted, 50);
+		long p99 = percentile(sorted, 99);
+		long max = TimeUnit.NANOSECONDS.toMillis(sorted.get(sorted.size() - 1));
+
+		System.out.println("=== " + FAST_CLIENTS + " clientes normais + " + STALLED_CLIENTS + " parados, "
+				+ MESSAGES + " mensagens de " + PAYLOAD_BYTES / 1024 + " KB a " + MESSAGES_PER_SECOND + "/s ===");
+		System.out.printf("Latência de entrega (ms): p50 = %d, p99 = %d, máx = %d%n", p50, p99, max);
+		System.out.println("Sessões lentas derrubadas: " + sessionMonitor.getSlowSessionsClosed()
+				+ ", erros de transporte: " + sessionMonitor.getTransportErrors()
+				+ ", abertas: " + sessionMonitor.getOpenSessions());
+
+		for (StompClient client : fast) {
+			assertEquals(MESSAGES, client.received.get());
+		}
+		assertEquals(FAST_CLIENTS, sessionMonitor.getOpenSessions());
+		assertTrue(releasedAtHalf >= STALLED_CLIENTS, "Escritas presas liberadas na metade: " + releasedAtHalf);
+		assertTrue(p99 <= MAX_P99_MS, "p99 de " + p99 + " ms acima de " + MAX_P99_MS + " ms");
+	}
+
+	// No ritmo de MESSAGES_PER_SECOND; o conteúdo é gerado na hora do envio (leva o instante do envio)
+	private void publish(int count, Supplier<String> payload) throws InterruptedException {
+		long interval = TimeUnit.SECONDS.toNanos(1) / MESSAGES_PER_SECOND;
+		long next = System.nanoTime();
+		for (int i = 0; i < count; i++) {
+			messagingTemplate.convertAndSend(TOPIC, payload.get());
+			next += interval;
+			long wait = next - System.nanoTime();
+			if (wait > 0) {
+				TimeUnit.NANOSECONDS.sleep(wait);
+			}
+		}
+	}
+
+	// O broker simples não confirma SUBSCRIBE: publica um aviso até todos receberem
+	private void awaitSubscribed(CountDownLatch subscribed) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+		while (!subscribed.await(100, TimeUnit.MILLISECONDS)) {
+			assertTrue(System.nanoTime() < deadline, "Clientes não se inscreveram a tempo");
+			messagingTemplate.convertAndSend(TOPIC, "ready");
+		}
+	}
+
+	private static long percentile(List<Long> sorted, int percentile) {
+		int index = (int) Math.ceil(percentile / 100.0 * sorted.size()) - 1;
+		return TimeUnit.NANOSECONDS.toMillis(sorted.get(Math.max(0, index)));
+	}
+
+	/**
+	 * Cliente STOMP mínimo sobre SockJS, no WebSocket do JDK: cada frame STOMP vai num array JSON
+	 * e chega em frames "a[...]" ("o" abre, "h" é heartbeat). O cliente "parado" para de pedir dados depois
+	 * da inscrição, então o JDK deixa de ler o socket e o buffer TCP enche, como num cliente real travado.
+	 */
+	private static final class StompClient implements WebSocket.Listener {
+
+		private final boolean stalled;
+		private final CountDownLatch subscribed;
+		private final ConcurrentLinkedQueue<Long> latencies;
+		private final StringBuilder frame = new StringBuilder();
+		private final AtomicInteger received = new AtomicInteger();
+		private final AtomicInteger warmedUp = new AtomicInteger();
+		private boolean ready;
+
+		private StompClient(boolean stalled, CountDownLatch subscribed, ConcurrentLinkedQueue<Long> latencies) {
+			this.stalled = stalled;
+			this.subscribed = subscribed;
+			this.latencies = latencies;
+		}
+
+		static StompClient connect(int port, boolean stalled, CountDownLatch subscribed,
+								   ConcurrentLinkedQueue<Long> latencies) throws Exception {
+			StompClient client = new StompClient(stalled, subscribed, latencies);
+			String sockJsPath = "/ws/000/" + UUID.randomUUID().toString().replace("-", "") + "/websocket";
+			WebSocket socket = HttpClient.newHttpClient().newWebSocketBuilder()
+					.buildAsync(URI.create("ws://localhost:" + port + sockJsPath), client)
+					.join();
+			send(socket, "CONNECT\naccept-version:1.2\nheart-beat:0,0\n\n\0");
+			send(socket, "SUBSCRIBE\nid:sub-0\ndestination:" + TOPIC + "\n\n\0");
+			return client;
+		}
+
+		private static void send(WebSocket socket, String stompFrame) throws Exception {
+			socket.sendText(JSON.writeValueAsString(List.of(stompFrame)), true).join();
+		}
+
+		@Override
+		public CompletionStage<?> onText(WebSocket socket, CharSequence data, boolean last) {
+			frame.append(data);
+			if (!last) {
+				socket.request(1);
+				return null;
+			}
+
+			String text = frame.toString();
+			frame.setLength(0);
+			if (!text.startsWith("a")) {
+				socket.request(1);
+				return null;
+			}
+			boolean stop = false;
+			try {
+				for (String stompFrame : JSON.readValue(text.substring(1), String[].class)) {
+					stop |= onStompFrame(stompFrame);
+				}
+			} catch (JsonProcessingException e) {
+				throw new IllegalStateException(e);
+			}
+			if (!stop) {
+				socket.request(1);
+			}
+			return null;
+		}
+
+		// true quando o cliente parado deve deixar de ler
+		private boolean onStompFrame(String text) {
+			if (!text.startsWith("MESSAGE")) {
+				return false;
+			}
+			int body = text.indexOf("\n\n") + 2;
+			if (text.startsWith("ready", body)) {
+				if (!ready) {
+					ready = true;
+					subscribed.countDown();
+				}
+				return stalled;
+			}
+			if (text.startsWith("warmup", body)) {
+				warmedUp.incrementAndGet();
+				return false;
+			}
+			long sentAt = Long.parseLong(text.substring(body, text.indexOf('|', body)));
+			latencies.add(System.nanoTime() - sentAt);
+			received.incrementAndGet();
+			return false;
+		}
+	}
+}
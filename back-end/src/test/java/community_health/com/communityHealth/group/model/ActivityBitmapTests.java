@@ -0,0 +1,98 @@
+package community_health.com.communityHealth.group.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Bits de atividade nas bordas das palavras de 64 bits: dia 0, dias 63/64 e ofensivas que atravessam palavras.
+ */
+class ActivityBitmapTests {
+
+	@Test
+	void dayZero() {
+		ActivityBitmap bitmap = ActivityBitmap.empty();
+		assertTrue(bitmap.set(0));
+		assertFalse(bitmap.set(0));
+
+		assertTrue(bitmap.get(0));
+		assertFalse(bitmap.get(1));
+		assertEquals(1, bitmap.activeDays());
+		assertEquals(1, bitmap.currentStreak(0));
+		assertEquals(1, bitmap.currentStreak(1)); // hoje ainda sem atividade: vale a de ontem
+		assertEquals(0, bitmap.currentStreak(2));
+		assertEquals(1, bitmap.longestStreak());
+		assertThrows(IllegalArgumentException.class, () -> bitmap.set(-1));
+	}
+
+	@Test
+	void lastBitOfWordAndFirstOfNext() {
+		ActivityBitmap bitmap = ActivityBitmap.empty();
+		bitmap.set(63);
+		assertEquals(Long.BYTES, bitmap.toBytes().length);
+		bitmap.set(64);
+		assertEquals(2 * Long.BYTES, bitmap.toBytes().length);
+
+		assertFalse(bitmap.get(62));
+		assertTrue(bitmap.get(63));
+		assertTrue(bitmap.get(64));
+		assertFalse(bitmap.get(65));
+		assertEquals(2, bitmap.streakEndingAt(64));
+		assertEquals(1, bitmap.streakEndingAt(63));
+		assertEquals(2, bitmap.longestStreak());
+
+		ActivityBitmap copy = ActivityBitmap.fromBytes(bitmap.toBytes());
+		assertTrue(copy.get(63));
+		assertTrue(copy.get(64));
+		assertEquals(2, copy.activeDays());
+	}
+
+	@Test
+	void streaksAcrossWords() {
+		ActivityBitmap bitmap = ActivityBitmap.empty();
+		// Dias 10 a 140: atravessa a palavra 1 inteira (64 a 127) e entra na 2
+		for (int day = 10; day <= 140; day++) {
+			bitmap.set(day);
+		}
+		// Outra sequência menor depois de um buraco
+		for (int day = 150; day <= 159; day++) {
+			bitmap.set(day);
+		}
+
+		assertEquals(141, bitmap.activeDays());
+		assertEquals(131, bitmap.streakEndingAt(140));
+		assertEquals(131, bitmap.longestStreak());
+		assertEquals(10, bitmap.currentStreak(159));
+		assertEquals(10, bitmap.currentStreak(160));
+		assertEquals(0, bitmap.currentStreak(161));
+		assertEquals(0, bitmap.streakEndingAt(145));
+	}
+
+	@Test
+	void clearingADay() {
+		ActivityBitmap bitmap = ActivityBitmap.empty();
+		for (int day = 0; day < 128; day++) {
+			bitmap.set(day);
+		}
+		assertEquals(128, bitmap.longestStreak());
+
+		assertTrue(bitmap.clear(64));
+		assertFalse(bitmap.clear(64));
+		assertFalse(bitmap.clear(500)); // além das palavras existentes
+		assertFalse(bitmap.get(64));
+		assertEquals(127, bitmap.activeDays());
+		assertEquals(64, bitmap.longestStreak());
+		assertEquals(63, bitmap.currentStreak(127));
+
+		// Palavras zeradas no final não são gravadas
+		for (int day = 65; day < 128; day++) {
+			bitmap.clear(day);
+		}
+		assertArrayEquals(ActivityBitmap.fromBytes(bitmap.toBytes()).toBytes(), bitmap.toBytes());
+		assertEquals(Long.BYTES, bitmap.toBytes().length);
+	}
+}
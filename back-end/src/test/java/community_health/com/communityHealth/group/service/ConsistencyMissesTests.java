@@ -0,0 +1,110 @@
+package community_health.com.communityHealth.group.service;
+
+import community_health.com.communityHealth.TestFixtures;
+import community_health.com.communityHealth.checkin.model.Checkin;
+import community_health.com.communityHealth.checkin.service.CheckinService;
+import community_health.com.communityHealth.group.model.Group;
+import community_health.com.communityHealth.group.model.MemberScore;
+import community_health.com.communityHealth.group.model.ScoringMode;
+import community_health.com.communityHealth.group.repository.GroupMemberRepository;
+import community_health.com.communityHealth.group.repository.GroupRepository;
+import community_health.com.communityHealth.user.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Modo consistência: quem para de treinar precisa chegar ao limite de faltas sem fazer outro check-in,
+ * e o fechamento diário dos dias (RankingRebuildJob) tem que bater com o recálculo pelo histórico.
+ */
+@SpringBootTest
+@ActiveProfiles({"dev", "test"})
+class ConsistencyMissesTests {
+
+	private static final int DAYS_SINCE_START = 10;
+
+	@Autowired
+	private GroupMemberStatsService groupMemberStatsService;
+
+	@Autowired
+	private ScoreReplayService scoreReplayService;
+
+	@Autowired
+	private CheckinService checkinService;
+
+	@Autowired
+	private GroupRepository groupRepository;
+
+	@Autowired
+	private GroupMemberRepository groupMemberRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void memberWhoStoppedReachesMaxMisses() {
+		Group group = createGroup();
+		Long checkinId = checkinService.createCheckin(newCheckin(), group.getId(), 2L).getId();
+
+		// Entrou no dia 0, treinou só no dia 1 e parou: acumuladores como ficaram depois do check-in do dia 1
+		LocalDateTime start = group.getStartDate();
+		jdbcTemplate.update("UPDATE checkins SET created_at = ? WHERE id = ?", start.plusDays(1), checkinId);
+		jdbcTemplate.update("""
+				UPDATE group_members SET joined_at = ?, score = 10, score_last_day = 1, score_streak = 1, missed_days = 1
+				WHERE group_id = ? AND user_id = 2
+				""", start, group.getId());
+
+		assertEquals(1, groupMemberStatsService.closeMissedDays(group.getId()));
+
+		// Dias 2 a 9 sem treino: 9 faltas, acima do limite de 3
+		MemberScore score = scoreOf(group.getId(), 2L);
+		assertEquals(0L, score.getPoints());
+		assertEquals(0, score.getStreak());
+		assertEquals(DAYS_SINCE_START - 1, score.getLastDay());
+
+		// Fechar de novo não conta as mesmas faltas, e o histórico chega no mesmo resultado
+		assertEquals(0, groupMemberStatsService.closeMissedDays(group.getId()));
+		assertTrue(scoreReplayService.replayGroup(group.getId(), false).isEmpty());
+	}
+
+	@Test
+	void daysBeforeJoiningAreNotMisses() {
+		Group group = createGroup();
+		checkinService.createCheckin(newCheckin(), group.getId(), 2L);
+
+		assertEquals(0, groupMemberStatsService.closeMissedDays(group.getId()));
+		MemberScore score = scoreOf(group.getId(), 2L);
+		assertEquals(10L, score.getPoints());
+		assertEquals(0, score.getMissedDays());
+		assertTrue(scoreReplayService.replayGroup(group.getId(), false).isEmpty());
+	}
+
+	private Group createGroup() {
+		Group group = TestFixtures.group("Consistência", userRepository.findById(TestFixtures.OWNER_ID).orElseThrow());
+		group.setStartDate(LocalDate.now().minusDays(DAYS_SINCE_START).atStartOfDay());
+		group.setScoringMode(ScoringMode.CONSISTENCY);
+		group.setMaxMisses(3);
+		return groupRepository.save(group);
+	}
+
+	private static Checkin newCheckin() {
+		Checkin checkin = new Checkin();
+		checkin.setTituloAtividade("Corrida");
+		return checkin;
+	}
+
+	private MemberScore scoreOf(Long groupId, Long userId) {
+		return groupMemberRepository.findByGroupIdAndUserId(groupId, userId).orElseThrow().getScore();
+	}
+}
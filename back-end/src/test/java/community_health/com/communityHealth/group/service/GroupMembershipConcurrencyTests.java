@@ -0,0 +1,72 @@
+package community_health.com.communityHealth.group.service;
+
+import community_health.com.communityHealth.TestFixtures;
+import community_health.com.communityHealth.group.model.GroupMember;
+import community_health.com.communityHealth.group.repository.GroupRepository;
+import community_health.com.communityHealth.user.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Entradas simultâneas do mesmo usuário no mesmo grupo (clique duplo, check-in durante a entrada):
+ * todas precisam terminar bem e devolver a mesma participação, sem erro de chave duplicada.
+ */
+@SpringBootTest
+@ActiveProfiles({"dev", "test"})
+class GroupMembershipConcurrencyTests {
+
+	private static final int THREADS = 16;
+
+	@Autowired
+	private GroupService groupService;
+
+	@Autowired
+	private GroupRepository groupRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void concurrentJoinsCreateOneMembership() throws Exception {
+		Long groupId = TestFixtures.createGroup(groupRepository, userRepository, "Entradas").getId();
+
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<GroupMember>> results = new ArrayList<>();
+		for (int i = 0; i < THREADS; i++) {
+			results.add(executor.submit(() -> {
+				start.await();
+				return groupService.joinGroup(groupId, 2L);
+			}));
+		}
+		start.countDown();
+
+		Set<Long> memberIds = new HashSet<>();
+		for (Future<GroupMember> result : results) {
+			memberIds.add(result.get(30, TimeUnit.SECONDS).getId());
+		}
+		executor.shutdown();
+
+		assertEquals(1, memberIds.size());
+		assertEquals(1, jdbcTemplate.queryForObject(
+				"SELECT COUNT(*) FROM group_members WHERE group_id = ? AND user_id = 2", Integer.class, groupId));
+	}
+}
@@ -0,0 +1,139 @@
+package community_health.com.communityHealth.group.service;
+
+import community_health.com.communityHealth.TestFixtures;
+import community_health.com.communityHealth.group.dto.RankingDto;
+import community_health.com.communityHealth.group.dto.RankingWindowDto;
+import community_health.com.communityHealth.group.event.RankingChangedEvent;
+import community_health.com.communityHealth.group.leaderboard.Leaderboard;
+import community_health.com.communityHealth.group.model.ActivityBitmap;
+import community_health.com.communityHealth.group.repository.GroupRepository;
+import community_health.com.communityHealth.user.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compara o ranking em memória (LeaderboardService) com o caminho pelo banco
+ * (GroupMemberStatsService.getRanking) num grupo de 10 mil membros.
+ *
+ * Só roda quando pedido: mvn test -Dbenchmark=true -Dtest=LeaderboardBenchmarkTests
+ * Os tempos por operação são impressos no console.
+ */
+@SpringBootTest
+@ActiveProfiles({"dev", "test"})
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class LeaderboardBenchmarkTests {
+
+	private static final int MEMBERS = 10_000;
+
+	@Autowired
+	private LeaderboardService leaderboardService;
+
+	@Autowired
+	private GroupMemberStatsService groupMemberStatsService;
+
+	@Autowired
+	private GroupRepository groupRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	private Long groupId;
+	private List<Long> userIds;
+
+	@BeforeEach
+	void setUp() {
+		groupId = TestFixtures.createGroup(groupRepository, userRepository, "Benchmark " + UUID.randomUUID()).getId();
+
+		// Usuários e membros em batch JDBC, com pontuação aleatória (com empates de propósito)
+		long firstId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM Users", Long.class) + 1;
+		userIds = new ArrayList<>(MEMBERS);
+		List<Object[]> users = new ArrayList<>(MEMBERS);
+		List<Object[]> members = new ArrayList<>(MEMBERS);
+		Random random = new Random(42);
+		for (int i = 0; i < MEMBERS; i++) {
+			long userId = firstId + i;
+			userIds.add(userId);
+			users.add(new Object[]{userId, "Membro " + i, UUID.randomUUID() + "@bench.com", "x", 1});
+			members.add(new Object[]{groupId, userId, "MEMBER", random.nextInt(200), random.nextInt(30), random.nextInt(500)});
+		}
+		jdbcTemplate.batchUpdate("INSERT INTO Users (id, name, email, password_hash, level) VALUES (?, ?, ?, ?, ?)", users);
+		jdbcTemplate.batchUpdate("""
+				INSERT INTO Group_Members
+				    (group_id, user_id, role, cached_checkin_count, cached_active_days, longest_streak,
+				     score, total_minutes, score_last_day, score_streak, missed_days)
+				VALUES (?, ?, ?, ?, ?, 0, ?, 0, -1, 0, 0)
+				""", members);
+	}
+
+	@Test
+	void compareWithSqlRanking() {
+		// Mesma ordem nos dois caminhos
+		List<RankingDto> fromSql = groupMemberStatsService.getRanking(groupId);
+		assertEquals(MEMBERS, fromSql.size());
+		assertEquals(fromSql, leaderboardService.getRanking(groupId));
+
+		Long middleUser = fromSql.get(MEMBERS / 2).userId();
+		RankingWindowDto window = leaderboardService.getAround(groupId, middleUser, 2);
+		assertEquals(MEMBERS / 2 + 1, window.rank());
+		assertEquals(fromSql.subList(MEMBERS / 2 - 2, MEMBERS / 2 + 3), window.entries());
+
+		System.out.println("=== Ranking com " + MEMBERS + " membros (ns/op) ===");
+		measure("SQL: ranking completo (top-K / minha posição)", 30, () -> groupMemberStatsService.getRanking(groupId));
+		measure("Memória: ranking completo", 300, () -> leaderboardService.getRanking(groupId));
+		measure("Memória: top 10", 100_000, () -> leaderboardService.getTop(groupId, 10));
+		measure("Memória: minha posição +-2", 100_000, () -> leaderboardService.getAround(groupId, middleUser, 2));
+
+		// Atualização de um membro depois do commit: releitura de uma linha + reposicionamento na árvore
+		Random random = new Random(7);
+		measure("Memória: sincronizar um membro (releitura + reposicionar)", 2_000, () -> {
+			Long userId = userIds.get(random.nextInt(MEMBERS));
+			jdbcTemplate.update("UPDATE Group_Members SET score = score + 1 WHERE group_id = ? AND user_id = ?", groupId, userId);
+			eventPublisher.publishEvent(new RankingChangedEvent(groupId, userId));
+		});
+		assertEquals(groupMemberStatsService.getRanking(groupId), leaderboardService.getRanking(groupId));
+
+		// Só a estrutura: mover um membro de posição
+		Leaderboard leaderboard = new Leaderboard();
+		for (int i = 0; i < MEMBERS; i++) {
+			leaderboard.put(entry(userIds.get(i), random.nextInt(500)));
+		}
+		measure("Leaderboard.put (reposicionar, sem banco)", 1_000_000, () ->
+				leaderboard.put(entry(userIds.get(random.nextInt(MEMBERS)), random.nextInt(500))));
+	}
+
+	private static Leaderboard.Entry entry(Long userId, long points) {
+		return new Leaderboard.Entry(new Leaderboard.Key(points, 0, userId), "Membro", null, 0, 0,
+				ActivityBitmap.empty());
+	}
+
+	private static void measure(String name, int iterations, Runnable operation) {
+		for (int i = 0; i < Math.max(1, iterations / 5); i++) {
+			operation.run();
+		}
+		long start = System.nanoTime();
+		for (int i = 0; i < iterations; i++) {
+			operation.run();
+		}
+		long perOp = (System.nanoTime() - start) / iterations;
+		System.out.printf("%-60s %,12d%n", name, perOp);
+	}
+}
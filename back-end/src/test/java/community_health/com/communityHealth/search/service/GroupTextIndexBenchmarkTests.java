@@ -0,0 +1,112 @@
+package community_health.com.communityHealth.search.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Índice de busca de um grupo com 1 milhão de mensagens: confere o resultado com uma varredura
+ * de todos os textos (o que o LIKE '%termo%' faria) e mede o tempo das buscas e da gravação/leitura do arquivo.
+ *
+ * Só roda quando pedido: mvn test -Dbenchmark=true -Dtest=GroupTextIndexBenchmarkTests
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class GroupTextIndexBenchmarkTests {
+
+	private static final int MESSAGES = 1_000_000;
+	private static final int LIMIT = 20;
+
+	@Test
+	void searchesMillionsOfMessagesInMilliseconds() throws Exception {
+		Random random = new Random(42);
+		String[] vocabulary = new String[5_000];
+		for (int i = 0; i < vocabulary.length; i++) {
+			StringBuilder word = new StringBuilder();
+			for (int j = 3 + random.nextInt(7); j > 0; j--) {
+				word.append((char) ('a' + random.nextInt(26)));
+			}
+			vocabulary[i] = word.toString();
+		}
+
+		GroupTextIndex index = new GroupTextIndex();
+		String[] texts = new String[MESSAGES + 1];
+		long start = System.nanoTime();
+		for (int id = 1; id <= MESSAGES; id++) {
+			StringBuilder text = new StringBuilder();
+			for (int k = 0; k < 8; k++) {
+				// Poucas palavras muito frequentes e uma cauda longa, como numa conversa
+				int word = (int) Math.min(vocabulary.length - 1, Math.abs(random.nextGaussian()) * 800);
+				text.append(vocabulary[word]).append(' ');
+			}
+			texts[id] = text.toString();
+			index.add(GroupTextIndex.CHAT, id, texts[id]);
+		}
+		System.out.printf("Indexação de %d mensagens: %d ms%n", MESSAGES, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+		List<List<String>> queries = List.of(
+				List.of(vocabulary[0]),
+				List.of(vocabulary[0], vocabulary[1]),
+				List.of(vocabulary[3000]),
+				List.of(vocabulary[10].substring(0, 2)),
+				List.of(vocabulary[5], vocabulary[200].substring(0, 3)));
+
+		for (List<String> query : queries) {
+			assertEquals(scan(texts, query), index.search(query, GroupTextIndex.CHAT, LIMIT), "Busca " + query);
+		}
+
+		for (int warmup = 0; warmup < 50; warmup++) {
+			queries.forEach(query -> index.search(query, GroupTextIndex.CHAT, LIMIT));
+		}
+		for (List<String> query : queries) {
+			start = System.nanoTime();
+			for (int i = 0; i < 200; i++) {
+				index.search(query, GroupTextIndex.CHAT, LIMIT);
+			}
+			long averageMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start) / 200;
+			System.out.printf("Busca %s: %d µs%n", query, averageMicros);
+			assertTrue(averageMicros < 10_000, "Busca " + query + " levou " + averageMicros + " µs");
+		}
+
+		ByteArrayOutputStream file = new ByteArrayOutputStream();
+		start = System.nanoTime();
+		index.writeTo(new DataOutputStream(file));
+		System.out.printf("Gravação: %d ms, %d KB%n", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), file.size() / 1024);
+
+		start = System.nanoTime();
+		GroupTextIndex loaded = GroupTextIndex.readFrom(new DataInputStream(new ByteArrayInputStream(file.toByteArray())));
+		System.out.printf("Leitura: %d ms%n", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+		for (List<String> query : queries) {
+			assertEquals(index.search(query, GroupTextIndex.CHAT, LIMIT), loaded.search(query, GroupTextIndex.CHAT, LIMIT));
+		}
+	}
+
+	// Varredura de todas as mensagens, das mais novas para as mais antigas (último termo como prefixo)
+	private static List<Long> scan(String[] texts, List<String> query) {
+		List<Long> ids = new ArrayList<>();
+		for (int id = texts.length - 1; id >= 1 && ids.size() < LIMIT; id--) {
+			List<String> terms = TextAnalyzer.terms(texts[id]);
+			boolean matches = true;
+			for (int i = 0; i < query.size() && matches; i++) {
+				String term = query.get(i);
+				matches = (i == query.size() - 1)
+						? terms.stream().anyMatch(t -> t.startsWith(term))
+						: terms.contains(term);
+			}
+			if (matches) {
+				ids.add((long) id);
+			}
+		}
+		return ids;
+	}
+}
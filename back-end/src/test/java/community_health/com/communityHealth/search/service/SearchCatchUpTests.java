@@ -0,0 +1,80 @@
+package community_health.com.communityHealth.search.service;
+
+import community_health.com.communityHealth.TestFixtures;
+import community_health.com.communityHealth.chat.service.ChatArchive;
+import community_health.com.communityHealth.group.repository.GroupRepository;
+import community_health.com.communityHealth.search.dto.SearchHitDto;
+import community_health.com.communityHealth.user.repository.UserRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Mensagem gravada depois do índice salvo mas com ID menor que o último indexado (outra instância,
+ * regravação do spool): a carga do grupo numa instância que acabou de subir tem que encontrá-la,
+ * e também a recarga depois que a partição parada saiu da memória.
+ */
+@SpringBootTest
+@ActiveProfiles({"dev", "test"})
+class SearchCatchUpTests {
+
+	// search.index.dir do perfil test
+	private static final String INDEX_DIR = "target/test-search-index";
+
+	@Autowired
+	private SearchIndexService searchIndexService;
+
+	@Autowired
+	private ChatArchive chatArchive;
+
+	@Autowired
+	private GroupRepository groupRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@BeforeAll
+	static void clearIndex() throws IOException {
+		FileSystemUtils.deleteRecursively(Path.of(INDEX_DIR));
+	}
+
+	@Test
+	void lowerIdStoredAfterSaveIsFoundOnLoad() {
+		Long groupId = TestFixtures.createGroup(groupRepository, userRepository, "Busca").getId();
+
+		insertMessage(groupId, 900002L, "xilofone no parque");
+		assertEquals(1, searchIndexService.search(groupId, "xilofone", SearchIndexService.Scope.CHAT, null).size());
+		searchIndexService.flush();
+
+		// Gravada por outra instância depois do índice salvo, com ID de outra faixa
+		insertMessage(groupId, 900001L, "xilofone na praia");
+
+		// Instância que sobe agora: carrega o arquivo e lê o que faltou do banco
+		SearchIndexService restarted = new SearchIndexService(jdbcTemplate, groupRepository, chatArchive, INDEX_DIR, 10, 0);
+		assertEquals(2, restarted.search(groupId, "xilofone", SearchIndexService.Scope.CHAT, null).size());
+
+		// Partição parada sai da memória; o que foi gravado enquanto isso aparece na carga seguinte
+		restarted.evictIdle();
+		insertMessage(groupId, 900003L, "xilofone na escola");
+		assertEquals(3, restarted.search(groupId, "xilofone", SearchIndexService.Scope.CHAT, null).size());
+	}
+
+	private void insertMessage(Long groupId, Long id, String content) {
+		jdbcTemplate.update("INSERT INTO group_messages (id, group_id, sender_id, content, created_at) VALUES (?, ?, ?, ?, ?)",
+				id, groupId, 1L, content, Timestamp.valueOf(LocalDateTime.now()));
+	}
+}
@@ -12,8 +12,9 @@ import Login from "./components/login";
 import Notification from "./components/notification";
 
 // Serviços
-import { createGroup, getGroups } from "./services/groupsService";
-import { createCheckin, getCheckinsByGroup } from "./services/checkinsService"; 
+import { createGroup, getGroups, getUnreadCounts, markGroupRead, subscribeToUnread } from "./services/groupsService";
+import { createCheckin, getCheckinFeed, subscribeToFeed } from "./services/checkinsService"; 
+import { isLiveConnected } from "./services/liveService";
 
 function App() {
   const [currentUser, setCurrentUser] = useState(null);
@@ -66,35 +67,69 @@ function App() {
   const [isCreateGroupModalOpen, setIsCreateGroupModalOpen] = useState(false);
   const [showChat, setShowChat] = useState(false);
 
+  // Não lidos por grupo: { chatSeq, feedSeq, readChat, readFeed } (contadores do grupo e até onde o usuário leu)
+  const [unread, setUnread] = useState({});
+
   // --- FUNÇÕES AUXILIARES (Definidas ANTES do useEffect) ---
 
+  // Converte um CheckinFeedItem da API para o formato usado no feed
+  const toActivity = (c) => ({
+    id: c.id,
+    date: new Date(c.createdAt).toLocaleDateString('pt-BR'), 
+    time: new Date(c.createdAt).toLocaleTimeString('pt-BR', { hour: '2-digit', minute: '2-digit' }),
+    activity: c.tituloAtividade,
+    description: c.descricao,
+    photo: c.photoUrl,
+    metrics: {
+        distance: c.distanciaKm,
+        duration: c.duracaoMin,
+        steps: c.passos
+    },
+    status: c.status,
+    user: { id: c.userId, name: c.userName, photoUrl: c.userPhoto },
+    userPhoto: c.userPhoto,
+    commentCount: c.commentCount,
+    reactions: c.reactions
+  });
+
   const loadCheckinsFromApi = async (groupId) => {
     try {
-      const apiCheckins = await getCheckinsByGroup(groupId);
-      
-      const formattedCheckins = apiCheckins.map(c => ({
-        id: c.id,
-        date: new Date(c.createdAt).toLocaleDateString('pt-BR'), 
-        time: new Date(c.createdAt).toLocaleTimeString('pt-BR', { hour: '2-digit', minute: '2-digit' }),
-        activity: c.tituloAtividade,
-        description: c.descricao,
-        photo: c.photoUrl,
-        metrics: {
-            distance: c.metricas?.distanciaKm,
-            duration: c.metricas?.duracaoMin,
-            steps: c.metricas?.passos
-        },
-        user: c.user,
-        userPhoto: c.user.photoUrl
-      })).reverse(); 
-
-      setActivities(formattedCheckins);
+      // O feed já vem do mais recente para o mais antigo, com total de comentários e reações
+      const feed = await getCheckinFeed(groupId);
+      setActivities(feed.items.map(toActivity));
     } catch (error) {
       console.error("Erro ao carregar check-ins:", error);
       showNotification('error', 'Falha ao carregar atividades.', currentUser?.name);
     }
   };
 
+  // Aplica um evento do feed ao vivo sem baixar o feed de novo
+  const applyFeedEvent = (event) => {
+    switch (event.type) {
+      case 'CHECKIN_CREATED':
+        setActivities(prev => prev.some(a => a.id === event.item.id)
+          ? prev
+          : [toActivity(event.item), ...prev]);
+        break;
+      case 'CHECKIN_APPROVED':
+        setActivities(prev => prev.map(a => a.id === event.checkinId ? { ...a, status: 'APPROVED' } : a));
+        break;
+      case 'CHECKIN_DELETED':
+        setActivities(prev => prev.filter(a => a.id !== event.checkinId));
+        break;
+      case 'COMMENT_CREATED':
+        setActivities(prev => prev.map(a => a.id === event.checkinId
+          ? { ...a, commentCount: (a.commentCount || 0) + 1 }
+          : a));
+        break;
+      case 'CHECKINS_IMPORTED':
+        if (currentGroup) loadCheckinsFromApi(currentGroup.id);
+        break;
+      default:
+        break;
+    }
+  };
+
   const handleGroupChange = (group) => {
     if (!group) return;
     setCurrentGroup(group);
@@ -145,14 +180,78 @@ function App() {
     }
   };
 
+  // Uma única chamada para os não lidos de todos os grupos (nada de baixar o histórico de cada um)
+  const loadUnreadFromApi = async (userId) => {
+    try {
+      const counts = await getUnreadCounts(userId);
+      const next = {};
+      counts.forEach(c => {
+        next[c.groupId] = {
+          chatSeq: c.chatSeq,
+          feedSeq: c.feedSeq,
+          readChat: c.chatSeq - c.unreadChat,
+          readFeed: c.feedSeq - c.unreadFeed
+        };
+      });
+      setUnread(next);
+    } catch (error) {
+      console.error("Erro ao carregar não lidos:", error);
+    }
+  };
+
   // --- USE EFFECTS ---
 
   useEffect(() => {
     if (currentUser) {
       loadGroupsFromApi(currentUser.id);
+      loadUnreadFromApi(currentUser.id);
     }
   }, [currentUser]);
 
+  // Contadores novos de cada grupo chegam pelo STOMP; o não lido é contador - última leitura
+  useEffect(() => {
+    const unsubscribes = groups.map(group => subscribeToUnread(group.id, (seq) => {
+      setUnread(prev => ({
+        ...prev,
+        [seq.groupId]: {
+          readChat: 0,
+          readFeed: 0,
+          ...prev[seq.groupId],
+          chatSeq: seq.chatSeq,
+          feedSeq: seq.feedSeq
+        }
+      }));
+    }));
+    return () => unsubscribes.forEach(unsubscribe => unsubscribe());
+  }, [groups.map(g => g.id).join(",")]);
+
+  // O que está na tela conta como lido: o feed do grupo atual, ou o chat quando aberto
+  const viewedScope = !currentGroup || showGroupInfo ? null : (showChat ? "chat" : "feed");
+  const currentUnread = currentGroup ? unread[currentGroup.id] : null;
+
+  useEffect(() => {
+    if (!viewedScope || !currentUnread) return;
+    const seq = viewedScope === "chat" ? currentUnread.chatSeq : currentUnread.feedSeq;
+    const readKey = viewedScope === "chat" ? "readChat" : "readFeed";
+    if (currentUnread[readKey] >= seq) return;
+
+    const groupId = currentGroup.id;
+    setUnread(prev => ({ ...prev, [groupId]: { ...prev[groupId], [readKey]: seq } }));
+    markGroupRead(groupId, currentUser.id, viewedScope, seq)
+      .catch(error => console.warn("Erro ao marcar como lido:", error));
+  }, [currentGroup?.id, viewedScope, currentUnread?.chatSeq, currentUnread?.feedSeq]);
+
+  const unreadCounts = {};
+  Object.entries(unread).forEach(([groupId, u]) => {
+    unreadCounts[groupId] = Math.max(0, u.chatSeq - u.readChat) + Math.max(0, u.feedSeq - u.readFeed);
+  });
+
+  // Feed ao vivo do grupo atual
+  useEffect(() => {
+    if (!currentGroup) return;
+    return subscribeToFeed(currentGroup.id, applyFeedEvent);
+  }, [currentGroup?.id]);
+
   // --- HANDLERS ---
 
   const handleNewCheckin = async (data) => {
@@ -163,7 +262,10 @@ function App() {
       // Notificação de sucesso
       showNotification('checkin', `Novo check-in publicado: ${data.title}`, currentUser.name); 
       
-      await loadCheckinsFromApi(currentGroup.id);
+      // Com o feed ao vivo o check-in novo chega pelo STOMP; sem conexão, recarrega
+      if (!isLiveConnected()) {
+        await loadCheckinsFromApi(currentGroup.id);
+      }
       setIsModalOpen(false);
     } catch (error) {
       console.error(error);
@@ -204,6 +306,7 @@ function App() {
         currentUser={currentUser}
         groups={groups}
         currentGroup={currentGroup}
+        unreadCounts={unreadCounts}
         onGroupChange={handleGroupChange}
         onCreateGroup={() => setIsCreateGroupModalOpen(true)}
         onLogout={handleLogout}
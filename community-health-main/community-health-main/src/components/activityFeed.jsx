@@ -50,6 +50,18 @@ const CheckinItem = ({ checkin, onClick }) => {
             )}
             <p className="text-sm text-gray-500 font-medium">{userName}</p>
           </div>
+
+          {/* REAÇÕES E COMENTÁRIOS (vêm junto com o feed) */}
+          {(checkin.commentCount > 0 || Object.keys(checkin.reactions || {}).length > 0) && (
+            <div className="flex items-center gap-2 mt-2 text-xs text-gray-500">
+              {Object.entries(checkin.reactions || {}).map(([emoji, count]) => (
+                <span key={emoji} className="bg-gray-50 px-2 py-0.5 rounded-full">{emoji} {count}</span>
+              ))}
+              {checkin.commentCount > 0 && (
+                <span className="px-1">💬 {checkin.commentCount}</span>
+              )}
+            </div>
+          )}
         </div>
 
         {/* HORÁRIO */}
@@ -1,25 +1,41 @@
 import React, { useState, useRef, useEffect } from 'react';
 import { ArrowLeft, Send } from 'lucide-react';
-import { getChatHistory, connectToChat, sendMessage, disconnectChat } from '../services/chatService';
+import { getChatPage, connectToChat, sendMessage, sendTyping, disconnectChat } from '../services/chatService';
 
 const ChatScreen = ({ group, onBack, currentUser }) => {
   const [message, setMessage] = useState('');
   const [messages, setMessages] = useState([]);
   const [loading, setLoading] = useState(true);
+  const [olderCursor, setOlderCursor] = useState(null);
+  // Presença: quem está com o chat aberto (id -> usuário) e quem está digitando (ids)
+  const [onlineUsers, setOnlineUsers] = useState({});
+  const [typingIds, setTypingIds] = useState([]);
   
   const messagesEndRef = useRef(null);
+  // Última mensagem na ordem (sentAt, id): ponto de retomada quando o socket reconecta
+  const lastRef = useRef(null);
+  // Última seq recebida pelo socket, por instância do backend (node): um salto indica mensagem perdida
+  const lastSeqRef = useRef({});
+  // Último aviso de "digitando" enviado (no máximo um por segundo)
+  const lastTypingRef = useRef(0);
 
-  // Função para formatar a mensagem vinda do Java para o formato visual do React
+  // Função para formatar a mensagem vinda do Java para o formato visual do React.
+  // O histórico paginado traz senderId/senderName/senderPhoto e createdAt; o socket traz sentAt (epoch ms).
   const formatMessage = (msgData) => {
-    const senderData = msgData.sender || {}; 
+    const senderData = msgData.sender || {
+      id: msgData.senderId,
+      name: msgData.senderName,
+      photoUrl: msgData.senderPhoto
+    };
     
-    const dateObj = new Date(msgData.createdAt);
+    const dateObj = new Date(msgData.sentAt ?? msgData.createdAt);
     const timeString = isNaN(dateObj.getTime()) 
         ? 'Agora' 
         : dateObj.toLocaleTimeString('pt-BR', { hour: '2-digit', minute: '2-digit' });
 
     return {
       id: msgData.id,
+      at: dateObj.getTime() || 0,
       text: msgData.content,
       time: timeString,
       // Verifica se a mensagem é minha comparando IDs
@@ -31,17 +47,72 @@ const ChatScreen = ({ group, onBack, currentUser }) => {
     };
   };
 
+  // Mesma ordem do histórico: data de envio e, no empate, ID.
+  // Só o ID não serve: cada instância do backend gera IDs numa faixa própria, fora da ordem de chegada
+  const compareMessages = (a, b) => (a.at - b.at) || (a.id - b.id);
+
+  // Junta mensagens novas na lista, ignorando as que já estão nela (e mantendo a ordem)
+  const appendMessages = (newMessages) => {
+    if (newMessages.length === 0) return;
+    const formatted = newMessages.map(formatMessage);
+    formatted.forEach(m => {
+      if (!lastRef.current || compareMessages(m, lastRef.current) > 0) lastRef.current = m;
+    });
+    setMessages((prevMessages) => {
+      const known = new Set(prevMessages.map(m => m.id));
+      const merged = [...prevMessages, ...formatted.filter(m => !known.has(m.id))];
+      return merged.sort(compareMessages);
+    });
+  };
+
+  // Busca o que chegou depois da última mensagem conhecida, página por página até o fim (nextCursor nulo)
+  const catchUp = async (groupId) => {
+    if (!lastRef.current) return;
+    let afterId = lastRef.current.id;
+    try {
+      while (afterId) {
+        const page = await getChatPage(groupId, { afterId, limit: 200 });
+        appendMessages(page.items);
+        afterId = page.nextCursor;
+      }
+    } catch (err) {
+      if (err.status === 404) {
+        // A mensagem de referência sumiu (apagada ou de outro grupo): recomeça pela página mais recente
+        reloadLatest(groupId);
+        return;
+      }
+      console.error("Erro ao buscar mensagens perdidas:", err);
+    }
+  };
+
+  // Troca a lista pela página mais recente; as antigas voltam pelo botão "Carregar mensagens anteriores"
+  const reloadLatest = (groupId) => {
+    getChatPage(groupId)
+      .then((page) => {
+        lastRef.current = null;
+        setMessages([]);
+        appendMessages(page.items);
+        setOlderCursor(page.nextCursor);
+      })
+      .catch((err) => console.error("Erro ao recarregar histórico:", err));
+  };
+
   // 1. Carregar Histórico e Conectar WebSocket
   useEffect(() => {
     if (group && group.id) {
       setLoading(true);
       setMessages([]); // Limpa mensagens anteriores ao trocar de grupo
+      setOlderCursor(null);
+      lastRef.current = null;
+      lastSeqRef.current = {};
+      setOnlineUsers({});
+      setTypingIds([]);
 
-      // A. Busca histórico REST (Primeiro carrega o passado)
-      getChatHistory(group.id)
-        .then((history) => {
-          const formattedHistory = history.map(formatMessage);
-          setMessages(formattedHistory);
+      // A. Busca só as mensagens mais recentes; as antigas vêm pelo botão "Carregar mensagens anteriores"
+      getChatPage(group.id)
+        .then((page) => {
+          appendMessages(page.items);
+          setOlderCursor(page.nextCursor);
           setLoading(false);
         })
         .catch((err) => {
@@ -51,8 +122,26 @@ const ChatScreen = ({ group, onBack, currentUser }) => {
 
       // B. Conecta WebSocket (Para ouvir o futuro)
       connectToChat(group.id, (newMessage) => {
-        // Callback: Quando chega mensagem nova do Socket
-        setMessages((prevMessages) => [...prevMessages, formatMessage(newMessage)]);
+        // Callback: Quando chega mensagem nova do Socket. Salto na seq da instância: completa pelo histórico
+        const node = newMessage.node ?? 0;
+        const lastSeq = lastSeqRef.current[node];
+        if (lastSeq !== undefined && newMessage.seq > lastSeq + 1) {
+          catchUp(group.id);
+        }
+        // seq 1 de novo: a instância reiniciou e a contagem recomeça
+        lastSeqRef.current[node] = newMessage.seq === 1 ? 1 : Math.max(lastSeq || 0, newMessage.seq);
+        appendMessages([newMessage]);
+      }, () => {
+        // (Re)conectou: busca só o que chegou enquanto estava sem socket
+        lastSeqRef.current = {};
+        catchUp(group.id);
+      }, {
+        userId: currentUser.id,
+        onSnapshot: (snapshot) => {
+          setOnlineUsers(Object.fromEntries(snapshot.online.map(u => [u.id, u])));
+          setTypingIds(snapshot.typing);
+        },
+        onDiff: applyPresenceDiff
       });
     }
 
@@ -62,10 +151,54 @@ const ChatScreen = ({ group, onBack, currentUser }) => {
     };
   }, [group.id]); // Dependência apenas do ID do grupo
 
-  // 2. Scroll automático para o fim da lista
+  // Aplica as mudanças de presença (entradas/saídas e quem começou/parou de digitar)
+  const applyPresenceDiff = (diff) => {
+    setOnlineUsers((current) => {
+      const next = { ...current };
+      diff.joined.forEach(u => { next[u.id] = u; });
+      diff.left.forEach(id => { delete next[id]; });
+      return next;
+    });
+    setTypingIds((current) => {
+      const stopped = new Set([...diff.stoppedTyping, ...diff.left]);
+      const next = current.filter(id => !stopped.has(id));
+      diff.typing.forEach(id => { if (!next.includes(id)) next.push(id); });
+      return next;
+    });
+  };
+
+  // Volta no tempo uma página (cursor da mensagem mais antiga exibida)
+  const loadOlderMessages = async () => {
+    try {
+      const page = await getChatPage(group.id, { before: olderCursor });
+      setMessages((prevMessages) => [...page.items.map(formatMessage), ...prevMessages]);
+      setOlderCursor(page.nextCursor);
+    } catch (err) {
+      console.error("Erro ao buscar histórico:", err);
+    }
+  };
+
+  // 2. Scroll automático para o fim da lista (só quando chega mensagem nova, não ao carregar as anteriores)
+  const lastMessageId = messages.length > 0 ? messages[messages.length - 1].id : null;
   useEffect(() => {
     messagesEndRef.current?.scrollIntoView({ behavior: 'smooth' });
-  }, [messages]);
+  }, [lastMessageId]);
+
+  // Avisa que está digitando, sem mandar um aviso por tecla
+  const handleTyping = (value) => {
+    setMessage(value);
+    const now = Date.now();
+    if (value.trim() && now - lastTypingRef.current > 1000) {
+      lastTypingRef.current = now;
+      sendTyping(group.id);
+    }
+  };
+
+  // Nomes de quem está digitando (menos eu)
+  const typingNames = typingIds
+    .filter(id => id !== currentUser.id)
+    .map(id => onlineUsers[id]?.name || 'Alguém');
+  const onlineCount = Object.keys(onlineUsers).length;
 
   // 3. Enviar Mensagem
   const handleSendMessage = (e) => {
@@ -74,6 +207,7 @@ const ChatScreen = ({ group, onBack, currentUser }) => {
 
     // Envia via WebSocket (Service), passando o ID do usuário logado
     sendMessage(group.id, message, currentUser.id);
+    lastTypingRef.current = 0;
     
     // Limpa campo (a mensagem volta via socket e atualiza a lista visualmente)
     setMessage('');
@@ -91,7 +225,11 @@ const ChatScreen = ({ group, onBack, currentUser }) => {
         </button>
         <div>
             <h2 className="text-xl font-bold text-gray-800">{group.name}</h2>
-            <p className="text-xs text-gray-500">Chat do Grupo</p>
+            <p className="text-xs text-gray-500">
+              {typingNames.length > 0
+                ? `${typingNames.join(', ')} ${typingNames.length === 1 ? 'está digitando...' : 'estão digitando...'}`
+                : onlineCount > 0 ? `Chat do Grupo · ${onlineCount} online` : 'Chat do Grupo'}
+            </p>
         </div>
       </div>
 
@@ -107,7 +245,19 @@ const ChatScreen = ({ group, onBack, currentUser }) => {
                 <p className="text-sm">Seja o primeiro a falar!</p>
             </div>
         ) : (
-            messages.map((msg) => {
+            <>
+            {olderCursor && (
+                <div className="flex justify-center">
+                    <button
+                    type="button"
+                    onClick={loadOlderMessages}
+                    className="text-xs font-semibold text-gray-500 hover:text-gray-700"
+                    >
+                    Carregar mensagens anteriores
+                    </button>
+                </div>
+            )}
+            {messages.map((msg) => {
             const userName = msg.user?.name || 'Anônimo';
             const userPhoto = msg.user?.photoUrl;
 
@@ -154,7 +304,8 @@ const ChatScreen = ({ group, onBack, currentUser }) => {
                 </div>
                 </div>
             );
-            })
+            })}
+            </>
         )}
         <div ref={messagesEndRef} />
       </div>
@@ -165,7 +316,7 @@ const ChatScreen = ({ group, onBack, currentUser }) => {
           <input
             type="text"
             value={message}
-            onChange={(e) => setMessage(e.target.value)}
+            onChange={(e) => handleTyping(e.target.value)}
             placeholder="Digite sua mensagem..."
             className="flex-1 px-4 py-2 bg-transparent focus:outline-none text-sm text-gray-700"
           />
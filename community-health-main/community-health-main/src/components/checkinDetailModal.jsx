@@ -1,11 +1,13 @@
 import React, { useState, useEffect } from 'react';
 import { ArrowLeft, Smile, Clock, MapPin, Footprints } from 'lucide-react';
 // Importa os serviços de comentários
-import { getComments, createComment, addReaction, removeReaction } from '../services/commentService';
+import { getCommentPage, createComment, getReactions, toggleReaction, subscribeToComments } from '../services/commentService';
+import { isLiveConnected } from '../services/liveService';
 
 const CheckinDetailModal = ({ isOpen, onClose, checkin, currentUser }) => {
   const [comment, setComment] = useState('');
   const [comments, setComments] = useState([]);
+  const [nextCursor, setNextCursor] = useState(null);
   const [reactions, setReactions] = useState({});
   const [showEmojiPicker, setShowEmojiPicker] = useState(false);
 
@@ -14,35 +16,52 @@ const CheckinDetailModal = ({ isOpen, onClose, checkin, currentUser }) => {
   // 🆕 Carregar comentários ao abrir o modal
   useEffect(() => {
     if (isOpen && checkin && checkin.id) {
+      // Mostra as reações que vieram no feed enquanto os comentários carregam
+      setReactions(checkin.reactions || {});
       loadComments();
     } else {
       setComments([]);
+      setNextCursor(null);
       setReactions({});
     }
   }, [isOpen, checkin]);
 
+  // Comentários novos chegam ao vivo enquanto o modal está aberto
+  useEffect(() => {
+    if (!isOpen || !checkin || !checkin.id) return;
+    return subscribeToComments(checkin.id, (item) => {
+      setComments(prev => prev.some(c => c.id === item.id) ? prev : [...prev, toViewComment(item)]);
+    });
+  }, [isOpen, checkin?.id]);
+
+  const toViewComment = (c) => ({
+    id: c.id,
+    text: c.content,
+    time: new Date(c.createdAt).toLocaleTimeString([], {hour: '2-digit', minute:'2-digit'}),
+    user: { id: c.userId, name: c.userName, photoUrl: c.userPhoto }
+  });
+
   const loadComments = async () => {
     try {
-      const apiComments = await getComments(checkin.id);
-      
-      // Filtrar comentários de texto
-      const textComments = apiComments
-        .filter(c => c.content != null)
-        .map(c => ({
-            id: c.id,
-            text: c.content,
-            time: new Date(c.createdAt).toLocaleTimeString([], {hour: '2-digit', minute:'2-digit'}),
-            user: c.user
-        }));
-      setComments(textComments);
+      // Primeira página da conversa; as demais vêm pelo botão "Ver mais comentários"
+      const page = await getCommentPage(checkin.id);
+      setComments(page.items.map(toViewComment));
+      setNextCursor(page.nextCursor);
+
+      // Reações vêm da tabela própria, já somadas por emoji
+      const apiReactions = await getReactions(checkin.id, currentUser?.id);
+      setReactions(apiReactions.counts);
 
-      // Processar reações
-      const reactionsMap = {};
-      apiComments.filter(c => c.reactionEmoji != null).forEach(c => {
-          reactionsMap[c.reactionEmoji] = (reactionsMap[c.reactionEmoji] || 0) + 1;
-      });
-      setReactions(reactionsMap);
+    } catch (error) {
+      console.error("Erro ao carregar comentários", error);
+    }
+  };
 
+  const loadMoreComments = async () => {
+    try {
+      const page = await getCommentPage(checkin.id, nextCursor);
+      setComments(prev => [...prev, ...page.items.map(toViewComment)]);
+      setNextCursor(page.nextCursor);
     } catch (error) {
       console.error("Erro ao carregar comentários", error);
     }
@@ -56,8 +75,10 @@ const CheckinDetailModal = ({ isOpen, onClose, checkin, currentUser }) => {
       // Envia para API
       await createComment(comment, checkin.id, currentUser.id);
       setComment('');
-      // Recarrega para mostrar o novo
-      loadComments();
+      // O comentário novo chega ao vivo; sem conexão, recarrega
+      if (!isLiveConnected()) {
+        loadComments();
+      }
     } catch (error) {
       alert("Erro ao comentar: " + error.message);
     }
@@ -65,23 +86,12 @@ const CheckinDetailModal = ({ isOpen, onClose, checkin, currentUser }) => {
 
   const handleReaction = async (emoji) => {
     try {
-      // Tenta adicionar (se já existir, o backend pode dar erro ou ignorar)
-      // Aqui simplificado: tentamos adicionar. Se der erro, tentamos remover (toggle)
-      // Idealmente o backend retornaria se foi adicionado ou removido.
-      
-      // Vamos assumir adição por enquanto para simplicidade visual
-      await addReaction(emoji, checkin.id, currentUser.id);
+      // O backend decide se adiciona ou remove e devolve o estado final
+      await toggleReaction(emoji, checkin.id, currentUser.id);
       loadComments();
       setShowEmojiPicker(false);
     } catch (error) {
-        // Se falhar (ex: já existe), tentamos remover
-        try {
-            await removeReaction(emoji, checkin.id, currentUser.id);
-            loadComments();
-            setShowEmojiPicker(false);
-        } catch (e) {
-            console.error("Erro ao reagir", e);
-        }
+      console.error("Erro ao reagir", error);
     }
   };
 
@@ -239,6 +249,15 @@ const CheckinDetailModal = ({ isOpen, onClose, checkin, currentUser }) => {
                     </div>
                   );
                 })}
+                {nextCursor && (
+                  <button
+                    type="button"
+                    onClick={loadMoreComments}
+                    className="text-xs font-semibold text-gray-500 hover:text-gray-700"
+                  >
+                    Ver mais comentários
+                  </button>
+                )}
               </div>
             )}
 
@@ -1,5 +1,6 @@
 import React, { useState, useEffect } from 'react';
 import { ArrowLeft, CheckCircle, Calendar, Clock } from 'lucide-react';
+import { getRanking, applyRankingDelta, subscribeToRanking } from '../services/rankingService';
 
 // URL base da sua API
 const API_BASE_URL = 'http://localhost:8080/api'; 
@@ -7,7 +8,7 @@ const API_BASE_URL = 'http://localhost:8080/api';
 const GroupInfoScreen = ({ group, onBack }) => {
   const [activeTab, setActiveTab] = useState('classification');
   // 🔑 1. NOVOS ESTADOS PARA DADOS REAIS
-  const [members, setMembers] = useState([]);
+  const [ranking, setRanking] = useState([]); // [{ rank, member: RankingDto }]
   const [stats, setStats] = useState(null);
   const [isLoading, setIsLoading] = useState(true);
   const [error, setError] = useState(null);
@@ -27,23 +28,17 @@ const GroupInfoScreen = ({ group, onBack }) => {
       setError(null);
       
       try {
-        // A. Busca dos Membros (Classificação) - Retorna List<GroupMember>
-        const membersResponse = await fetch(`${API_BASE_URL}/groups/${group.id}/members`);
-        
-        if (!membersResponse.ok) {
-            const errorText = await membersResponse.text();
-            throw new Error(`Falha ao carregar membros. Status: ${membersResponse.status}. Detalhe: ${errorText.substring(0, 100)}...`);
-        }
+        // A. Classificação e Estatísticas em paralelo.
+        // /stats responde 304 (cache do navegador) enquanto o grupo não tiver novidades.
+        const [rankingData, statsResponse] = await Promise.all([
+          getRanking(group.id),
+          fetch(`${API_BASE_URL}/groups/${group.id}/stats`)
+        ]);
 
-        const membersData = await membersResponse.json();
-        
-        // Garante que a classificação é feita no frontend pelo número de checkins
-        const sortedMembers = membersData.sort((a, b) => b.cachedCheckinCount - a.cachedCheckinCount);
-        setMembers(sortedMembers);
-        
-        // B. Busca das Estatísticas - Retorna GroupStatsDto
-        const statsResponse = await fetch(`${API_BASE_URL}/groups/${group.id}/stats`);
+        // Já vem na ordem do ranking do grupo
+        setRanking(rankingData);
         
+        // B. Estatísticas - Retorna GroupStatsDto
         if (!statsResponse.ok) {
             const errorText = await statsResponse.text();
             throw new Error(`Falha ao carregar estatísticas. Status: ${statsResponse.status}. Detalhe: ${errorText.substring(0, 100)}...`);
@@ -64,6 +59,24 @@ const GroupInfoScreen = ({ group, onBack }) => {
     // Reexecuta sempre que o ID do grupo mudar
   }, [group.id]); 
 
+  // Classificação ao vivo: o servidor manda só as posições que mudaram (no máximo uma mensagem a cada 250 ms)
+  useEffect(() => {
+    if (!group.id) return;
+
+    let lastSeq = null;
+    const unsubscribe = subscribeToRanking(group.id, (delta) => {
+      // Mensagem perdida no meio do caminho: recarrega a classificação inteira
+      if (lastSeq !== null && !delta.full && delta.seq !== lastSeq + 1) {
+        getRanking(group.id).then(setRanking).catch(console.error);
+      } else {
+        setRanking((current) => applyRankingDelta(current, delta));
+      }
+      lastSeq = delta.seq;
+    });
+
+    return unsubscribe;
+  }, [group.id]);
+
 
   // --- LÓGICA DE CÁLCULO DE PROGRESSO ---
   const totalDays = group.durationDays || 30; // Agora seguro, pois 'group' é verificado
@@ -164,35 +177,34 @@ const GroupInfoScreen = ({ group, onBack }) => {
           <div className="bg-white rounded-2xl p-6">
             <div className="space-y-4">
               {/* 🔑 MAPEAMENTO CORRETO */}
-              {members.map((member, index) => (
+              {ranking.map(({ rank, member }) => (
                 <div
-                  // Acessa o ID do User dentro do objeto GroupMember
-                  key={member.user.id} 
+                  key={member.userId}
                   className="flex items-center gap-4 p-4 rounded-xl hover:bg-[#EDEDED] transition-all duration-300 hover:scale-[1.01]"
                 >
                   <div className="w-8 text-center">
                     <span className="text-lg font-['Shanti'] font-semibold text-[#212121]">
-                      {index + 1}º
+                      {rank}º
                     </span>
                   </div>
 
                   <div className="w-12 h-12 rounded-full bg-[#2E67D3] flex items-center justify-center text-white font-['Shanti'] text-lg">
-                    {member.user.name.charAt(0)}
+                    {member.userName.charAt(0)}
                   </div>
 
                   <div className="flex-1">
                     <div className="font-['Shanti'] text-base text-[#212121] font-semibold">
-                      {member.user.name}
+                      {member.userName}
                     </div>
                     <div className="font-['Shanti'] text-base text-gray-500">
-                      {member.cachedActiveDays}{' '} 
-                      {member.cachedActiveDays === 1 ? 'dia ativo' : 'dias ativos'}
+                      {member.activeDays}{' '} 
+                      {member.activeDays === 1 ? 'dia ativo' : 'dias ativos'}
                     </div>
                   </div>
 
                   <div className="text-right">
                     <div className="font-['Shanti'] text-xl font-semibold text-[#212121]">
-                      {member.cachedCheckinCount}
+                      {member.totalCheckins}
                     </div>
                     <div className="font-['Shanti'] text-sm text-gray-500">
                       check-ins
@@ -1,7 +1,7 @@
 import React from 'react';
 import { Users, Plus, Settings, LogOutIcon } from 'lucide-react';
 
-const Sidebar = ({ currentUser, groups, currentGroup, onGroupChange, onCreateGroup, onLogout }) => {
+const Sidebar = ({ currentUser, groups, currentGroup, unreadCounts = {}, onGroupChange, onCreateGroup, onLogout }) => {
 
   const menuItems = [
     { icon: Plus, label: 'Criar grupo', action: 'create' },
@@ -78,6 +78,13 @@ const Sidebar = ({ currentUser, groups, currentGroup, onGroupChange, onCreateGro
               <div className="flex-1 min-w-0">
                 <span className="text-sm font-medium truncate block">{group.name}</span>
               </div>
+
+              {/* Mensagens do chat + check-ins não lidos (vêm de /api/groups/unread e do STOMP) */}
+              {unreadCounts[group.id] > 0 && (
+                <span className="min-w-6 px-2 py-0.5 rounded-full bg-red-500 text-xs font-bold text-center flex-shrink-0">
+                  {unreadCounts[group.id] > 99 ? '99+' : unreadCounts[group.id]}
+                </span>
+              )}
             </button>
           ))}
         </div>
@@ -16,9 +16,31 @@ export async function getChatHistory(groupId) {
 }
 
 /**
- * Conecta ao WebSocket com proteção contra chamadas duplas
+ * Busca uma página do histórico (sempre mais antigas primeiro).
+ * - Sem opções: as mensagens mais recentes.
+ * - before: o "nextCursor" da página anterior, para voltar no tempo.
+ * - afterId: ID da última mensagem recebida, para buscar só o que chegou depois (reconexão).
  */
-export function connectToChat(groupId, onMessageReceived) {
+export async function getChatPage(groupId, { before = null, afterId = null, limit = 50 } = {}) {
+    let url = `${BASE_URL}/api/v1/groups/${groupId}/chat/messages/page?limit=${limit}`;
+    if (before) url += `&before=${encodeURIComponent(before)}`;
+    if (afterId) url += `&afterId=${afterId}`;
+
+    const res = await fetch(url);
+    if (!res.ok) {
+        const error = new Error("Erro ao carregar histórico.");
+        error.status = res.status; // 404 com afterId: a mensagem de referência não existe mais
+        throw error;
+    }
+    return res.json(); // { items: [...], nextCursor: "..." | null }
+}
+
+/**
+ * Conecta ao WebSocket com proteção contra chamadas duplas.
+ * onConnected é chamado depois da inscrição no tópico (bom momento para buscar o que foi perdido).
+ * presence (opcional): { userId, onSnapshot, onDiff } para saber quem está online e digitando.
+ */
+export function connectToChat(groupId, onMessageReceived, onConnected, presence) {
     // Se já existe um cliente tentando conectar ou conectado, não faz nada
     if (stompClient && stompClient.ws && stompClient.ws.readyState !== WebSocket.CLOSED) {
         console.log("Já existe uma conexão ativa ou em andamento.");
@@ -37,6 +59,16 @@ export function connectToChat(groupId, onMessageReceived) {
                 const message = JSON.parse(messageOutput.body);
                 onMessageReceived(message);
             });
+            if (presence) {
+                // Primeiro o tópico das mudanças (é ele que marca o usuário como online), depois a foto atual
+                stompClient.subscribe(`/topic/group/${groupId}/presence`, (diff) => {
+                    presence.onDiff(JSON.parse(diff.body));
+                }, { userId: String(presence.userId) });
+                stompClient.subscribe(`/app/group/${groupId}/presence`, (snapshot) => {
+                    presence.onSnapshot(JSON.parse(snapshot.body));
+                });
+            }
+            if (onConnected) onConnected();
         }
     }, (error) => {
         console.warn("Erro de conexão ou desconexão forçada:", error);
@@ -58,6 +90,15 @@ export function sendMessage(groupId, content, senderId) {
     }
 }
 
+/**
+ * Avisa que o usuário está digitando (o servidor ignora avisos repetidos em menos de 1 s)
+ */
+export function sendTyping(groupId) {
+    if (stompClient && stompClient.connected) {
+        stompClient.send(`/app/group/${groupId}/typing`, {}, '');
+    }
+}
+
 /**
  * Desconecta com segurança para evitar InvalidStateError
  */
@@ -1,3 +1,5 @@
+import { subscribe } from "./liveService";
+
 const API_URL = "http://localhost:8080/api/checkins";
 
 /**
@@ -58,4 +60,26 @@ export async function getCheckinsByGroup(groupId) {
     const res = await fetch(`${API_URL}?groupId=${groupId}`);
     if (!res.ok) throw new Error("Erro ao buscar check-ins.");
     return res.json();
-}
\ No newline at end of file
+}
+
+/**
+ * Busca uma página do feed do grupo (scroll infinito).
+ * Passe o "nextCursor" da página anterior em "before" para continuar; null busca a primeira página.
+ */
+export async function getCheckinFeed(groupId, before = null, limit = 20) {
+    let url = `${API_URL}/feed?groupId=${groupId}&limit=${limit}`;
+    if (before) url += `&before=${encodeURIComponent(before)}`;
+
+    const res = await fetch(url);
+    if (!res.ok) throw new Error("Erro ao buscar o feed.");
+    return res.json(); // { items: [...], nextCursor: "..." | null }
+}
+
+/**
+ * Novidades do feed ao vivo: { type, checkinId, item }.
+ * type: CHECKIN_CREATED (item completo), CHECKIN_APPROVED, CHECKIN_DELETED, CHECKINS_IMPORTED, COMMENT_CREATED.
+ * @returns Função que cancela a inscrição
+ */
+export function subscribeToFeed(groupId, onEvent) {
+    return subscribe(`/topic/group/${groupId}/feed`, onEvent);
+}
@@ -1,4 +1,7 @@
+import { subscribe } from "./liveService";
+
 const API_URL = "http://localhost:8080/api/comments";
+const REACTIONS_URL = "http://localhost:8080/api/reactions";
 
 /**
  * Busca comentários de um check-in.
@@ -9,6 +12,19 @@ export async function getComments(checkinId) {
     return res.json();
 }
 
+/**
+ * Busca uma página da conversa do check-in (mais antigos primeiro).
+ * Passe o "nextCursor" da página anterior em "after" para continuar; null busca a primeira página.
+ */
+export async function getCommentPage(checkinId, after = null, limit = 30) {
+    let url = `${API_URL}/page?checkinId=${checkinId}&limit=${limit}`;
+    if (after) url += `&after=${encodeURIComponent(after)}`;
+
+    const res = await fetch(url);
+    if (!res.ok) throw new Error("Erro ao carregar comentários.");
+    return res.json(); // { items: [...], nextCursor: "..." | null }
+}
+
 /**
  * Cria um comentário de texto.
  */
@@ -26,21 +42,14 @@ export async function createComment(content, checkinId, userId) {
 }
 
 /**
- * Adiciona uma reação (Emoji).
+ * Adiciona uma reação (Emoji). Repetir a chamada não duplica a reação.
  */
 export async function addReaction(emoji, checkinId, userId) {
-    const payload = { reactionEmoji: emoji };
-
-    const res = await fetch(`${API_URL}?checkinId=${checkinId}&userId=${userId}`, {
-        method: "POST",
-        headers: { "Content-Type": "application/json" },
-        body: JSON.stringify(payload)
+    const res = await fetch(`${REACTIONS_URL}?checkinId=${checkinId}&userId=${userId}&emoji=${encodeURIComponent(emoji)}`, {
+        method: "POST"
     });
 
-    if (!res.ok) {
-        // Se der erro 409 ou 500, pode ser duplicado, tratamos no front
-        throw new Error("Erro ao reagir.");
-    }
+    if (!res.ok) throw new Error("Erro ao reagir.");
     return res.json();
 }
 
@@ -48,10 +57,44 @@ export async function addReaction(emoji, checkinId, userId) {
  * Remove uma reação.
  */
 export async function removeReaction(emoji, checkinId, userId) {
-    const res = await fetch(`${API_URL}?checkinId=${checkinId}&userId=${userId}&emoji=${emoji}`, {
+    const res = await fetch(`${REACTIONS_URL}?checkinId=${checkinId}&userId=${userId}&emoji=${encodeURIComponent(emoji)}`, {
         method: "DELETE"
     });
 
     if (!res.ok) throw new Error("Erro ao remover reação.");
     return true;
-}
\ No newline at end of file
+}
+
+/**
+ * Busca o total de reações por emoji de um check-in (e os emojis do usuário).
+ * Retorna { counts: { "🔥": 2 }, mine: ["🔥"] }
+ */
+export async function getReactions(checkinId, userId) {
+    let url = `${REACTIONS_URL}?checkinId=${checkinId}`;
+    if (userId) url += `&userId=${userId}`;
+
+    const res = await fetch(url);
+    if (!res.ok) throw new Error("Erro ao carregar reações.");
+    return res.json();
+}
+
+/**
+ * Alterna uma reação: remove se o usuário já reagiu com o emoji, adiciona se não.
+ * Retorna { reacted: true|false } com o estado final.
+ */
+export async function toggleReaction(emoji, checkinId, userId) {
+    const res = await fetch(`${REACTIONS_URL}/toggle?checkinId=${checkinId}&userId=${userId}&emoji=${encodeURIComponent(emoji)}`, {
+        method: "POST"
+    });
+
+    if (!res.ok) throw new Error("Erro ao reagir.");
+    return res.json();
+}
+
+/**
+ * Comentários novos do check-in ao vivo (mesmo formato de getCommentPage).
+ * @returns Função que cancela a inscrição
+ */
+export function subscribeToComments(checkinId, onComment) {
+    return subscribe(`/topic/checkin/${checkinId}/comments`, onComment);
+}
@@ -1,3 +1,5 @@
+import { subscribe } from "./liveService";
+
 const API_URL = "http://localhost:8080/api/groups";
 
 /**
@@ -53,4 +55,34 @@ export async function getGroupById(id) {
     const res = await fetch(`${API_URL}/${id}`);
     if (!res.ok) throw new Error("Grupo não encontrado.");
     return res.json();
+}
+
+/**
+ * Não lidos (chat e feed) de todos os grupos do usuário numa única chamada.
+ * Cada item: { groupId, chatSeq, feedSeq, unreadChat, unreadFeed }
+ */
+export async function getUnreadCounts(userId) {
+    const res = await fetch(`${API_URL}/unread?userId=${userId}`);
+    if (!res.ok) throw new Error("Erro ao buscar não lidos.");
+    return res.json();
+}
+
+/**
+ * Marca o chat ou o feed do grupo (type: "chat" | "feed" | "all") como lido até o contador informado.
+ */
+export async function markGroupRead(groupId, userId, type = "all", seq = null) {
+    let url = `${API_URL}/${groupId}/read?userId=${userId}&type=${type}`;
+    if (seq !== null && type !== "all") url += `&${type}Seq=${seq}`;
+
+    const res = await fetch(url, { method: "POST" });
+    if (!res.ok) throw new Error("Erro ao marcar como lido.");
+    return res.json();
+}
+
+/**
+ * Contadores novos do grupo ({ groupId, chatSeq, feedSeq }) sempre que chegam mensagens ou check-ins.
+ * @returns Função que cancela a inscrição
+ */
+export function subscribeToUnread(groupId, onSequence) {
+    return subscribe(`/topic/group/${groupId}/unread`, onSequence);
 }
\ No newline at end of file
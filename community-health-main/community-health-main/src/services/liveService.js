@@ -0,0 +1,87 @@
+import SockJS from 'sockjs-client';
+import Stomp from 'stompjs';
+
+const BASE_URL = "http://localhost:8080";
+const WS_ENDPOINT = `${BASE_URL}/ws`;
+
+// Uma única conexão STOMP compartilhada pelas atualizações ao vivo (feed, comentários, ranking).
+// O chat continua com a conexão própria em chatService.
+let client = null;
+let connected = false;
+let nextKey = 1;
+const subscriptions = new Map(); // chave -> { destination, onMessage, handle }
+
+function attach(sub) {
+    sub.handle = client.subscribe(sub.destination, (message) => {
+        sub.onMessage(JSON.parse(message.body));
+    });
+}
+
+function ensureConnected() {
+    if (client) return;
+
+    client = Stomp.over(new SockJS(WS_ENDPOINT));
+    client.debug = null;
+
+    client.connect({}, () => {
+        connected = true;
+        subscriptions.forEach(attach);
+    }, (error) => {
+        // Conexão caiu: a próxima inscrição abre outra
+        console.warn("Conexão das atualizações ao vivo encerrada:", error);
+        connected = false;
+        client = null;
+        subscriptions.forEach((sub) => { sub.handle = null; });
+    });
+}
+
+function disconnect() {
+    if (!client) return;
+    try {
+        if (client.connected) {
+            client.disconnect(() => {});
+        } else if (client.ws) {
+            client.ws.close();
+        }
+    } catch (e) {
+        console.warn("Erro ao desconectar as atualizações ao vivo:", e);
+    }
+    client = null;
+    connected = false;
+}
+
+/**
+ * Inscreve no tópico; as mensagens chegam já convertidas de JSON.
+ * @returns Função que cancela a inscrição (a conexão fecha quando não sobra nenhuma)
+ */
+export function subscribe(destination, onMessage) {
+    const key = nextKey++;
+    const sub = { destination, onMessage, handle: null };
+    subscriptions.set(key, sub);
+
+    ensureConnected();
+    if (connected) {
+        attach(sub);
+    }
+
+    return () => {
+        subscriptions.delete(key);
+        if (sub.handle) {
+            try {
+                sub.handle.unsubscribe();
+            } catch (e) {
+                console.warn("Erro ao cancelar inscrição:", e);
+            }
+        }
+        if (subscriptions.size === 0) {
+            disconnect();
+        }
+    };
+}
+
+/**
+ * Indica se as atualizações ao vivo estão chegando (sem conexão, a tela recarrega pelo REST).
+ */
+export function isLiveConnected() {
+    return connected;
+}
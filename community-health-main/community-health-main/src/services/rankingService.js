@@ -0,0 +1,40 @@
+import { subscribe } from './liveService';
+
+const BASE_URL = "http://localhost:8080";
+
+/**
+ * Ranking completo do grupo (RankingDto[], já na ordem), convertido em posições { rank, member }.
+ */
+export async function getRanking(groupId) {
+    const res = await fetch(`${BASE_URL}/api/groups/${groupId}/ranking`);
+    if (!res.ok) {
+        const errorText = await res.text();
+        throw new Error(`Falha ao carregar classificação. Status: ${res.status}. Detalhe: ${errorText.substring(0, 100)}...`);
+    }
+    const ranking = await res.json();
+    return ranking.map((member, index) => ({ rank: index + 1, member }));
+}
+
+/**
+ * Aplica uma mensagem de /topic/group/{id}/ranking às posições atuais.
+ * Só os membros que mudaram vêm na mensagem; o resto continua onde estava.
+ */
+export function applyRankingDelta(positions, delta) {
+    if (delta.full) {
+        return [...delta.moved].sort((a, b) => a.rank - b.rank);
+    }
+
+    const byUser = new Map(positions.map((position) => [position.member.userId, position]));
+    delta.moved.forEach((position) => byUser.set(position.member.userId, position));
+    delta.removed.forEach((userId) => byUser.delete(userId));
+
+    return [...byUser.values()].sort((a, b) => a.rank - b.rank);
+}
+
+/**
+ * Recebe as mudanças do ranking ao vivo (no lugar de consultar o REST de tempos em tempos).
+ * @returns Função que cancela a inscrição
+ */
+export function subscribeToRanking(groupId, onDelta) {
+    return subscribe(`/topic/group/${groupId}/ranking`, onDelta);
+}